@@ -36,6 +36,7 @@ public class AttachmentDataSource implements DataSource {
     private InputStream ins;
     private DelegatingInputStream delegate;
     private String name;
+    private boolean discarded;
     
     public AttachmentDataSource(String ctParam, InputStream inParam) throws IOException {
         this.ct = ctParam;        
@@ -46,7 +47,7 @@ public class AttachmentDataSource implements DataSource {
         return cache != null;
     }
     public void cache(Message message) throws IOException {
-        if (cache == null) {
+        if (cache == null && !discarded) {
             cache = new CachedOutputStream();
             AttachmentUtil.setStreamedAttachmentProperties(message, cache);
             IOUtils.copy(ins, cache);
@@ -58,9 +59,40 @@ public class AttachmentDataSource implements DataSource {
             }
         }
     }
+    /**
+     * Reads the rest of the attachment without caching it, so the stream can move on to the
+     * next part. Reading the attachment afterwards fails if anything had to be skipped.
+     */
+    public void discard() throws IOException {
+        if (cache != null || discarded) {
+            return;
+        }
+        discarded = true;
+        long count = 0;
+        byte[] bytes = new byte[4096];
+        for (int n = ins.read(bytes); n != -1; n = ins.read(bytes)) {
+            count += n;
+        }
+        ins.close();
+        final long skipped = count;
+        ins = new InputStream() {
+            public int read() throws IOException {
+                if (skipped > 0) {
+                    throw new IOException("The attachment was discarded with " + skipped 
+                                          + " bytes unread, as the next attachment was requested");
+                }
+                return -1;
+            }
+        };
+        if (delegate != null) {
+            delegate.setInputStream(ins);
+        }
+    }
     public void hold(Message message) throws IOException {
         cache(message);
-        cache.holdTempFile();
+        if (cache != null) {
+            cache.holdTempFile();
+        }
     }
     public void release() {
         if (cache != null) {
@@ -40,6 +40,7 @@ import org.apache.cxf.helpers.IOUtils;
 import org.apache.cxf.io.CachedOutputStream;
 import org.apache.cxf.message.Attachment;
 import org.apache.cxf.message.Message;
+import org.apache.cxf.message.MessageUtils;
 
 public class AttachmentDeserializer {
 
@@ -49,6 +50,14 @@ public class AttachmentDeserializer {
 
     public static final String ATTACHMENT_MAX_SIZE = "attachment-max-size";
 
+    /**
+     * If true, the attachments are handed to the application as the streams they arrive in.
+     * An attachment that was not read completely when the next one is requested is discarded
+     * instead of being cached, and reading it afterwards fails. The root part is still cached,
+     * as it is usually being parsed while the attachments are requested.
+     */
+    public static final String ATTACHMENT_STREAMING = "attachment-streaming";
+
     public static final int THRESHOLD = 1024 * 100; //100K (byte unit)
 
     private static final Pattern CONTENT_TYPE_BOUNDARY_PATTERN = Pattern.compile("boundary=\"?([^\";]*)");
@@ -60,11 +69,12 @@ public class AttachmentDeserializer {
 
     private boolean lazyLoading = true;
 
-    private int pbAmount = 2048;
+    private int pbAmount = 8192;
     private PushbackInputStream stream;
     private int createCount; 
     private int closedCount;
     private boolean closed;
+    private boolean streaming;
 
     private byte boundary[];
 
@@ -116,6 +126,7 @@ public class AttachmentDeserializer {
                 throw new IOException("Couldn't determine the boundary from the message!");
             }
             boundary = boundaryString.getBytes("utf-8");
+            streaming = MessageUtils.isTrue(message.getContextualProperty(ATTACHMENT_STREAMING));
 
             stream = new PushbackInputStream(message.getContent(InputStream.class),
                                              pbAmount);
@@ -204,7 +215,9 @@ public class AttachmentDeserializer {
             DataSource s = a.getDataHandler().getDataSource();
             if (s instanceof AttachmentDataSource) {
                 AttachmentDataSource ads = (AttachmentDataSource)s;
-                if (!ads.isCached()) {
+                if (streaming) {
+                    ads.discard();
+                } else if (!ads.isCached()) {
                     ads.cache(message);
                 }
             } else if (s.getInputStream() instanceof DelegatingInputStream) {
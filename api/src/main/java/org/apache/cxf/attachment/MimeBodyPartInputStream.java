@@ -23,6 +23,14 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.PushbackInputStream;
 
+/**
+ * The content of a MIME part, up to the next boundary. The data is read from the
+ * stream in blocks of up to pbsize bytes, which are searched for the boundary with the
+ * Boyer-Moore-Horspool algorithm, so most of the bytes are never compared. A CRLF
+ * preceding the boundary is not part of the content. Once the boundary is found, the
+ * bytes read past it are pushed back, so pbsize must not exceed the size of the
+ * pushback buffer of the stream.
+ */
 public class MimeBodyPartInputStream extends InputStream {
 
     PushbackInputStream inStream;
@@ -30,248 +38,179 @@ public class MimeBodyPartInputStream extends InputStream {
     boolean boundaryFound;
     int pbAmount;
     byte[] boundary;
-    byte[] boundaryBuffer;
 
+    private final int[] shifts = new int[256];
+    private byte[] buffer;
+    private int start;
+    private int end;
+    // the boundary does not start before this index, or starts at match
+    private int searched;
+    private int match = -1;
+    private boolean eof;
     private boolean closed;
 
-    public MimeBodyPartInputStream(PushbackInputStream inStreamParam, 
+    public MimeBodyPartInputStream(PushbackInputStream inStreamParam,
                                    byte[] boundaryParam,
                                    int pbsize) {
         super();
         this.inStream = inStreamParam;
         this.boundary = boundaryParam;
         this.pbAmount = pbsize;
+
+        int last = boundary.length - 1;
+        for (int i = 0; i < shifts.length; i++) {
+            shifts[i] = boundary.length;
+        }
+        for (int i = 0; i < last; i++) {
+            shifts[boundary[i] & 0xff] = last - i;
+        }
     }
 
-    public int read(byte buf[], int origOff, int origLen) throws IOException {
-        byte b[] = buf;
-        int off = origOff;
-        int len = origLen;
+    public int read(byte buf[], int off, int len) throws IOException {
         if (boundaryFound || closed) {
             return -1;
         }
-        if ((off < 0) || (off > b.length) || (len < 0) 
-            || ((off + len) > b.length) || ((off + len) < 0)) {
+        if ((off < 0) || (off > buf.length) || (len < 0)
+            || ((off + len) > buf.length) || ((off + len) < 0)) {
 
             throw new IndexOutOfBoundsException();
         }
         if (len == 0) {
             return 0;
         }
-        boolean bufferCreated = false;
-        if (len < boundary.length * 2) {
-            //buffer is too short to detect boundaries with it.  We'll need to create a larger buffer   
-            bufferCreated = true;
-            if (boundaryBuffer == null) {
-                boundaryBuffer = new byte[boundary.length * 2];
-            }
-            b = boundaryBuffer;
-            off = 0;
-            len = boundaryBuffer.length;
-        }
-        if (len > pbAmount) {
-            len = pbAmount;  //can only pushback that much so make sure we can
-        }
-        int read = 0;
-        int idx = 0;
-        while (read >= 0 && idx < len && idx < (boundary.length * 2)) {
-            //make sure we read enough to detect the boundary
-            read = inStream.read(b, off + idx, len - idx);
-            if (read != -1) {
-                idx += read;
-            }
-        }
-        if (read == -1 && idx == 0) {
-            return -1;
-        }
-        len = idx;
-        
-        int i = processBuffer(b, off, len);
-        if (bufferCreated && i > 0) {
-            // read more than we need, push it back
-            if (origLen >= i) {
-                System.arraycopy(b, 0, buf, origOff, i);
-            } else {
-                System.arraycopy(b, 0, buf, origOff, origLen);
-                inStream.unread(b, origLen, i - origLen);
-                i = origLen;
-            }
-        } else if (i == 0 && boundaryFound) {
+        int avail = fillIfNeeded();
+        if (avail == -1) {
             return -1;
         }
-        
-        return i;
+        int n = Math.min(avail, len);
+        System.arraycopy(buffer, start, buf, off, n);
+        start += n;
+        return n;
     }
 
-    //Has Data after encountering CRLF
-    private boolean hasData(byte[] b, int initialPointer, int pointer, int off, int len)
-        throws IOException {
-        if (pointer < (off + len)) {
-            return true;
-        } else if (pointer >= 1000000000) {
-            inStream.unread(b, initialPointer, (off + len) - initialPointer);
-            return false;            
-        } else {
-            int x = inStream.read();
-            if (x != -1) {
-                inStream.unread(x);
-                inStream.unread(b, initialPointer, (off + len) - initialPointer);
-                return false;
-            }
-            return true;
+    public int read() throws IOException {
+        if (boundaryFound || closed || fillIfNeeded() == -1) {
+            return -1;
         }
+        return buffer[start++] & 0xff;
     }
 
-    protected int processBuffer(byte[] buffer, int off, int len) throws IOException {
-        for (int i = off; i < (off + len); i++) {
-            boolean needUnread0d0a = false;
-            int value = buffer[i];
-            int initialI = i;
-            if (value == 13) {
-                if (!hasData(buffer, initialI, initialI + 1, off, len)) {
-                    return initialI - off;
-                }
-                value = buffer[initialI + 1];
-                if (value != 10) {
-                    continue;
-                } else {  //if it comes here then 13, 10 are values and will try to match boundaries
-                    if (!hasData(buffer, initialI, initialI + 2, off, len)) {
-                        return initialI - off;
-                    }
-                    value = buffer[initialI + 2];
-                    if ((byte) value != boundary[0]) {
-                        i++;
-                        continue;
-                    } else { //13, 10, boundaries first value matched
-                        needUnread0d0a = true;
-                        i += 2; //i after this points to boundary[0] element
-                    }
-                }
-            } else if (value != boundary[0]) {
-                continue;
-            }
-
-            int boundaryIndex = 0;
-            while ((boundaryIndex < boundary.length) && (value == boundary[boundaryIndex])) {
-                if (!hasData(buffer, initialI, i + 1, off, len)) {
-                    return initialI - off;
-                }                
-                value = buffer[++i];
-                boundaryIndex++;
-            }
-            if (boundaryIndex == boundary.length) {
-                // read the end of line character
-                if (initialI != off) {
-                    i = 1000000000;
-                }
-                if (initialI - off != 0 
-                    && !hasData(buffer, initialI, i + 1, off, len)) {
-                    return initialI - off;
-                }
-                boundaryFound = true;
-                int j = i + 1;
-                if (j < len && buffer[j] == 45 && value == 45) {
-                    // Last mime boundary should have a succeeding "--"
-                    // as we are on it, read the terminating CRLF
-                    i += 2;
-                    //last mime boundary
-                }
-
-                //boundary matched (may or may not be last mime boundary)
-                int processed = initialI - off;
-                if ((len - ((i - off) + 2)) > 0) {
-                    inStream.unread(buffer, i + 2, len - (i + 2) + off);
-                }
-                return processed;
+    /**
+     * @return the number of content bytes in the buffer, reading more if there are none, 
+     * or -1 at the end of the content
+     */
+    private int fillIfNeeded() throws IOException {
+        while (true) {
+            int avail = scan();
+            if (avail > 0) {
+                return avail;
             }
-
-            // Boundary not found. Restoring bytes skipped.
-            // write first skipped byte, push back the rest
-            if (value != -1) { //pushing back first byte of boundary
-                // Stream might have ended
-                i--;
+            if (match >= 0) {
+                readBoundary();
+                return -1;
             }
-            if (needUnread0d0a) { //Pushing all,  returning 13
-                i = i - boundaryIndex;
-                i--; //for 10
-                value = 13;
-            } else {
-                i = i - boundaryIndex;
-                i++;
-                value = boundary[0];
+            if (eof) {
+                return -1;
             }
+            fill();
         }
-        return len;
     }
 
-    public int read() throws IOException {
-        boolean needUnread0d0a = false;
-        if (boundaryFound) {
-            return -1;
+    @Override
+    public int available() throws IOException {
+        return boundaryFound || closed ? 0 : scan();
+    }
+
+    /**
+     * Searches the unsearched part of the buffer for the boundary.
+     * @return the number of bytes from start that are content for sure
+     */
+    private int scan() {
+        if (buffer == null) {
+            return 0;
+        }
+        if (match < 0) {
+            match = indexOfBoundary(Math.max(start, searched), end);
+        }
+        if (match >= 0) {
+            int contentEnd = match;
+            if (match - start >= 2 && buffer[match - 2] == 13 && buffer[match - 1] == 10) {
+                contentEnd = match - 2;
+            }
+            return contentEnd - start;
         }
+        if (eof) {
+            return end - start;
+        }
+        // keep the bytes that may be the start of the boundary and the CRLF preceding it
+        return Math.max(0, searched - 2 - start);
+    }
 
-        // read the next value from stream
-        int value = inStream.read();
-        // A problem occurred because all the mime parts tends to have a /r/n
-        // at the end. Making it hard to transform them to correct
-        // DataSources.
-        // This logic introduced to handle it
-        if (value == 13) {
-            value = inStream.read();
-            if (value != 10) {
-                inStream.unread(value);
-                return 13;
-            } else {
-                value = inStream.read();
-                if ((byte) value != boundary[0]) {
-                    inStream.unread(value);
-                    inStream.unread(10);
-                    return 13;
-                } else {
-                    needUnread0d0a = true;
+    private int indexOfBoundary(int from, int to) {
+        int last = boundary.length - 1;
+        int i = from;
+        while (i + last < to) {
+            int j = last;
+            while (buffer[i + j] == boundary[j]) {
+                if (j == 0) {
+                    return i;
                 }
+                j--;
             }
-        } else if ((byte) value != boundary[0]) {
-            return value;
-        }
-        // read value is the first byte of the boundary. Start matching the
-        // next characters to find a boundary
-        int boundaryIndex = 0;
-        while ((boundaryIndex < boundary.length) && ((byte) value == boundary[boundaryIndex])) {
-            value = inStream.read();
-            boundaryIndex++;
+            i += shifts[buffer[i + last] & 0xff];
         }
-        if (boundaryIndex == boundary.length) {
-            // boundary found
-            boundaryFound = true;
-            int dashNext = inStream.read();
-            // read the end of line character
-            if (dashNext == 45 && value == 45) {
-                // Last mime boundary should have a succeeding "--"
-                // as we are on it, read the terminating CRLF
-                inStream.read();
-                inStream.read();
+        searched = i;
+        return -1;
+    }
+
+    private void fill() throws IOException {
+        if (buffer == null) {
+            buffer = new byte[pbAmount];
+        } else if (start > 0) {
+            System.arraycopy(buffer, start, buffer, 0, end - start);
+            end -= start;
+            searched = Math.max(0, searched - start);
+            if (match >= 0) {
+                match -= start;
             }
-            return -1;
+            start = 0;
         }
-        // Boundary not found. Restoring bytes skipped.
-        // write first skipped byte, push back the rest
-        if (value != -1) {
-            // Stream might have ended
-            inStream.unread(value);
+        int n = inStream.read(buffer, end, buffer.length - end);
+        if (n == -1) {
+            eof = true;
+        } else {
+            end += n;
         }
-        if (needUnread0d0a) {
-            inStream.unread(boundary, 0, boundaryIndex);
-            inStream.unread(10);
-            value = 13;
+    }
+
+    /**
+     * Skips the boundary and the two bytes following it, the line end or the "--" of the
+     * last boundary, in which case the line end after it is skipped as well. The rest is
+     * pushed back for the next part.
+     */
+    private void readBoundary() throws IOException {
+        while (!eof && end - match < boundary.length + 4) {
+            fill();
+        }
+        int pos = match + boundary.length;
+        if (pos + 1 < end && buffer[pos] == 45 && buffer[pos + 1] == 45) {
+            pos += 4;
         } else {
-            inStream.unread(boundary, 1, boundaryIndex - 1);                
-            value = boundary[0];
+            pos += 2;
         }
-        return value;
+        if (pos < end) {
+            inStream.unread(buffer, pos, end - pos);
+        }
+        boundaryFound = true;
+        buffer = null;
     }
-    
+
     public void close() throws IOException {
+        if (!closed && !boundaryFound && buffer != null && start < end) {
+            // the rest of the part is left in the stream, as it is when nothing was read
+            inStream.unread(buffer, start, end - start);
+        }
+        buffer = null;
         this.closed = true;
     }
 }
@@ -0,0 +1,231 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.common.jaxb;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.JAXBException;
+import javax.xml.bind.Marshaller;
+import javax.xml.bind.Unmarshaller;
+import javax.xml.bind.ValidationEventHandler;
+import javax.xml.bind.attachment.AttachmentMarshaller;
+import javax.xml.bind.attachment.AttachmentUnmarshaller;
+import javax.xml.validation.Schema;
+
+/**
+ * A bounded pool of the Marshallers and Unmarshallers of one JAXBContext.
+ *
+ * A released instance is put back in the state it was created in: the listener, event
+ * handler, schema and attachment (un)marshaller as well as the standard JAXB and the
+ * JAXB RI marshaller properties are restored.  If that is not possible, for example
+ * because the RI does not allow the namespace prefix mapper to be unset, the instance
+ * is dropped.  Other properties are not tracked, so they must be set to the same value
+ * each time an instance is acquired, which is why a pool belongs to one user, such as
+ * a data binding or a provider, rather than being shared by everything that uses the
+ * context.
+ */
+public class JAXBMarshallerPool {
+    public static final int DEFAULT_MAX_SIZE = 16;
+
+    private static final String[] RI_PREFIXES = {"com.sun.xml.bind.", "com.sun.xml.internal.bind."};
+    private static final String[] RI_PROPERTIES = {
+        "namespacePrefixMapper", "xmlHeaders", "indentString", "characterEscapeHandler",
+        "xmlDeclaration", "c14n", "objectIdentitityCycleDetection"
+    };
+    private static final String[] MARSHALLER_PROPERTIES;
+    static {
+        List<String> names = new ArrayList<String>();
+        names.add(Marshaller.JAXB_ENCODING);
+        names.add(Marshaller.JAXB_FORMATTED_OUTPUT);
+        names.add(Marshaller.JAXB_FRAGMENT);
+        names.add(Marshaller.JAXB_SCHEMA_LOCATION);
+        names.add(Marshaller.JAXB_NO_NAMESPACE_SCHEMA_LOCATION);
+        for (String prefix : RI_PREFIXES) {
+            for (String name : RI_PROPERTIES) {
+                names.add(prefix + name);
+            }
+        }
+        MARSHALLER_PROPERTIES = names.toArray(new String[names.size()]);
+    }
+
+    private final JAXBContext context;
+    private final BlockingQueue<Marshaller> marshallers;
+    private final BlockingQueue<Unmarshaller> unmarshallers;
+    private volatile MarshallerDefaults marshallerDefaults;
+    private volatile UnmarshallerDefaults unmarshallerDefaults;
+
+    public JAXBMarshallerPool(JAXBContext context) {
+        this(context, DEFAULT_MAX_SIZE);
+    }
+
+    /**
+     * @param context the context to create the instances with
+     * @param maxSize the number of idle instances of each kind that are kept, 0
+     * disables the pooling
+     */
+    public JAXBMarshallerPool(JAXBContext context, int maxSize) {
+        this.context = context;
+        if (maxSize > 0) {
+            marshallers = new ArrayBlockingQueue<Marshaller>(maxSize);
+            unmarshallers = new ArrayBlockingQueue<Unmarshaller>(maxSize);
+        } else {
+            marshallers = null;
+            unmarshallers = null;
+        }
+    }
+
+    public JAXBContext getContext() {
+        return context;
+    }
+
+    /**
+     * @return an idle Marshaller, or a new one if there are none
+     */
+    public Marshaller acquireMarshaller() throws JAXBException {
+        Marshaller m = marshallers == null ? null : marshallers.poll();
+        if (m == null) {
+            m = context.createMarshaller();
+            if (marshallerDefaults == null && marshallers != null) {
+                marshallerDefaults = new MarshallerDefaults(m);
+            }
+        }
+        return m;
+    }
+
+    /**
+     * Returns a Marshaller acquired from this pool once it is no longer used.  Instances
+     * that were not used successfully should not be released, as they may be left in
+     * the middle of a document.
+     */
+    public void releaseMarshaller(Marshaller m) {
+        MarshallerDefaults defaults = marshallerDefaults;
+        if (m != null && defaults != null && defaults.restore(m)) {
+            marshallers.offer(m);
+        }
+    }
+
+    /**
+     * @return an idle Unmarshaller, or a new one if there are none
+     */
+    public Unmarshaller acquireUnmarshaller() throws JAXBException {
+        Unmarshaller u = unmarshallers == null ? null : unmarshallers.poll();
+        if (u == null) {
+            u = context.createUnmarshaller();
+            if (unmarshallerDefaults == null && unmarshallers != null) {
+                unmarshallerDefaults = new UnmarshallerDefaults(u);
+            }
+        }
+        return u;
+    }
+
+    /**
+     * Returns an Unmarshaller acquired from this pool once it is no longer used.
+     */
+    public void releaseUnmarshaller(Unmarshaller u) {
+        UnmarshallerDefaults defaults = unmarshallerDefaults;
+        if (u != null && defaults != null && defaults.restore(u)) {
+            unmarshallers.offer(u);
+        }
+    }
+
+    private static boolean same(Object o1, Object o2) {
+        return o1 == o2 || o1 != null && o1.equals(o2);
+    }
+
+    private static final class MarshallerDefaults {
+        final Marshaller.Listener listener;
+        final ValidationEventHandler eventHandler;
+        final Schema schema;
+        final AttachmentMarshaller attachmentMarshaller;
+        final String names[];
+        final Object values[];
+
+        MarshallerDefaults(Marshaller m) throws JAXBException {
+            listener = m.getListener();
+            // the RI uses the marshaller itself as the default handler
+            eventHandler = m.getEventHandler() == m ? null : m.getEventHandler();
+            schema = m.getSchema();
+            attachmentMarshaller = m.getAttachmentMarshaller();
+            List<String> n = new ArrayList<String>();
+            List<Object> v = new ArrayList<Object>();
+            for (String name : MARSHALLER_PROPERTIES) {
+                try {
+                    v.add(m.getProperty(name));
+                    n.add(name);
+                } catch (JAXBException ex) {
+                    // not supported by this implementation
+                }
+            }
+            names = n.toArray(new String[n.size()]);
+            values = v.toArray();
+        }
+
+        boolean restore(Marshaller m) {
+            try {
+                m.setListener(listener);
+                m.setEventHandler(eventHandler);
+                m.setSchema(schema);
+                m.setAttachmentMarshaller(attachmentMarshaller);
+                for (int x = 0; x < names.length; x++) {
+                    if (!same(m.getProperty(names[x]), values[x])) {
+                        m.setProperty(names[x], values[x]);
+                    }
+                }
+                return true;
+            } catch (JAXBException ex) {
+                return false;
+            } catch (RuntimeException ex) {
+                return false;
+            }
+        }
+    }
+
+    private static final class UnmarshallerDefaults {
+        final Unmarshaller.Listener listener;
+        final ValidationEventHandler eventHandler;
+        final Schema schema;
+        final AttachmentUnmarshaller attachmentUnmarshaller;
+
+        UnmarshallerDefaults(Unmarshaller u) throws JAXBException {
+            listener = u.getListener();
+            eventHandler = u.getEventHandler() == u ? null : u.getEventHandler();
+            schema = u.getSchema();
+            attachmentUnmarshaller = u.getAttachmentUnmarshaller();
+        }
+
+        boolean restore(Unmarshaller u) {
+            try {
+                u.setListener(listener);
+                u.setEventHandler(eventHandler);
+                u.setSchema(schema);
+                u.setAttachmentUnmarshaller(attachmentUnmarshaller);
+                return true;
+            } catch (JAXBException ex) {
+                return false;
+            } catch (RuntimeException ex) {
+                return false;
+            }
+        }
+    }
+}
@@ -126,6 +126,7 @@ public class ASMHelper {
         public static int IFNONNULL = 0;
         public static int SIPUSH = 0;
         public static int INVOKESTATIC = 0;
+        public static int IF_ICMPNE = 0;
         //CHECKSTYLE:ON
         static {
             try {
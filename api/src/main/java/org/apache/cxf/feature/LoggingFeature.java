@@ -51,6 +51,7 @@ public class LoggingFeature extends AbstractFeature {
     String outLocation;
     boolean prettyLogging;
     boolean showBinary;
+    boolean asynchronous;
     
     int limit = DEFAULT_LIMIT;
 
@@ -93,7 +94,7 @@ public class LoggingFeature extends AbstractFeature {
     @Override
     protected void initializeProvider(InterceptorProvider provider, Bus bus) {
         if (limit == DEFAULT_LIMIT && inLocation == null 
-            && outLocation == null && !prettyLogging) {
+            && outLocation == null && !prettyLogging && !asynchronous) {
             provider.getInInterceptors().add(IN);
             provider.getInFaultInterceptors().add(IN);
             provider.getOutInterceptors().add(OUT);
@@ -103,10 +104,12 @@ public class LoggingFeature extends AbstractFeature {
             in.setOutputLocation(inLocation);
             in.setPrettyLogging(prettyLogging);
             in.setShowBinaryContent(showBinary);
+            in.setAsynchronous(asynchronous);
             LoggingOutInterceptor out = new LoggingOutInterceptor(limit);
             out.setOutputLocation(outLocation);
             out.setPrettyLogging(prettyLogging);
             out.setShowBinaryContent(showBinary);
+            out.setAsynchronous(asynchronous);
             
             provider.getInInterceptors().add(in);
             provider.getInFaultInterceptors().add(in);
@@ -144,4 +147,16 @@ public class LoggingFeature extends AbstractFeature {
     public void setPrettyLogging(boolean prettyLogging) {
         this.prettyLogging = prettyLogging;
     }    
+    
+    public boolean isAsynchronous() {
+        return asynchronous;
+    }
+    /**
+     * Log only up to limit bytes of each message, without buffering it,
+     * and format and write the log entries on a background thread
+     * @param asynchronous
+     */
+    public void setAsynchronous(boolean asynchronous) {
+        this.asynchronous = asynchronous;
+    }
 }
@@ -18,6 +18,7 @@
  */
 package org.apache.cxf.interceptor;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.FileWriter;
 import java.io.PrintWriter;
@@ -26,23 +27,32 @@ import java.io.StringWriter;
 import java.net.URI;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.logging.Level;
 import java.util.logging.LogRecord;
 import java.util.logging.Logger;
 
 import javax.xml.transform.OutputKeys;
+import javax.xml.transform.Source;
 import javax.xml.transform.Transformer;
 import javax.xml.transform.stream.StreamResult;
 import javax.xml.transform.stream.StreamSource;
 
+import org.apache.cxf.Bus;
 import org.apache.cxf.common.logging.LogUtils;
 import org.apache.cxf.common.util.StringUtils;
+import org.apache.cxf.helpers.IOUtils;
 import org.apache.cxf.helpers.XMLUtils;
 import org.apache.cxf.io.CachedOutputStream;
+import org.apache.cxf.message.Exchange;
 import org.apache.cxf.message.Message;
 import org.apache.cxf.phase.AbstractPhaseInterceptor;
 import org.apache.cxf.service.model.EndpointInfo;
 import org.apache.cxf.service.model.InterfaceInfo;
+import org.apache.cxf.workqueue.AutomaticWorkQueue;
+import org.apache.cxf.workqueue.AutomaticWorkQueueImpl;
+import org.apache.cxf.workqueue.WorkQueueManager;
 
 /**
  * A simple logging handler which outputs the bytes of the message to the
@@ -51,6 +61,15 @@ import org.apache.cxf.service.model.InterfaceInfo;
 public abstract class AbstractLoggingInterceptor extends AbstractPhaseInterceptor<Message> {
     
     protected static final String BINARY_CONTENT_MESSAGE = "--- Binary Content ---";
+    /**
+     * The largest head of the payload kept for logging, some VMs can not allocate arrays
+     * of up to Integer.MAX_VALUE elements.
+     */
+    static final int MAX_HEAD_SIZE = Integer.MAX_VALUE - 8;
+    /**
+     * The name of the work queue of the bus which writes the log entries in asynchronous mode.
+     */
+    static final String LOG_QUEUE_NAME = "logging";
     private static final List<String> BINARY_CONTENT_MEDIA_TYPES;
     static {
         BINARY_CONTENT_MEDIA_TYPES = new ArrayList<String>();
@@ -64,7 +83,10 @@ public abstract class AbstractLoggingInterceptor extends AbstractPhaseIntercepto
     protected long threshold = -1;
     protected PrintWriter writer;
     protected boolean prettyLogging;
+    protected int queueSize = 1000;
     private boolean showBinaryContent;
+    private boolean asynchronous;
+    private final AtomicLong droppedMessages = new AtomicLong();
     
     public AbstractLoggingInterceptor(String phase) {
         super(phase);
@@ -136,6 +158,76 @@ public abstract class AbstractLoggingInterceptor extends AbstractPhaseIntercepto
         return prettyLogging;
     }
 
+    /**
+     * In asynchronous mode the message is not buffered, only the first limit bytes
+     * of the payload are kept for the log, and the log entries are formatted and 
+     * written by the "logging" work queue of the bus.  Unless the queue is configured, 
+     * the first interceptor that needs it adds one with a single thread, so the entries 
+     * are written in order, and room for queueSize entries.  When the queue is full, new 
+     * entries are dropped rather than slowing down the messages.  The queue is shut down 
+     * with the bus.  Messages without a bus are logged on the calling thread.
+     */
+    public void setAsynchronous(boolean flag) {
+        asynchronous = flag;
+    }
+    
+    public boolean isAsynchronous() {
+        return asynchronous;
+    }
+    
+    public void setQueueSize(int size) {
+        queueSize = size;
+    }
+    
+    public int getQueueSize() {
+        return queueSize;
+    }
+    
+    /**
+     * The number of log entries dropped in asynchronous mode because the queue was full.
+     */
+    public long getDroppedMessages() {
+        return droppedMessages.get();
+    }
+
+    /**
+     * Runs the task, which formats and writes a log entry, on the logging work queue of 
+     * the bus of the message in asynchronous mode and on the calling thread otherwise.
+     */
+    protected void executeLogging(Message message, Runnable task) {
+        AutomaticWorkQueue queue = asynchronous ? getLogQueue(message) : null;
+        if (queue == null || queue.isShutdown()) {
+            task.run();
+            return;
+        }
+        try {
+            queue.execute(task);
+        } catch (RejectedExecutionException ex) {
+            droppedMessages.incrementAndGet();
+        }
+    }
+    
+    private AutomaticWorkQueue getLogQueue(Message message) {
+        Exchange exchange = message.getExchange();
+        Bus bus = exchange == null ? null : exchange.getBus();
+        WorkQueueManager manager = bus == null ? null : bus.getExtension(WorkQueueManager.class);
+        if (manager == null) {
+            return null;
+        }
+        AutomaticWorkQueue queue = manager.getNamedWorkQueue(LOG_QUEUE_NAME);
+        if (queue == null) {
+            synchronized (manager) {
+                queue = manager.getNamedWorkQueue(LOG_QUEUE_NAME);
+                if (queue == null) {
+                    // a single thread so the entries are written in order
+                    queue = new AutomaticWorkQueueImpl(queueSize, 0, 1, 0, 60 * 1000L, LOG_QUEUE_NAME);
+                    manager.addNamedWorkQueue(LOG_QUEUE_NAME, queue);
+                }
+            }
+        }
+        return queue;
+    }
+
     public void setInMemThreshold(long t) {
         threshold = t;
     }
@@ -150,20 +242,7 @@ public abstract class AbstractLoggingInterceptor extends AbstractPhaseIntercepto
         // Just transform the XML message when the cos has content
         if (isPrettyLogging() && (contentType != null && contentType.indexOf("xml") >= 0 
             && contentType.toLowerCase().indexOf("multipart/related") < 0) && cos.size() > 0) {
-            Transformer serializer = XMLUtils.newTransformer(2);
-            // Setup indenting to "pretty print"
-            serializer.setOutputProperty(OutputKeys.INDENT, "yes");
-            serializer.setOutputProperty("{http://xml.apache.org/xslt}indent-amount", "2");
-
-            StringWriter swriter = new StringWriter();
-            serializer.transform(new StreamSource(cos.getInputStream()), new StreamResult(swriter));
-            String result = swriter.toString();
-            if (result.length() < limit || limit == -1) {
-                builder.append(swriter.toString());
-            } else {
-                builder.append(swriter.toString().substring(0, limit));
-            }
-
+            writePrettyPayload(builder, new StreamSource(cos.getInputStream()));
         } else {
             if (StringUtils.isEmpty(encoding)) {
                 cos.writeCacheTo(builder, limit);
@@ -182,21 +261,8 @@ public abstract class AbstractLoggingInterceptor extends AbstractPhaseIntercepto
             && contentType != null 
             && contentType.indexOf("xml") >= 0 
             && stringWriter.getBuffer().length() > 0) {
-            Transformer serializer = XMLUtils.newTransformer(2);
-            // Setup indenting to "pretty print"
-            serializer.setOutputProperty(OutputKeys.INDENT, "yes");
-            serializer.setOutputProperty("{http://xml.apache.org/xslt}indent-amount", "2");
-
-            StringWriter swriter = new StringWriter();
-            serializer.transform(new StreamSource(new StringReader(stringWriter.getBuffer().toString())),
-                                 new StreamResult(swriter));
-            String result = swriter.toString();
-            if (result.length() < limit || limit == -1) {
-                builder.append(swriter.toString());
-            } else {
-                builder.append(swriter.toString().substring(0, limit));
-            }
-
+            writePrettyPayload(builder, 
+                               new StreamSource(new StringReader(stringWriter.getBuffer().toString())));
         } else {
             StringBuffer buffer = stringWriter.getBuffer();
             if (buffer.length() > limit) {
@@ -206,6 +272,39 @@ public abstract class AbstractLoggingInterceptor extends AbstractPhaseIntercepto
             }
         }
     }
+    
+    /**
+     * Writes the first length bytes of a payload captured in asynchronous mode.
+     * A truncated payload is not pretty printed as it is not well formed.
+     */
+    protected void writePayload(StringBuilder builder, byte[] payload, int length, boolean truncated,
+                                String encoding, String contentType) 
+        throws Exception {
+        if (isPrettyLogging() && !truncated && (contentType != null && contentType.indexOf("xml") >= 0 
+            && contentType.toLowerCase().indexOf("multipart/related") < 0) && length > 0) {
+            writePrettyPayload(builder, new StreamSource(new ByteArrayInputStream(payload, 0, length)));
+        } else {
+            builder.append(IOUtils.newStringFromBytes(payload, 
+                                                      StringUtils.isEmpty(encoding) ? "UTF-8" : encoding,
+                                                      0, length));
+        }
+    }
+    
+    private void writePrettyPayload(StringBuilder builder, Source source) throws Exception {
+        Transformer serializer = XMLUtils.newTransformer(2);
+        // Setup indenting to "pretty print"
+        serializer.setOutputProperty(OutputKeys.INDENT, "yes");
+        serializer.setOutputProperty("{http://xml.apache.org/xslt}indent-amount", "2");
+
+        StringWriter swriter = new StringWriter();
+        serializer.transform(source, new StreamResult(swriter));
+        String result = swriter.toString();
+        if (result.length() < limit || limit == -1) {
+            builder.append(result);
+        } else {
+            builder.append(result.substring(0, limit));
+        }
+    }
 
 
     /**
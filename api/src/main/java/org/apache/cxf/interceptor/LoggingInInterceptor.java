@@ -19,9 +19,13 @@
 package org.apache.cxf.interceptor;
 
 import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.PrintWriter;
 import java.io.Reader;
+import java.io.SequenceInputStream;
+import java.util.Arrays;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import org.apache.cxf.common.injection.NoJSR250Annotations;
@@ -130,7 +134,10 @@ public class LoggingInInterceptor extends AbstractLoggingInterceptor {
         }
         
         InputStream is = message.getContent(InputStream.class);
-        if (is != null) {
+        if (is != null && isAsynchronous() && limit >= 0) {
+            logPayloadHead(logger, message, buffer, is, encoding, ct);
+            return;
+        } else if (is != null) {
             CachedOutputStream bos = new CachedOutputStream();
             if (threshold > 0) {
                 bos.setThreshold(threshold);
@@ -175,6 +182,52 @@ public class LoggingInInterceptor extends AbstractLoggingInterceptor {
         }
         log(logger, formatLoggingMessage(buffer));
     }
+    
+    /**
+     * Reads no more than limit bytes of the payload (plus one to tell whether it is 
+     * truncated) and streams the rest of the message through without buffering it.
+     * The payload is formatted and logged by the logging thread.
+     */
+    private void logPayloadHead(final Logger logger, Message message, final LoggingMessage buffer,
+                                InputStream is, final String encoding, final String ct) {
+        // limit + 1 overflows for Integer.MAX_VALUE, and no array can be that large anyway
+        final int headLimit = (int)Math.min((long)limit + 1, MAX_HEAD_SIZE);
+        byte[] head = new byte[Math.min(headLimit, 4096)];
+        int length = 0;
+        try {
+            int n = 0;
+            while (n != -1 && length < headLimit) {
+                if (length == head.length) {
+                    head = Arrays.copyOf(head, (int)Math.min(head.length * 2L, headLimit));
+                }
+                n = is.read(head, length, head.length - length);
+                if (n > 0) {
+                    length += n;
+                }
+            }
+        } catch (IOException e) {
+            throw new Fault(e);
+        }
+        message.setContent(InputStream.class, 
+                           new SequenceInputStream(new ByteArrayInputStream(head, 0, length), is));
+        
+        final boolean truncated = length > limit;
+        if (truncated) {
+            buffer.getMessage().append("(message truncated to " + limit + " bytes)\n");
+        }
+        final byte[] payload = head;
+        final int payloadLength = Math.min(length, limit);
+        executeLogging(message, new Runnable() {
+            public void run() {
+                try {
+                    writePayload(buffer.getPayload(), payload, payloadLength, truncated, encoding, ct);
+                } catch (Exception ex) {
+                    //ignore
+                }
+                log(logger, formatLoggingMessage(buffer));
+            }
+        });
+    }
 
 
     protected String formatLoggingMessage(LoggingMessage loggingMessage) {
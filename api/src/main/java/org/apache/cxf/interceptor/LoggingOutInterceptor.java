@@ -20,12 +20,14 @@
 package org.apache.cxf.interceptor;
 
 
+import java.io.FilterOutputStream;
 import java.io.FilterWriter;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.io.PrintWriter;
 import java.io.StringWriter;
 import java.io.Writer;
+import java.util.Arrays;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import org.apache.cxf.common.injection.NoJSR250Annotations;
@@ -75,7 +77,9 @@ public class LoggingOutInterceptor extends AbstractLoggingInterceptor {
             boolean hasLogged = message.containsKey(LOG_SETUP);
             if (!hasLogged) {
                 message.put(LOG_SETUP, Boolean.TRUE);
-                if (os != null) {
+                if (os != null && isAsynchronous() && limit >= 0) {
+                    message.setContent(OutputStream.class, new LoggingOutputStream(logger, message, os));
+                } else if (os != null) {
                     final CacheAndWriteOutputStream newOut = new CacheAndWriteOutputStream(os);
                     if (threshold > 0) {
                         newOut.setThreshold(threshold);
@@ -163,7 +167,7 @@ public class LoggingOutInterceptor extends AbstractLoggingInterceptor {
             count += len;
         }
         public void close() throws IOException {
-            LoggingMessage buffer = setupBuffer(message);
+            final LoggingMessage buffer = setupBuffer(message);
             if (count >= limit) {
                 buffer.getMessage().append("(message truncated to " + limit + " bytes)\n");
             }
@@ -171,18 +175,105 @@ public class LoggingOutInterceptor extends AbstractLoggingInterceptor {
             if (w2 == null) {
                 w2 = (StringWriter)out;
             }
-            String ct = (String)message.get(Message.CONTENT_TYPE);
-            try {
-                writePayload(buffer.getPayload(), w2, ct); 
-            } catch (Exception ex) {
-                //ignore
-            }
-            log(logger, buffer.toString());
+            final StringWriter payload = w2;
+            final String ct = (String)message.get(Message.CONTENT_TYPE);
+            executeLogging(message, new Runnable() {
+                public void run() {
+                    try {
+                        writePayload(buffer.getPayload(), payload, ct); 
+                    } catch (Exception ex) {
+                        //ignore
+                    }
+                    log(logger, buffer.toString());
+                }
+            });
             message.setContent(Writer.class, out);
             super.close();
         }
     }
 
+    /**
+     * Writes through to the original stream and keeps only the first limit bytes
+     * (plus one to tell whether the payload is truncated) for the log.
+     */
+    private class LoggingOutputStream extends FilterOutputStream {
+        private final Logger logger; //NOPMD
+        private final Message message;
+        // limit + 1 overflows for Integer.MAX_VALUE, and no array can be that large anyway
+        private final int headLimit = (int)Math.min((long)limit + 1, MAX_HEAD_SIZE);
+        private byte[] head = new byte[Math.min(headLimit, 4096)];
+        private int length;
+        private boolean closed;
+        
+        LoggingOutputStream(Logger logger, Message message, OutputStream os) {
+            super(os);
+            this.logger = logger;
+            this.message = message;
+        }
+        
+        public void write(int b) throws IOException {
+            out.write(b);
+            if (length < headLimit) {
+                ensureCapacity(length + 1);
+                head[length++] = (byte)b;
+            }
+        }
+        
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            int n = Math.min(len, headLimit - length);
+            if (n > 0) {
+                ensureCapacity(length + n);
+                System.arraycopy(b, off, head, length, n);
+                length += n;
+            }
+        }
+        
+        private void ensureCapacity(int size) {
+            if (size > head.length) {
+                head = Arrays.copyOf(head, (int)Math.min(Math.max(head.length * 2L, size), headLimit));
+            }
+        }
+        
+        public void close() throws IOException {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            super.close();
+            
+            final LoggingMessage buffer = setupBuffer(message);
+            final String ct = (String)message.get(Message.CONTENT_TYPE);
+            message.setContent(OutputStream.class, out);
+            if (!isShowBinaryContent() && isBinaryContent(ct)) {
+                buffer.getMessage().append(BINARY_CONTENT_MESSAGE).append('\n');
+                executeLogging(message, new Runnable() {
+                    public void run() {
+                        log(logger, formatLoggingMessage(buffer));
+                    }
+                });
+                return;
+            }
+            final boolean truncated = length > limit;
+            if (truncated) {
+                buffer.getMessage().append("(message truncated to " + limit + " bytes)\n");
+            }
+            final String encoding = (String)message.get(Message.ENCODING);
+            final byte[] payload = head;
+            final int payloadLength = Math.min(length, limit);
+            executeLogging(message, new Runnable() {
+                public void run() {
+                    try {
+                        writePayload(buffer.getPayload(), payload, payloadLength, truncated, encoding, ct);
+                    } catch (Exception ex) {
+                        //ignore
+                    }
+                    log(logger, formatLoggingMessage(buffer));
+                }
+            });
+        }
+    }
+
     protected String formatLoggingMessage(LoggingMessage buffer) {
         return buffer.toString();
     }
@@ -0,0 +1,75 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.interceptor;
+
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.apache.cxf.message.Message;
+import org.apache.cxf.message.MessageUtils;
+import org.apache.cxf.phase.AbstractPhaseInterceptor;
+import org.apache.cxf.phase.Phase;
+
+/**
+ * Closes the XMLStreamReader created by the StaxInInterceptor once the message has been 
+ * processed.  Parsers like Woodstox only hand their symbol and character buffers back 
+ * to the per thread buffer recycler when they are closed or hit the end of the document, 
+ * so without this every message allocates a fresh set of buffers.
+ * <p>
+ * The bindings register it once, next to the StaxInInterceptor, and it only closes the 
+ * reader if the StaxInInterceptor.RECYCLE_READER property is set.
+ */
+public class StaxInEndingInterceptor extends AbstractPhaseInterceptor<Message> {
+    
+    /**
+     * The number of events read past the last processed element before giving up on
+     * reaching the end of the document.  A SOAP message usually only has the Envelope 
+     * end element left.
+     */
+    private static final int MAX_TRAILING_EVENTS = 10;
+    
+    public StaxInEndingInterceptor() {
+        super(Phase.POST_INVOKE);
+    }
+    public StaxInEndingInterceptor(String phase) {
+        super(phase);
+    }
+
+    public void handleMessage(Message message) throws Fault {
+        XMLStreamReader xreader = message.getContent(XMLStreamReader.class);
+        if (xreader == null
+            || !MessageUtils.getContextualBoolean(message, StaxInInterceptor.RECYCLE_READER, false)) {
+            return;
+        }
+        message.removeContent(XMLStreamReader.class);
+        try {
+            for (int x = 0; x < MAX_TRAILING_EVENTS 
+                && xreader.getEventType() != XMLStreamConstants.END_DOCUMENT
+                && xreader.hasNext(); x++) {
+                xreader.next();
+            }
+            xreader.close();
+        } catch (XMLStreamException e) {
+            //ignore - the message has already been processed
+        }
+    }
+
+}
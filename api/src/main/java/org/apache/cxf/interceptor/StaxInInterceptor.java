@@ -22,9 +22,9 @@ package org.apache.cxf.interceptor;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.Reader;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.Logger;
 
 import javax.xml.stream.XMLInputFactory;
@@ -46,9 +46,17 @@ import org.apache.cxf.staxutils.StaxUtils;
  * Creates an XMLStreamReader from the InputStream on the Message.
  */
 public class StaxInInterceptor extends AbstractPhaseInterceptor<Message> {
+    /**
+     * If set to true, the XMLStreamReader is closed by the ENDING interceptor once the 
+     * message has been processed so the parser can recycle its buffers for the next message.
+     */
+    public static final String RECYCLE_READER = "org.apache.cxf.stax.recycle-reader";
+    public static final StaxInEndingInterceptor ENDING = new StaxInEndingInterceptor();
+    
     private static final Logger LOG = LogUtils.getL7dLogger(StaxInInterceptor.class);    
 
-    private static Map<Object, XMLInputFactory> factories = new HashMap<Object, XMLInputFactory>();
+    private static Map<Object, XMLInputFactory> factories 
+        = new ConcurrentHashMap<Object, XMLInputFactory>();
 
     public StaxInInterceptor() {
         super(Phase.POST_STREAM);
@@ -21,9 +21,9 @@ package org.apache.cxf.interceptor;
 
 import java.io.OutputStream;
 import java.io.Writer;
-import java.util.HashMap;
 import java.util.Map;
 import java.util.ResourceBundle;
+import java.util.concurrent.ConcurrentHashMap;
 
 import javax.xml.stream.XMLOutputFactory;
 import javax.xml.stream.XMLStreamException;
@@ -51,7 +51,8 @@ public class StaxOutInterceptor extends AbstractPhaseInterceptor<Message> {
         = new StaxOutEndingInterceptor(OUTPUT_STREAM_HOLDER, WRITER_HOLDER);
     
     private static final ResourceBundle BUNDLE = BundleUtils.getBundle(StaxOutInterceptor.class);
-    private static Map<Object, XMLOutputFactory> factories = new HashMap<Object, XMLOutputFactory>();
+    private static Map<Object, XMLOutputFactory> factories 
+        = new ConcurrentHashMap<Object, XMLOutputFactory>();
 
     
     public StaxOutInterceptor() {
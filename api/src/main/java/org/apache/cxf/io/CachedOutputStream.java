@@ -31,6 +31,10 @@ import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.PipedInputStream;
 import java.io.PipedOutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
@@ -44,6 +48,7 @@ public class CachedOutputStream extends OutputStream {
     private static final File DEFAULT_TEMP_DIR;
     private static int defaultThreshold;
     private static long defaultMaxSize;
+    private static boolean defaultMemoryMapped;
     static {
         
         String s = SystemPropertyAction.getPropertyOrNull("org.apache.cxf.io.CachedOutputStream.OutputDirectory");
@@ -60,6 +65,8 @@ public class CachedOutputStream extends OutputStream {
 
         setDefaultThreshold(-1);
         setDefaultMaxSize(-1);
+        defaultMemoryMapped = Boolean.parseBoolean(
+            SystemPropertyAction.getPropertyOrNull("org.apache.cxf.io.CachedOutputStream.MemoryMapped"));
     }
 
     protected boolean outputLocked;
@@ -76,6 +83,8 @@ public class CachedOutputStream extends OutputStream {
     private File tempFile;
     private File outputDir = DEFAULT_TEMP_DIR;
     private boolean allowDeleteOfFile = true;
+    private boolean memoryMapped = defaultMemoryMapped;
+    private MappedByteBuffer mappedBuffer;
 
     private List<CachedOutputStreamCallback> callbacks;
     
@@ -234,8 +243,7 @@ public class CachedOutputStream extends OutputStream {
                 // read the file
                 currentStream.close();
                 if (copyOldContent) {
-                    FileInputStream fin = new FileInputStream(tempFile);
-                    IOUtils.copyAndCloseInput(fin, out);
+                    IOUtils.copyAndCloseInput(createFileInputStream(), out);
                 }
                 streamList.remove(currentStream);
                 deleteTempFile();
@@ -264,8 +272,15 @@ public class CachedOutputStream extends OutputStream {
             }
         } else {
             // read the file
-            FileInputStream fin = new FileInputStream(tempFile);
-            return IOUtils.readBytesFromStream(fin);
+            if (memoryMapped) {
+                ByteBuffer buffer = mapTempFile();
+                if (buffer != null) {
+                    byte[] bytes = new byte[buffer.remaining()];
+                    buffer.get(bytes);
+                    return bytes;
+                }
+            }
+            return IOUtils.readBytesFromStream(new FileInputStream(tempFile));
         }
     }
 
@@ -279,8 +294,7 @@ public class CachedOutputStream extends OutputStream {
             }
         } else {
             // read the file
-            FileInputStream fin = new FileInputStream(tempFile);
-            IOUtils.copyAndCloseInput(fin, out);
+            IOUtils.copyAndCloseInput(createFileInputStream(), out);
         }
     }
     
@@ -306,7 +320,7 @@ public class CachedOutputStream extends OutputStream {
             }
         } else {
             // read the file
-            FileInputStream fin = new FileInputStream(tempFile);
+            InputStream fin = createFileInputStream();
             byte bytes[] = new byte[1024];
             long x = fin.read(bytes);
             while (x != -1) {
@@ -341,7 +355,7 @@ public class CachedOutputStream extends OutputStream {
             }
         } else {
             // read the file
-            FileInputStream fin = new FileInputStream(tempFile);
+            InputStream fin = createFileInputStream();
             byte bytes[] = new byte[1024];
             int x = fin.read(bytes);
             while (x != -1) {
@@ -462,6 +476,14 @@ public class CachedOutputStream extends OutputStream {
                 return null;
             }
         } else {
+            if (memoryMapped) {
+                ByteBuffer buffer = mapTempFile();
+                if (buffer != null) {
+                    InputStream mappedInputStream = new MappedInputStream(buffer);
+                    streamList.add(mappedInputStream);
+                    return mappedInputStream;
+                }
+            }
             try {
                 FileInputStream fileInputStream = new FileInputStream(tempFile) {
                     boolean closed;
@@ -481,13 +503,75 @@ public class CachedOutputStream extends OutputStream {
         }
     }
     
+    /**
+     * Opens a private, read-only stream over the temp file.  The stream is not tracked
+     * in the stream list as the callers close it before returning.
+     */
+    private InputStream createFileInputStream() throws IOException {
+        if (memoryMapped) {
+            ByteBuffer buffer = mapTempFile();
+            if (buffer != null) {
+                return new ByteBufferInputStream(buffer);
+            }
+        }
+        return new FileInputStream(tempFile);
+    }
+
+    /**
+     * Returns a view of the mapped content of the temp file, returning null if the file 
+     * is too large to be mapped into a single buffer.  The file is mapped once and the 
+     * mapping is shared by all the readers until the temp file is deleted.
+     */
+    private synchronized ByteBuffer mapTempFile() throws IOException {
+        long size = tempFile.length();
+        if (mappedBuffer == null || mappedBuffer.capacity() != size) {
+            // the content has changed since it was mapped, the readers may still use
+            // the old mapping so it is left to be released when it is collected
+            mappedBuffer = null;
+            mappedBuffer = createMapping();
+            if (mappedBuffer == null) {
+                return null;
+            }
+        }
+        return mappedBuffer.duplicate();
+    }
+    
+    private MappedByteBuffer createMapping() throws IOException {
+        RandomAccessFile file;
+        try {
+            file = new RandomAccessFile(tempFile, "r");
+        } catch (FileNotFoundException e) {
+            throw new IOException("Cached file was deleted, " + e.toString());
+        }
+        try {
+            FileChannel channel = file.getChannel();
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                return null;
+            }
+            // the mapping stays valid after the channel is closed
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        } finally {
+            file.close();
+        }
+    }
+
     private synchronized void deleteTempFile() {
+        releaseMapping();
         if (tempFile != null) {
             File file = tempFile;
             tempFile = null;
             FileUtils.delete(file);
         }
     }
+    
+    private void releaseMapping() {
+        // The mapping is not unmapped explicitly: the streams returned by 
+        // createFileInputStream() are not tracked and may still read from it, and
+        // accessing an unmapped buffer crashes the JVM.  It is released when the 
+        // last buffer sharing it is garbage collected.
+        mappedBuffer = null;
+    }
     private void maybeDeleteTempFile(Object stream) {
         streamList.remove(stream);
         if (!inmem && tempFile != null && streamList.isEmpty() && allowDeleteOfFile) {
@@ -515,6 +599,21 @@ public class CachedOutputStream extends OutputStream {
     public void setMaxSize(long maxSize) {
         this.maxSize = maxSize;
     }
+
+    /**
+     * If true, the content spilled to the temp file is read back through a read-only 
+     * memory mapping of the file rather than through a FileInputStream.  The file is
+     * mapped once.  The mapping is released when it is garbage collected after the temp
+     * file is deleted, so until then the file keeps using disk space on most systems 
+     * and may not be deletable on Windows.
+     */
+    public void setMemoryMapped(boolean memoryMapped) {
+        this.memoryMapped = memoryMapped;
+    }
+    
+    public static void setDefaultMemoryMapped(boolean b) {
+        defaultMemoryMapped = b;
+    }
     
     public static void setDefaultMaxSize(long l) {
         if (l == -1) {
@@ -536,4 +635,86 @@ public class CachedOutputStream extends OutputStream {
         defaultThreshold = i;
         
     }
+
+    private static class ByteBufferInputStream extends InputStream {
+        protected final ByteBuffer buffer;
+        
+        ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+            buffer.mark();
+        }
+        
+        public int read() throws IOException {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+        
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            len = Math.min(len, buffer.remaining());
+            buffer.get(b, off, len);
+            return len;
+        }
+        
+        public long skip(long n) throws IOException {
+            if (n <= 0) {
+                return 0;
+            }
+            int skipped = (int)Math.min(n, buffer.remaining());
+            buffer.position(buffer.position() + skipped);
+            return skipped;
+        }
+        
+        public int available() throws IOException {
+            return buffer.remaining();
+        }
+        
+        public boolean markSupported() {
+            return true;
+        }
+        
+        public synchronized void mark(int readlimit) {
+            buffer.mark();
+        }
+        
+        public synchronized void reset() throws IOException {
+            buffer.reset();
+        }
+    }
+    
+    private class MappedInputStream extends ByteBufferInputStream {
+        private boolean closed;
+        
+        MappedInputStream(ByteBuffer buffer) {
+            super(buffer);
+        }
+        
+        public int read() throws IOException {
+            checkClosed();
+            return super.read();
+        }
+        
+        public int read(byte[] b, int off, int len) throws IOException {
+            checkClosed();
+            return super.read(b, off, len);
+        }
+        
+        private void checkClosed() throws IOException {
+            // a closed stream may no longer keep the temp file
+            if (closed) {
+                throw new IOException("Stream closed");
+            }
+        }
+        
+        public void close() throws IOException {
+            if (!closed) {
+                closed = true;
+                maybeDeleteTempFile(this);
+            }
+        }
+    }
 }
@@ -30,9 +30,16 @@ import org.apache.cxf.transport.Conduit;
 import org.apache.cxf.transport.Destination;
 import org.apache.cxf.transport.Session;
 
-public class ExchangeImpl extends StringMapImpl implements Exchange {
+public class ExchangeImpl extends FieldBackedStringMap implements Exchange {
     
     private static final long serialVersionUID = -3112077559217623594L;
+    
+    private static final String BUS_KEY = Bus.class.getName();
+    private static final String ENDPOINT_KEY = Endpoint.class.getName();
+    private static final String SERVICE_KEY = Service.class.getName();
+    private static final String BINDING_KEY = Binding.class.getName();
+    private static final String BINDING_OP_KEY = BindingOperationInfo.class.getName();
+    
     private Destination destination;
     private boolean oneWay;
     private boolean synchronous = true;
@@ -44,14 +51,17 @@ public class ExchangeImpl extends StringMapImpl implements Exchange {
     
     private Session session;
     
-    private Bus bus;
-    private Endpoint endpoint;
-    private Service service;
-    private Binding binding;
-    private BindingOperationInfo bindingOp;
+    // The most frequently used values are kept in fields as well as in the map
+    // so that get(Class) can return them without hashing the class name.
+    // FieldBackedStringMap updates them however the map is modified.
+    private transient Bus bus;
+    private transient Endpoint endpoint;
+    private transient Service service;
+    private transient Binding binding;
+    private transient BindingOperationInfo bindingOp;
     
 
-    /*
+    @SuppressWarnings("unchecked")
     public <T> T get(Class<T> key) { 
         if (key == Bus.class) {
             return (T)bus;
@@ -63,12 +73,10 @@ public class ExchangeImpl extends StringMapImpl implements Exchange {
             return (T)bindingOp;
         } else if (key == Binding.class) {
             return (T)binding;
-        } else if (key == OperationInfo.class) {
-            return super.get(key);
         }
         return super.get(key);
     }
-    */
+
     private void resetContextCaches() {
         if (inMessage != null) {
             inMessage.resetContextCache();
@@ -83,24 +91,51 @@ public class ExchangeImpl extends StringMapImpl implements Exchange {
             outFaultMessage.resetContextCache();
         }
     }
-
-    public <T> void put(Class<T> key, T value) {
-        super.put(key, value);
-        if (key == Bus.class) {
+    
+    private static String getFieldKey(String key) {
+        // put(Class, Object) uses the Class name which is the very same String as the constant
+        if (key == BUS_KEY || key == ENDPOINT_KEY || key == SERVICE_KEY
+            || key == BINDING_KEY || key == BINDING_OP_KEY) {
+            return key;
+        }
+        // the hash code is cached by the String and needed by the HashMap anyway
+        int h = key == null ? 0 : key.hashCode();
+        if (h == BUS_KEY.hashCode() && BUS_KEY.equals(key)) {
+            return BUS_KEY;
+        } else if (h == ENDPOINT_KEY.hashCode() && ENDPOINT_KEY.equals(key)) {
+            return ENDPOINT_KEY;
+        } else if (h == SERVICE_KEY.hashCode() && SERVICE_KEY.equals(key)) {
+            return SERVICE_KEY;
+        } else if (h == BINDING_KEY.hashCode() && BINDING_KEY.equals(key)) {
+            return BINDING_KEY;
+        } else if (h == BINDING_OP_KEY.hashCode() && BINDING_OP_KEY.equals(key)) {
+            return BINDING_OP_KEY;
+        }
+        return null;
+    }
+    
+    protected boolean isFieldKey(String key) {
+        return getFieldKey(key) != null;
+    }
+    
+    protected void updateField(String key, Object value) {
+        String fieldKey = getFieldKey(key);
+        if (fieldKey == BUS_KEY) {
             resetContextCaches();
             bus = (Bus)value;
-        } else if (key == Endpoint.class) {
+        } else if (fieldKey == ENDPOINT_KEY) {
             resetContextCaches();
             endpoint = (Endpoint)value;
-        } else if (key == Service.class) {
+        } else if (fieldKey == SERVICE_KEY) {
             resetContextCaches();
             service = (Service)value;
-        } else if (key == BindingOperationInfo.class) {
+        } else if (fieldKey == BINDING_OP_KEY) {
             bindingOp = (BindingOperationInfo)value;
-        } else if (key == Binding.class) {
+        } else if (fieldKey == BINDING_KEY) {
             binding = (Binding)value;
         }
     }
+
     public Object put(String key, Object value) {
         if (inMessage != null) {
             inMessage.setContextualProperty(key, value);
@@ -212,6 +247,10 @@ public class ExchangeImpl extends StringMapImpl implements Exchange {
         outFaultMessage = null;
         session = null;
         bus = null;
+        endpoint = null;
+        service = null;
+        binding = null;
+        bindingOp = null;
     }
 
     public Bus getBus() {
@@ -0,0 +1,299 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.message;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.util.AbstractCollection;
+import java.util.AbstractSet;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A {@link StringMapImpl} which keeps the values of some keys in fields of the
+ * subclass as well, see {@link #isFieldKey(String)}.  Every modification of the map
+ * made through its methods or its keySet(), values() and entrySet() views updates
+ * these fields.  The Java 8 compute, merge and replaceAll methods do not, they must
+ * not be used with the field keys.
+ * <p>
+ * Plain StringMapImpl instances do not pay for any of this.
+ */
+abstract class FieldBackedStringMap extends StringMapImpl {
+    
+    private static final long serialVersionUID = 2394633960531428463L;
+
+    private transient Set<String> keySetView;
+    private transient Collection<Object> valuesView;
+    private transient Set<Map.Entry<String, Object>> entrySetView;
+    
+    FieldBackedStringMap() {
+    }
+    FieldBackedStringMap(Map<String, Object> i) {
+        super(i);
+    }
+    
+    /**
+     * Called for every key put into or removed from the map, so it should not
+     * need more than a comparison of the hash code for other keys.
+     * @return true if the value of the key is kept in a field as well
+     */
+    protected abstract boolean isFieldKey(String key);
+    
+    /**
+     * Updates the field of a key for which {@link #isFieldKey(String)} returns true.
+     * @param value the new value, or null if the key is removed
+     */
+    protected abstract void updateField(String key, Object value);
+    
+    /**
+     * Copies the entries into the given map without going through the views.
+     */
+    void copyTo(Map<String, Object> map) {
+        for (Map.Entry<String, Object> e : super.entrySet()) {
+            map.put(e.getKey(), e.getValue());
+        }
+    }
+    
+    private void fieldRemoved(Object key) {
+        if (key instanceof String && isFieldKey((String)key)) {
+            updateField((String)key, null);
+        }
+    }
+    
+    public Object put(String key, Object value) {
+        if (isFieldKey(key)) {
+            updateField(key, value);
+        }
+        return super.put(key, value);
+    }
+    
+    public void putAll(Map<? extends String, ? extends Object> m) {
+        for (Map.Entry<? extends String, ? extends Object> e : m.entrySet()) {
+            put(e.getKey(), e.getValue());
+        }
+    }
+    
+    public Object remove(Object key) {
+        fieldRemoved(key);
+        return super.remove(key);
+    }
+    
+    public void clear() {
+        for (String key : super.keySet()) {
+            fieldRemoved(key);
+        }
+        super.clear();
+    }
+    
+    public Object putIfAbsent(String key, Object value) {
+        Object v = get(key);
+        if (v == null) {
+            put(key, value);
+        }
+        return v;
+    }
+    
+    public boolean remove(Object key, Object value) {
+        if (containsKey(key) && equal(get(key), value)) {
+            remove(key);
+            return true;
+        }
+        return false;
+    }
+    
+    public Object replace(String key, Object value) {
+        return containsKey(key) ? put(key, value) : null;
+    }
+    
+    public boolean replace(String key, Object oldValue, Object newValue) {
+        if (containsKey(key) && equal(get(key), oldValue)) {
+            put(key, newValue);
+            return true;
+        }
+        return false;
+    }
+    
+    private static boolean equal(Object o1, Object o2) {
+        return o1 == null ? o2 == null : o1.equals(o2);
+    }
+    
+    public Set<String> keySet() {
+        if (keySetView == null) {
+            keySetView = new KeySet();
+        }
+        return keySetView;
+    }
+    
+    public Collection<Object> values() {
+        if (valuesView == null) {
+            valuesView = new Values();
+        }
+        return valuesView;
+    }
+    
+    public Set<Map.Entry<String, Object>> entrySet() {
+        if (entrySetView == null) {
+            entrySetView = new EntrySet();
+        }
+        return entrySetView;
+    }
+    
+    public Object clone() {
+        FieldBackedStringMap m = (FieldBackedStringMap)super.clone();
+        m.keySetView = null;
+        m.valuesView = null;
+        m.entrySetView = null;
+        return m;
+    }
+    
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        for (Map.Entry<String, Object> e : super.entrySet()) {
+            if (isFieldKey(e.getKey())) {
+                updateField(e.getKey(), e.getValue());
+            }
+        }
+    }
+    
+    /**
+     * Iterates over the entries of the map, updating the fields when an entry is removed.
+     */
+    private abstract class ViewIterator<E> implements Iterator<E> {
+        private final Iterator<Map.Entry<String, Object>> it
+            = FieldBackedStringMap.super.entrySet().iterator();
+        private Map.Entry<String, Object> current;
+        
+        public boolean hasNext() {
+            return it.hasNext();
+        }
+        
+        Map.Entry<String, Object> nextEntry() {
+            current = it.next();
+            return current;
+        }
+        
+        public void remove() {
+            it.remove();
+            fieldRemoved(current.getKey());
+        }
+    }
+    
+    private final class KeySet extends AbstractSet<String> {
+        public Iterator<String> iterator() {
+            return new ViewIterator<String>() {
+                public String next() {
+                    return nextEntry().getKey();
+                }
+            };
+        }
+        public int size() {
+            return FieldBackedStringMap.this.size();
+        }
+        public boolean contains(Object o) {
+            return containsKey(o);
+        }
+        public boolean remove(Object o) {
+            if (containsKey(o)) {
+                FieldBackedStringMap.this.remove(o);
+                return true;
+            }
+            return false;
+        }
+        public void clear() {
+            FieldBackedStringMap.this.clear();
+        }
+    }
+    
+    private final class Values extends AbstractCollection<Object> {
+        public Iterator<Object> iterator() {
+            return new ViewIterator<Object>() {
+                public Object next() {
+                    return nextEntry().getValue();
+                }
+            };
+        }
+        public int size() {
+            return FieldBackedStringMap.this.size();
+        }
+        public boolean contains(Object o) {
+            return containsValue(o);
+        }
+        public void clear() {
+            FieldBackedStringMap.this.clear();
+        }
+    }
+    
+    private final class EntrySet extends AbstractSet<Map.Entry<String, Object>> {
+        public Iterator<Map.Entry<String, Object>> iterator() {
+            return new ViewIterator<Map.Entry<String, Object>>() {
+                public Map.Entry<String, Object> next() {
+                    Map.Entry<String, Object> e = nextEntry();
+                    // only the entries of the field keys need to update the fields
+                    return isFieldKey(e.getKey()) ? new FieldEntry(e) : e;
+                }
+            };
+        }
+        public int size() {
+            return FieldBackedStringMap.this.size();
+        }
+        public boolean contains(Object o) {
+            return FieldBackedStringMap.super.entrySet().contains(o);
+        }
+        public boolean remove(Object o) {
+            if (contains(o)) {
+                FieldBackedStringMap.this.remove(((Map.Entry<?, ?>)o).getKey());
+                return true;
+            }
+            return false;
+        }
+        public void clear() {
+            FieldBackedStringMap.this.clear();
+        }
+    }
+    
+    private final class FieldEntry implements Map.Entry<String, Object> {
+        private final Map.Entry<String, Object> entry;
+        
+        FieldEntry(Map.Entry<String, Object> e) {
+            entry = e;
+        }
+        public String getKey() {
+            return entry.getKey();
+        }
+        public Object getValue() {
+            return entry.getValue();
+        }
+        public Object setValue(Object value) {
+            updateField(entry.getKey(), value);
+            return entry.setValue(value);
+        }
+        public boolean equals(Object o) {
+            return entry.equals(o);
+        }
+        public int hashCode() {
+            return entry.hashCode();
+        }
+        public String toString() {
+            return entry.toString();
+        }
+    }
+}
@@ -33,9 +33,10 @@ import org.apache.cxf.service.Service;
 import org.apache.cxf.service.model.EndpointInfo;
 import org.apache.cxf.transport.Destination;
 
-public class MessageImpl extends StringMapImpl implements Message {
+public class MessageImpl extends FieldBackedStringMap implements Message {
     private static final long serialVersionUID = -3020763696429459865L;
     
+    private static final String DESTINATION_KEY = Destination.class.getName();
     
     private Exchange exchange;
     private String id;
@@ -47,6 +48,10 @@ public class MessageImpl extends StringMapImpl implements Message {
     
     private Map<String, Object> contextCache;
     
+    // Kept in fields as well as in the map so that they can be returned without
+    // hashing the key.  FieldBackedStringMap updates them however the map is modified.
+    private transient Destination destination;
+    private transient Object protocolHeaders;
     
     public MessageImpl() {
         //nothing
@@ -61,6 +66,8 @@ public class MessageImpl extends StringMapImpl implements Message {
             contents = impl.contents;
             index = impl.index;
             contextCache = impl.contextCache;
+            destination = impl.destination;
+            protocolHeaders = impl.protocolHeaders;
         } else {
             throw new RuntimeException("Not a MessageImpl! " + m.getClass());
         }
@@ -80,7 +87,40 @@ public class MessageImpl extends StringMapImpl implements Message {
     }
     
     public Destination getDestination() {
-        return get(Destination.class);
+        return destination;
+    }
+    
+    @SuppressWarnings("unchecked")
+    public <T> T get(Class<T> key) {
+        if (key == Destination.class) {
+            return (T)destination;
+        }
+        return super.get(key);
+    }
+    
+    public Object get(Object key) {
+        // callers use the constant, anything else is found in the map
+        if (key == PROTOCOL_HEADERS) {
+            return protocolHeaders;
+        }
+        return super.get(key);
+    }
+    
+    protected boolean isFieldKey(String key) {
+        if (key == DESTINATION_KEY || key == PROTOCOL_HEADERS) {
+            return true;
+        }
+        int h = key == null ? 0 : key.hashCode();
+        return h == DESTINATION_KEY.hashCode() && DESTINATION_KEY.equals(key)
+            || h == PROTOCOL_HEADERS.hashCode() && PROTOCOL_HEADERS.equals(key);
+    }
+    
+    protected void updateField(String key, Object value) {
+        if (DESTINATION_KEY.equals(key)) {
+            destination = (Destination)value;
+        } else {
+            protocolHeaders = value;
+        }
     }
 
     public Exchange getExchange() {
@@ -181,7 +221,10 @@ public class MessageImpl extends StringMapImpl implements Message {
             private static final long serialVersionUID = 7067290677790419348L;
 
             public void putAll(Map<? extends String, ? extends Object> m) {
-                if (m != null) {
+                if (m instanceof FieldBackedStringMap) {
+                    // no need for the views which keep the fields in sync
+                    ((FieldBackedStringMap)m).copyTo(this);
+                } else if (m != null) {
                     super.putAll(m);
                 }
             }
@@ -92,8 +92,11 @@ public final class PhaseChainCache {
                 copy.add(new ModCountCopyOnWriteArrayList<Interceptor<? extends Message>>(p));
                 chain.add(p);
             }
+            // cloning the chain shares its holders before other threads can clone it
+            PhaseInterceptorChain clone = chain.cloneChain();
             last = new ChainHolder(chain, copy);
             lastData.set(last);
+            return clone;
         }
         
         
@@ -28,6 +28,7 @@ import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Set;
 import java.util.SortedSet;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -80,9 +81,14 @@ public class PhaseInterceptorChain implements InterceptorChain {
     // Note no hasBefores[] is needed because implementation adds subsequent
     // interceptors to the end of the list by default.
     private boolean hasAfters[];
-
-    
-    private State state;
+    // Set when the interceptor holders as well as the heads, tails and hasAfters 
+    // arrays are shared with the chain this one was cloned from or with other clones, 
+    // so they have to be copied before this chain can be modified.
+    private volatile SharedHolders shared;
+
+    // volatile so that the state can be checked and the chain aborted, paused 
+    // or suspended while another thread executes it
+    private volatile State state;
     private Message pausedMessage;
     private MessageObserver faultObserver;
     private PhaseInterceptorIterator iterator;
@@ -105,31 +111,12 @@ public class PhaseInterceptorChain implements InterceptorChain {
         nameMap = src.nameMap;
         phases = src.phases;
         
-        int length = phases.length;
-        hasAfters = new boolean[length];
-        System.arraycopy(src.hasAfters, 0, hasAfters, 0, length);
-        
-        heads = new InterceptorHolder[length];
-        tails = new InterceptorHolder[length];
-        
-        InterceptorHolder last = null;
-        for (int x = 0; x < length; x++) {
-            InterceptorHolder ih = src.heads[x];
-            while (ih != null
-                && ih.phaseIdx == x) {
-                InterceptorHolder ih2 = new InterceptorHolder(ih);
-                ih2.prev = last;
-                if (last != null) {
-                    last.next = ih2;
-                }
-                if (heads[x] == null) {
-                    heads[x] = ih2;
-                }
-                tails[x] = ih2;
-                last = ih2;
-                ih = ih.next;
-            }
-        }
+        //copied on the first modification of either chain
+        SharedHolders s = src.share();
+        heads = s.heads;
+        tails = s.tails;
+        hasAfters = s.hasAfters;
+        shared = s;
     }
     
     public PhaseInterceptorChain(SortedSet<Phase> ps) {
@@ -156,7 +143,7 @@ public class PhaseInterceptorChain implements InterceptorChain {
         return CURRENT_MESSAGE.get();
     }
     
-    public synchronized State getState() {
+    public State getState() {
         return state;
     }
     
@@ -164,6 +151,16 @@ public class PhaseInterceptorChain implements InterceptorChain {
         return new PhaseInterceptorChain(this);
     }
     
+    private SharedHolders share() {
+        SharedHolders s = shared;
+        if (s == null) {
+            // the PhaseChainCache clones a chain once before other threads can clone it
+            s = new SharedHolders(heads, tails, hasAfters);
+            shared = s;
+        }
+        return s;
+    }
+    
     private void updateIterator() {
         if (iterator == null) {
             iterator = new PhaseInterceptorIterator(heads);
@@ -217,9 +214,9 @@ public class PhaseInterceptorChain implements InterceptorChain {
     }
 
 
-    public synchronized void pause() {
-        state = State.PAUSED;
+    public void pause() {
         pausedMessage = CURRENT_MESSAGE.get();
+        state = State.PAUSED;
     }
     public synchronized void unpause() {
         if (state == State.PAUSED || state == State.SUSPENDED) {
@@ -228,9 +225,9 @@ public class PhaseInterceptorChain implements InterceptorChain {
         }
     }
     
-    public synchronized void suspend() {
-        state = State.SUSPENDED;
+    public void suspend() {
         pausedMessage = CURRENT_MESSAGE.get();
+        state = State.SUSPENDED;
     }
 
     public synchronized void resume() {
@@ -385,7 +382,7 @@ public class PhaseInterceptorChain implements InterceptorChain {
      * @throws Exception
      */
     public synchronized boolean doInterceptStartingAfter(Message message,
-                                                         String startingAfterInterceptorID) {
+                                            String startingAfterInterceptorID) {
         updateIterator();
         while (state == State.EXECUTING && iterator.hasNext()) {
             PhaseInterceptor<? extends Message> currentInterceptor 
@@ -406,7 +403,7 @@ public class PhaseInterceptorChain implements InterceptorChain {
      * @throws Exception
      */
     public synchronized boolean doInterceptStartingAt(Message message,
-                                                         String startingAtInterceptorID) {
+                                         String startingAtInterceptorID) {
         updateIterator();
         while (state == State.EXECUTING && iterator.hasNext()) {
             PhaseInterceptor<? extends Message> currentInterceptor 
@@ -449,6 +446,7 @@ public class PhaseInterceptorChain implements InterceptorChain {
     }
 
     public void remove(Interceptor<? extends Message> i) {
+        copySharedHolders();
         PhaseInterceptorIterator it = new PhaseInterceptorIterator(heads);
         while (it.hasNext()) {
             InterceptorHolder holder = it.nextInterceptorHolder();
@@ -459,7 +457,7 @@ public class PhaseInterceptorChain implements InterceptorChain {
         }
     }
 
-    public synchronized void abort() {
+    public void abort() {
         this.state = InterceptorChain.State.ABORTED;
     }
 
@@ -498,7 +496,127 @@ public class PhaseInterceptorChain implements InterceptorChain {
         }
     }
     
-    private void insertInterceptor(int phase, PhaseInterceptor<? extends Message> interc, boolean force) {
+    /**
+     * Gives this chain its own copy of the interceptor holders if they are currently 
+     * shared with other chains, keeping the position of the iterator if the chain
+     * is already executing.
+     */
+    private void copySharedHolders() {
+        copySharedHolders(null);
+    }
+    
+    /**
+     * @param copies if not null, receives the copy of each shared holder at its ordinal
+     */
+    private void copySharedHolders(InterceptorHolder copies[]) {
+        if (shared == null) {
+            return;
+        }
+        int length = phases.length;
+        boolean newHasAfters[] = new boolean[length];
+        System.arraycopy(hasAfters, 0, newHasAfters, 0, length);
+        
+        InterceptorHolder newHeads[] = new InterceptorHolder[length];
+        InterceptorHolder newTails[] = new InterceptorHolder[length];
+        
+        InterceptorHolder last = null;
+        for (int x = 0; x < length; x++) {
+            InterceptorHolder ih = heads[x];
+            while (ih != null
+                && ih.phaseIdx == x) {
+                InterceptorHolder ih2 = new InterceptorHolder(ih);
+                ih2.prev = last;
+                if (last != null) {
+                    last.next = ih2;
+                }
+                if (newHeads[x] == null) {
+                    newHeads[x] = ih2;
+                }
+                newTails[x] = ih2;
+                last = ih2;
+                if (copies != null) {
+                    copies[ih.ordinal] = ih2;
+                }
+                if (iterator != null) {
+                    if (iterator.prev == ih) {
+                        iterator.prev = ih2;
+                    }
+                    if (iterator.first == ih) {
+                        iterator.first = ih2;
+                    }
+                }
+                ih = ih.next;
+            }
+        }
+        heads = newHeads;
+        tails = newTails;
+        hasAfters = newHasAfters;
+        if (iterator != null) {
+            iterator.heads = newHeads;
+        }
+        shared = null;
+    }
+    
+    /**
+     * Switches this chain to the shared holders derived from its current shared holders 
+     * by adding an interceptor, keeping the position of the iterator.
+     */
+    private void useDerivedHolders(SharedHolders derived, InterceptorHolder copies[]) {
+        heads = derived.heads;
+        tails = derived.tails;
+        hasAfters = derived.hasAfters;
+        shared = derived;
+        if (iterator != null) {
+            iterator.heads = derived.heads;
+            if (iterator.prev != null) {
+                iterator.prev = copies[iterator.prev.ordinal];
+            }
+            if (iterator.first != null) {
+                iterator.first = copies[iterator.first.ordinal];
+            }
+            outputChainToLog(true);
+        }
+    }
+    
+    /**
+     * Adds an interceptor to a chain sharing its holders.  The chains cloned from the same 
+     * chain usually add the same interceptors while they execute, such as the ending 
+     * interceptors of the stream and sender interceptors, so the holders resulting from 
+     * adding an interceptor are shared by all of them rather than copied for each one.
+     * @return false if the result can not be shared
+     */
+    private boolean insertSharedInterceptor(int phase, PhaseInterceptor<? extends Message> interc) {
+        SharedHolders s = shared;
+        SharedHolders.Derived d = s.derived.get(interc);
+        if (d == null) {
+            if (s.derived.size() >= SharedHolders.MAX_DERIVED || !s.claim(interc)) {
+                return false;
+            }
+            PhaseInterceptorChain c = new PhaseInterceptorChain(this);
+            InterceptorHolder copies[] = new InterceptorHolder[s.size];
+            c.copySharedHolders(copies);
+            if (c.insertInterceptor(phase, interc, false)) {
+                d = new SharedHolders.Derived(new SharedHolders(c.heads, c.tails, c.hasAfters), copies);
+            } else {
+                // already in the chain
+                d = new SharedHolders.Derived(s, null);
+            }
+            SharedHolders.Derived d2 = s.derived.putIfAbsent(interc, d);
+            if (d2 != null) {
+                d = d2;
+            }
+        }
+        if (d.holders != s) {
+            useDerivedHolders(d.holders, d.copies);
+        }
+        return true;
+    }
+    
+    private boolean insertInterceptor(int phase, PhaseInterceptor<? extends Message> interc, boolean force) {
+        if (shared != null && !force && insertSharedInterceptor(phase, interc)) {
+            return true;
+        }
+        copySharedHolders();
         InterceptorHolder ih = new InterceptorHolder(interc, phase);
         if (heads[phase] == null) {
             // no interceptors yet in this phase
@@ -571,7 +689,7 @@ public class PhaseInterceptorChain implements InterceptorChain {
                     }
                     if (!force && cmpId.equals(id)) {
                         // interceptor is already in chain
-                        return;
+                        return false;
                     }
                     ih2 = ih2.next;
                 }
@@ -585,7 +703,7 @@ public class PhaseInterceptorChain implements InterceptorChain {
                 InterceptorHolder ih2 = heads[phase];
                 while (ih2 != tails[phase].next) {
                     if (ih2.interceptor.getId().equals(id)) {
-                        return;
+                        return false;
                     }
                     ih2 = ih2.next;
                 }
@@ -631,6 +749,7 @@ public class PhaseInterceptorChain implements InterceptorChain {
         if (iterator != null) {
             outputChainToLog(true);
         }
+        return true;
     }
 
     public String toString() {
@@ -783,11 +902,86 @@ public class PhaseInterceptorChain implements InterceptorChain {
     }
 
     
+    /**
+     * Interceptor holders shared by several chains, which none of them modifies.  
+     */
+    static final class SharedHolders {
+        static final int MAX_DERIVED = 16;
+        static final Object PER_MESSAGE = new Object();
+        
+        final InterceptorHolder heads[];
+        final InterceptorHolder tails[];
+        final boolean hasAfters[];
+        final int size;
+        // the holders resulting from adding an interceptor to these ones
+        final ConcurrentHashMap<PhaseInterceptor<? extends Message>, Derived> derived
+            = new ConcurrentHashMap<PhaseInterceptor<? extends Message>, Derived>();
+        // the interceptor added with each id, or PER_MESSAGE
+        final ConcurrentHashMap<String, Object> added = new ConcurrentHashMap<String, Object>();
+        
+        SharedHolders(InterceptorHolder h[], InterceptorHolder t[], boolean a[]) {
+            heads = h;
+            tails = t;
+            hasAfters = a;
+            int count = 0;
+            for (int x = 0; x < h.length; x++) {
+                InterceptorHolder ih = h[x];
+                while (ih != null && ih.phaseIdx == x) {
+                    ih.ordinal = count++;
+                    ih = ih.next;
+                }
+            }
+            size = count;
+        }
+        
+        /**
+         * Records the interceptor as the one added with its id.  An interceptor created for
+         * every message shows up as another instance with the same id: the holders derived
+         * with the earlier instance are dropped, so that the cached chain does not keep the
+         * interceptors of past messages, and adding it is no longer shared.
+         * @return false if adding the interceptor can not be shared
+         */
+        boolean claim(PhaseInterceptor<? extends Message> interc) {
+            String id = interc.getId() == null ? interc.getClass().getName() : interc.getId();
+            Object known = added.get(id);
+            if (known == null) {
+                if (added.size() >= MAX_DERIVED) {
+                    return false;
+                }
+                known = added.putIfAbsent(id, interc);
+                if (known == null) {
+                    return true;
+                }
+            }
+            if (known == interc) {
+                return true;
+            }
+            if (known != PER_MESSAGE) {
+                added.put(id, PER_MESSAGE);
+                derived.remove(known);
+            }
+            return false;
+        }
+        
+        static final class Derived {
+            final SharedHolders holders;
+            // the holder of the derived holders copied from each of the original ones
+            final InterceptorHolder copies[];
+            
+            Derived(SharedHolders h, InterceptorHolder c[]) {
+                holders = h;
+                copies = c;
+            }
+        }
+    }
+    
     static final class InterceptorHolder {
         PhaseInterceptor<? extends Message> interceptor;
         InterceptorHolder next;
         InterceptorHolder prev;
         int phaseIdx;
+        // the position of the holder once it is shared
+        int ordinal;
         
         InterceptorHolder(PhaseInterceptor<? extends Message> i, int p) {
             interceptor = i;
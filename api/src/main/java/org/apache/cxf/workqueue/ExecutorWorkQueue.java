@@ -0,0 +1,311 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.workqueue;
+
+import java.lang.reflect.Method;
+import java.security.AccessController;
+import java.security.PrivilegedAction;
+import java.util.Timer;
+import java.util.TimerTask;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.apache.cxf.common.classloader.ClassLoaderUtils;
+import org.apache.cxf.common.classloader.ClassLoaderUtils.ClassLoaderHolder;
+import org.apache.cxf.common.injection.NoJSR250Annotations;
+import org.apache.cxf.common.logging.LogUtils;
+
+/**
+ * An AutomaticWorkQueue that does not manage a pool of threads itself but hands every 
+ * work item to an Executor.  Unless an Executor is configured, each work item runs on 
+ * its own thread: a virtual thread if the JVM supports them, otherwise a thread from an
+ * unbounded pool of daemon threads.
+ * 
+ * The queue size limits the number of work items that have been handed to the Executor 
+ * but have not started running yet, 256 unless configured otherwise.  Items that are 
+ * running do not count, just as the AutomaticWorkQueueImpl only bounds its backing 
+ * queue and not its threads.  Once the limit is reached, execute(Runnable) rejects new 
+ * items immediately and execute(Runnable, long) waits up to the timeout for an item to 
+ * start.
+ */
+@NoJSR250Annotations
+public class ExecutorWorkQueue implements AutomaticWorkQueue {
+    private static final Logger LOG = LogUtils.getL7dLogger(ExecutorWorkQueue.class);
+    
+    String name = "default";
+    int maxQueueSize;
+    Executor executor;
+    boolean ownExecutor;
+    Semaphore permits;
+    final AtomicInteger size = new AtomicInteger();
+    volatile boolean shutdown;
+    Timer timer;
+    
+    public ExecutorWorkQueue() {
+        this("default");
+    }
+    public ExecutorWorkQueue(String name) {
+        this(name, null, AutomaticWorkQueueImpl.DEFAULT_MAX_QUEUE_SIZE);
+    }
+    public ExecutorWorkQueue(String name, Executor executor) {
+        this(name, executor, AutomaticWorkQueueImpl.DEFAULT_MAX_QUEUE_SIZE);
+    }
+    
+    /**
+     * @param name the name of the work queue
+     * @param executor the executor running the work items, null to run every item on its own thread
+     * @param maxQueueSize the maximum number of work items waiting to run, -1 for the default
+     */
+    public ExecutorWorkQueue(String name, Executor executor, int maxQueueSize) {
+        this.name = name;
+        this.executor = executor;
+        setQueueSize(maxQueueSize);
+    }
+    
+    public String getName() {
+        return name;
+    }
+    public void setName(String s) {
+        name = s;
+    }
+    
+    public synchronized void setExecutor(Executor ex) {
+        if (executor != null && ownExecutor) {
+            ((ExecutorService)executor).shutdown();
+        }
+        executor = ex;
+        ownExecutor = false;
+    }
+    
+    public synchronized Executor getExecutor() {
+        if (executor == null) {
+            executor = createDefaultExecutor();
+            ownExecutor = true;
+        }
+        return executor;
+    }
+    
+    /**
+     * Sets the maximum number of work items waiting to run, -1 for the default.  Should be 
+     * set before the work queue is used.
+     */
+    public final void setQueueSize(int queueSize) {
+        maxQueueSize = queueSize <= 0 ? AutomaticWorkQueueImpl.DEFAULT_MAX_QUEUE_SIZE : queueSize;
+        permits = new Semaphore(maxQueueSize);
+    }
+    
+    public long getMaxSize() {
+        return maxQueueSize;
+    }
+    
+    /**
+     * Gets the number of work items that have been accepted but have not started yet.
+     */
+    public long getSize() {
+        return size.get();
+    }
+    
+    public boolean isEmpty() {
+        return size.get() == 0;
+    }
+    
+    public boolean isFull() {
+        return permits.availablePermits() == 0;
+    }
+    
+    public void execute(Runnable work) {
+        Semaphore p = checkAccepting(work);
+        if (!p.tryAcquire()) {
+            throw new RejectedExecutionException("Work queue " + name + " is full");
+        }
+        submit(work, p);
+    }
+    
+    public void execute(Runnable work, long timeout) {
+        Semaphore p = checkAccepting(work);
+        try {
+            if (!p.tryAcquire(timeout, TimeUnit.MILLISECONDS)) {
+                throw new RejectedExecutionException("Work queue " + name + " is full");
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new RejectedExecutionException(ex);
+        }
+        submit(work, p);
+    }
+    
+    public synchronized void schedule(final Runnable work, long delay) {
+        if (shutdown) {
+            throw new RejectedExecutionException("Work queue " + name + " is shut down");
+        }
+        if (timer == null) {
+            timer = new Timer(name + "-workqueue-timer", true);
+        }
+        timer.schedule(new TimerTask() {
+            public void run() {
+                try {
+                    execute(work);
+                } catch (RejectedExecutionException ex) {
+                    LOG.warning("Executing the scheduled task with exception: " + ex);
+                }
+            }
+        }, delay);
+    }
+    
+    /**
+     * Stops accepting new work items.  An executor created by this work queue is shut 
+     * down as well, a configured executor is left alone as it may be shared.
+     */
+    public void shutdown(boolean processRemainingWorkItems) {
+        Executor ex;
+        synchronized (this) {
+            shutdown = true;
+            if (timer != null) {
+                timer.cancel();
+                timer = null;
+            }
+            ex = ownExecutor ? executor : null;
+        }
+        if (ex != null) {
+            if (processRemainingWorkItems) {
+                ((ExecutorService)ex).shutdown();
+            } else {
+                ((ExecutorService)ex).shutdownNow();
+            }
+        }
+    }
+    
+    public boolean isShutdown() {
+        return shutdown;
+    }
+    
+    public String toString() {
+        StringBuilder buf = new StringBuilder();
+        buf.append(super.toString());
+        buf.append(" [size: ");
+        buf.append(getSize());
+        buf.append(", max size: ");
+        buf.append(maxQueueSize);
+        buf.append(", executor: ");
+        buf.append(executor);
+        buf.append("]");
+        return buf.toString();
+    }
+    
+    private Semaphore checkAccepting(Runnable work) {
+        if (work == null) {
+            throw new NullPointerException();
+        }
+        if (shutdown) {
+            throw new RejectedExecutionException("Work queue " + name + " is shut down");
+        }
+        return permits;
+    }
+    
+    private void submit(Runnable work, Semaphore p) {
+        QueuedWork r = new QueuedWork(work, p);
+        size.incrementAndGet();
+        try {
+            getExecutor().execute(r);
+        } catch (RuntimeException ex) {
+            r.dequeue();
+            throw ex;
+        }
+    }
+    
+    /**
+     * Holds a permit of the queue until the work item starts running.
+     */
+    final class QueuedWork implements Runnable {
+        final AtomicBoolean dequeued = new AtomicBoolean();
+        final Runnable work;
+        final Semaphore permits;
+        //Grab the context classloader of this thread.   We'll make sure we use that 
+        //on the thread the runnable actually runs on.
+        final ClassLoader loader = Thread.currentThread().getContextClassLoader();
+        
+        QueuedWork(Runnable w, Semaphore p) {
+            work = w;
+            permits = p;
+        }
+        
+        void dequeue() {
+            if (dequeued.compareAndSet(false, true)) {
+                size.decrementAndGet();
+                permits.release();
+            }
+        }
+        
+        public void run() {
+            dequeue();
+            ClassLoaderHolder orig = ClassLoaderUtils.setThreadContextClassloader(loader);
+            try {
+                work.run();
+            } finally {
+                if (orig != null) {
+                    orig.reset();
+                }
+            }
+        }
+    }
+    
+    private ExecutorService createDefaultExecutor() {
+        try {
+            //Java 21+, virtual threads are cheap enough to use one per work item
+            Method m = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService)m.invoke(null);
+        } catch (Throwable t) {
+            LOG.log(Level.FINE, "Virtual threads are not available, using a cached thread pool");
+        }
+        return Executors.newCachedThreadPool(new PerTaskThreadFactory(name));
+    }
+    
+    static class PerTaskThreadFactory implements ThreadFactory {
+        final AtomicInteger threadNumber = new AtomicInteger(1);
+        final String name;
+        final ClassLoader loader;
+        
+        PerTaskThreadFactory(String nm) {
+            name = nm;
+            //force the loader to be the loader of CXF, not the application loader
+            loader = ExecutorWorkQueue.class.getClassLoader();
+        }
+        
+        public Thread newThread(Runnable r) {
+            final Thread t = new Thread(r, name + "-workqueue-" + threadNumber.getAndIncrement());
+            AccessController.doPrivileged(new PrivilegedAction<Boolean>() {
+                public Boolean run() {
+                    t.setContextClassLoader(loader);
+                    return true;
+                }
+            });
+            t.setDaemon(true);
+            return t;
+        }
+    }
+}
@@ -23,6 +23,7 @@ import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.PushbackInputStream;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Iterator;
@@ -445,6 +446,82 @@ public class AttachmentDeserializerTest extends Assert {
         }
     }
     
+    @Test
+    public void testLargeAttachmentsInSmallReads() throws Exception {
+        String boundary = "----=_Part_1";
+        // lots of line ends and partial boundaries
+        String pattern = "\r\n------=_Part_\r\n--x";
+        byte[] data = new byte[100000];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte)pattern.charAt(i % pattern.length());
+        }
+        ByteArrayOutputStream bout = new ByteArrayOutputStream();
+        bout.write(("--" + boundary + "\r\n\r\n<root/>\r\n").getBytes("UTF-8"));
+        for (int i = 1; i <= 2; i++) {
+            bout.write(("--" + boundary + "\r\nContent-ID: <att" + i + ">\r\n\r\n").getBytes("UTF-8"));
+            bout.write(data);
+            bout.write("\r\n".getBytes("UTF-8"));
+        }
+        bout.write(("--" + boundary + "--\r\n").getBytes("UTF-8"));
+        ByteArrayInputStream in = new ByteArrayInputStream(bout.toByteArray()) {
+            public int read(byte[] b, int off, int len) {
+                return super.read(b, off, len >= 7 ? 7 : len);
+            }
+        };
+
+        Message message = new MessageImpl();
+        message.put(Message.CONTENT_TYPE, "multipart/related;boundary=" + boundary);
+        message.setContent(InputStream.class, in);
+        new AttachmentDeserializer(message).initializeAttachments();
+
+        assertEquals("<root/>", getString(message.getContent(InputStream.class)));
+        int count = 0;
+        for (Attachment a : message.getAttachments()) {
+            InputStream ins = a.getDataHandler().getInputStream();
+            ByteArrayOutputStream read = new ByteArrayOutputStream();
+            // single bytes and blocks
+            read.write(ins.read());
+            IOUtils.copy(ins, read);
+            assertTrue(Arrays.equals(data, read.toByteArray()));
+            count++;
+        }
+        assertEquals(2, count);
+    }
+
+    @Test
+    public void testStreamedAttachments() throws Exception {
+        String boundary = "----=_Part_1";
+        String message = "--" + boundary + "\r\n\r\n<root/>\r\n"
+            + "--" + boundary + "\r\nContent-ID: <att1>\r\n\r\nABCD1\r\n"
+            + "--" + boundary + "\r\nContent-ID: <att2>\r\n\r\nABCD2\r\n"
+            + "--" + boundary + "\r\nContent-ID: <att3>\r\n\r\nABCD3\r\n"
+            + "--" + boundary + "--";
+        Message m = new MessageImpl();
+        m.put(Message.CONTENT_TYPE, "multipart/related;boundary=" + boundary);
+        m.put(AttachmentDeserializer.ATTACHMENT_STREAMING, Boolean.TRUE);
+        m.setContent(InputStream.class, new ByteArrayInputStream(message.getBytes("UTF-8")));
+        new AttachmentDeserializer(m).initializeAttachments();
+
+        Iterator<Attachment> it = m.getAttachments().iterator();
+        assertTrue(it.hasNext());
+        Attachment att1 = it.next();
+        assertEquals("ABCD1", getString(att1.getDataHandler().getInputStream()));
+        assertTrue(it.hasNext());
+        Attachment att2 = it.next();
+        // the next attachment is requested before att2 is read, so att2 is discarded
+        assertTrue(it.hasNext());
+        assertEquals("ABCD3", getString(it.next().getDataHandler().getInputStream()));
+        assertFalse(it.hasNext());
+        try {
+            att2.getDataHandler().getInputStream().read();
+            fail("The discarded attachment should not be readable");
+        } catch (IOException ex) {
+            // expected
+        }
+        // the root part is still cached
+        assertEquals("<root/>", getString(m.getContent(InputStream.class)));
+    }
+
     private String getString(InputStream ins) throws Exception {
         ByteArrayOutputStream bout = new ByteArrayOutputStream(100);
         byte b[] = new byte[100];
@@ -21,6 +21,9 @@ package org.apache.cxf.io;
 import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+
+import org.apache.cxf.helpers.IOUtils;
 
 import org.junit.Assert;
 import org.junit.Test;
@@ -54,6 +57,58 @@ public class CachedOutputStreamTest extends Assert {
         assertFalse(tempFile.exists());
     }
     
+    @Test
+    public void testMemoryMappedTmpFile() throws IOException {
+        CachedOutputStream cos = new CachedOutputStream();
+        cos.setMemoryMapped(true);
+        String result = initTestData(65);
+        cos.write(result.getBytes());
+        File tempFile = cos.getTempFile();
+        assertNotNull(tempFile);
+        
+        assertEquals(result, new String(cos.getBytes()));
+        StringBuilder builder = new StringBuilder();
+        cos.writeCacheTo(builder, "UTF-8", 10);
+        assertEquals(result.substring(0, 10), builder.toString());
+        
+        InputStream in = cos.getInputStream();
+        assertEquals(result.length(), in.available());
+        ByteArrayOutputStream bout = new ByteArrayOutputStream();
+        IOUtils.copy(in, bout);
+        assertEquals(result, bout.toString());
+        assertTrue(tempFile.exists());
+        cos.close();
+        assertTrue(tempFile.exists());
+        in.close();
+        //assert tmp file is deleted once the last reader is closed
+        assertFalse(tempFile.exists());
+    }
+    
+    @Test
+    public void testMemoryMappedTmpFileReadTwice() throws IOException {
+        CachedOutputStream cos = new CachedOutputStream();
+        cos.setMemoryMapped(true);
+        String result = initTestData(65);
+        cos.write(result.getBytes());
+        File tempFile = cos.getTempFile();
+        assertNotNull(tempFile);
+        
+        assertEquals(result, new String(cos.getBytes()));
+        InputStream in = cos.getInputStream();
+        assertEquals(result, IOUtils.toString(in));
+        assertEquals(result, new String(cos.getBytes()));
+        
+        cos.close();
+        in.close();
+        assertFalse(tempFile.exists());
+        try {
+            in.read();
+            fail("the stream is closed");
+        } catch (IOException ex) {
+            //expected
+        }
+    }
+    
     String initTestData(int packetSize) {
         String temp = "abcdefghijklmnopqrstuvwxyz0123456789!@#$%^&*()_+?><[]/0123456789";
         String result = new String();
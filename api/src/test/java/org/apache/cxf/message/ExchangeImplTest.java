@@ -0,0 +1,200 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.message;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.cxf.Bus;
+import org.apache.cxf.binding.Binding;
+import org.apache.cxf.endpoint.Endpoint;
+import org.apache.cxf.service.Service;
+import org.apache.cxf.transport.Destination;
+import org.easymock.EasyMock;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ExchangeImplTest extends Assert {
+
+    @Test
+    public void testFieldsAndMapStayInSync() {
+        Bus bus = EasyMock.createMock(Bus.class);
+        Endpoint endpoint = EasyMock.createMock(Endpoint.class);
+        Service service = EasyMock.createMock(Service.class);
+        
+        Exchange exchange = new ExchangeImpl();
+        exchange.put(Bus.class, bus);
+        assertSame(bus, exchange.get(Bus.class));
+        assertSame(bus, exchange.getBus());
+        assertSame(bus, exchange.get(Bus.class.getName()));
+        
+        exchange.put(new String(Endpoint.class.getName()), endpoint);
+        assertSame(endpoint, exchange.get(Endpoint.class));
+        assertSame(endpoint, exchange.getEndpoint());
+        
+        exchange.putAll(Collections.singletonMap(Service.class.getName(), (Object)service));
+        assertSame(service, exchange.get(Service.class));
+        assertSame(service, exchange.getService());
+        
+        exchange.remove(Endpoint.class.getName());
+        assertNull(exchange.get(Endpoint.class));
+        assertNull(exchange.getEndpoint());
+        assertFalse(exchange.containsKey(Endpoint.class.getName()));
+        
+        exchange.clear();
+        assertNull(exchange.get(Bus.class));
+        assertNull(exchange.getService());
+        assertTrue(exchange.isEmpty());
+    }
+    
+    @Test
+    public void testViewsUpdateFields() throws Exception {
+        Bus bus = EasyMock.createMock(Bus.class);
+        Endpoint endpoint = EasyMock.createMock(Endpoint.class);
+        Service service = EasyMock.createMock(Service.class);
+        
+        ExchangeImpl exchange = new ExchangeImpl();
+        exchange.put(Bus.class, bus);
+        exchange.put(Endpoint.class, endpoint);
+        exchange.put(Service.class, service);
+        exchange.put("a", "b");
+        
+        exchange.keySet().remove(Bus.class.getName());
+        assertNull(exchange.getBus());
+        
+        for (Iterator<Map.Entry<String, Object>> it = exchange.entrySet().iterator(); it.hasNext();) {
+            Map.Entry<String, Object> e = it.next();
+            if (e.getKey().equals(Endpoint.class.getName())) {
+                it.remove();
+            } else if (e.getKey().equals(Service.class.getName())) {
+                e.setValue(null);
+            }
+        }
+        assertNull(exchange.getEndpoint());
+        assertNull(exchange.get(Service.class));
+        assertTrue(exchange.containsKey(Service.class.getName()));
+        
+        exchange.put(Bus.class, bus);
+        exchange.values().remove(bus);
+        assertNull(exchange.get(Bus.class));
+        
+        exchange.put(Bus.class, bus);
+        exchange.keySet().retainAll(Collections.singleton("a"));
+        assertNull(exchange.getBus());
+        assertEquals(Collections.singletonMap("a", "b"), exchange);
+        
+        exchange.put(Endpoint.class, endpoint);
+        assertNull(exchange.putIfAbsent(Service.class.getName(), service));
+        assertSame(service, exchange.getService());
+        assertTrue(exchange.remove(Service.class.getName(), service));
+        assertNull(exchange.getService());
+        
+        ExchangeImpl copy = (ExchangeImpl)exchange.clone();
+        copy.keySet().clear();
+        assertNull(copy.getEndpoint());
+        assertSame(endpoint, exchange.getEndpoint());
+        assertEquals(2, exchange.keySet().size());
+    }
+    
+    @Test
+    public void testSerializationRestoresFields() throws Exception {
+        Binding binding = (Binding)Proxy.newProxyInstance(getClass().getClassLoader(),
+                                                          new Class<?>[] {Binding.class},
+                                                          new SerializableHandler());
+        ExchangeImpl exchange = new ExchangeImpl();
+        exchange.put(Binding.class, binding);
+        exchange.put("a", "b");
+        
+        ByteArrayOutputStream bout = new ByteArrayOutputStream();
+        ObjectOutputStream out = new ObjectOutputStream(bout);
+        out.writeObject(exchange);
+        out.close();
+        ExchangeImpl read = (ExchangeImpl)new ObjectInputStream(
+            new ByteArrayInputStream(bout.toByteArray())).readObject();
+        assertNotNull(read.getBinding());
+        assertSame(read.get(Binding.class.getName()), read.get(Binding.class));
+        assertEquals("b", read.get("a"));
+    }
+    
+    private static final class SerializableHandler implements InvocationHandler, Serializable {
+        private static final long serialVersionUID = 1L;
+
+        public Object invoke(Object proxy, Method method, Object[] args) {
+            return null;
+        }
+    }
+    
+    @Test
+    public void testMessageFields() {
+        Destination destination = EasyMock.createMock(Destination.class);
+        Map<String, List<String>> headers = new HashMap<String, List<String>>();
+        
+        MessageImpl message = new MessageImpl();
+        message.setDestination(destination);
+        message.put(new String(Message.PROTOCOL_HEADERS), headers);
+        assertSame(destination, message.getDestination());
+        assertSame(destination, message.get(Destination.class));
+        assertSame(headers, message.get(Message.PROTOCOL_HEADERS));
+        
+        MessageImpl copy = new MessageImpl(message);
+        assertSame(destination, copy.getDestination());
+        assertSame(headers, copy.get(Message.PROTOCOL_HEADERS));
+        
+        message.entrySet().clear();
+        assertNull(message.getDestination());
+        assertNull(message.get(Message.PROTOCOL_HEADERS));
+        assertSame(headers, copy.get(Message.PROTOCOL_HEADERS));
+    }
+    
+    @Test
+    public void testContextualPropertyReset() {
+        Bus bus = EasyMock.createMock(Bus.class);
+        EasyMock.expect(bus.getProperties())
+            .andReturn(Collections.singletonMap("a", (Object)"b")).anyTimes();
+        EasyMock.replay(bus);
+        
+        Exchange exchange = new ExchangeImpl();
+        exchange.put("c", "d");
+        Message message = new MessageImpl();
+        message.put("e", "f");
+        exchange.setInMessage(message);
+        assertNull(message.getContextualProperty("a"));
+        assertEquals("d", message.getContextualProperty("c"));
+        assertEquals("f", message.getContextualProperty("e"));
+        
+        exchange.put(Bus.class, bus);
+        assertEquals("b", message.getContextualProperty("a"));
+        
+        exchange.remove(Bus.class.getName());
+        assertNull(message.getContextualProperty("a"));
+    }
+}
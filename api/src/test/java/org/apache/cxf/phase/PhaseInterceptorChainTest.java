@@ -25,6 +25,7 @@ import java.util.Iterator;
 import java.util.Set;
 import java.util.SortedSet;
 import java.util.TreeSet;
+import java.util.concurrent.CountDownLatch;
 
 import org.apache.cxf.common.util.SortedArraySet;
 import org.apache.cxf.continuations.SuspendedInvocationException;
@@ -347,6 +348,174 @@ public class PhaseInterceptorChainTest extends Assert {
         assertEquals(0, p1.faultInvoked);
     }
 
+    @Test
+    public void testClonedChainModification() throws Exception {
+        CountingPhaseInterceptor p1 = new CountingPhaseInterceptor("phase1", "p1");
+        CountingPhaseInterceptor p2 = new CountingPhaseInterceptor("phase2", "p2");
+        CountingPhaseInterceptor p3 = new CountingPhaseInterceptor("phase3", "p3");
+        control.replay();
+        chain.add(p1);
+        chain.add(p3);
+        
+        PhaseInterceptorChain clone = chain.cloneChain();
+        clone.add(p2);
+        assertEquals(2, countInterceptors(chain));
+        assertEquals(3, countInterceptors(clone));
+        
+        PhaseInterceptorChain clone2 = chain.cloneChain();
+        chain.remove(p1);
+        assertEquals(1, countInterceptors(chain));
+        assertEquals(2, countInterceptors(clone2));
+        
+        clone2.doIntercept(message);
+        assertEquals(1, p1.invoked);
+        assertEquals(0, p2.invoked);
+        assertEquals(1, p3.invoked);
+    }
+    
+    @Test
+    public void testInsertionInSharedChainPass() throws Exception {
+        CountingPhaseInterceptor p2 = new CountingPhaseInterceptor("phase2", "p2");
+        CountingPhaseInterceptor p3 = new CountingPhaseInterceptor("phase3", "p3");
+        InsertingPhaseInterceptor p1 = new InsertingPhaseInterceptor(chain, p2, "phase1", "p1");
+        control.replay();
+        chain.add(p1);
+        chain.add(p3);
+        
+        // the chain copies the interceptors it shares with the clone 
+        // when p2 is inserted while the chain is executing
+        PhaseInterceptorChain clone = chain.cloneChain();
+        chain.doIntercept(message);
+        assertEquals(1, p1.invoked);
+        assertEquals(1, p2.invoked);
+        assertEquals(1, p3.invoked);
+        assertEquals(InterceptorChain.State.COMPLETE, chain.getState());
+        assertEquals(3, countInterceptors(chain));
+        assertEquals(2, countInterceptors(clone));
+        assertEquals(InterceptorChain.State.EXECUTING, clone.getState());
+    }
+    
+    @Test
+    public void testClonesShareInsertedInterceptor() throws Exception {
+        CountingPhaseInterceptor p1 = new CountingPhaseInterceptor("phase1", "p1");
+        CountingPhaseInterceptor p2 = new CountingPhaseInterceptor("phase2", "p2");
+        control.replay();
+        chain.add(p1);
+        
+        PhaseInterceptorChain clone = chain.cloneChain();
+        PhaseInterceptorChain clone2 = chain.cloneChain();
+        clone.add(p2);
+        clone2.add(p2);
+        clone2.add(p2);
+        assertEquals(1, countInterceptors(chain));
+        assertEquals(2, countInterceptors(clone));
+        assertEquals(2, countInterceptors(clone2));
+        
+        // the clones share the interceptors resulting from the same insertion
+        Field f = PhaseInterceptorChain.class.getDeclaredField("heads");
+        f.setAccessible(true);
+        assertSame(f.get(clone), f.get(clone2));
+        assertNotSame(f.get(chain), f.get(clone));
+        
+        clone2.remove(p1);
+        assertEquals(2, countInterceptors(clone));
+        assertEquals(1, countInterceptors(clone2));
+    }
+    
+    @Test
+    public void testPerMessageInterceptorNotShared() throws Exception {
+        CountingPhaseInterceptor p1 = new CountingPhaseInterceptor("phase1", "p1");
+        control.replay();
+        chain.add(p1);
+        
+        PhaseInterceptorChain clone = chain.cloneChain();
+        PhaseInterceptorChain clone2 = chain.cloneChain();
+        clone.add(new CountingPhaseInterceptor("phase2", "p2"));
+        clone2.add(new CountingPhaseInterceptor("phase2", "p2"));
+        assertEquals(2, countInterceptors(clone));
+        assertEquals(2, countInterceptors(clone2));
+        
+        // the holders derived with the interceptor of the first message are not kept
+        Field f = PhaseInterceptorChain.class.getDeclaredField("shared");
+        f.setAccessible(true);
+        PhaseInterceptorChain.SharedHolders s = (PhaseInterceptorChain.SharedHolders)f.get(chain);
+        assertTrue(s.derived.isEmpty());
+        PhaseInterceptorChain clone3 = chain.cloneChain();
+        clone3.add(new CountingPhaseInterceptor("phase2", "p2"));
+        assertTrue(s.derived.isEmpty());
+    }
+    
+    @Test
+    public void testInsertionInExecutingClonesPass() throws Exception {
+        CountingPhaseInterceptor p2 = new CountingPhaseInterceptor("phase2", "p2");
+        CountingPhaseInterceptor p3 = new CountingPhaseInterceptor("phase3", "p3");
+        CurrentChainInsertingInterceptor p1 = new CurrentChainInsertingInterceptor(p2, "phase1", "p1");
+        chain.add(p1);
+        chain.add(p3);
+        PhaseInterceptorChain clone = chain.cloneChain();
+        PhaseInterceptorChain clone2 = chain.cloneChain();
+        
+        EasyMock.expect(message.getInterceptorChain()).andReturn(clone).andReturn(clone2);
+        control.replay();
+        
+        clone.doIntercept(message);
+        clone2.doIntercept(message);
+        assertEquals(2, p1.invoked);
+        assertEquals(2, p2.invoked);
+        assertEquals(2, p3.invoked);
+        assertEquals(InterceptorChain.State.COMPLETE, clone2.getState());
+        assertEquals(2, countInterceptors(chain));
+        assertEquals(3, countInterceptors(clone2));
+    }
+    
+    @Test
+    public void testResumeFromAnotherThread() throws Exception {
+        CountingPhaseInterceptor p1 = new CountingPhaseInterceptor("phase1", "p1");
+        final CountDownLatch paused = new CountDownLatch(1);
+        AbstractPhaseInterceptor<Message> p2 = new AbstractPhaseInterceptor<Message>("p2", "phase2") {
+            public void handleMessage(Message m) {
+                chain.pause();
+                paused.countDown();
+                try {
+                    // the other thread has to wait until the chain is left
+                    Thread.sleep(200);
+                } catch (InterruptedException e) {
+                    // ignore
+                }
+            }
+        };
+        final CountingPhaseInterceptor p3 = new CountingPhaseInterceptor("phase3", "p3");
+        control.replay();
+        chain.add(p1);
+        chain.add(p2);
+        chain.add(p3);
+        
+        Thread t = new Thread(new Runnable() {
+            public void run() {
+                try {
+                    paused.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                chain.resume();
+            }
+        });
+        t.start();
+        assertFalse(chain.doIntercept(message));
+        t.join(10000);
+        assertEquals(1, p1.invoked);
+        assertEquals(1, p3.invoked);
+        assertEquals(InterceptorChain.State.COMPLETE, chain.getState());
+    }
+    
+    private static int countInterceptors(PhaseInterceptorChain c) {
+        int count = 0;
+        for (Iterator<Interceptor<? extends Message>> it = c.iterator(); it.hasNext(); it.next()) {
+            count++;
+        }
+        return count;
+    }
+
     @Test
     public void testWrappedInvocation() throws Exception {
         CountingPhaseInterceptor p1 = new CountingPhaseInterceptor("phase1",
@@ -502,6 +671,21 @@ public class PhaseInterceptorChainTest extends Assert {
         }
     }
 
+    public class CurrentChainInsertingInterceptor extends CountingPhaseInterceptor {
+        private final AbstractPhaseInterceptor<? extends Message> insertionInterceptor;
+
+        public CurrentChainInsertingInterceptor(AbstractPhaseInterceptor<? extends Message> i,
+                                                String phase, String id) {
+            super(phase, id);
+            insertionInterceptor = i;
+        }
+
+        public void handleMessage(Message m) {
+            super.handleMessage(m);
+            m.getInterceptorChain().add(insertionInterceptor);
+        }
+    }
+
     public class CountingPhaseInterceptor extends
             AbstractPhaseInterceptor<Message> {
         int invoked;
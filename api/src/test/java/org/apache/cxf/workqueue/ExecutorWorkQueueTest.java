@@ -0,0 +1,219 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.workqueue;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ExecutorWorkQueueTest extends Assert {
+
+    ExecutorWorkQueue workqueue;
+    
+    @After
+    public void tearDown() throws Exception {
+        if (workqueue != null) {
+            workqueue.shutdown(true);
+            workqueue = null;
+        }
+    }
+    
+    @Test
+    public void testConfiguredExecutor() throws Exception {
+        final AtomicInteger count = new AtomicInteger();
+        ExecutorService ex = Executors.newSingleThreadExecutor();
+        Executor counting = new Executor() {
+            public void execute(Runnable command) {
+                count.incrementAndGet();
+                command.run();
+            }
+        };
+        try {
+            workqueue = new ExecutorWorkQueue("test", counting);
+            final CountDownLatch done = new CountDownLatch(2);
+            Runnable r = new Runnable() {
+                public void run() {
+                    done.countDown();
+                }
+            };
+            workqueue.execute(r);
+            workqueue.execute(r, 10);
+            assertTrue(done.await(5, TimeUnit.SECONDS));
+            assertEquals(2, count.get());
+            assertTrue(workqueue.isEmpty());
+            
+            workqueue.setExecutor(ex);
+            final CountDownLatch done2 = new CountDownLatch(1);
+            workqueue.execute(new Runnable() {
+                public void run() {
+                    done2.countDown();
+                }
+            });
+            assertTrue(done2.await(5, TimeUnit.SECONDS));
+            assertEquals(2, count.get());
+            
+            workqueue.shutdown(true);
+            //a configured executor belongs to the caller
+            assertFalse(ex.isShutdown());
+        } finally {
+            ex.shutdown();
+        }
+    }
+    
+    @Test
+    public void testEnqueueWithTimeout() throws Exception {
+        HeldExecutor held = new HeldExecutor();
+        workqueue = new ExecutorWorkQueue("test", held, 2);
+        final AtomicInteger count = new AtomicInteger();
+        Runnable r = new Runnable() {
+            public void run() {
+                count.incrementAndGet();
+            }
+        };
+        workqueue.execute(r);
+        workqueue.execute(r, 50);
+        assertTrue(workqueue.isFull());
+        assertEquals(2, workqueue.getSize());
+        try {
+            workqueue.execute(r);
+            fail("Should have failed with a RejectedExecutionException as the queue is full");
+        } catch (RejectedExecutionException ex) {
+            //expected
+        }
+        long start = System.currentTimeMillis();
+        try {
+            workqueue.execute(r, 100);
+            fail("Should have failed with a RejectedExecutionException as the queue is full");
+        } catch (RejectedExecutionException ex) {
+            assertTrue(System.currentTimeMillis() - start >= 90);
+        }
+        
+        //starting an item frees its place even though it has not completed
+        held.runNext();
+        assertEquals(1, workqueue.getSize());
+        assertFalse(workqueue.isFull());
+        workqueue.execute(r, 5000);
+        held.runNext();
+        held.runNext();
+        assertEquals(3, count.get());
+        assertTrue(workqueue.isEmpty());
+    }
+    
+    @Test
+    public void testDefaultQueueIsBounded() throws Exception {
+        HeldExecutor held = new HeldExecutor();
+        workqueue = new ExecutorWorkQueue("test", held);
+        assertEquals(256, workqueue.getMaxSize());
+        Runnable r = new Runnable() {
+            public void run() {
+            }
+        };
+        for (int i = 0; i < 256; i++) {
+            workqueue.execute(r);
+        }
+        assertTrue(workqueue.isFull());
+        try {
+            workqueue.execute(r);
+            fail("Should have failed with a RejectedExecutionException as the queue is full");
+        } catch (RejectedExecutionException ex) {
+            //expected
+        }
+    }
+    
+    @Test
+    public void testRunningItemsAreNotLimited() throws Exception {
+        workqueue = new ExecutorWorkQueue("test", null, 2);
+        final CountDownLatch started = new CountDownLatch(5);
+        final CountDownLatch release = new CountDownLatch(1);
+        Runnable blocking = new Runnable() {
+            public void run() {
+                started.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    //ignore
+                }
+            }
+        };
+        try {
+            for (int i = 0; i < 5; i++) {
+                workqueue.execute(blocking, 5000);
+            }
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            assertTrue(workqueue.isEmpty());
+        } finally {
+            release.countDown();
+        }
+    }
+    
+    @Test
+    public void testSchedule() throws Exception {
+        workqueue = new ExecutorWorkQueue("test");
+        final CountDownLatch done = new CountDownLatch(1);
+        long start = System.currentTimeMillis();
+        workqueue.schedule(new Runnable() {
+            public void run() {
+                done.countDown();
+            }
+        }, 200);
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertTrue("expected delay", System.currentTimeMillis() - start >= 190);
+    }
+    
+    @Test
+    public void testShutdown() throws Exception {
+        workqueue = new ExecutorWorkQueue("test");
+        assertFalse(workqueue.isShutdown());
+        workqueue.shutdown(true);
+        assertTrue(workqueue.isShutdown());
+        try {
+            workqueue.execute(new Runnable() {
+                public void run() {
+                }
+            });
+            fail("Should have failed with a RejectedExecutionException as the queue is shut down");
+        } catch (RejectedExecutionException ex) {
+            //expected
+        }
+    }
+    
+    /**
+     * Keeps the work items until the test runs them.
+     */
+    static class HeldExecutor implements Executor {
+        final Queue<Runnable> items = new ConcurrentLinkedQueue<Runnable>();
+        
+        public void execute(Runnable command) {
+            items.add(command);
+        }
+        void runNext() {
+            items.remove().run();
+        }
+    }
+}
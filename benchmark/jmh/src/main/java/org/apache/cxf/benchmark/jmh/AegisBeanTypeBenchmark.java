@@ -0,0 +1,95 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.benchmark.jmh;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.lang.reflect.Type;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.XMLStreamWriter;
+
+import org.apache.cxf.aegis.AegisContext;
+import org.apache.cxf.aegis.type.AegisType;
+import org.apache.cxf.benchmark.jmh.service.Order;
+import org.apache.cxf.staxutils.StaxUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Measures writing and reading an Order with Aegis, with the bean properties accessed
+ * by reflection or by the accessors compiled when AegisContext.setCompileBeanAccessors
+ * is set.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class AegisBeanTypeBenchmark {
+
+    private static final QName ORDER = new QName("http://service.jmh.benchmark.cxf.apache.org/", "order");
+
+    @Param({"false", "true" })
+    boolean compiled;
+
+    @Param({"10", "1000" })
+    int lineCount;
+
+    private AegisContext context;
+    private AegisType type;
+    private Order order;
+    private byte[] xml;
+
+    @Setup
+    public void setUp() throws Exception {
+        context = new AegisContext();
+        context.setCompileBeanAccessors(compiled);
+        context.setRootClasses(Collections.<Type>singleton(Order.class));
+        context.initialize();
+        type = context.getTypeMapping().getType(Order.class);
+        order = Order.createOrder(lineCount);
+        xml = write();
+    }
+
+    @Benchmark
+    public byte[] write() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        XMLStreamWriter writer = StaxUtils.createXMLStreamWriter(out);
+        context.createXMLStreamWriter().write(order, ORDER, false, writer, type);
+        writer.close();
+        return out.toByteArray();
+    }
+
+    @Benchmark
+    public Object read() throws Exception {
+        XMLStreamReader reader = StaxUtils.createXMLStreamReader(new ByteArrayInputStream(xml));
+        reader.nextTag();
+        Object o = context.createXMLStreamReader().read(reader, type);
+        reader.close();
+        return o;
+    }
+}
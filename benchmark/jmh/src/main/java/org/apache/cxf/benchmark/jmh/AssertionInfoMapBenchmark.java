@@ -0,0 +1,97 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.benchmark.jmh;
+
+import java.io.ByteArrayInputStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.cxf.Bus;
+import org.apache.cxf.BusFactory;
+import org.apache.cxf.helpers.IOUtils;
+import org.apache.cxf.ws.policy.AssertionInfoMap;
+import org.apache.cxf.ws.policy.PolicyBuilder;
+import org.apache.neethi.Assertion;
+import org.apache.neethi.Policy;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Measures creating the AssertionInfoMap of a message for a WS-SecurityPolicy transport
+ * binding, by collecting the assertions of the chosen alternative as the interceptors
+ * did for every message, and by copying the map the effective policy keeps.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class AssertionInfoMapBenchmark {
+
+    private static final String POLICY =
+        "<wsp:Policy xmlns:wsp=\"http://www.w3.org/ns/ws-policy\""
+        + " xmlns:sp=\"http://docs.oasis-open.org/ws-sx/ws-securitypolicy/200702\">"
+        + "<sp:TransportBinding><wsp:Policy>"
+        + "<sp:TransportToken><wsp:Policy><sp:HttpsToken><wsp:Policy/></sp:HttpsToken>"
+        + "</wsp:Policy></sp:TransportToken>"
+        + "<sp:AlgorithmSuite><wsp:Policy><sp:Basic256/></wsp:Policy></sp:AlgorithmSuite>"
+        + "<sp:Layout><wsp:Policy><sp:Strict/></wsp:Policy></sp:Layout>"
+        + "<sp:IncludeTimestamp/>"
+        + "</wsp:Policy></sp:TransportBinding>"
+        + "<sp:SignedSupportingTokens><wsp:Policy>"
+        + "<sp:UsernameToken sp:IncludeToken=\"http://docs.oasis-open.org/ws-sx/ws-securitypolicy/"
+        + "200702/IncludeToken/AlwaysToRecipient\"><wsp:Policy><sp:WssUsernameToken11/>"
+        + "</wsp:Policy></sp:UsernameToken>"
+        + "</wsp:Policy></sp:SignedSupportingTokens>"
+        + "<sp:Wss11><wsp:Policy><sp:MustSupportRefKeyIdentifier/>"
+        + "<sp:MustSupportRefIssuerSerial/><sp:MustSupportRefThumbprint/></wsp:Policy></sp:Wss11>"
+        + "</wsp:Policy>";
+
+    private Bus bus;
+    private List<Assertion> alternative;
+    private AssertionInfoMap template;
+
+    @Setup
+    public void setUp() throws Exception {
+        bus = BusFactory.newInstance().createBus();
+        PolicyBuilder builder = bus.getExtension(PolicyBuilder.class);
+        Policy policy = builder.getPolicy(new ByteArrayInputStream(POLICY.getBytes(IOUtils.UTF8_CHARSET)));
+        alternative = policy.normalize(true).getAlternatives().next();
+        template = new AssertionInfoMap(alternative);
+    }
+
+    @TearDown
+    public void tearDown() {
+        bus.shutdown(true);
+    }
+
+    @Benchmark
+    public AssertionInfoMap collect() {
+        return new AssertionInfoMap(alternative);
+    }
+
+    @Benchmark
+    public AssertionInfoMap copy() {
+        return new AssertionInfoMap(template);
+    }
+}
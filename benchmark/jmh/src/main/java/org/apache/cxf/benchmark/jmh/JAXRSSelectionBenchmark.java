@@ -0,0 +1,142 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.benchmark.jmh;
+
+import java.lang.annotation.Annotation;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.ext.MessageBodyReader;
+import javax.ws.rs.ext.MessageBodyWriter;
+
+import org.apache.cxf.Bus;
+import org.apache.cxf.BusFactory;
+import org.apache.cxf.benchmark.jmh.service.CustomerResource;
+import org.apache.cxf.benchmark.jmh.service.Order;
+import org.apache.cxf.benchmark.jmh.service.OrderResource;
+import org.apache.cxf.endpoint.Endpoint;
+import org.apache.cxf.endpoint.Server;
+import org.apache.cxf.jaxrs.JAXRSServerFactoryBean;
+import org.apache.cxf.jaxrs.JAXRSServiceImpl;
+import org.apache.cxf.jaxrs.impl.MetadataMap;
+import org.apache.cxf.jaxrs.model.ClassResourceInfo;
+import org.apache.cxf.jaxrs.model.OperationResourceInfo;
+import org.apache.cxf.jaxrs.model.URITemplateIndex;
+import org.apache.cxf.jaxrs.provider.ProviderFactory;
+import org.apache.cxf.jaxrs.utils.JAXRSUtils;
+import org.apache.cxf.message.Exchange;
+import org.apache.cxf.message.ExchangeImpl;
+import org.apache.cxf.message.Message;
+import org.apache.cxf.message.MessageImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Measures the JAX-RS request dispatch steps which run on every invocation: 
+ * root resource selection, resource method selection and the negotiation of 
+ * the MessageBodyReader and MessageBodyWriter.  The root resource is selected both
+ * by matching every template and through the URITemplateIndex of the service.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class JAXRSSelectionBenchmark {
+    
+    private static final String PATH = "/orders/123/lines/2";
+    private static final Annotation[] NO_ANNOTATIONS = new Annotation[0];
+    private static final List<MediaType> ACCEPT = 
+        Collections.singletonList(MediaType.APPLICATION_XML_TYPE);
+    
+    private Bus bus;
+    private Server server;
+    private Endpoint endpoint;
+    private List<ClassResourceInfo> resources;
+    private URITemplateIndex<ClassResourceInfo> index;
+    private ProviderFactory providerFactory;
+    
+    @Setup
+    public void setUp() {
+        bus = BusFactory.newInstance().createBus();
+        JAXRSServerFactoryBean sf = new JAXRSServerFactoryBean();
+        sf.setBus(bus);
+        sf.setAddress("local://JAXRSSelectionBenchmark");
+        sf.setResourceClasses(OrderResource.class, CustomerResource.class);
+        server = sf.create();
+        endpoint = server.getEndpoint();
+        resources = ((JAXRSServiceImpl)endpoint.getService()).getClassResourceInfos();
+        index = ((JAXRSServiceImpl)endpoint.getService()).getClassResourceIndex();
+        providerFactory = ProviderFactory.getInstance(createMessage());
+    }
+    
+    @TearDown
+    public void tearDown() {
+        server.destroy();
+        bus.shutdown(true);
+    }
+    
+    @Benchmark
+    public ClassResourceInfo selectResourceClass() {
+        MultivaluedMap<String, String> values = new MetadataMap<String, String>();
+        return JAXRSUtils.selectResourceClass(resources, PATH, values, createMessage());
+    }
+    
+    @Benchmark
+    public ClassResourceInfo selectResourceClassIndexed() {
+        MultivaluedMap<String, String> values = new MetadataMap<String, String>();
+        return JAXRSUtils.selectResourceClass(index, PATH, values, createMessage());
+    }
+    
+    @Benchmark
+    public OperationResourceInfo selectResourceMethod() {
+        Message message = createMessage();
+        MultivaluedMap<String, String> values = new MetadataMap<String, String>();
+        ClassResourceInfo cri = JAXRSUtils.selectResourceClass(index, PATH, values, message);
+        return JAXRSUtils.findTargetMethod(cri, message, "GET", values, "*/*", ACCEPT, false);
+    }
+    
+    @Benchmark
+    public MessageBodyReader<Order> selectReader() {
+        return providerFactory.createMessageBodyReader(Order.class, Order.class, NO_ANNOTATIONS,
+                                                       MediaType.APPLICATION_XML_TYPE, createMessage());
+    }
+    
+    @Benchmark
+    public MessageBodyWriter<Order> selectWriter() {
+        return providerFactory.createMessageBodyWriter(Order.class, Order.class, NO_ANNOTATIONS,
+                                                       MediaType.APPLICATION_XML_TYPE, createMessage());
+    }
+    
+    private Message createMessage() {
+        Message message = new MessageImpl();
+        Exchange exchange = new ExchangeImpl();
+        exchange.put(Endpoint.class, endpoint);
+        message.setExchange(exchange);
+        exchange.setInMessage(message);
+        return message;
+    }
+}
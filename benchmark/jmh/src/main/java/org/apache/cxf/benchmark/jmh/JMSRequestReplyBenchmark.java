@@ -0,0 +1,126 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.benchmark.jmh;
+
+import java.util.concurrent.TimeUnit;
+
+import javax.jms.JMSException;
+import javax.jms.Message;
+import javax.jms.Session;
+import javax.jms.TextMessage;
+
+import org.apache.activemq.ActiveMQConnectionFactory;
+import org.apache.activemq.broker.BrokerService;
+import org.apache.cxf.Bus;
+import org.apache.cxf.BusFactory;
+import org.apache.cxf.message.Exchange;
+import org.apache.cxf.message.ExchangeImpl;
+import org.apache.cxf.message.MessageImpl;
+import org.apache.cxf.service.model.EndpointInfo;
+import org.apache.cxf.transport.jms.JMSConduit;
+import org.apache.cxf.transport.jms.JMSConfiguration;
+import org.apache.cxf.ws.addressing.EndpointReferenceType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.jms.connection.CachingConnectionFactory;
+import org.springframework.jms.listener.DefaultMessageListenerContainer;
+import org.springframework.jms.listener.SessionAwareMessageListener;
+
+/**
+ * Measures synchronous request/reply calls through a JMSConduit against an embedded,
+ * non persistent ActiveMQ broker with an echo responder.  sharedReplyListener=false
+ * receives every reply with its own selector consumer, sharedReplyListener=true uses
+ * the long lived reply listener of the conduit.  Run with "-t 4" or more to see how
+ * concurrent callers share the conduit.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class JMSRequestReplyBenchmark {
+    private static final String BROKER_URI = "vm://jmh-broker?create=false";
+
+    @Param({"false", "true" })
+    boolean sharedReplyListener;
+
+    private BrokerService broker;
+    private CachingConnectionFactory responderConnectionFactory;
+    private DefaultMessageListenerContainer responder;
+    private Bus bus;
+    private JMSConduit conduit;
+
+    @Setup
+    public void setUp() throws Exception {
+        broker = new BrokerService();
+        broker.setBrokerName("jmh-broker");
+        broker.setPersistent(false);
+        broker.setUseJmx(false);
+        broker.start();
+
+        responderConnectionFactory = 
+            new CachingConnectionFactory(new ActiveMQConnectionFactory(BROKER_URI));
+        responder = new DefaultMessageListenerContainer();
+        responder.setConnectionFactory(responderConnectionFactory);
+        responder.setDestinationName("jmh.request");
+        responder.setConcurrentConsumers(4);
+        responder.setMessageListener(new SessionAwareMessageListener<Message>() {
+            public void onMessage(Message request, Session session) throws JMSException {
+                TextMessage reply = session.createTextMessage(((TextMessage)request).getText());
+                reply.setJMSCorrelationID(request.getJMSCorrelationID() == null
+                    ? request.getJMSMessageID() : request.getJMSCorrelationID());
+                session.createProducer(request.getJMSReplyTo()).send(reply);
+            }
+        });
+        responder.afterPropertiesSet();
+        responder.start();
+
+        bus = BusFactory.newInstance().createBus();
+        JMSConfiguration jmsConfig = new JMSConfiguration();
+        jmsConfig.setConnectionFactory(new ActiveMQConnectionFactory(BROKER_URI));
+        jmsConfig.setTargetDestination("jmh.request");
+        jmsConfig.setReplyDestination("jmh.reply");
+        jmsConfig.setReceiveTimeout(10000L);
+        jmsConfig.setUseSharedReplyListener(sharedReplyListener);
+        conduit = new JMSConduit(new EndpointInfo(), new EndpointReferenceType(), jmsConfig, bus);
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        conduit.close();
+        bus.shutdown(true);
+        responder.shutdown();
+        responderConnectionFactory.destroy();
+        broker.stop();
+    }
+
+    @Benchmark
+    public Object requestReply() {
+        Exchange exchange = new ExchangeImpl();
+        exchange.setSynchronous(true);
+        exchange.setOutMessage(new MessageImpl());
+        conduit.sendExchange(exchange, "<ping/>");
+        return exchange.getInMessage();
+    }
+}
@@ -0,0 +1,65 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.benchmark.jmh;
+
+import org.apache.cxf.Bus;
+import org.apache.cxf.aegis.databinding.AegisDatabinding;
+import org.apache.cxf.benchmark.jmh.service.OrderService;
+import org.apache.cxf.benchmark.jmh.service.OrderServiceImpl;
+import org.apache.cxf.endpoint.Server;
+import org.apache.cxf.frontend.ClientProxy;
+import org.apache.cxf.jaxws.JaxWsProxyFactoryBean;
+import org.apache.cxf.jaxws.JaxWsServerFactoryBean;
+import org.apache.cxf.transport.local.LocalConduit;
+
+/**
+ * Creates the OrderService endpoint and client proxy used by the SOAP benchmarks.  
+ * Both sides talk over the local transport with direct dispatch so the numbers 
+ * cover the full SOAP binding and databinding without any network or thread hand-off.
+ */
+final class LocalOrderService {
+    
+    private LocalOrderService() {
+    }
+    
+    static Server createServer(Bus bus, String address, boolean aegis) {
+        JaxWsServerFactoryBean sf = new JaxWsServerFactoryBean();
+        sf.setBus(bus);
+        sf.setServiceClass(OrderServiceImpl.class);
+        sf.setServiceBean(new OrderServiceImpl());
+        sf.setAddress(address);
+        if (aegis) {
+            sf.setDataBinding(new AegisDatabinding());
+        }
+        return sf.create();
+    }
+    
+    static OrderService createClient(Bus bus, String address, boolean aegis) {
+        JaxWsProxyFactoryBean cf = new JaxWsProxyFactoryBean();
+        cf.setBus(bus);
+        cf.setServiceClass(OrderService.class);
+        cf.setAddress(address);
+        if (aegis) {
+            cf.setDataBinding(new AegisDatabinding());
+        }
+        OrderService client = cf.create(OrderService.class);
+        ClientProxy.getClient(client).getRequestContext().put(LocalConduit.DIRECT_DISPATCH, Boolean.TRUE);
+        return client;
+    }
+}
@@ -0,0 +1,113 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.benchmark.jmh;
+
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.cxf.ws.rm.ProtocolVariation;
+import org.apache.cxf.ws.rm.SourceSequence;
+import org.apache.cxf.ws.rm.persistence.RMMessage;
+import org.apache.cxf.ws.rm.persistence.jdbc.RMTxStore;
+import org.apache.cxf.ws.rm.v200702.Identifier;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Measures the messages per second an RM source can persist with an RMTxStore on an
+ * embedded Derby database.  Every operation stores the next message of a sequence and
+ * removes the previous one, as if it had been acknowledged.  Each benchmark thread uses
+ * its own sequence; run with "-t 8" or more to see the effect of groupCommitWindow, the
+ * time in milliseconds the writes of concurrent threads are collected for one commit.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class RMTxStoreBenchmark {
+    private static final String DATABASE_NAME = "rmdb-jmh";
+    private static final String ENDPOINT_ID = "{http://cxf.apache.org/benchmark}RMTxStoreBenchmark";
+    private static final byte[] CONTENT = new byte[2048];
+
+    @Param({"0", "2" })
+    long groupCommitWindow;
+
+    private RMTxStore store;
+    private final AtomicInteger sequenceCount = new AtomicInteger();
+
+    @State(Scope.Thread)
+    public static class ThreadState {
+        Identifier sid;
+        long messageNr;
+
+        @Setup
+        public void setUp(RMTxStoreBenchmark benchmark) {
+            sid = new Identifier();
+            sid.setValue("jmh-sequence-" + benchmark.sequenceCount.incrementAndGet());
+            benchmark.store.createSourceSequence(new SourceSequence(sid, ProtocolVariation.RM10WSA200408) {
+                @Override
+                public String getEndpointIdentifier() {
+                    return ENDPOINT_ID;
+                }
+            });
+        }
+    }
+
+    @Setup
+    public void setUp() {
+        RMTxStore.deleteDatabaseFiles(DATABASE_NAME, true);
+        store = new RMTxStore();
+        store.setDriverClassName("org.apache.derby.jdbc.EmbeddedDriver");
+        store.setUrl("jdbc:derby:" + DATABASE_NAME + ";create=true");
+        store.setGroupCommitWindow(groupCommitWindow);
+        store.init();
+    }
+
+    @TearDown
+    public void tearDown() {
+        try {
+            DriverManager.getConnection("jdbc:derby:" + DATABASE_NAME + ";shutdown=true");
+        } catch (SQLException ex) {
+            // expected, derby reports the shutdown with an exception
+        }
+        RMTxStore.deleteDatabaseFiles(DATABASE_NAME, false);
+    }
+
+    @Benchmark
+    public void persistOutgoing(ThreadState state) {
+        long nr = ++state.messageNr;
+        RMMessage msg = new RMMessage();
+        msg.setMessageNumber(nr);
+        msg.setContent(CONTENT);
+        store.persistOutgoing(new SourceSequence(state.sid, null, null, nr, false, 
+                                                 ProtocolVariation.RM10WSA200408), msg);
+        if (nr > 1) {
+            store.removeMessages(state.sid, Collections.singletonList(Long.valueOf(nr - 1)), true);
+        }
+    }
+}
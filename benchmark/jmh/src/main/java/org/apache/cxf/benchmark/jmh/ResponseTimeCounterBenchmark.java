@@ -0,0 +1,96 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.benchmark.jmh;
+
+import java.util.concurrent.TimeUnit;
+
+import javax.management.ObjectName;
+
+import org.apache.cxf.Bus;
+import org.apache.cxf.BusFactory;
+import org.apache.cxf.management.counters.CounterRepository;
+import org.apache.cxf.management.counters.MessageHandlingTimeRecorder;
+import org.apache.cxf.management.counters.ResponseTimeCounter;
+import org.apache.cxf.message.ExchangeImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Measures the cost of recording a response time in the performance counters and of
+ * reading the latency percentiles back.  Run with "-t 4" or more to see the effect of
+ * concurrent updates to the same counter.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ResponseTimeCounterBenchmark {
+
+    private Bus bus;
+    private CounterRepository repository;
+    private ObjectName counterName;
+    private ResponseTimeCounter counter;
+
+    @State(Scope.Thread)
+    public static class ThreadState {
+        MessageHandlingTimeRecorder recorder;
+
+        @Setup
+        public void setUp() {
+            recorder = new MessageHandlingTimeRecorder(new ExchangeImpl());
+            recorder.beginHandling();
+            recorder.endHandling();
+        }
+    }
+
+    @Setup
+    public void setUp() throws Exception {
+        bus = BusFactory.newInstance().createBus();
+        repository = new CounterRepository();
+        repository.setBus(bus);
+        counterName = new ObjectName("org.apache.cxf:type=Performance.Counter.Server,bus.id=cxf,"
+                                     + "service=\"{http://cxf.apache.org}Benchmark\",port=\"port\"");
+        counter = new ResponseTimeCounter(new ObjectName("org.apache.cxf:type=Benchmark"));
+    }
+
+    @TearDown
+    public void tearDown() {
+        bus.shutdown(true);
+    }
+
+    @Benchmark
+    public void increaseCounter(ThreadState state) {
+        repository.increaseCounter(counterName, state.recorder);
+    }
+
+    @Benchmark
+    public void increase(ThreadState state) {
+        counter.increase(state.recorder);
+    }
+
+    @Benchmark
+    public Number getP99ResponseTime() {
+        return counter.getP99ResponseTime();
+    }
+}
@@ -0,0 +1,78 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.benchmark.jmh;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.cxf.Bus;
+import org.apache.cxf.BusFactory;
+import org.apache.cxf.benchmark.jmh.service.Order;
+import org.apache.cxf.benchmark.jmh.service.OrderService;
+import org.apache.cxf.endpoint.Server;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Measures a SOAP doc/lit request/response round trip over the local transport 
+ * with either the JAXB or the Aegis databinding.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SoapRoundTripBenchmark {
+    
+    @Param({"jaxb", "aegis" })
+    String databinding;
+    
+    @Param({"1", "100" })
+    int lineCount;
+    
+    private Bus bus;
+    private Server server;
+    private OrderService client;
+    private Order order;
+    
+    @Setup
+    public void setUp() {
+        bus = BusFactory.newInstance().createBus();
+        boolean aegis = "aegis".equals(databinding);
+        String address = "local://SoapRoundTripBenchmark";
+        server = LocalOrderService.createServer(bus, address, aegis);
+        client = LocalOrderService.createClient(bus, address, aegis);
+        order = Order.createOrder(lineCount);
+    }
+    
+    @TearDown
+    public void tearDown() {
+        server.destroy();
+        bus.shutdown(true);
+    }
+    
+    @Benchmark
+    public Order echoOrder() {
+        return client.echoOrder(order);
+    }
+}
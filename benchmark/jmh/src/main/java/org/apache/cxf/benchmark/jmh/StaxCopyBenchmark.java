@@ -0,0 +1,96 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.benchmark.jmh;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.concurrent.TimeUnit;
+
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.XMLStreamWriter;
+
+import org.w3c.dom.Document;
+
+import org.apache.cxf.staxutils.StaxUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Measures the StaxUtils copy and read paths used by the logging, security and 
+ * SAAJ interceptors.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class StaxCopyBenchmark {
+    
+    @Param({"10", "1000" })
+    int elementCount;
+    
+    private byte[] xml;
+    private Document document;
+    
+    @Setup
+    public void setUp() throws XMLStreamException {
+        StringBuilder builder = new StringBuilder();
+        builder.append("<soap:Envelope xmlns:soap=\"http://schemas.xmlsoap.org/soap/envelope/\">")
+            .append("<soap:Body><ns1:echoOrder xmlns:ns1=\"http://service.jmh.benchmark.cxf.apache.org/\">");
+        for (int x = 0; x < elementCount; x++) {
+            builder.append("<line id=\"").append(x).append("\"><sku>SKU-").append(x)
+                .append("</sku><quantity>").append(x + 1).append("</quantity></line>");
+        }
+        builder.append("</ns1:echoOrder></soap:Body></soap:Envelope>");
+        xml = builder.toString().getBytes();
+        document = StaxUtils.read(new ByteArrayInputStream(xml));
+    }
+    
+    @Benchmark
+    public byte[] copyReaderToWriter() throws XMLStreamException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(xml.length);
+        XMLStreamReader reader = StaxUtils.createXMLStreamReader(new ByteArrayInputStream(xml));
+        XMLStreamWriter writer = StaxUtils.createXMLStreamWriter(out);
+        StaxUtils.copy(reader, writer);
+        writer.flush();
+        reader.close();
+        writer.close();
+        return out.toByteArray();
+    }
+    
+    @Benchmark
+    public Document readDocument() throws XMLStreamException {
+        return StaxUtils.read(new ByteArrayInputStream(xml));
+    }
+    
+    @Benchmark
+    public byte[] copyDocumentToWriter() throws XMLStreamException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(xml.length);
+        XMLStreamWriter writer = StaxUtils.createXMLStreamWriter(out);
+        StaxUtils.copy(document, writer);
+        writer.flush();
+        writer.close();
+        return out.toByteArray();
+    }
+}
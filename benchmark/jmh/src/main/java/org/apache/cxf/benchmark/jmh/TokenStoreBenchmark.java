@@ -0,0 +1,76 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.benchmark.jmh;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.cxf.ws.security.tokenstore.MemoryTokenStore;
+import org.apache.cxf.ws.security.tokenstore.SecurityToken;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Measures MemoryTokenStore lookups and inserts with a large number of cached tokens,
+ * as seen by a service that caches SecureConversation or SAML tokens.  Run with
+ * "-t 4" or more to see how the store behaves under concurrent access.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class TokenStoreBenchmark {
+
+    @Param({"100000" })
+    int tokenCount;
+
+    private MemoryTokenStore store;
+    private String[] ids;
+    
+    @State(Scope.Thread)
+    public static class ThreadState {
+        Random random = new Random();
+    }
+
+    @Setup
+    public void setUp() {
+        store = new MemoryTokenStore();
+        ids = new String[tokenCount];
+        for (int i = 0; i < tokenCount; i++) {
+            ids[i] = "token-" + i;
+            store.add(new SecurityToken(ids[i]));
+        }
+    }
+
+    @Benchmark
+    public SecurityToken getToken(ThreadState state) {
+        return store.getToken(ids[state.random.nextInt(tokenCount)]);
+    }
+
+    @Benchmark
+    public void replaceToken(ThreadState state) {
+        // replaces an existing token so the store stays at tokenCount entries
+        store.add(new SecurityToken(ids[state.random.nextInt(tokenCount)]));
+    }
+}
@@ -0,0 +1,114 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.benchmark.jmh;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.cxf.Bus;
+import org.apache.cxf.BusFactory;
+import org.apache.cxf.benchmark.jmh.service.KeystorePasswordCallback;
+import org.apache.cxf.benchmark.jmh.service.Order;
+import org.apache.cxf.benchmark.jmh.service.OrderService;
+import org.apache.cxf.endpoint.Server;
+import org.apache.cxf.frontend.ClientProxy;
+import org.apache.cxf.io.CachedOutputStream;
+import org.apache.cxf.ws.security.wss4j.WSS4JInInterceptor;
+import org.apache.cxf.ws.security.wss4j.WSS4JOutInterceptor;
+import org.apache.ws.security.handler.WSHandlerConstants;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Measures a SOAP round trip where the client secures the request with the 
+ * WSS4JOutInterceptor and the service verifies it with the WSS4JInInterceptor.  
+ * The Timestamp and UsernameToken actions give the cost of the security processing 
+ * itself, the Signature action adds signing and verification with the alice.jks key.
+ * With streaming enabled the service processes Timestamp and UsernameToken headers 
+ * without building a SAAJ copy of the body, which is where the difference shows for 
+ * the large orders.  Signed messages always need the SAAJ model.  Run with "-prof gc" 
+ * to compare the allocation rates.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class WSSecurityBenchmark {
+    
+    @Param({WSHandlerConstants.TIMESTAMP, WSHandlerConstants.USERNAME_TOKEN, WSHandlerConstants.SIGNATURE })
+    String action;
+    
+    @Param({"false", "true" })
+    boolean streaming;
+    
+    @Param({"10", "10000" })
+    int lineCount;
+    
+    private Bus bus;
+    private Server server;
+    private OrderService client;
+    private Order order;
+    
+    @Setup
+    public void setUp() {
+        // direct dispatch on the local transport can not hand over a message that
+        // spilled to a temp file, so the large orders are kept in memory
+        CachedOutputStream.setDefaultThreshold(16 * 1024 * 1024);
+        bus = BusFactory.newInstance().createBus();
+        String address = "local://WSSecurityBenchmark";
+        server = LocalOrderService.createServer(bus, address, false);
+        client = LocalOrderService.createClient(bus, address, false);
+        
+        Map<String, Object> outProperties = new HashMap<String, Object>();
+        outProperties.put(WSHandlerConstants.ACTION, action);
+        outProperties.put(WSHandlerConstants.USER, "alice");
+        outProperties.put(WSHandlerConstants.SIG_PROP_FILE, "alice.properties");
+        outProperties.put(WSHandlerConstants.SIG_KEY_ID, "DirectReference");
+        outProperties.put(WSHandlerConstants.PW_CALLBACK_REF, new KeystorePasswordCallback());
+        ClientProxy.getClient(client).getOutInterceptors().add(new WSS4JOutInterceptor(outProperties));
+        
+        Map<String, Object> inProperties = new HashMap<String, Object>();
+        inProperties.put(WSHandlerConstants.ACTION, action);
+        inProperties.put(WSHandlerConstants.SIG_PROP_FILE, "alice.properties");
+        inProperties.put(WSHandlerConstants.PW_CALLBACK_REF, new KeystorePasswordCallback());
+        inProperties.put(WSS4JInInterceptor.STREAMING, Boolean.toString(streaming));
+        server.getEndpoint().getInInterceptors().add(new WSS4JInInterceptor(inProperties));
+        
+        order = Order.createOrder(lineCount);
+    }
+    
+    @TearDown
+    public void tearDown() {
+        server.destroy();
+        bus.shutdown(true);
+        CachedOutputStream.setDefaultThreshold(-1);
+    }
+    
+    @Benchmark
+    public Order echoOrder() {
+        return client.echoOrder(order);
+    }
+}
@@ -0,0 +1,64 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.benchmark.jmh.service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.xml.bind.annotation.XmlRootElement;
+
+/**
+ * Simple bean used by the SOAP and JAX-RS benchmarks.  It only uses features that are 
+ * mapped the same way by JAXB and Aegis so the databinding results stay comparable.
+ */
+@XmlRootElement
+public class Order {
+    private long id;
+    private String customer;
+    private List<OrderLine> lines = new ArrayList<OrderLine>();
+    
+    public static Order createOrder(int lineCount) {
+        Order order = new Order();
+        order.setId(42L);
+        order.setCustomer("Apache Software Foundation");
+        for (int x = 0; x < lineCount; x++) {
+            order.getLines().add(new OrderLine("SKU-" + x, x + 1, 9.99 * x));
+        }
+        return order;
+    }
+    
+    public long getId() {
+        return id;
+    }
+    public void setId(long id) {
+        this.id = id;
+    }
+    public String getCustomer() {
+        return customer;
+    }
+    public void setCustomer(String customer) {
+        this.customer = customer;
+    }
+    public List<OrderLine> getLines() {
+        return lines;
+    }
+    public void setLines(List<OrderLine> lines) {
+        this.lines = lines;
+    }
+}
@@ -0,0 +1,51 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.benchmark.jmh.service;
+
+import javax.ws.rs.Consumes;
+import javax.ws.rs.GET;
+import javax.ws.rs.POST;
+import javax.ws.rs.Path;
+import javax.ws.rs.PathParam;
+import javax.ws.rs.Produces;
+
+@Path("/orders")
+public class OrderResource {
+    
+    @GET
+    @Path("/{id}")
+    @Produces({"application/xml", "application/json" })
+    public Order getOrder(@PathParam("id") long id) {
+        return Order.createOrder((int)id);
+    }
+    
+    @GET
+    @Path("/{id}/lines/{line}")
+    @Produces("application/xml")
+    public OrderLine getOrderLine(@PathParam("id") long id, @PathParam("line") int line) {
+        return Order.createOrder(line + 1).getLines().get(line);
+    }
+    
+    @POST
+    @Consumes("application/xml")
+    @Produces("application/xml")
+    public Order addOrder(Order order) {
+        return order;
+    }
+}
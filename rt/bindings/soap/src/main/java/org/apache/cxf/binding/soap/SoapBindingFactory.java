@@ -401,6 +401,7 @@ public class SoapBindingFactory extends AbstractBindingFactory {
 
         sb.getInInterceptors().add(new AttachmentInInterceptor());
         sb.getInInterceptors().add(new StaxInInterceptor());
+        sb.getInInterceptors().add(StaxInInterceptor.ENDING);
         sb.getInInterceptors().add(new SoapActionInInterceptor());
         
         sb.getOutInterceptors().add(new AttachmentOutInterceptor());
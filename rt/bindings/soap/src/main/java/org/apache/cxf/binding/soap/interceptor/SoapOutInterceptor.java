@@ -64,6 +64,7 @@ public class SoapOutInterceptor extends AbstractSoapInterceptor {
     private static final ResourceBundle BUNDLE = BundleUtils.getBundle(SoapOutInterceptor.class);
     
     private Bus bus;
+    private SoapOutEndingInterceptor ending = new SoapOutEndingInterceptor();
     
     public SoapOutInterceptor(Bus b) {
         super(Phase.WRITE);
@@ -89,7 +90,7 @@ public class SoapOutInterceptor extends AbstractSoapInterceptor {
         }
 
         // Add a final interceptor to write end elements
-        message.getInterceptorChain().add(new SoapOutEndingInterceptor());
+        message.getInterceptorChain().add(ending);
     }
     
     private void writeSoapEnvelopeStart(final SoapMessage message) {
@@ -65,6 +65,7 @@ public class XMLBindingFactory extends AbstractBindingFactory {
         
         xb.getInInterceptors().add(new AttachmentInInterceptor());    
         xb.getInInterceptors().add(new StaxInInterceptor());
+        xb.getInInterceptors().add(StaxInInterceptor.ENDING);
         xb.getInInterceptors().add(new URIMappingInterceptor());
         xb.getInInterceptors().add(new DocLiteralInInterceptor());
         xb.getInInterceptors().add(new XMLMessageInInterceptor());
@@ -22,6 +22,7 @@ package org.apache.cxf.bus.managers;
 import java.util.Collection;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -37,10 +38,23 @@ import org.apache.cxf.configuration.ConfiguredBeanLocator;
 import org.apache.cxf.management.InstrumentationManager;
 import org.apache.cxf.workqueue.AutomaticWorkQueue;
 import org.apache.cxf.workqueue.AutomaticWorkQueueImpl;
+import org.apache.cxf.workqueue.ExecutorWorkQueue;
 import org.apache.cxf.workqueue.WorkQueueManager;
 
 @NoJSR250Annotations(unlessNull = "bus")
 public class WorkQueueManagerImpl implements WorkQueueManager {
+    /**
+     * Bus property selecting the backend of the default work queue if none is configured.
+     * The value can be an Executor, which then runs all the work items, or "perTask" to run 
+     * every work item on its own (virtual, if available) thread.  Either way only the work 
+     * items that have not started yet are limited, see {@link #DEFAULT_QUEUE_SIZE_PROPERTY}.
+     */
+    public static final String DEFAULT_EXECUTOR_PROPERTY = "org.apache.cxf.workqueue.default.executor";
+    /**
+     * Bus property setting the maximum number of work items waiting to run in the default 
+     * work queue if none is configured, 256 if not set.
+     */
+    public static final String DEFAULT_QUEUE_SIZE_PROPERTY = "org.apache.cxf.workqueue.default.queueSize";
 
     private static final Logger LOG =
         LogUtils.getL7dLogger(WorkQueueManagerImpl.class);
@@ -194,7 +208,17 @@ public class WorkQueueManagerImpl implements WorkQueueManager {
     }
     
     private AutomaticWorkQueue createAutomaticWorkQueue() {        
-        AutomaticWorkQueue q = new AutomaticWorkQueueImpl("default");
+        AutomaticWorkQueue q;
+        Object executor = bus == null ? null : bus.getProperty(DEFAULT_EXECUTOR_PROPERTY);
+        Object size = bus == null ? null : bus.getProperty(DEFAULT_QUEUE_SIZE_PROPERTY);
+        int queueSize = size == null ? -1 : Integer.parseInt(size.toString().trim());
+        if (executor instanceof Executor) {
+            q = new ExecutorWorkQueue("default", (Executor)executor, queueSize);
+        } else if ("perTask".equals(executor)) {
+            q = new ExecutorWorkQueue("default", null, queueSize);
+        } else {
+            q = new AutomaticWorkQueueImpl(queueSize, "default");
+        }
         addNamedWorkQueue("default", q);
         return q;
     }
@@ -27,12 +27,14 @@ import javax.security.auth.Subject;
 import org.apache.cxf.common.logging.LogUtils;
 import org.apache.cxf.common.security.SecurityToken;
 import org.apache.cxf.interceptor.Fault;
+import org.apache.cxf.interceptor.SecurityInterceptor;
 import org.apache.cxf.message.Message;
 import org.apache.cxf.phase.AbstractPhaseInterceptor;
 import org.apache.cxf.phase.Phase;
 import org.apache.cxf.security.SecurityContext;
 
-public abstract class AbstractSecurityContextInInterceptor extends AbstractPhaseInterceptor<Message> {
+public abstract class AbstractSecurityContextInInterceptor extends AbstractPhaseInterceptor<Message> 
+    implements SecurityInterceptor {
 
     private static final Logger LOG = 
         LogUtils.getL7dLogger(AbstractSecurityContextInInterceptor.class);
@@ -34,12 +34,14 @@ import org.apache.cxf.common.security.TokenType;
 import org.apache.cxf.common.security.UsernameToken;
 import org.apache.cxf.configuration.security.AuthorizationPolicy;
 import org.apache.cxf.interceptor.Fault;
+import org.apache.cxf.interceptor.SecurityInterceptor;
 import org.apache.cxf.message.Message;
 import org.apache.cxf.phase.AbstractPhaseInterceptor;
 import org.apache.cxf.phase.Phase;
 import org.apache.cxf.security.SecurityContext;
 
-public class JAASLoginInterceptor extends AbstractPhaseInterceptor<Message> {
+public class JAASLoginInterceptor extends AbstractPhaseInterceptor<Message> 
+    implements SecurityInterceptor {
     public static final String ROLE_CLASSIFIER_PREFIX = "prefix";
     public static final String ROLE_CLASSIFIER_CLASS_NAME = "classname";
     
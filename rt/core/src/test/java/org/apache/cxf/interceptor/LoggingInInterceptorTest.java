@@ -0,0 +1,107 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.interceptor;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.PrintWriter;
+
+import org.apache.cxf.endpoint.Endpoint;
+import org.apache.cxf.helpers.IOUtils;
+import org.apache.cxf.message.ExchangeImpl;
+import org.apache.cxf.message.Message;
+import org.apache.cxf.message.MessageImpl;
+import org.apache.cxf.service.model.EndpointInfo;
+import org.easymock.EasyMock;
+import org.easymock.IMocksControl;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class LoggingInInterceptorTest extends Assert {
+
+    protected IMocksControl control;
+
+    @Before
+    public void setUp() throws Exception {
+        control = EasyMock.createNiceControl();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        control.verify();
+    }
+
+    @Test
+    public void testAsynchronousLogging() throws Exception {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        LoggingInInterceptor p = new LoggingInInterceptor(new PrintWriter(baos));
+        p.setAsynchronous(true);
+        p.setLimit(10);
+
+        Endpoint endpoint = control.createMock(Endpoint.class);
+        EndpointInfo endpointInfo = control.createMock(EndpointInfo.class);
+        EasyMock.expect(endpoint.getEndpointInfo()).andReturn(endpointInfo).anyTimes();
+        control.replay();
+
+        Message message = new MessageImpl();
+        ExchangeImpl exchange = new ExchangeImpl();
+        message.setExchange(exchange);
+        exchange.put(Endpoint.class, endpoint);
+        message.put(Message.CONTENT_TYPE, "application/xml");
+        String s = "<test><async/></test>";
+        message.setContent(InputStream.class, new ByteArrayInputStream(s.getBytes()));
+        p.handleMessage(message);
+        
+        // the whole message can still be read, only the start of it is logged
+        assertEquals(s, IOUtils.toString(message.getContent(InputStream.class)));
+        String log = LoggingOutInterceptorTest.waitForLog(baos);
+        assertTrue(log.contains("(message truncated to 10 bytes)"));
+        assertTrue(log.contains("Payload: <test><asy\n"));
+    }
+    
+    @Test
+    public void testAsynchronousLoggingMaxLimit() throws Exception {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        LoggingInInterceptor p = new LoggingInInterceptor(new PrintWriter(baos));
+        p.setAsynchronous(true);
+        p.setLimit(Integer.MAX_VALUE);
+
+        Endpoint endpoint = control.createMock(Endpoint.class);
+        EndpointInfo endpointInfo = control.createMock(EndpointInfo.class);
+        EasyMock.expect(endpoint.getEndpointInfo()).andReturn(endpointInfo).anyTimes();
+        control.replay();
+
+        Message message = new MessageImpl();
+        ExchangeImpl exchange = new ExchangeImpl();
+        message.setExchange(exchange);
+        exchange.put(Endpoint.class, endpoint);
+        message.put(Message.CONTENT_TYPE, "application/xml");
+        String s = "<test><async/></test>";
+        message.setContent(InputStream.class, new ByteArrayInputStream(s.getBytes()));
+        p.handleMessage(message);
+        
+        assertEquals(s, IOUtils.toString(message.getContent(InputStream.class)));
+        String log = LoggingOutInterceptorTest.waitForLog(baos);
+        assertFalse(log.contains("(message truncated"));
+        assertTrue(log.contains("Payload: " + s));
+    }
+}
@@ -24,6 +24,8 @@ import java.io.OutputStream;
 import java.io.PrintWriter;
 import java.util.logging.Logger;
 
+import org.apache.cxf.Bus;
+import org.apache.cxf.bus.extension.ExtensionManagerBus;
 import org.apache.cxf.common.logging.LogUtils;
 import org.apache.cxf.endpoint.Endpoint;
 import org.apache.cxf.io.CachedOutputStream;
@@ -31,6 +33,8 @@ import org.apache.cxf.message.ExchangeImpl;
 import org.apache.cxf.message.Message;
 import org.apache.cxf.message.MessageImpl;
 import org.apache.cxf.service.model.EndpointInfo;
+import org.apache.cxf.workqueue.AutomaticWorkQueue;
+import org.apache.cxf.workqueue.WorkQueueManager;
 import org.easymock.EasyMock;
 import org.easymock.IMocksControl;
 import org.junit.After;
@@ -91,9 +95,75 @@ public class LoggingOutInterceptorTest extends Assert {
         assertNotNull(cos.getTempFile());
     }
 
-    private CachedOutputStream handleAndGetCachedOutputStream(LoggingOutInterceptor interceptor) {
-        interceptor.setPrintWriter(new PrintWriter(new ByteArrayOutputStream()));
-
+    @Test
+    public void testAsynchronousLogging() throws Exception {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        LoggingOutInterceptor p = new LoggingOutInterceptor(new PrintWriter(baos));
+        p.setAsynchronous(true);
+        p.setLimit(10);
+        
+        Bus bus = new ExtensionManagerBus();
+        Message message = createMessage();
+        message.getExchange().put(Bus.class, bus);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        message.setContent(OutputStream.class, out);
+        p.handleMessage(message);
+        OutputStream os = message.getContent(OutputStream.class);
+        assertFalse(os instanceof CachedOutputStream);
+        
+        String s = "<test><async/></test>";
+        os.write(s.getBytes());
+        os.close();
+        // the whole message is written, only the start of it is logged
+        assertEquals(s, out.toString());
+        assertSame(out, message.getContent(OutputStream.class));
+        
+        String log = waitForLog(baos);
+        assertTrue(log.contains("(message truncated to 10 bytes)"));
+        assertTrue(log.contains("Payload: <test><asy\n"));
+        assertEquals(0, p.getDroppedMessages());
+        
+        // the entries are written by a queue of the bus which ends with it
+        AutomaticWorkQueue queue = bus.getExtension(WorkQueueManager.class)
+            .getNamedWorkQueue(AbstractLoggingInterceptor.LOG_QUEUE_NAME);
+        assertNotNull(queue);
+        bus.shutdown(true);
+        assertTrue(queue.isShutdown());
+    }
+    
+    @Test
+    public void testAsynchronousLoggingWithoutLimit() throws Exception {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        LoggingOutInterceptor p = new LoggingOutInterceptor(new PrintWriter(baos));
+        p.setAsynchronous(true);
+        p.setLimit(Integer.MAX_VALUE);
+        
+        Message message = createMessage();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        message.setContent(OutputStream.class, out);
+        p.handleMessage(message);
+        OutputStream os = message.getContent(OutputStream.class);
+        
+        String s = "<test><unlimited/></test>";
+        os.write(s.getBytes(), 0, 6);
+        os.write(s.charAt(6));
+        os.write(s.getBytes(), 7, s.length() - 7);
+        os.close();
+        assertEquals(s, out.toString());
+        
+        String log = waitForLog(baos);
+        assertFalse(log.contains("(message truncated"));
+        assertTrue(log.contains("Payload: " + s + "\n"));
+    }
+    
+    static String waitForLog(ByteArrayOutputStream baos) throws InterruptedException {
+        for (int i = 0; i < 100 && baos.size() == 0; i++) {
+            Thread.sleep(50);
+        }
+        return baos.toString();
+    }
+    
+    private Message createMessage() {
         Endpoint endpoint = control.createMock(Endpoint.class);
         EndpointInfo endpointInfo = control.createMock(EndpointInfo.class);
         EasyMock.expect(endpoint.getEndpointInfo()).andReturn(endpointInfo).anyTimes();
@@ -103,8 +173,14 @@ public class LoggingOutInterceptorTest extends Assert {
         ExchangeImpl exchange = new ExchangeImpl();
         message.setExchange(exchange);
         exchange.put(Endpoint.class, endpoint);
-
         message.put(Message.CONTENT_TYPE, "application/xml");
+        return message;
+    }
+
+    private CachedOutputStream handleAndGetCachedOutputStream(LoggingOutInterceptor interceptor) {
+        interceptor.setPrintWriter(new PrintWriter(new ByteArrayOutputStream()));
+
+        Message message = createMessage();
         message.setContent(OutputStream.class, new ByteArrayOutputStream());
         interceptor.handleMessage(message);
         OutputStream os = message.getContent(OutputStream.class);
@@ -0,0 +1,84 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.interceptor;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamReader;
+
+import org.apache.cxf.bus.managers.PhaseManagerImpl;
+import org.apache.cxf.message.Exchange;
+import org.apache.cxf.message.ExchangeImpl;
+import org.apache.cxf.message.Message;
+import org.apache.cxf.message.MessageImpl;
+import org.apache.cxf.phase.PhaseInterceptorChain;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class StaxInInterceptorTest extends Assert {
+    
+    private static final String XML = 
+        "<soap:Envelope xmlns:soap=\"http://schemas.xmlsoap.org/soap/envelope/\">"
+        + "<soap:Body><greetMe>hello</greetMe></soap:Body></soap:Envelope>";
+    
+    private Message message;
+    private PhaseInterceptorChain chain;
+    
+    @Before
+    public void setUp() throws Exception {
+        message = new MessageImpl();
+        Exchange exchange = new ExchangeImpl();
+        message.setExchange(exchange);
+        exchange.setInMessage(message);
+        message.put(Message.CONTENT_TYPE, "text/xml");
+        message.setContent(InputStream.class, new ByteArrayInputStream(XML.getBytes("UTF-8")));
+        chain = new PhaseInterceptorChain(new PhaseManagerImpl().getInPhases());
+        message.setInterceptorChain(chain);
+    }
+    
+    @Test
+    public void testReaderNotRecycledByDefault() throws Exception {
+        new StaxInInterceptor().handleMessage(message);
+        assertNotNull(message.getContent(XMLStreamReader.class));
+        
+        StaxInInterceptor.ENDING.handleMessage(message);
+        assertNotNull(message.getContent(XMLStreamReader.class));
+    }
+    
+    @Test
+    public void testRecycleReader() throws Exception {
+        message.put(StaxInInterceptor.RECYCLE_READER, Boolean.TRUE);
+        new StaxInInterceptor().handleMessage(message);
+        XMLStreamReader reader = message.getContent(XMLStreamReader.class);
+        assertNotNull(reader);
+        //the ending interceptor is registered once by the binding, not added per message
+        assertFalse(chain.iterator().hasNext());
+        
+        //read up to the end of the Body, as the databinding would
+        while (!(reader.next() == XMLStreamConstants.END_ELEMENT && "Body".equals(reader.getLocalName()))) {
+            //keep reading
+        }
+        StaxInInterceptor.ENDING.handleMessage(message);
+        assertNull(message.getContent(XMLStreamReader.class));
+        assertEquals(XMLStreamConstants.END_DOCUMENT, reader.getEventType());
+    }
+}
@@ -95,6 +95,7 @@ public class AegisContext {
     private boolean mtomEnabled;
     private boolean mtomUseXmime;
     private boolean enableJDOMMappings;
+    private boolean compileBeanAccessors;
     // this URI goes into the type map.
     private String mappingNamespaceURI;
 
@@ -532,4 +533,19 @@ public class AegisContext {
     public void setEnableJDOMMappings(boolean enableJDOMMappings) {
         this.enableJDOMMappings = enableJDOMMappings;
     }
+
+    public boolean isCompileBeanAccessors() {
+        return compileBeanAccessors;
+    }
+
+    /**
+     * Whether bean types read and write the properties of beans through generated classes 
+     * instead of reflection. The classes are generated with ASM when a bean type is first used,
+     * properties that can't be called from a generated class are still accessed by reflection.
+     * False by default.
+     * @param compileBeanAccessors
+     */
+    public void setCompileBeanAccessors(boolean compileBeanAccessors) {
+        this.compileBeanAccessors = compileBeanAccessors;
+    }
 }
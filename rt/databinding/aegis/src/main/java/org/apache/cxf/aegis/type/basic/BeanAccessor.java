@@ -0,0 +1,42 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.aegis.type.basic;
+
+/**
+ * Reads and writes the properties of a bean without reflection. The implementations
+ * are generated by BeanType when AegisContext.isCompileBeanAccessors() is set; a property
+ * is identified by its index in the getters and setters the accessor was compiled for.
+ */
+public interface BeanAccessor {
+
+    /**
+     * @return the value of the property, primitives are boxed
+     */
+    Object read(Object bean, int index);
+
+    /**
+     * Sets the property. Null is ignored for primitive properties.
+     */
+    void write(Object bean, int index, Object value);
+
+    /**
+     * @return a description of the getters and setters the accessor was compiled for
+     */
+    String getSignature();
+}
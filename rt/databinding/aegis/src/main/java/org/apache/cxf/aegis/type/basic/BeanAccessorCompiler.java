@@ -0,0 +1,261 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.aegis.type.basic;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+
+import org.apache.cxf.common.util.ASMHelper;
+
+/**
+ * Generates a BeanAccessor that calls the getters and setters of a bean directly.
+ * The generated class is loaded next to the bean class, so only public classes and
+ * methods can be used; the getters and setters that can't be called are left out and
+ * have to be called by reflection.
+ */
+final class BeanAccessorCompiler extends ASMHelper {
+
+    final Class<?> beanClass;
+    final Method getters[];
+    final Method setters[];
+    final ClassWriter cw;
+
+    private BeanAccessorCompiler(Class<?> beanClass, Method getters[], Method setters[]) {
+        this.beanClass = beanClass;
+        this.getters = getters;
+        this.setters = setters;
+        cw = createClassWriter();
+    }
+
+    /**
+     * @param beanClass the class of the beans
+     * @param getters the getters, null elements are not compiled
+     * @param setters the setters, null elements are not compiled
+     * @return the accessor, or null if it could not be generated. The elements of getters
+     * and setters that were left out are set to null.
+     */
+    static BeanAccessor compileBeanAccessor(Class<?> beanClass, Method getters[], Method setters[]) {
+        if (!isAccessible(beanClass) || beanClass.isInterface()) {
+            return null;
+        }
+        for (int x = 0; x < setters.length; x++) {
+            Method m = setters[x];
+            if (m != null && (m.getReturnType() != Void.TYPE || m.getParameterTypes().length != 1
+                || !isAccessible(m.getParameterTypes()[0]))) {
+                setters[x] = null;
+            }
+        }
+        try {
+            return new BeanAccessorCompiler(beanClass, getters, setters).compile();
+        } catch (Throwable t) {
+            // Some error - probably a bad version of ASM or similar
+        }
+        return null;
+    }
+
+    private static boolean isAccessible(Class<?> cls) {
+        Class<?> c = cls;
+        while (c.isArray()) {
+            c = c.getComponentType();
+        }
+        for (; c != null; c = c.getDeclaringClass()) {
+            if (!c.isPrimitive() && !Modifier.isPublic(c.getModifiers())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public BeanAccessor compile() {
+        if (cw == null) {
+            return null;
+        }
+        String signature = computeSignature();
+        int count = 1;
+        String newClassName = getClassName(count);
+        Class<?> cls = super.findClass(newClassName.replace('/', '.'), beanClass);
+        while (cls != null) {
+            try {
+                BeanAccessor accessor = BeanAccessor.class.cast(cls.newInstance());
+                if (accessor.getSignature().equals(signature)) {
+                    return accessor;
+                }
+            } catch (Exception e) {
+                return null;
+            }
+            count++;
+            newClassName = getClassName(count);
+            cls = super.findClass(newClassName.replace('/', '.'), beanClass);
+        }
+
+        cw.visit(Opcodes.V1_5,
+                 Opcodes.ACC_PUBLIC | Opcodes.ACC_SUPER,
+                 newClassName,
+                 null,
+                 "java/lang/Object",
+                 new String[] {periodToSlashes(BeanAccessor.class.getName())});
+
+        addConstructor();
+        addSignature(signature);
+        addRead();
+        addWrite();
+
+        try {
+            cw.visitEnd();
+            byte bt[] = cw.toByteArray();
+            Class<?> cl = loadClass(newClassName.replace('/', '.'), beanClass, bt);
+            BeanAccessor accessor = BeanAccessor.class.cast(cl.newInstance());
+            if (!accessor.getSignature().equals(signature)) {
+                // another type of the same bean class with different properties defined the
+                // class first, so the class returned is that one, try the next name
+                return new BeanAccessorCompiler(beanClass, getters, setters).compile();
+            }
+            return accessor;
+        } catch (Throwable e) {
+            // ignore, we'll just fall down to reflection based
+        }
+        return null;
+    }
+
+    private String getClassName(int count) {
+        String newClassName = beanClass.getName() + "_AegisBeanAccessor" + count;
+        newClassName = newClassName.replaceAll("\\$", ".");
+        return periodToSlashes(newClassName);
+    }
+
+    private String computeSignature() {
+        StringBuilder b = new StringBuilder();
+        b.append(getters.length).append(':');
+        for (int x = 0; x < getters.length; x++) {
+            appendMethod(b, getters[x]);
+            appendMethod(b, setters[x]);
+        }
+        return b.toString();
+    }
+
+    private static void appendMethod(StringBuilder b, Method m) {
+        if (m == null) {
+            b.append("null,");
+        } else {
+            b.append(m.getName()).append(getMethodSignature(m)).append(',');
+        }
+    }
+
+    private void addConstructor() {
+        MethodVisitor mv = cw.visitMethod(Opcodes.ACC_PUBLIC, "<init>", "()V", null, null);
+        mv.visitCode();
+        mv.visitVarInsn(Opcodes.ALOAD, 0);
+        mv.visitMethodInsn(Opcodes.INVOKESPECIAL,
+                           "java/lang/Object",
+                           "<init>",
+                           "()V");
+        mv.visitInsn(Opcodes.RETURN);
+        mv.visitMaxs(0, 0);
+        mv.visitEnd();
+    }
+
+    private void addSignature(String signature) {
+        MethodVisitor mv = cw.visitMethod(Opcodes.ACC_PUBLIC,
+                                          "getSignature", "()Ljava/lang/String;", null, null);
+        mv.visitCode();
+        mv.visitLdcInsn(signature);
+        mv.visitInsn(Opcodes.ARETURN);
+        mv.visitMaxs(0, 0);
+        mv.visitEnd();
+    }
+
+    private void addRead() {
+        MethodVisitor mv = cw.visitMethod(Opcodes.ACC_PUBLIC,
+                                          "read",
+                                          "(Ljava/lang/Object;I)Ljava/lang/Object;",
+                                          null, null);
+        mv.visitCode();
+        String beanName = periodToSlashes(beanClass.getName());
+        for (int x = 0; x < getters.length; x++) {
+            Method m = getters[x];
+            if (m == null) {
+                continue;
+            }
+            Label next = createLabel();
+            mv.visitVarInsn(Opcodes.ILOAD, 2);
+            mv.visitIntInsn(Opcodes.SIPUSH, x);
+            mv.visitJumpInsn(Opcodes.IF_ICMPNE, next);
+            mv.visitVarInsn(Opcodes.ALOAD, 1);
+            mv.visitTypeInsn(Opcodes.CHECKCAST, beanName);
+            mv.visitMethodInsn(Opcodes.INVOKEVIRTUAL, beanName, m.getName(), getMethodSignature(m));
+            Class<?> type = m.getReturnType();
+            if (type.isPrimitive()) {
+                String wrapper = NONPRIMITIVE_MAP.get(type);
+                mv.visitMethodInsn(Opcodes.INVOKESTATIC, wrapper, "valueOf",
+                                   "(" + PRIMITIVE_MAP.get(type) + ")L" + wrapper + ";");
+            }
+            mv.visitInsn(Opcodes.ARETURN);
+            mv.visitLabel(next);
+        }
+        mv.visitInsn(Opcodes.ACONST_NULL);
+        mv.visitInsn(Opcodes.ARETURN);
+        mv.visitMaxs(0, 0);
+        mv.visitEnd();
+    }
+
+    private void addWrite() {
+        MethodVisitor mv = cw.visitMethod(Opcodes.ACC_PUBLIC,
+                                          "write",
+                                          "(Ljava/lang/Object;ILjava/lang/Object;)V",
+                                          null, null);
+        mv.visitCode();
+        String beanName = periodToSlashes(beanClass.getName());
+        Label end = createLabel();
+        for (int x = 0; x < setters.length; x++) {
+            Method m = setters[x];
+            if (m == null) {
+                continue;
+            }
+            Class<?> type = m.getParameterTypes()[0];
+            Label next = createLabel();
+            mv.visitVarInsn(Opcodes.ILOAD, 2);
+            mv.visitIntInsn(Opcodes.SIPUSH, x);
+            mv.visitJumpInsn(Opcodes.IF_ICMPNE, next);
+            if (type.isPrimitive()) {
+                // null leaves a primitive property alone
+                mv.visitVarInsn(Opcodes.ALOAD, 3);
+                mv.visitJumpInsn(Opcodes.IFNULL, end);
+            }
+            mv.visitVarInsn(Opcodes.ALOAD, 1);
+            mv.visitTypeInsn(Opcodes.CHECKCAST, beanName);
+            mv.visitVarInsn(Opcodes.ALOAD, 3);
+            if (type.isPrimitive()) {
+                String wrapper = NONPRIMITIVE_MAP.get(type);
+                mv.visitTypeInsn(Opcodes.CHECKCAST, wrapper);
+                mv.visitMethodInsn(Opcodes.INVOKEVIRTUAL, wrapper, type.getName() + "Value",
+                                   "()" + PRIMITIVE_MAP.get(type));
+            } else if (type != Object.class) {
+                mv.visitTypeInsn(Opcodes.CHECKCAST,
+                                 type.isArray() ? getClassCode(type) : periodToSlashes(type.getName()));
+            }
+            mv.visitMethodInsn(Opcodes.INVOKEVIRTUAL, beanName, m.getName(), getMethodSignature(m));
+            mv.visitInsn(Opcodes.RETURN);
+            mv.visitLabel(next);
+        }
+        mv.visitLabel(end);
+        mv.visitInsn(Opcodes.RETURN);
+        mv.visitMaxs(0, 0);
+        mv.visitEnd();
+    }
+}
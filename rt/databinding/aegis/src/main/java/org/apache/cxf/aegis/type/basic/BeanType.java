@@ -27,8 +27,12 @@ import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
 import java.lang.reflect.Proxy;
 import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import javax.xml.namespace.QName;
@@ -68,8 +72,14 @@ import org.apache.ws.commons.schema.XmlSchemaSequence;
  * 'info' field.
  */
 public class BeanType extends AegisType {
+    private static final CompiledAccessor NO_ACCESSOR = 
+        new CompiledAccessor(null, Collections.<QName, Integer>emptyMap(), 
+                             Collections.<QName, Integer>emptyMap());
+
     private BeanTypeInfo info;
 
+    private volatile CompiledAccessor compiledAccessor;
+
     private boolean isInterface;
 
     private boolean isException;
@@ -104,6 +114,7 @@ public class BeanType extends AegisType {
     @Override
     public Object readObject(MessageReader reader, Context context) throws DatabindingException {
         BeanTypeInfo inf = getTypeInfo();
+        initCompiledAccessor(context);
 
         try {
             Class<?> clazz = getTypeClass();
@@ -273,6 +284,20 @@ public class BeanType extends AegisType {
             return;
         }
 
+        CompiledAccessor compiled = compiledAccessor;
+        if (compiled != null && inf == info) {
+            Integer index = compiled.setters.get(name);
+            if (index != null) {
+                try {
+                    compiled.accessor.write(object, index, property);
+                    return;
+                } catch (Exception e) {
+                    throw new DatabindingException("Couldn't set property " + name + " on " + object + ". "
+                                                   + e.getMessage(), e);
+                }
+            }
+        }
+
         try {
             PropertyDescriptor desc = inf.getPropertyDescriptorFromMappedName(name);
 
@@ -352,6 +377,7 @@ public class BeanType extends AegisType {
         }
 
         BeanTypeInfo inf = getTypeInfo();
+        initCompiledAccessor(context);
 
         if (!wroteXsiType && object.getClass() == getTypeClass() && context.isWriteXsiTypes()) {
             writer.writeXsiType(getSchemaType());
@@ -435,6 +461,17 @@ public class BeanType extends AegisType {
     }
 
     protected Object readProperty(Object object, QName name) {
+        CompiledAccessor compiled = compiledAccessor;
+        if (compiled != null) {
+            Integer index = compiled.getters.get(name);
+            if (index != null) {
+                try {
+                    return compiled.accessor.read(object, index);
+                } catch (Exception e) {
+                    throw new DatabindingException("Couldn't get property " + name + " from bean " + object, e);
+                }
+            }
+        }
         try {
             PropertyDescriptor desc = getTypeInfo().getPropertyDescriptorFromMappedName(name);
 
@@ -451,6 +488,58 @@ public class BeanType extends AegisType {
         }
     }
 
+    /**
+     * Generates the accessor for the bean class the first time the type is used, if the
+     * context asks for compiled accessors.
+     */
+    private void initCompiledAccessor(Context context) {
+        if (compiledAccessor == null && context.getGlobalContext() != null
+            && context.getGlobalContext().isCompileBeanAccessors()) {
+            compiledAccessor = compileAccessor();
+        }
+    }
+
+    /**
+     * @return the generated accessor, null if there is none
+     */
+    BeanAccessor getCompiledAccessor() {
+        CompiledAccessor compiled = compiledAccessor;
+        return compiled == null ? null : compiled.accessor;
+    }
+
+    private CompiledAccessor compileAccessor() {
+        if (isInterface) {
+            return NO_ACCESSOR;
+        }
+        BeanTypeInfo inf = getTypeInfo();
+        List<QName> names = new ArrayList<QName>(inf.getAttributes());
+        names.addAll(inf.getElements());
+        Method getters[] = new Method[names.size()];
+        Method setters[] = new Method[names.size()];
+        for (int x = 0; x < getters.length; x++) {
+            PropertyDescriptor desc = inf.getPropertyDescriptorFromMappedName(names.get(x));
+            if (desc != null) {
+                getters[x] = desc.getReadMethod();
+                setters[x] = desc.getWriteMethod();
+            }
+        }
+        BeanAccessor accessor = BeanAccessorCompiler.compileBeanAccessor(getTypeClass(), getters, setters);
+        if (accessor == null) {
+            return NO_ACCESSOR;
+        }
+        Map<QName, Integer> getterIndexes = new HashMap<QName, Integer>();
+        Map<QName, Integer> setterIndexes = new HashMap<QName, Integer>();
+        for (int x = 0; x < getters.length; x++) {
+            if (getters[x] != null) {
+                getterIndexes.put(names.get(x), x);
+            }
+            if (setters[x] != null) {
+                setterIndexes.put(names.get(x), x);
+            }
+        }
+        return new CompiledAccessor(accessor, getterIndexes, setterIndexes);
+    }
+
     private AegisType getType(BeanTypeInfo inf, QName name) {
         AegisType type = inf.getType(name);
 
@@ -790,4 +879,18 @@ public class BeanType extends AegisType {
         }
     }
 
+    /**
+     * The generated accessor and the indexes of the properties it reads and writes.
+     */
+    private static final class CompiledAccessor {
+        final BeanAccessor accessor;
+        final Map<QName, Integer> getters;
+        final Map<QName, Integer> setters;
+
+        CompiledAccessor(BeanAccessor accessor, Map<QName, Integer> getters, Map<QName, Integer> setters) {
+            this.accessor = accessor;
+            this.getters = getters;
+            this.setters = setters;
+        }
+    }
 }
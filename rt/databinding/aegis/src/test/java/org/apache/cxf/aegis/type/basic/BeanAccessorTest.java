@@ -0,0 +1,180 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.aegis.type.basic;
+
+import java.beans.Introspector;
+import java.beans.PropertyDescriptor;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.lang.reflect.Method;
+import java.util.Collections;
+
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.XMLStreamWriter;
+
+import org.apache.cxf.aegis.AegisContext;
+import org.apache.cxf.aegis.type.AegisType;
+import org.apache.cxf.staxutils.StaxUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class BeanAccessorTest extends Assert {
+
+    @Test
+    public void testReadWrite() throws Exception {
+        PropertyDescriptor pds[] = Introspector.getBeanInfo(AccessorBean.class, Object.class)
+            .getPropertyDescriptors();
+        Method getters[] = new Method[pds.length];
+        Method setters[] = new Method[pds.length];
+        for (int x = 0; x < pds.length; x++) {
+            getters[x] = pds[x].getReadMethod();
+            setters[x] = pds[x].getWriteMethod();
+        }
+        BeanAccessor accessor = BeanAccessorCompiler.compileBeanAccessor(AccessorBean.class,
+                                                                         getters, setters);
+        assertNotNull(accessor);
+        assertTrue(accessor.getClass().getName().contains("_AegisBeanAccessor"));
+
+        AccessorBean bean = new AccessorBean();
+        for (int x = 0; x < pds.length; x++) {
+            String name = pds[x].getName();
+            if ("count".equals(name)) {
+                accessor.write(bean, x, 42);
+                // null leaves a primitive alone
+                accessor.write(bean, x, null);
+                assertEquals(42, bean.getCount());
+                assertEquals(42, accessor.read(bean, x));
+            } else if ("flag".equals(name)) {
+                accessor.write(bean, x, Boolean.TRUE);
+                assertEquals(Boolean.TRUE, accessor.read(bean, x));
+            } else if ("amount".equals(name)) {
+                accessor.write(bean, x, 1.5d);
+                assertEquals(1.5d, bean.getAmount(), 0d);
+            } else if ("name".equals(name)) {
+                accessor.write(bean, x, "name");
+                assertEquals("name", accessor.read(bean, x));
+                accessor.write(bean, x, null);
+                assertNull(bean.getName());
+            } else if ("values".equals(name)) {
+                accessor.write(bean, x, new long[] {1L, 2L});
+                assertEquals(2L, ((long[])accessor.read(bean, x))[1]);
+            }
+        }
+
+        // the class is reused for the same properties
+        BeanAccessor accessor2 = BeanAccessorCompiler.compileBeanAccessor(AccessorBean.class,
+                                                                          getters, setters);
+        assertSame(accessor.getClass(), accessor2.getClass());
+    }
+
+    @Test
+    public void testInaccessibleSetter() throws Exception {
+        Method getters[] = new Method[] {HiddenBean.class.getMethod("getHidden")};
+        Method setters[] = new Method[] {HiddenBean.class.getMethod("setHidden", Hidden.class)};
+        BeanAccessor accessor = BeanAccessorCompiler.compileBeanAccessor(HiddenBean.class,
+                                                                         getters, setters);
+        // the type of the setter is not public, so it is left out
+        assertNotNull(accessor);
+        assertNotNull(getters[0]);
+        assertNull(setters[0]);
+        assertNull(accessor.read(new HiddenBean(), 0));
+    }
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        AegisContext context = new AegisContext();
+        context.setCompileBeanAccessors(true);
+        context.setRootClasses(Collections.<java.lang.reflect.Type>singleton(AccessorBean.class));
+        context.initialize();
+        AegisType type = context.getTypeMapping().getType(AccessorBean.class);
+
+        AccessorBean bean = new AccessorBean();
+        bean.setCount(7);
+        bean.setFlag(true);
+        bean.setAmount(2.25d);
+        bean.setName("bean");
+        bean.setValues(new long[] {3L, 4L});
+
+        StringWriter out = new StringWriter();
+        XMLStreamWriter writer = StaxUtils.createXMLStreamWriter(out);
+        context.createXMLStreamWriter().write(bean, new QName("urn:test", "bean"), false, writer, type);
+        writer.close();
+
+        XMLStreamReader reader = StaxUtils.createXMLStreamReader(new StringReader(out.toString()));
+        reader.nextTag();
+        AccessorBean read = (AccessorBean)context.createXMLStreamReader().read(reader, type);
+        assertEquals(7, read.getCount());
+        assertTrue(read.isFlag());
+        assertEquals(2.25d, read.getAmount(), 0d);
+        assertEquals("bean", read.getName());
+        assertEquals(4L, read.getValues()[1]);
+        assertNotNull(((BeanType)type).getCompiledAccessor());
+    }
+
+    public static class AccessorBean {
+        private int count;
+        private boolean flag;
+        private double amount;
+        private String name;
+        private long values[];
+
+        public int getCount() {
+            return count;
+        }
+        public void setCount(int count) {
+            this.count = count;
+        }
+        public boolean isFlag() {
+            return flag;
+        }
+        public void setFlag(boolean flag) {
+            this.flag = flag;
+        }
+        public double getAmount() {
+            return amount;
+        }
+        public void setAmount(double amount) {
+            this.amount = amount;
+        }
+        public String getName() {
+            return name;
+        }
+        public void setName(String name) {
+            this.name = name;
+        }
+        public long[] getValues() {
+            return values;
+        }
+        public void setValues(long[] values) {
+            this.values = values;
+        }
+    }
+
+    public static class HiddenBean {
+        public Hidden getHidden() {
+            return null;
+        }
+        public void setHidden(Hidden hidden) {
+        }
+    }
+
+    static class Hidden {
+    }
+}
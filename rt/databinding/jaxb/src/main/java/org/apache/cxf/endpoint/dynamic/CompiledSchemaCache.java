@@ -0,0 +1,381 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.endpoint.dynamic;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.StringWriter;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.xml.XMLConstants;
+
+import org.apache.cxf.common.i18n.Message;
+import org.apache.cxf.common.logging.LogUtils;
+import org.apache.cxf.common.xmlschema.SchemaCollection;
+import org.apache.cxf.helpers.FileUtils;
+import org.apache.cxf.helpers.IOUtils;
+import org.apache.cxf.service.model.FaultInfo;
+import org.apache.cxf.service.model.InterfaceInfo;
+import org.apache.cxf.service.model.MessageInfo;
+import org.apache.cxf.service.model.MessagePartInfo;
+import org.apache.cxf.service.model.OperationInfo;
+import org.apache.cxf.service.model.ServiceInfo;
+import org.apache.ws.commons.schema.XmlSchema;
+
+/**
+ * Keeps the classes DynamicClientFactory compiles from the schemas of a WSDL, keyed by a
+ * digest of the schemas, the messages of the services and the binding files, so that
+ * creating another client for the same contract does not run XJC and javac again.
+ *
+ * The classes are kept in memory, shared by all the factories of the JVM, and optionally
+ * in a directory, in which each key gets a subdirectory with the class files and an
+ * index of the JAXB packages and the classes of the message parts.  The index also holds
+ * the key and a digest of the class files, an entry that does not match them is not
+ * loaded but removed, so that it gets compiled and stored again.
+ */
+final class CompiledSchemaCache {
+    static final int MAX_MEMORY_ENTRIES = 64;
+
+    private static final Logger LOG = LogUtils.getL7dLogger(CompiledSchemaCache.class);
+    private static final String VERSION = "2";
+    private static final String INDEX_FILE = "index.properties";
+    private static final String CLASSES_DIR = "classes";
+    private static final String PACKAGES_KEY = "packages";
+    private static final String TYPE_PREFIX = "type.";
+    private static final String KEY_KEY = "key";
+    private static final String CLASSES_DIGEST_KEY = "classes.digest";
+
+    private static final Map<String, Entry> MEMORY_CACHE = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+        private static final long serialVersionUID = 1L;
+
+        protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+            return size() > MAX_MEMORY_ENTRIES;
+        }
+    };
+
+    private CompiledSchemaCache() {
+        //utility class
+    }
+
+    /**
+     * The compiled classes of a contract.
+     */
+    static final class Entry {
+        final String packageList;
+        final Map<String, byte[]> classes;
+        final Map<String, String> typeClassNames;
+
+        Entry(String packageList, Map<String, byte[]> classes, Map<String, String> typeClassNames) {
+            this.packageList = packageList;
+            this.classes = classes;
+            this.typeClassNames = typeClassNames;
+        }
+
+        ClassLoader createClassLoader(ClassLoader parent) {
+            return new EntryClassLoader(classes, parent);
+        }
+    }
+
+    private static final class EntryClassLoader extends ClassLoader {
+        private final Map<String, byte[]> classes;
+
+        EntryClassLoader(Map<String, byte[]> classes, ClassLoader parent) {
+            super(parent);
+            this.classes = classes;
+        }
+
+        @Override
+        protected Class<?> findClass(String name) throws ClassNotFoundException {
+            byte bytes[] = classes.get(name);
+            if (bytes == null) {
+                throw new ClassNotFoundException(name);
+            }
+            return defineClass(name, bytes, 0, bytes.length);
+        }
+    }
+
+    /**
+     * Computes the key of a contract.  Only the content is used, so the same schemas
+     * loaded from another location get the same key.
+     */
+    static String computeKey(List<ServiceInfo> serviceInfos,
+                             SchemaCollection schemas,
+                             List<byte[]> bindingFiles,
+                             String options) {
+        MessageDigest md = createDigest();
+        update(md, VERSION);
+        update(md, options);
+
+        List<String> docs = new ArrayList<String>();
+        for (XmlSchema schema : schemas.getXmlSchemas()) {
+            if (XMLConstants.W3C_XML_SCHEMA_NS_URI.equals(schema.getTargetNamespace())) {
+                continue;
+            }
+            StringWriter writer = new StringWriter();
+            schema.write(writer);
+            docs.add(writer.toString());
+        }
+        // the order of the collection depends on how the schemas were loaded
+        Collections.sort(docs);
+        for (String doc : docs) {
+            update(md, doc);
+        }
+
+        for (ServiceInfo si : serviceInfos) {
+            update(md, String.valueOf(si.getName()));
+            InterfaceInfo intf = si.getInterface();
+            if (intf == null) {
+                continue;
+            }
+            for (OperationInfo op : intf.getOperations()) {
+                update(md, String.valueOf(op.getName()));
+                update(md, op.getInput());
+                update(md, op.getOutput());
+                for (FaultInfo fault : op.getFaults()) {
+                    update(md, fault);
+                }
+            }
+        }
+        if (bindingFiles != null) {
+            for (byte[] bytes : bindingFiles) {
+                md.update(bytes);
+                md.update((byte)0);
+            }
+        }
+
+        return toHex(md.digest());
+    }
+
+    /**
+     * Computes the digest of the class files of an entry, in the order of their names.
+     */
+    static String computeClassesDigest(Map<String, byte[]> classes) {
+        MessageDigest md = createDigest();
+        for (Map.Entry<String, byte[]> cls : new TreeMap<String, byte[]>(classes).entrySet()) {
+            update(md, cls.getKey());
+            update(md, String.valueOf(cls.getValue().length));
+            md.update(cls.getValue());
+        }
+        return toHex(md.digest());
+    }
+
+    private static MessageDigest createDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-1");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String toHex(byte digest[]) {
+        StringBuilder b = new StringBuilder(digest.length * 2);
+        for (byte d : digest) {
+            b.append(Character.forDigit((d >> 4) & 0xF, 16)).append(Character.forDigit(d & 0xF, 16));
+        }
+        return b.toString();
+    }
+
+    private static void update(MessageDigest md, MessageInfo message) {
+        if (message == null) {
+            update(md, "-");
+            return;
+        }
+        update(md, String.valueOf(message.getName()));
+        for (MessagePartInfo part : message.getMessageParts()) {
+            updatePart(md, part);
+        }
+    }
+
+    private static void update(MessageDigest md, FaultInfo fault) {
+        update(md, String.valueOf(fault.getName()));
+        for (MessagePartInfo part : fault.getMessageParts()) {
+            updatePart(md, part);
+        }
+    }
+
+    private static void updatePart(MessageDigest md, MessagePartInfo part) {
+        update(md, String.valueOf(part.getName()));
+        update(md, part.isElement() ? String.valueOf(part.getElementQName())
+            : String.valueOf(part.getTypeQName()));
+    }
+
+    private static void update(MessageDigest md, String s) {
+        md.update(s.getBytes(IOUtils.UTF8_CHARSET));
+        // a separator, so that the concatenation is not ambiguous
+        md.update((byte)0);
+    }
+
+    /**
+     * Looks the key up in memory and then, if a directory is given, on disk.
+     */
+    static Entry get(String key, File dir) {
+        synchronized (MEMORY_CACHE) {
+            Entry entry = MEMORY_CACHE.get(key);
+            if (entry != null || dir == null) {
+                return entry;
+            }
+        }
+        Entry entry = load(key, new File(dir, key));
+        if (entry != null) {
+            synchronized (MEMORY_CACHE) {
+                MEMORY_CACHE.put(key, entry);
+            }
+        }
+        return entry;
+    }
+
+    /**
+     * Adds an entry to the memory and, if a directory is given, to the disk.
+     */
+    static void put(String key, Entry entry, File dir) {
+        synchronized (MEMORY_CACHE) {
+            MEMORY_CACHE.put(key, entry);
+        }
+        if (dir != null) {
+            try {
+                store(dir, key, entry);
+            } catch (IOException e) {
+                LOG.log(Level.WARNING, new Message("COULD_NOT_STORE_CACHED_CLASSES", LOG, dir).toString(), e);
+            }
+        }
+    }
+
+    static void clearMemory() {
+        synchronized (MEMORY_CACHE) {
+            MEMORY_CACHE.clear();
+        }
+    }
+
+    /**
+     * Reads the class files below a directory.
+     */
+    static Map<String, byte[]> readClasses(File classesDir) throws IOException {
+        Map<String, byte[]> classes = new HashMap<String, byte[]>();
+        String root = classesDir.getAbsolutePath();
+        for (File f : FileUtils.getFilesRecurse(classesDir, ".+\\.class$")) {
+            String path = f.getAbsolutePath().substring(root.length() + 1);
+            String name = path.substring(0, path.length() - ".class".length())
+                .replace(File.separatorChar, '.');
+            InputStream in = new FileInputStream(f);
+            try {
+                classes.put(name, IOUtils.readBytesFromStream(in));
+            } finally {
+                in.close();
+            }
+        }
+        return classes;
+    }
+
+    private static Entry load(String key, File entryDir) {
+        File index = new File(entryDir, INDEX_FILE);
+        if (!index.isFile()) {
+            return null;
+        }
+        try {
+            Properties props = new Properties();
+            InputStream in = new FileInputStream(index);
+            try {
+                props.load(in);
+            } finally {
+                in.close();
+            }
+            Map<String, String> typeClassNames = new HashMap<String, String>();
+            for (String name : props.stringPropertyNames()) {
+                if (name.startsWith(TYPE_PREFIX)) {
+                    typeClassNames.put(name.substring(TYPE_PREFIX.length()), props.getProperty(name));
+                }
+            }
+            Map<String, byte[]> classes = readClasses(new File(entryDir, CLASSES_DIR));
+            if (!key.equals(props.getProperty(KEY_KEY))
+                || !computeClassesDigest(classes).equals(props.getProperty(CLASSES_DIGEST_KEY))) {
+                LOG.log(Level.WARNING, "INVALID_CACHED_CLASSES", entryDir);
+                FileUtils.removeDir(entryDir);
+                return null;
+            }
+            return new Entry(props.getProperty(PACKAGES_KEY, ""), classes, typeClassNames);
+        } catch (IOException e) {
+            LOG.log(Level.WARNING, new Message("COULD_NOT_READ_CACHED_CLASSES", LOG, entryDir).toString(), e);
+            return null;
+        }
+    }
+
+    private static void store(File dir, String key, Entry entry) throws IOException {
+        File entryDir = new File(dir, key);
+        if (entryDir.exists()) {
+            return;
+        }
+        // written next to the entry and renamed, so a partial entry is never read
+        File tmp = new File(dir, key + "-" + System.nanoTime() + ".tmp");
+        FileUtils.mkDir(tmp);
+        try {
+            for (Map.Entry<String, byte[]> cls : entry.classes.entrySet()) {
+                File f = new File(tmp, CLASSES_DIR + File.separator
+                                  + cls.getKey().replace('.', File.separatorChar) + ".class");
+                FileUtils.mkDir(f.getParentFile());
+                write(f, cls.getValue());
+            }
+            Properties props = new Properties();
+            props.setProperty(KEY_KEY, key);
+            props.setProperty(CLASSES_DIGEST_KEY, computeClassesDigest(entry.classes));
+            props.setProperty(PACKAGES_KEY, entry.packageList);
+            for (Map.Entry<String, String> type : entry.typeClassNames.entrySet()) {
+                props.setProperty(TYPE_PREFIX + type.getKey(), type.getValue());
+            }
+            OutputStream out = new FileOutputStream(new File(tmp, INDEX_FILE));
+            try {
+                props.store(out, null);
+            } finally {
+                out.close();
+            }
+            if (tmp.renameTo(entryDir)) {
+                tmp = null;
+            }
+        } finally {
+            if (tmp != null) {
+                // another process stored the same entry first, or the write failed
+                FileUtils.removeDir(tmp);
+            }
+        }
+    }
+
+    private static void write(File f, byte bytes[]) throws IOException {
+        OutputStream out = new FileOutputStream(f);
+        try {
+            out.write(bytes);
+        } finally {
+            out.close();
+        }
+    }
+}
@@ -97,6 +97,7 @@ import org.apache.cxf.endpoint.EndpointImplFactory;
 import org.apache.cxf.endpoint.SimpleEndpointImplFactory;
 import org.apache.cxf.helpers.DOMUtils;
 import org.apache.cxf.helpers.FileUtils;
+import org.apache.cxf.helpers.IOUtils;
 import org.apache.cxf.jaxb.JAXBDataBinding;
 import org.apache.cxf.resource.URIResolver;
 import org.apache.cxf.service.Service;
@@ -133,6 +134,9 @@ public class DynamicClientFactory {
     private boolean allowRefs;
     
     private Map<String, Object> jaxbContextProperties;
+
+    private boolean cacheEnabled;
+    private String cacheDirectory;
     
     protected DynamicClientFactory(Bus bus) {
         this.bus = bus;
@@ -150,6 +154,34 @@ public class DynamicClientFactory {
         allowRefs = b;
     }
 
+    /**
+     * If set, the classes compiled from the schemas of a WSDL are kept, keyed by a digest
+     * of the schemas, the messages and the binding files, and reused by the clients
+     * created from the same contract, including those created by other factories.
+     */
+    public void setCacheEnabled(boolean b) {
+        cacheEnabled = b;
+    }
+
+    public boolean isCacheEnabled() {
+        return cacheEnabled;
+    }
+
+    /**
+     * Sets a directory in which the cached classes are also stored, so that they are
+     * reused after a restart.  Setting a directory enables the cache.
+     */
+    public void setCacheDirectory(String dir) {
+        cacheDirectory = dir;
+        if (dir != null) {
+            cacheEnabled = true;
+        }
+    }
+
+    public String getCacheDirectory() {
+        return cacheDirectory;
+    }
+
     /**
      * Create a new instance using a specific <tt>Bus</tt>.
      * 
@@ -300,6 +332,29 @@ public class DynamicClientFactory {
         //all SI's should have the same schemas
         SchemaCollection schemas = svc.getServiceInfos().get(0).getXmlSchemaCollection();
 
+        String cacheKey = null;
+        File cacheDir = null;
+        if (cacheEnabled) {
+            cacheKey = CompiledSchemaCache.computeKey(svc.getServiceInfos(), schemas,
+                                                      readBindingFiles(bindingFiles),
+                                                      simpleBindingEnabled + " " + allowRefs
+                                                      + " " + allowWrapperOps());
+            if (cacheDirectory != null) {
+                cacheDir = new File(cacheDirectory);
+                FileUtils.mkDir(cacheDir);
+            }
+            CompiledSchemaCache.Entry entry = CompiledSchemaCache.get(cacheKey, cacheDir);
+            if (entry != null) {
+                LOG.log(Level.FINE, "USING_CACHED_CLASSES", new Object[] {cacheKey, wsdlUrl});
+                ClassLoader cl = entry.createClassLoader(classLoader);
+                setupDataBinding(svc, entry.packageList, cl);
+                ServiceInfo svcfo = client.getEndpoint().getEndpointInfo().getService();
+                ClassLoaderUtils.setThreadContextClassloader(cl);
+                new TypeClassInitializer(svcfo, null, entry.typeClassNames, allowWrapperOps()).walk();
+                return client;
+            }
+        }
+
         SchemaCompiler compiler = 
             JAXBUtils.createSchemaCompilerWithDefaultAllocator(new HashSet<String>());
         
@@ -364,7 +419,8 @@ public class DynamicClientFactory {
         }
         
         List<File> srcFiles = FileUtils.getFilesRecurse(src, ".+\\.java$"); 
-        if (!compileJavaSrc(classPath.toString(), srcFiles, classes.toString())) {
+        boolean compiled = compileJavaSrc(classPath.toString(), srcFiles, classes.toString());
+        if (!compiled) {
             LOG.log(Level.SEVERE , new Message("COULD_NOT_COMPILE_SRC", LOG, wsdlUrl).toString());
         }
         FileUtils.removeDir(src);
@@ -376,6 +432,40 @@ public class DynamicClientFactory {
                                             + mue.getMessage(), mue);
         }
 
+        setupDataBinding(svc, packageList, cl);
+
+        ServiceInfo svcfo = client.getEndpoint().getEndpointInfo().getService();
+
+        // Setup the new classloader!
+        ClassLoaderUtils.setThreadContextClassloader(cl);
+
+        Map<String, String> typeClassNames = null;
+        if (cacheKey != null && compiled) {
+            typeClassNames = new HashMap<String, String>();
+        }
+        TypeClassInitializer visitor = new TypeClassInitializer(svcfo, 
+                                                                intermediateModel,
+                                                                typeClassNames,
+                                                                allowWrapperOps());
+        visitor.walk();
+        if (typeClassNames != null) {
+            try {
+                CompiledSchemaCache.Entry entry 
+                    = new CompiledSchemaCache.Entry(packageList, 
+                                                    CompiledSchemaCache.readClasses(classes),
+                                                    typeClassNames);
+                CompiledSchemaCache.put(cacheKey, entry, cacheDir);
+            } catch (IOException e) {
+                LOG.log(Level.WARNING,
+                        new Message("COULD_NOT_READ_CACHED_CLASSES", LOG, classes).toString(), e);
+            }
+        }
+        // delete the classes files
+        FileUtils.removeDir(classes);
+        return client;
+    }
+
+    private void setupDataBinding(Service svc, String packageList, ClassLoader cl) {
         JAXBContext context;
         Map<String, Object> contextProperties = jaxbContextProperties;
         
@@ -397,19 +487,6 @@ public class DynamicClientFactory {
         JAXBDataBinding databinding = new JAXBDataBinding();
         databinding.setContext(context);
         svc.setDataBinding(databinding);
-
-        ServiceInfo svcfo = client.getEndpoint().getEndpointInfo().getService();
-
-        // Setup the new classloader!
-        ClassLoaderUtils.setThreadContextClassloader(cl);
-
-        TypeClassInitializer visitor = new TypeClassInitializer(svcfo, 
-                                                                intermediateModel,
-                                                                allowWrapperOps());
-        visitor.walk();
-        // delete the classes files
-        FileUtils.removeDir(classes);
-        return client;
     }
     protected boolean allowWrapperOps() {
         return false;
@@ -432,6 +509,26 @@ public class DynamicClientFactory {
         }
     }
 
+    private List<byte[]> readBindingFiles(List<String> bindingFiles) {
+        if (bindingFiles == null) {
+            return null;
+        }
+        List<byte[]> contents = new ArrayList<byte[]>(bindingFiles.size());
+        for (String s : bindingFiles) {
+            try {
+                InputStream ins = composeUrl(s).openStream();
+                try {
+                    contents.add(IOUtils.readBytesFromStream(ins));
+                } finally {
+                    ins.close();
+                }
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        }
+        return contents;
+    }
+
     private boolean isValidPackage(JPackage jpackage) {
         if (jpackage == null) {
             return false;
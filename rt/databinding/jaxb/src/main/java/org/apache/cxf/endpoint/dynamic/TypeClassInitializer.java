@@ -20,6 +20,7 @@ package org.apache.cxf.endpoint.dynamic;
 
 import java.lang.reflect.Array;
 import java.util.Iterator;
+import java.util.Map;
 import java.util.logging.Logger;
 
 import javax.xml.namespace.QName;
@@ -35,6 +36,7 @@ import org.apache.cxf.common.util.ASMHelper;
 import org.apache.cxf.common.util.PrimitiveUtils;
 import org.apache.cxf.service.ServiceModelVisitor;
 import org.apache.cxf.service.factory.ServiceConstructionException;
+import org.apache.cxf.service.model.AbstractMessageContainer;
 import org.apache.cxf.service.model.FaultInfo;
 import org.apache.cxf.service.model.MessagePartInfo;
 import org.apache.cxf.service.model.OperationInfo;
@@ -46,14 +48,29 @@ public class TypeClassInitializer extends ServiceModelVisitor {
     private static final Logger LOG = LogUtils.getL7dLogger(TypeClassInitializer.class);
     
     S2JJAXBModel model;
+    Map<String, String> typeClassNames;
     boolean allowWrapperOperations;
     boolean isFault;
     
     public TypeClassInitializer(ServiceInfo serviceInfo, 
                                 S2JJAXBModel model,
                                 boolean allowWr) {
+        this(serviceInfo, model, null, allowWr);
+    }
+
+    /**
+     * @param model the model to look the classes up in, or null to use the
+     * typeClassNames recorded by an earlier walk over the same service
+     * @param typeClassNames if model is set, the map the names of the classes
+     * that are found are recorded in
+     */
+    public TypeClassInitializer(ServiceInfo serviceInfo, 
+                                S2JJAXBModel model,
+                                Map<String, String> typeClassNames,
+                                boolean allowWr) {
         super(serviceInfo);
         this.model = model;
+        this.typeClassNames = typeClassNames;
         this.allowWrapperOperations = allowWr;
     }
 
@@ -64,6 +81,57 @@ public class TypeClassInitializer extends ServiceModelVisitor {
             return;
         }
         
+        Class<?> cls;
+        if (model == null) {
+            cls = getRecordedClass(part);
+        } else {
+            cls = getTypeClass(part, op);
+            if (typeClassNames != null) {
+                typeClassNames.put(getPartKey(part), cls.getName());
+            }
+        }
+        
+        part.setTypeClass(cls);
+        if (isFault) {
+            //need to create an Exception class for this
+            try {
+                part.getMessageInfo().setProperty(Class.class.getName(), createFaultClass(cls));
+            } catch (Throwable t) {
+                //ignore - probably no asm
+            }
+        }
+        super.begin(part);
+    }
+
+    /**
+     * The key of a part in the map of recorded class names, which only depends on
+     * the names in the service model.
+     */
+    static String getPartKey(MessagePartInfo part) {
+        AbstractMessageContainer message = part.getMessageInfo();
+        OperationInfo op = message.getOperation();
+        return op.getName() + (op.isUnwrapped() ? " unwrapped " : " ")
+            + message.getName() + " " + part.getName();
+    }
+
+    private Class<?> getRecordedClass(MessagePartInfo part) {
+        String clsName = typeClassNames.get(getPartKey(part));
+        if (clsName == null) {
+            throw new ServiceConstructionException(new Message("NO_JAXB_CLASSMapping", LOG,
+                                                               part.getName()));
+        }
+        try {
+            Class<?> cls = PrimitiveUtils.getClass(clsName);
+            if (cls == null) {
+                cls = Class.forName(clsName, true, Thread.currentThread().getContextClassLoader());
+            }
+            return cls;
+        } catch (ClassNotFoundException e) {
+            throw new ServiceConstructionException(e);
+        }
+    }
+
+    private Class<?> getTypeClass(MessagePartInfo part, OperationInfo op) {
         QName name;
         if (part.isElement()) {
             name = part.getElementQName();
@@ -148,17 +216,7 @@ public class TypeClassInitializer extends ServiceModelVisitor {
         } catch (ClassNotFoundException e) {
             throw new ServiceConstructionException(e);
         }
-        
-        part.setTypeClass(cls);
-        if (isFault) {
-            //need to create an Exception class for this
-            try {
-                part.getMessageInfo().setProperty(Class.class.getName(), createFaultClass(cls));
-            } catch (Throwable t) {
-                //ignore - probably no asm
-            }
-        }
-        super.begin(part);
+        return cls;
     }
 
     private Class<?> createFaultClass(Class<?> cls) {
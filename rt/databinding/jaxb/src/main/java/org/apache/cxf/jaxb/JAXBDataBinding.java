@@ -62,6 +62,7 @@ import org.xml.sax.InputSource;
 import org.apache.cxf.common.injection.NoJSR250Annotations;
 import org.apache.cxf.common.jaxb.JAXBContextCache;
 import org.apache.cxf.common.jaxb.JAXBContextCache.CachedContextAndSchemas;
+import org.apache.cxf.common.jaxb.JAXBMarshallerPool;
 import org.apache.cxf.common.jaxb.JAXBUtils;
 import org.apache.cxf.common.logging.LogUtils;
 import org.apache.cxf.common.util.ModCountCopyOnWriteArrayList;
@@ -192,6 +193,8 @@ public class JAXBDataBinding extends AbstractDataBinding
     private Unmarshaller.Listener unmarshallerListener;
     private Marshaller.Listener marshallerListener;
     private ValidationEventHandler validationEventHandler;
+    private int marshallerPoolSize = JAXBMarshallerPool.DEFAULT_MAX_SIZE;
+    private volatile JAXBMarshallerPool marshallerPool;
 
     private boolean unwrapJAXBElement = true;
 
@@ -584,6 +587,34 @@ public class JAXBDataBinding extends AbstractDataBinding
         this.validationEventHandler = validationEventHandler;
     }
 
+    /**
+     * Returns the pool the readers and writers take their Marshallers and Unmarshallers
+     * from.
+     * @return the pool for the current context
+     */
+    public JAXBMarshallerPool getMarshallerPool() {
+        JAXBMarshallerPool pool = marshallerPool;
+        if (pool == null || pool.getContext() != context) {
+            pool = new JAXBMarshallerPool(context, marshallerPoolSize);
+            marshallerPool = pool;
+        }
+        return pool;
+    }
+
+    public int getMarshallerPoolSize() {
+        return marshallerPoolSize;
+    }
+
+    /**
+     * Sets the number of idle Marshallers and Unmarshallers that are kept for reuse.
+     * 0 creates a new one for every message part.
+     * @param marshallerPoolSize
+     */
+    public void setMarshallerPoolSize(int marshallerPoolSize) {
+        this.marshallerPoolSize = marshallerPoolSize;
+        marshallerPool = null;
+    }
+
 
     public boolean isUnwrapJAXBElement() {
         return unwrapJAXBElement;
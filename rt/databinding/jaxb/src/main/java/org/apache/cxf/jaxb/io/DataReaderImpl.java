@@ -32,6 +32,7 @@ import javax.xml.bind.ValidationEventHandler;
 import javax.xml.namespace.QName;
 
 import org.apache.cxf.common.i18n.Message;
+import org.apache.cxf.common.jaxb.JAXBMarshallerPool;
 import org.apache.cxf.common.logging.LogUtils;
 import org.apache.cxf.databinding.DataReader;
 import org.apache.cxf.interceptor.Fault;
@@ -47,11 +48,13 @@ public class DataReaderImpl<T> extends JAXBDataBase implements DataReader<T> {
     boolean unwrapJAXBElement = true;
     ValidationEventHandler veventHandler;
     boolean setEventHandler = true;
+    private JAXBMarshallerPool pool;
     
     public DataReaderImpl(JAXBDataBinding binding, boolean unwrap) {
         super(binding.getContext());
         unwrapJAXBElement = unwrap;
         databinding = binding;
+        pool = binding.getMarshallerPool();
     }
 
     public Object read(T input) {
@@ -103,7 +106,7 @@ public class DataReaderImpl<T> extends JAXBDataBase implements DataReader<T> {
     private Unmarshaller createUnmarshaller() {
         try {
             Unmarshaller um = null;
-            um = context.createUnmarshaller();
+            um = pool.acquireUnmarshaller();
             if (databinding.getUnmarshallerListener() != null) {
                 um.setListener(databinding.getUnmarshallerListener());
             }
@@ -154,14 +157,17 @@ public class DataReaderImpl<T> extends JAXBDataBase implements DataReader<T> {
             }
         }
         
-        return JAXBEncoderDecoder.unmarshall(createUnmarshaller(), reader, part, 
-                                             unwrapJAXBElement);
+        Unmarshaller um = createUnmarshaller();
+        Object o = JAXBEncoderDecoder.unmarshall(um, reader, part, unwrapJAXBElement);
+        pool.releaseUnmarshaller(um);
+        return o;
     }
 
     public Object read(QName name, T input, Class<?> type) {
-        return JAXBEncoderDecoder.unmarshall(createUnmarshaller(), input,
-                                             name, type, 
-                                             unwrapJAXBElement);
+        Unmarshaller um = createUnmarshaller();
+        Object o = JAXBEncoderDecoder.unmarshall(um, input, name, type, unwrapJAXBElement);
+        pool.releaseUnmarshaller(um);
+        return o;
     }
 
 }
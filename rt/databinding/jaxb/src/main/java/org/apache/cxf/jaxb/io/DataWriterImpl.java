@@ -35,6 +35,7 @@ import javax.xml.bind.ValidationEventHandler;
 import javax.xml.bind.attachment.AttachmentMarshaller;
 
 import org.apache.cxf.common.i18n.Message;
+import org.apache.cxf.common.jaxb.JAXBMarshallerPool;
 import org.apache.cxf.common.jaxb.JAXBUtils;
 import org.apache.cxf.common.logging.LogUtils;
 import org.apache.cxf.databinding.DataWriter;
@@ -50,10 +51,12 @@ public class DataWriterImpl<T> extends JAXBDataBase implements DataWriter<T> {
     private static final Logger LOG = LogUtils.getLogger(JAXBDataBinding.class);
 
     private JAXBDataBinding databinding;
+    private JAXBMarshallerPool pool;
     
     public DataWriterImpl(JAXBDataBinding binding) {
         super(binding.getContext());
         databinding = binding;
+        pool = binding.getMarshallerPool();
     }
     
     public void write(Object obj, T output) {
@@ -98,7 +101,7 @@ public class DataWriterImpl<T> extends JAXBDataBase implements DataWriter<T> {
         Marshaller marshaller;
         try {
             
-            marshaller = context.createMarshaller();
+            marshaller = pool.acquireMarshaller();
             marshaller.setProperty(Marshaller.JAXB_ENCODING, "UTF-8");
             marshaller.setProperty(Marshaller.JAXB_FRAGMENT, true);
             marshaller.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, Boolean.FALSE);
@@ -158,14 +161,18 @@ public class DataWriterImpl<T> extends JAXBDataBase implements DataWriter<T> {
                 && part != null
                 && Boolean.TRUE.equals(part.getProperty(JAXBDataBinding.class.getName() 
                                                         + ".CUSTOM_EXCEPTION"))) {
-                JAXBEncoderDecoder.marshallException(createMarshaller(obj, part),
+                Marshaller marshaller = createMarshaller(obj, part);
+                JAXBEncoderDecoder.marshallException(marshaller,
                                                      (Exception)obj,
                                                      part, 
                                                      output);                
+                pool.releaseMarshaller(marshaller);
             } else {
                 Annotation[] anns = getJAXBAnnotation(part);
                 if (!honorJaxbAnnotation || anns.length == 0) {
-                    JAXBEncoderDecoder.marshall(createMarshaller(obj, part), obj, part, output);
+                    Marshaller marshaller = createMarshaller(obj, part);
+                    JAXBEncoderDecoder.marshall(marshaller, obj, part, output);
+                    pool.releaseMarshaller(marshaller);
                 } else if (honorJaxbAnnotation && anns.length > 0) {
                     //RpcLit will use the JAXB Bridge to marshall part message when it is 
                     //annotated with @XmlList,@XmlAttachmentRef,@XmlJavaTypeAdapter
@@ -181,8 +188,9 @@ public class DataWriterImpl<T> extends JAXBDataBase implements DataWriter<T> {
                 }
             }
         } else if (needToRender(obj, part)) {
-            JAXBEncoderDecoder.marshallNullElement(createMarshaller(obj, part),
-                                                   output, part);
+            Marshaller marshaller = createMarshaller(obj, part);
+            JAXBEncoderDecoder.marshallNullElement(marshaller, output, part);
+            pool.releaseMarshaller(marshaller);
         }
     }
 
@@ -0,0 +1,144 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.endpoint.dynamic;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.net.URL;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.cxf.Bus;
+import org.apache.cxf.BusFactory;
+import org.apache.cxf.endpoint.Client;
+import org.apache.cxf.helpers.FileUtils;
+import org.apache.cxf.service.model.BindingInfo;
+import org.apache.cxf.service.model.BindingOperationInfo;
+import org.apache.cxf.service.model.MessagePartInfo;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class CompiledSchemaCacheTest extends Assert {
+    private Bus bus;
+    private File cacheDir;
+    private ClassLoader loader;
+
+    @Before
+    public void setUp() throws Exception {
+        bus = BusFactory.newInstance().createBus();
+        cacheDir = FileUtils.createTempFile("dynamic", "cache");
+        cacheDir.delete();
+        loader = Thread.currentThread().getContextClassLoader();
+        CompiledSchemaCache.clearMemory();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        Thread.currentThread().setContextClassLoader(loader);
+        CompiledSchemaCache.clearMemory();
+        FileUtils.removeDir(cacheDir);
+        bus.shutdown(true);
+    }
+
+    @Test
+    public void testClassesReused() throws Exception {
+        URL wsdl = getClass().getResource("/wsdl/jaxb/hello_world.wsdl");
+        assertNotNull(wsdl);
+
+        DynamicClientFactory factory = DynamicClientFactory.newInstance(bus);
+        factory.setCacheDirectory(cacheDir.getAbsolutePath());
+        assertTrue(factory.isCacheEnabled());
+        Map<String, String> types = getTypeClassNames(factory.createClient(wsdl));
+        assertFalse(types.isEmpty());
+        assertEquals(1, cacheDir.list().length);
+
+        // from memory
+        Thread.currentThread().setContextClassLoader(loader);
+        assertEquals(types, getTypeClassNames(factory.createClient(wsdl)));
+
+        // from disk, as after a restart
+        CompiledSchemaCache.clearMemory();
+        Thread.currentThread().setContextClassLoader(loader);
+        DynamicClientFactory factory2 = DynamicClientFactory.newInstance(bus);
+        factory2.setCacheDirectory(cacheDir.getAbsolutePath());
+        Client client = factory2.createClient(wsdl);
+        assertEquals(types, getTypeClassNames(client));
+        assertEquals(1, cacheDir.list().length);
+        assertNotNull(client.getEndpoint().getService().getDataBinding());
+    }
+
+    @Test
+    public void testModifiedClassesNotLoaded() throws Exception {
+        String key = "0123456789abcdef";
+        Map<String, byte[]> classes = new HashMap<String, byte[]>();
+        classes.put("org.example.Foo", new byte[] {1, 2, 3});
+        CompiledSchemaCache.put(key, new CompiledSchemaCache.Entry("org.example", classes,
+                                                                   Collections.<String, String>emptyMap()),
+                                cacheDir);
+        CompiledSchemaCache.clearMemory();
+        CompiledSchemaCache.Entry entry = CompiledSchemaCache.get(key, cacheDir);
+        assertNotNull(entry);
+        assertEquals("org.example", entry.packageList);
+        assertArrayEquals(new byte[] {1, 2, 3}, entry.classes.get("org.example.Foo"));
+
+        File classFile = new File(cacheDir, key + File.separator + "classes" + File.separator
+                                  + "org" + File.separator + "example" + File.separator + "Foo.class");
+        assertTrue(classFile.isFile());
+        OutputStream out = new FileOutputStream(classFile);
+        try {
+            out.write(new byte[] {1, 2});
+        } finally {
+            out.close();
+        }
+        CompiledSchemaCache.clearMemory();
+        assertNull(CompiledSchemaCache.get(key, cacheDir));
+        // removed, so that it is stored again
+        assertFalse(new File(cacheDir, key).exists());
+    }
+
+    private static Map<String, String> getTypeClassNames(Client client) {
+        Map<String, String> types = new HashMap<String, String>();
+        BindingInfo binding = client.getEndpoint().getEndpointInfo().getBinding();
+        for (BindingOperationInfo bop : binding.getOperations()) {
+            if (bop.isUnwrappedCapable()) {
+                bop = bop.getUnwrappedOperation();
+            }
+            if (bop.getInput() != null) {
+                for (MessagePartInfo part : bop.getInput().getMessageParts()) {
+                    types.put(TypeClassInitializer.getPartKey(part), getName(part));
+                }
+            }
+            if (bop.getOutput() != null) {
+                for (MessagePartInfo part : bop.getOutput().getMessageParts()) {
+                    types.put(TypeClassInitializer.getPartKey(part), getName(part));
+                }
+            }
+        }
+        return types;
+    }
+
+    private static String getName(MessagePartInfo part) {
+        return part.getTypeClass() == null ? null : part.getTypeClass().getName();
+    }
+}
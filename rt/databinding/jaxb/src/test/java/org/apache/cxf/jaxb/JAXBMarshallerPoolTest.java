@@ -0,0 +1,129 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.jaxb;
+
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.Collections;
+
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.Marshaller;
+import javax.xml.bind.Unmarshaller;
+import javax.xml.bind.ValidationEvent;
+import javax.xml.bind.ValidationEventHandler;
+import javax.xml.bind.annotation.XmlRootElement;
+
+import org.apache.cxf.common.jaxb.JAXBMarshallerPool;
+import org.apache.cxf.common.jaxb.JAXBUtils;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class JAXBMarshallerPoolTest extends Assert {
+
+    @Test
+    public void testMarshallerReused() throws Exception {
+        JAXBMarshallerPool pool = new JAXBMarshallerPool(JAXBContext.newInstance(Item.class));
+        Marshaller m = pool.acquireMarshaller();
+        m.setProperty(Marshaller.JAXB_FRAGMENT, Boolean.TRUE);
+        m.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, Boolean.TRUE);
+        m.setProperty(Marshaller.JAXB_ENCODING, "ISO-8859-1");
+        m.setListener(new Marshaller.Listener() { });
+        m.setEventHandler(new IgnoringHandler());
+        m.marshal(new Item(), new StringWriter());
+        pool.releaseMarshaller(m);
+
+        Marshaller m2 = pool.acquireMarshaller();
+        assertSame(m, m2);
+        assertEquals(Boolean.FALSE, m2.getProperty(Marshaller.JAXB_FRAGMENT));
+        assertEquals(Boolean.FALSE, m2.getProperty(Marshaller.JAXB_FORMATTED_OUTPUT));
+        assertEquals("UTF-8", m2.getProperty(Marshaller.JAXB_ENCODING));
+        assertNull(m2.getListener());
+        assertFalse(m2.getEventHandler() instanceof IgnoringHandler);
+
+        StringWriter out = new StringWriter();
+        m2.marshal(new Item(), out);
+        assertTrue(out.toString().startsWith("<?xml"));
+    }
+
+    @Test
+    public void testSchemaLocationDropped() throws Exception {
+        JAXBMarshallerPool pool = new JAXBMarshallerPool(JAXBContext.newInstance(Item.class));
+        Marshaller m = pool.acquireMarshaller();
+        m.setProperty(Marshaller.JAXB_SCHEMA_LOCATION, "urn:item item.xsd");
+        pool.releaseMarshaller(m);
+        // the JAXB RI does not allow the schema location to be unset
+        Marshaller m2 = pool.acquireMarshaller();
+        StringWriter out = new StringWriter();
+        m2.marshal(new Item(), out);
+        assertFalse(out.toString().contains("schemaLocation"));
+    }
+
+    @Test
+    public void testNamespaceMapperDropped() throws Exception {
+        JAXBMarshallerPool pool = new JAXBMarshallerPool(JAXBContext.newInstance(Item.class));
+        Marshaller m = pool.acquireMarshaller();
+        JAXBUtils.setNamespaceWrapper(Collections.singletonMap("urn:item", "it"), m);
+        pool.releaseMarshaller(m);
+        assertNotSame(m, pool.acquireMarshaller());
+    }
+
+    @Test
+    public void testUnmarshallerReused() throws Exception {
+        JAXBMarshallerPool pool = new JAXBMarshallerPool(JAXBContext.newInstance(Item.class));
+        Unmarshaller u = pool.acquireUnmarshaller();
+        u.setEventHandler(new IgnoringHandler());
+        u.setListener(new Unmarshaller.Listener() { });
+        Item item = (Item)u.unmarshal(new StringReader("<item><name>a</name></item>"));
+        assertEquals("a", item.getName());
+        pool.releaseUnmarshaller(u);
+
+        Unmarshaller u2 = pool.acquireUnmarshaller();
+        assertSame(u, u2);
+        assertNull(u2.getListener());
+        assertFalse(u2.getEventHandler() instanceof IgnoringHandler);
+    }
+
+    @Test
+    public void testPoolingDisabled() throws Exception {
+        JAXBMarshallerPool pool = new JAXBMarshallerPool(JAXBContext.newInstance(Item.class), 0);
+        Marshaller m = pool.acquireMarshaller();
+        pool.releaseMarshaller(m);
+        assertNotSame(m, pool.acquireMarshaller());
+    }
+
+    @XmlRootElement(name = "item")
+    public static class Item {
+        private String name;
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+    }
+
+    private static class IgnoringHandler implements ValidationEventHandler {
+        public boolean handleEvent(ValidationEvent event) {
+            return true;
+        }
+    }
+}
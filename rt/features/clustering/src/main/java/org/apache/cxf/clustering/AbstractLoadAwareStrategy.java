@@ -0,0 +1,294 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.clustering;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.apache.cxf.common.logging.LogUtils;
+import org.apache.cxf.endpoint.Endpoint;
+
+/**
+ * Base class of the strategies that choose a target from the outstanding requests and
+ * response times of the addresses, as reported by the LoadDistributorTargetSelector.
+ * The selection does not modify shared state, so the selector does not have to lock.
+ *
+ * The strategy also acts as a circuit breaker: an address that fails failureThreshold
+ * times in a row, or whose average response time exceeds slowResponseThreshold, is not
+ * selected for circuitOpenTime milliseconds. After that a single request is let through
+ * to probe it; if it succeeds the address is used again. If all the addresses are
+ * excluded, they are all considered rather than failing the request.
+ */
+public abstract class AbstractLoadAwareStrategy extends AbstractStaticFailoverStrategy {
+    private static final Logger LOG = LogUtils.getL7dLogger(AbstractLoadAwareStrategy.class);
+
+    private final ConcurrentMap<String, AddressStatistics> statistics =
+        new ConcurrentHashMap<String, AddressStatistics>();
+    private final Random random = new Random();
+    private int failureThreshold = 5;
+    private long slowResponseThreshold;
+    private long circuitOpenTime = 30000;
+    private double responseTimeWeight = 0.2;
+
+    public int getFailureThreshold() {
+        return failureThreshold;
+    }
+
+    /**
+     * @param failureThreshold the number of consecutive failures after which an address
+     * is excluded, 0 to never exclude an address because of failures
+     */
+    public void setFailureThreshold(int failureThreshold) {
+        this.failureThreshold = failureThreshold;
+    }
+
+    public long getSlowResponseThreshold() {
+        return slowResponseThreshold;
+    }
+
+    /**
+     * @param slowResponseThreshold the average response time in milliseconds above which
+     * an address is excluded, 0 (the default) to never exclude an address for being slow
+     */
+    public void setSlowResponseThreshold(long slowResponseThreshold) {
+        this.slowResponseThreshold = slowResponseThreshold;
+    }
+
+    public long getCircuitOpenTime() {
+        return circuitOpenTime;
+    }
+
+    /**
+     * @param circuitOpenTime the time in milliseconds an address is excluded for
+     */
+    public void setCircuitOpenTime(long circuitOpenTime) {
+        this.circuitOpenTime = circuitOpenTime;
+    }
+
+    public double getResponseTimeWeight() {
+        return responseTimeWeight;
+    }
+
+    /**
+     * @param responseTimeWeight the weight, between 0 and 1, of the latest response time in
+     * the exponentially weighted moving average of the response times of an address
+     */
+    public void setResponseTimeWeight(double responseTimeWeight) {
+        this.responseTimeWeight = responseTimeWeight;
+    }
+
+    /**
+     * Called by the target selector when a request is sent to an address.
+     */
+    public void requestStarted(String address) {
+        getStatistics(address).outstanding.incrementAndGet();
+    }
+
+    /**
+     * Called by the target selector when a request sent to an address completes.
+     *
+     * @param address the address
+     * @param responseTime the response time in milliseconds
+     * @param failed true if the request failed at the transport level
+     */
+    public void requestCompleted(String address, long responseTime, boolean failed) {
+        AddressStatistics stats = getStatistics(address);
+        stats.outstanding.decrementAndGet();
+        long now = System.currentTimeMillis();
+        if (failed) {
+            int failures = stats.consecutiveFailures.incrementAndGet();
+            if (failureThreshold > 0 && failures >= failureThreshold) {
+                openCircuit(address, stats, now);
+            }
+            return;
+        }
+        stats.consecutiveFailures.set(0);
+        if (stats.openUntil.get() != 0) {
+            // the average that excluded the address is restarted from the probe
+            stats.resetResponseTime(responseTime);
+        } else {
+            stats.updateResponseTime(responseTime, responseTimeWeight);
+        }
+        if (slowResponseThreshold > 0 && stats.getResponseTime() > slowResponseThreshold) {
+            openCircuit(address, stats, now);
+        } else {
+            stats.openUntil.set(0);
+        }
+    }
+
+    /**
+     * @return the number of requests to the address that have not completed yet
+     */
+    public int getOutstandingRequests(String address) {
+        AddressStatistics stats = statistics.get(address);
+        return stats == null ? 0 : stats.outstanding.get();
+    }
+
+    /**
+     * @return the moving average of the response times of the address in milliseconds,
+     * 0 if no response was received yet
+     */
+    public double getResponseTime(String address) {
+        AddressStatistics stats = statistics.get(address);
+        return stats == null ? 0 : stats.getResponseTime();
+    }
+
+    /**
+     * @return true if the address is currently excluded from selection
+     */
+    public boolean isCircuitOpen(String address) {
+        AddressStatistics stats = statistics.get(address);
+        return stats != null && stats.openUntil.get() > System.currentTimeMillis();
+    }
+
+    protected <T> T getNextAlternate(List<T> alternates) {
+        long now = System.currentTimeMillis();
+        List<String> addresses = new ArrayList<String>(alternates.size());
+        List<AddressStatistics> available = new ArrayList<AddressStatistics>(alternates.size());
+        List<Integer> indexes = new ArrayList<Integer>(alternates.size());
+        for (int i = 0; i < alternates.size(); i++) {
+            String address = getAddress(alternates.get(i));
+            AddressStatistics stats = getStatistics(address);
+            if (stats.isAvailable(now)) {
+                addresses.add(address);
+                available.add(stats);
+                indexes.add(i);
+            }
+        }
+        while (!available.isEmpty()) {
+            int selected = select(addresses, available);
+            if (available.get(selected).acquire(now, circuitOpenTime)) {
+                return alternates.remove(indexes.get(selected).intValue());
+            }
+            // another request took the probe of the address
+            addresses.remove(selected);
+            available.remove(selected);
+            indexes.remove(selected);
+        }
+        // every address is excluded, so try them all rather than none
+        for (int i = 0; i < alternates.size(); i++) {
+            String address = getAddress(alternates.get(i));
+            addresses.add(address);
+            available.add(getStatistics(address));
+            indexes.add(i);
+        }
+        int selected = select(addresses, available);
+        return alternates.remove(indexes.get(selected).intValue());
+    }
+
+    /**
+     * Chooses one of the available addresses.
+     *
+     * @param addresses the non-empty list of the available addresses
+     * @param stats the statistics of the addresses, in the same order
+     * @return the index of the chosen address
+     */
+    protected abstract int select(List<String> addresses, List<AddressStatistics> stats);
+
+    /**
+     * @return a random number between 0 (inclusive) and n (exclusive)
+     */
+    protected int nextRandom(int n) {
+        return random.nextInt(n);
+    }
+
+    private AddressStatistics getStatistics(String address) {
+        AddressStatistics stats = statistics.get(address);
+        if (stats == null) {
+            AddressStatistics newStats = new AddressStatistics();
+            stats = statistics.putIfAbsent(address, newStats);
+            if (stats == null) {
+                stats = newStats;
+            }
+        }
+        return stats;
+    }
+
+    private void openCircuit(String address, AddressStatistics stats, long now) {
+        stats.openUntil.set(now + circuitOpenTime);
+        LOG.log(Level.WARNING, "EXCLUDING_ADDRESS", new Object[] {address, circuitOpenTime});
+    }
+
+    private static String getAddress(Object target) {
+        if (target instanceof Endpoint) {
+            return ((Endpoint)target).getEndpointInfo().getAddress();
+        }
+        return String.valueOf(target);
+    }
+
+    /**
+     * The load and health of an address.
+     */
+    protected static final class AddressStatistics {
+        private final AtomicInteger outstanding = new AtomicInteger();
+        private final AtomicInteger consecutiveFailures = new AtomicInteger();
+        private final AtomicLong openUntil = new AtomicLong();
+        private volatile double responseTime;
+
+        AddressStatistics() {
+        }
+
+        public int getOutstandingRequests() {
+            return outstanding.get();
+        }
+
+        /**
+         * @return the moving average of the response times in milliseconds
+         */
+        public double getResponseTime() {
+            return responseTime;
+        }
+
+        void updateResponseTime(long time, double weight) {
+            // a lost update under contention only drops one sample from the average
+            double current = responseTime;
+            responseTime = current == 0 ? time : current + weight * (time - current);
+        }
+
+        void resetResponseTime(long time) {
+            responseTime = time;
+        }
+
+        boolean isAvailable(long now) {
+            return openUntil.get() <= now;
+        }
+
+        /**
+         * Called for the selected address only, so that a probe is not used up by an
+         * address that was merely considered.
+         * @return false if the address was excluded again since it was found available
+         */
+        boolean acquire(long now, long openTime) {
+            long until = openUntil.get();
+            if (until == 0) {
+                return true;
+            }
+            // after the open time let a single request through to probe the address
+            return until <= now && openUntil.compareAndSet(until, now + openTime);
+        }
+    }
+}
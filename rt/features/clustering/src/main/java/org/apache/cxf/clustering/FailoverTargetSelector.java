@@ -50,7 +50,7 @@ public class FailoverTargetSelector extends AbstractConduitSelector {
         LogUtils.getL7dLogger(FailoverTargetSelector.class);
     protected ConcurrentHashMap<InvocationKey, InvocationContext> inProgress 
         = new ConcurrentHashMap<InvocationKey, InvocationContext>();;
-    protected FailoverStrategy failoverStrategy;
+    protected volatile FailoverStrategy failoverStrategy;
     
     /**
      * Normal constructor.
@@ -184,14 +184,20 @@ public class FailoverTargetSelector extends AbstractConduitSelector {
     /**
      * @return strategy the FailoverStrategy to use
      */    
-    public synchronized FailoverStrategy getStrategy()  {
-        if (failoverStrategy == null) {
-            failoverStrategy = new SequentialStrategy();
-            getLogger().log(Level.INFO,
-                            "USING_STRATEGY",
-                            new Object[] {failoverStrategy});
+    public FailoverStrategy getStrategy()  {
+        FailoverStrategy strategy = failoverStrategy;
+        if (strategy == null) {
+            synchronized (this) {
+                if (failoverStrategy == null) {
+                    failoverStrategy = new SequentialStrategy();
+                    getLogger().log(Level.INFO,
+                                    "USING_STRATEGY",
+                                    new Object[] {failoverStrategy});
+                }
+                strategy = failoverStrategy;
+            }
         }
-        return failoverStrategy;
+        return strategy;
     }
 
     /**
@@ -0,0 +1,47 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.clustering;
+
+import java.util.List;
+
+/**
+ * Load distribution strategy that chooses the address with the fewest requests in 
+ * progress, picking randomly between addresses with the same number.
+ */
+public class LeastOutstandingRequestsStrategy extends AbstractLoadAwareStrategy {
+
+    protected int select(List<String> addresses, List<AddressStatistics> stats) {
+        int selected = -1;
+        int least = Integer.MAX_VALUE;
+        int ties = 0;
+        for (int i = 0; i < stats.size(); i++) {
+            int outstanding = stats.get(i).getOutstandingRequests();
+            if (outstanding < least) {
+                least = outstanding;
+                selected = i;
+                ties = 1;
+            } else if (outstanding == least && nextRandom(++ties) == 0) {
+                // reservoir sampling keeps every tied address equally likely
+                selected = i;
+            }
+        }
+        return selected;
+    }
+}
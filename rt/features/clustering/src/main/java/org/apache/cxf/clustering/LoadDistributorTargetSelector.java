@@ -18,7 +18,10 @@
  */
 package org.apache.cxf.clustering;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.logging.Logger;
 import org.apache.cxf.common.logging.LogUtils;
 import org.apache.cxf.endpoint.Endpoint;
@@ -52,14 +55,35 @@ import org.apache.cxf.transport.Conduit;
  *    If alternate endpoints (as opposed to alternate addresses) are to be used
  *    you should probably ensure that your FailoverStrategy overrides getAlternateEndpoints
  *    and calls getEndpoints with acceptCandidatesWithSameAddress = true.
+ *    
+ * Alternate addresses are selected without locking: the chosen address is set on the
+ * message and the conduits are looked up by their full address, so concurrent requests
+ * do not have to switch the shared endpoint. Strategies that walk a shared list of the
+ * addresses, like the SequentialStrategy and the RandomStrategy, order the whole list up
+ * front and concurrent requests then take the next address of that walk. Alternate
+ * endpoints still require the endpoint to be switched, which is done holding the lock.
+ * Strategies extending AbstractLoadAwareStrategy are told when requests to an address
+ * start and complete, failover retries included, so they can choose by load and response
+ * time and stop sending to addresses that fail or respond slowly.
  */
 public class LoadDistributorTargetSelector extends FailoverTargetSelector {
     private static final Logger LOG = LogUtils.getL7dLogger(
                         LoadDistributorTargetSelector.class);
     private static final String IS_DISTRIBUTED = 
             "org.apache.cxf.clustering.LoadDistributorTargetSelector.IS_DISTRIBUTED";
+    private static final String DISTRIBUTED_REQUEST = 
+            "org.apache.cxf.clustering.LoadDistributorTargetSelector.DISTRIBUTED_REQUEST";
+    private static final String DISTRIBUTED_RETRY = 
+            "org.apache.cxf.clustering.LoadDistributorTargetSelector.DISTRIBUTED_RETRY";
+    private static final String TRANSPORT_FAILED = 
+            "org.apache.cxf.clustering.LoadDistributorTargetSelector.TRANSPORT_FAILED";
 
-    private List<String> addressList;
+    // the current walk of strategies that take the addresses off the list
+    private final AtomicReference<AddressWalk> addressWalk = new AtomicReference<AddressWalk>();
+    // held while a conduit is created for a distribution address
+    private final Object conduitLock = new Object();
+    // all the addresses, copied for every selection by load aware strategies
+    private volatile AddressSnapshot allAddresses;
 
     private boolean failover = true;
 
@@ -98,7 +122,7 @@ public class LoadDistributorTargetSelector extends FailoverTargetSelector {
      * @param message
      * @return the Conduit to use for mediation of the message
      */
-    public synchronized Conduit selectConduit(Message message) {
+    public Conduit selectConduit(Message message) {
         Conduit c = message.get(Conduit.class);
         if (c != null) {
             return c;
@@ -107,13 +131,81 @@ public class LoadDistributorTargetSelector extends FailoverTargetSelector {
         InvocationKey key = new InvocationKey(exchange);
         InvocationContext invocation = inProgress.get(key);
         if ((invocation != null) && !invocation.getContext().containsKey(IS_DISTRIBUTED)) {
-            Endpoint target = getDistributionTarget(exchange, invocation);
-            if (target != null) {
-                setEndpoint(target);
-                message.put(Message.ENDPOINT_ADDRESS, target.getEndpointInfo().getAddress());
+            String address = getDistributionAddress(exchange, invocation);
+            if (address != null) {
+                message.put(Message.ENDPOINT_ADDRESS, address);
                 message.put(CONDUIT_COMPARE_FULL_URL, Boolean.TRUE);
-                overrideAddressProperty(invocation.getContext());
-                invocation.getContext().put(IS_DISTRIBUTED, null);
+                overrideAddressProperty(invocation.getContext(), address);
+                invocation.getContext().put(IS_DISTRIBUTED, address);
+                startRequest(exchange, address);
+                return getDistributedConduit(message);
+            }
+            if (invocation.getAlternateEndpoints() != null) {
+                // the alternate endpoints are those of this invocation only
+                Endpoint target = getStrategy().selectAlternateEndpoint(
+                                      invocation.getAlternateEndpoints());
+                synchronized (this) {
+                    if (target != null) {
+                        setEndpoint(target);
+                        message.put(Message.ENDPOINT_ADDRESS, target.getEndpointInfo().getAddress());
+                        message.put(CONDUIT_COMPARE_FULL_URL, Boolean.TRUE);
+                        overrideAddressProperty(invocation.getContext());
+                        invocation.getContext().put(IS_DISTRIBUTED, 
+                                                    target.getEndpointInfo().getAddress());
+                    }
+                    return getSelectedConduit(message);
+                }
+            }
+        } else if (invocation != null) {
+            // a failover retry of a distributed request is counted as a request of its own
+            String retryAddress = (String)invocation.getContext().remove(DISTRIBUTED_RETRY);
+            if (retryAddress != null) {
+                startRequest(exchange, retryAddress);
+            }
+        }
+        return getSelectedConduit(message);
+    }
+
+    /**
+     * Called on completion of the MEP for which the Conduit was required.
+     *
+     * @param exchange represents the completed MEP
+     */
+    @Override
+    public void complete(Exchange exchange) {
+        DistributedRequest request = (DistributedRequest)exchange.remove(DISTRIBUTED_REQUEST);
+        if (request != null) {
+            FailoverStrategy strategy = getStrategy();
+            if (strategy instanceof AbstractLoadAwareStrategy) {
+                // the failover check that follows uses the same outcome
+                boolean failed = super.requiresFailover(exchange);
+                exchange.put(TRANSPORT_FAILED, failed);
+                ((AbstractLoadAwareStrategy)strategy).requestCompleted(
+                    request.address, 
+                    System.currentTimeMillis() - request.startTime,
+                    failed);
+            }
+        }
+        super.complete(exchange);
+    }
+
+    private void startRequest(Exchange exchange, String address) {
+        FailoverStrategy strategy = getStrategy();
+        if (strategy instanceof AbstractLoadAwareStrategy) {
+            ((AbstractLoadAwareStrategy)strategy).requestStarted(address);
+            exchange.put(DISTRIBUTED_REQUEST, new DistributedRequest(address));
+        }
+    }
+
+    /**
+     * Returns the conduit for the address set on the message. Only the creation of a
+     * conduit for an address that has none yet is done holding a lock, so that
+     * concurrent requests do not create several conduits for the same address.
+     */
+    private Conduit getDistributedConduit(Message message) {
+        if (findCompatibleConduit(message) == null) {
+            synchronized (conduitLock) {
+                return getSelectedConduit(message);
             }
         }
         return getSelectedConduit(message);
@@ -140,7 +232,11 @@ public class LoadDistributorTargetSelector extends FailoverTargetSelector {
             alternateAddresses = 
                 getStrategy().getAlternateAddresses(exchange);
             if (alternateAddresses != null) {
-                alternateAddresses.remove(exchange.getEndpoint().getEndpointInfo().getAddress());
+                String failedAddress = (String)invocation.getContext().get(IS_DISTRIBUTED);
+                if (failedAddress == null) {
+                    failedAddress = exchange.getEndpoint().getEndpointInfo().getAddress();
+                }
+                alternateAddresses.remove(failedAddress);
                 invocation.setAlternateAddresses(alternateAddresses);
             } else {
                 invocation.setAlternateEndpoints(
@@ -160,6 +256,10 @@ public class LoadDistributorTargetSelector extends FailoverTargetSelector {
                 failoverTarget = getEndpoint();
 
                 failoverTarget.getEndpointInfo().setAddress(alternateAddress);
+                invocation.getContext().put(IS_DISTRIBUTED, alternateAddress);
+                if (getStrategy() instanceof AbstractLoadAwareStrategy) {
+                    invocation.getContext().put(DISTRIBUTED_RETRY, alternateAddress);
+                }
             }
         } else {
             failoverTarget = getStrategy().selectAlternateEndpoint(
@@ -169,54 +269,156 @@ public class LoadDistributorTargetSelector extends FailoverTargetSelector {
     }
 
     /**
-     * Get the distribution target endpoint, if a suitable one is available.
+     * Get the distribution target address, if a suitable one is available.
+     * If the strategy only provides alternate endpoints they are set on the 
+     * invocation and null is returned.
      *
      * @param exchange the current Exchange
      * @param invocation the current InvocationContext
-     * @return a distribution endpoint if one is available
+     * @return a distribution address if one is available
      */
-    private Endpoint getDistributionTarget(Exchange exchange,
-                                           InvocationContext invocation) {
-        List<String> alternateAddresses = null;
-        if ((addressList == null) || (addressList.isEmpty())) {
-            try {
-                addressList = getStrategy().getAlternateAddresses(null);
-            } catch (NullPointerException ex) {
-                getLogger().fine("Strategy " + getStrategy().getClass()
-                        + " cannot handle a null argument to getAlternateAddresses: " + ex.toString());
+    private String getDistributionAddress(Exchange exchange,
+                                          InvocationContext invocation) {
+        FailoverStrategy strategy = getStrategy();
+        if (strategy instanceof AbstractLoadAwareStrategy) {
+            // the selection does not change the list, so it can work on a copy
+            AddressSnapshot snapshot = allAddresses;
+            if ((snapshot == null) || snapshot.isExhausted()) {
+                List<String> addresses = getAddressesWithoutExchange(strategy);
+                snapshot = (addresses != null) && !addresses.isEmpty() 
+                    ? new AddressSnapshot(addresses) : null;
+                allAddresses = snapshot;
+            }
+            if (snapshot != null) {
+                return strategy.selectAlternateAddress(new ArrayList<String>(snapshot.addresses));
+            }
+        } else {
+            String address = getWalkAddress(strategy);
+            if (address != null) {
+                return address;
             }
         }
-        alternateAddresses = addressList;
 
-        if ((alternateAddresses == null) || (alternateAddresses.isEmpty())) {
-            alternateAddresses = getStrategy().getAlternateAddresses(exchange);
-            if (alternateAddresses != null) {
-                invocation.setAlternateAddresses(alternateAddresses);
-            } else {
-                invocation.setAlternateEndpoints(
-                    getStrategy().getAlternateEndpoints(exchange));
+        List<String> alternateAddresses = strategy.getAlternateAddresses(exchange);
+        if (alternateAddresses != null) {
+            invocation.setAlternateAddresses(alternateAddresses);
+            if (!alternateAddresses.isEmpty()) {
+                return strategy.selectAlternateAddress(alternateAddresses);
             }
+        } else {
+            invocation.setAlternateEndpoints(strategy.getAlternateEndpoints(exchange));
         }
+        return null;
+    }
 
-        Endpoint distributionTarget = null;
-        if ((alternateAddresses != null) && !alternateAddresses.isEmpty()) {
-            String alternateAddress =
-                getStrategy().selectAlternateAddress(alternateAddresses);
-            if (alternateAddress != null) {
-                // re-use current endpoint
-                distributionTarget = getEndpoint();
-                distributionTarget.getEndpointInfo().setAddress(alternateAddress);
+    /**
+     * @return the next address of the current walk, starting a new walk once all the
+     * addresses were taken, or null if the addresses can not be obtained without a message
+     */
+    private String getWalkAddress(FailoverStrategy strategy) {
+        while (true) {
+            AddressWalk walk = addressWalk.get();
+            String address = walk == null ? null : walk.next();
+            if (address != null) {
+                return address;
             }
-        } else {
-            distributionTarget = getStrategy().selectAlternateEndpoint(
-                                 invocation.getAlternateEndpoints());
+            List<String> addresses = getAddressesWithoutExchange(strategy);
+            if ((addresses == null) || addresses.isEmpty()) {
+                return null;
+            }
+            AddressWalk newWalk = new AddressWalk(strategy, addresses);
+            if (newWalk.isEmpty()) {
+                return null;
+            }
+            // if another request started a new walk already, that one is used
+            addressWalk.compareAndSet(walk, newWalk);
         }
-        return distributionTarget;
+    }
+
+    private List<String> getAddressesWithoutExchange(FailoverStrategy strategy) {
+        try {
+            return strategy.getAlternateAddresses(null);
+        } catch (NullPointerException ex) {
+            getLogger().fine("Strategy " + strategy.getClass()
+                    + " cannot handle a null argument to getAlternateAddresses: " + ex.toString());
+        }
+        return null;
     }
 
     @Override
     protected boolean requiresFailover(Exchange exchange) {
-        return failover && super.requiresFailover(exchange);
+        if (!failover) {
+            exchange.remove(TRANSPORT_FAILED);
+            return false;
+        }
+        Boolean failed = (Boolean)exchange.remove(TRANSPORT_FAILED);
+        return failed != null ? failed.booleanValue() : super.requiresFailover(exchange);
+    }
+
+    /**
+     * The addresses in the order the strategy selects them, handed out one at a time to
+     * concurrent requests.
+     */
+    private static class AddressWalk {
+        private final String[] addresses;
+        private final AtomicInteger next = new AtomicInteger();
+
+        AddressWalk(FailoverStrategy strategy, List<String> remaining) {
+            List<String> order = new ArrayList<String>(remaining.size());
+            // the strategy takes the addresses off the list, each at most once
+            for (int i = remaining.size(); i > 0 && !remaining.isEmpty(); i--) {
+                String address = strategy.selectAlternateAddress(remaining);
+                if (address == null) {
+                    break;
+                }
+                order.add(address);
+            }
+            addresses = order.toArray(new String[order.size()]);
+        }
+
+        boolean isEmpty() {
+            return addresses.length == 0;
+        }
+
+        String next() {
+            if (next.get() >= addresses.length) {
+                return null;
+            }
+            int i = next.getAndIncrement();
+            return i < addresses.length ? addresses[i] : null;
+        }
+    }
+
+    /**
+     * The addresses of the strategy, fetched again once as many selections were made from 
+     * them as there are addresses, as the other strategies do when their list is empty.
+     */
+    private static class AddressSnapshot {
+        private final List<String> addresses;
+        private final AtomicInteger remaining;
+
+        AddressSnapshot(List<String> addresses) {
+            this.addresses = addresses;
+            // the selection the snapshot is fetched for is the first
+            this.remaining = new AtomicInteger(addresses.size() - 1);
+        }
+
+        boolean isExhausted() {
+            return remaining.decrementAndGet() < 0;
+        }
+    }
+
+    /**
+     * A request sent to an address chosen by a load aware strategy.
+     */
+    private static class DistributedRequest {
+        private final String address;
+        private final long startTime;
+
+        DistributedRequest(String address) {
+            this.address = address;
+            this.startTime = System.currentTimeMillis();
+        }
     }
 
 }
@@ -0,0 +1,49 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.clustering;
+
+import java.util.List;
+
+/**
+ * Load distribution strategy that picks two addresses at random and chooses the one
+ * with fewer requests in progress, or with the lower average response time if both
+ * have the same number. This spreads the load nearly as well as comparing all the 
+ * addresses, while avoiding that all clients pile on the same least loaded one.
+ */
+public class PowerOfTwoChoicesStrategy extends AbstractLoadAwareStrategy {
+
+    protected int select(List<String> addresses, List<AddressStatistics> stats) {
+        int size = stats.size();
+        if (size == 1) {
+            return 0;
+        }
+        int first = nextRandom(size);
+        int second = nextRandom(size - 1);
+        if (second >= first) {
+            second++;
+        }
+        AddressStatistics a = stats.get(first);
+        AddressStatistics b = stats.get(second);
+        if (a.getOutstandingRequests() != b.getOutstandingRequests()) {
+            return a.getOutstandingRequests() < b.getOutstandingRequests() ? first : second;
+        }
+        return a.getResponseTime() <= b.getResponseTime() ? first : second;
+    }
+}
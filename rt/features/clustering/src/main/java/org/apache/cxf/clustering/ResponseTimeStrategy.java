@@ -0,0 +1,48 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.clustering;
+
+import java.util.List;
+
+/**
+ * Load distribution strategy that chooses the address with the lowest exponentially 
+ * weighted moving average of its response times, multiplied by the number of requests
+ * it has in progress plus one so that a fast address is not flooded. Addresses that
+ * have not responded yet are tried first.
+ */
+public class ResponseTimeStrategy extends AbstractLoadAwareStrategy {
+
+    protected int select(List<String> addresses, List<AddressStatistics> stats) {
+        int selected = 0;
+        double best = Double.MAX_VALUE;
+        for (int i = 0; i < stats.size(); i++) {
+            double cost = getCost(stats.get(i));
+            if (cost < best) {
+                best = cost;
+                selected = i;
+            }
+        }
+        return selected;
+    }
+
+    static double getCost(AddressStatistics stats) {
+        return stats.getResponseTime() * (stats.getOutstandingRequests() + 1);
+    }
+}
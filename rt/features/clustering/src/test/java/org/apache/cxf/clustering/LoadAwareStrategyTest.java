@@ -0,0 +1,169 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.clustering;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class LoadAwareStrategyTest extends Assert {
+    private static final String A = "http://localhost:9001/a";
+    private static final String B = "http://localhost:9002/b";
+    private static final String C = "http://localhost:9003/c";
+    
+    @Test
+    public void testLeastOutstandingRequests() {
+        LeastOutstandingRequestsStrategy strategy = new LeastOutstandingRequestsStrategy();
+        strategy.requestStarted(A);
+        strategy.requestStarted(A);
+        strategy.requestStarted(B);
+        assertEquals(C, strategy.selectAlternateAddress(addresses()));
+        strategy.requestStarted(C);
+        strategy.requestStarted(C);
+        assertEquals(B, strategy.selectAlternateAddress(addresses()));
+        strategy.requestCompleted(A, 10, false);
+        strategy.requestCompleted(A, 10, false);
+        assertEquals(A, strategy.selectAlternateAddress(addresses()));
+        assertEquals(0, strategy.getOutstandingRequests(A));
+    }
+    
+    @Test
+    public void testResponseTime() {
+        ResponseTimeStrategy strategy = new ResponseTimeStrategy();
+        complete(strategy, A, 100);
+        complete(strategy, B, 10);
+        // C has not responded yet, so it is tried first
+        assertEquals(C, strategy.selectAlternateAddress(addresses()));
+        complete(strategy, C, 50);
+        assertEquals(B, strategy.selectAlternateAddress(addresses()));
+        
+        // B slows down, the average follows with the configured weight
+        strategy.setResponseTimeWeight(0.5);
+        complete(strategy, B, 110);
+        assertEquals(60.0, strategy.getResponseTime(B), 0.001);
+        assertEquals(C, strategy.selectAlternateAddress(addresses()));
+    }
+    
+    @Test
+    public void testPowerOfTwoChoices() {
+        PowerOfTwoChoicesStrategy strategy = new PowerOfTwoChoicesStrategy();
+        for (int i = 0; i < 10; i++) {
+            strategy.requestStarted(A);
+        }
+        // A is never chosen over an idle address
+        for (int i = 0; i < 50; i++) {
+            String selected = strategy.selectAlternateAddress(addresses());
+            assertTrue(B.equals(selected) || C.equals(selected));
+        }
+        assertEquals(A, strategy.selectAlternateAddress(new ArrayList<String>(Arrays.asList(A))));
+    }
+    
+    @Test
+    public void testCircuitOpensOnFailures() throws Exception {
+        LeastOutstandingRequestsStrategy strategy = new LeastOutstandingRequestsStrategy();
+        strategy.setFailureThreshold(2);
+        strategy.setCircuitOpenTime(200);
+        
+        strategy.requestStarted(A);
+        strategy.requestCompleted(A, 1, true);
+        assertFalse(strategy.isCircuitOpen(A));
+        strategy.requestStarted(A);
+        strategy.requestCompleted(A, 1, true);
+        assertTrue(strategy.isCircuitOpen(A));
+        
+        // keep B and C busy, A is still not chosen
+        strategy.requestStarted(B);
+        strategy.requestStarted(C);
+        for (int i = 0; i < 10; i++) {
+            assertFalse(A.equals(strategy.selectAlternateAddress(addresses())));
+        }
+        
+        // if all addresses are excluded they are all considered
+        List<String> onlyA = new ArrayList<String>(Arrays.asList(A));
+        assertEquals(A, strategy.selectAlternateAddress(onlyA));
+        
+        Thread.sleep(300);
+        // a single probe is let through after the open time
+        assertEquals(A, strategy.selectAlternateAddress(addresses()));
+        assertFalse(A.equals(strategy.selectAlternateAddress(addresses())));
+        strategy.requestStarted(A);
+        strategy.requestCompleted(A, 1, false);
+        assertFalse(strategy.isCircuitOpen(A));
+        assertEquals(A, strategy.selectAlternateAddress(addresses()));
+    }
+    
+    @Test
+    public void testCircuitOpensOnSlowResponses() {
+        ResponseTimeStrategy strategy = new ResponseTimeStrategy();
+        strategy.setSlowResponseThreshold(500);
+        complete(strategy, A, 400);
+        assertFalse(strategy.isCircuitOpen(A));
+        strategy.setResponseTimeWeight(1.0);
+        complete(strategy, A, 1000);
+        assertTrue(strategy.isCircuitOpen(A));
+    }
+    
+    @Test
+    public void testProbeRestartsResponseTime() throws Exception {
+        ResponseTimeStrategy strategy = new ResponseTimeStrategy();
+        strategy.setSlowResponseThreshold(500);
+        strategy.setCircuitOpenTime(200);
+        complete(strategy, A, 1000);
+        assertTrue(strategy.isCircuitOpen(A));
+        
+        Thread.sleep(300);
+        // a fast probe is not averaged with the response time that excluded the address
+        assertEquals(A, strategy.selectAlternateAddress(new ArrayList<String>(Arrays.asList(A))));
+        complete(strategy, A, 10);
+        assertFalse(strategy.isCircuitOpen(A));
+        assertEquals(10.0, strategy.getResponseTime(A), 0.001);
+    }
+    
+    @Test
+    public void testProbeIsKeptForTheSelectedAddress() throws Exception {
+        LeastOutstandingRequestsStrategy strategy = new LeastOutstandingRequestsStrategy();
+        strategy.setFailureThreshold(1);
+        strategy.setCircuitOpenTime(200);
+        strategy.requestStarted(A);
+        strategy.requestCompleted(A, 1, true);
+        assertTrue(strategy.isCircuitOpen(A));
+        
+        Thread.sleep(300);
+        strategy.requestStarted(A);
+        // A is considered but B is chosen, which must not use up the probe of A
+        assertEquals(B, strategy.selectAlternateAddress(new ArrayList<String>(Arrays.asList(A, B))));
+        strategy.requestStarted(B);
+        strategy.requestStarted(B);
+        assertEquals(A, strategy.selectAlternateAddress(new ArrayList<String>(Arrays.asList(A, B))));
+        strategy.requestCompleted(A, 1, false);
+    }
+    
+    private static void complete(AbstractLoadAwareStrategy strategy, String address, long time) {
+        strategy.requestStarted(address);
+        strategy.requestCompleted(address, time, false);
+    }
+    
+    private static List<String> addresses() {
+        return new ArrayList<String>(Arrays.asList(A, B, C));
+    }
+}
@@ -0,0 +1,219 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.clustering;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+import org.apache.cxf.endpoint.Endpoint;
+import org.apache.cxf.endpoint.Retryable;
+import org.apache.cxf.message.Exchange;
+import org.apache.cxf.message.ExchangeImpl;
+import org.apache.cxf.message.Message;
+import org.apache.cxf.message.MessageImpl;
+import org.apache.cxf.service.model.BindingOperationInfo;
+import org.apache.cxf.service.model.EndpointInfo;
+import org.apache.cxf.transport.Conduit;
+import org.easymock.EasyMock;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class LoadDistributorTargetSelectorTest extends Assert {
+    private static final String ORIGINAL = "http://localhost:9000/original";
+    private static final String A = "http://localhost:9001/a";
+    private static final String B = "http://localhost:9002/b";
+    private static final String C = "http://localhost:9003/c";
+
+    private Endpoint endpoint;
+    private TestSelector selector;
+
+    @Before
+    public void setUp() {
+        EndpointInfo ei = new EndpointInfo();
+        ei.setAddress(ORIGINAL);
+        endpoint = EasyMock.createNiceMock(Endpoint.class);
+        EasyMock.expect(endpoint.getEndpointInfo()).andReturn(ei).anyTimes();
+        EasyMock.replay(endpoint);
+        selector = new TestSelector();
+        selector.setEndpoint(endpoint);
+    }
+
+    @Test
+    public void testSequentialWalk() {
+        SequentialStrategy strategy = new SequentialStrategy();
+        strategy.setAlternateAddresses(Arrays.asList(A, B, C));
+        selector.setStrategy(strategy);
+        List<String> selected = new ArrayList<String>();
+        for (int i = 0; i < 4; i++) {
+            selected.add(select(createExchange()));
+        }
+        assertEquals(Arrays.asList(A, B, C, A), selected);
+    }
+
+    @Test
+    public void testConcurrentWalksDistributeEvenly() throws Exception {
+        RandomStrategy strategy = new RandomStrategy();
+        strategy.setAlternateAddresses(Arrays.asList(A, B, C));
+        selector.setStrategy(strategy);
+        final Map<String, AtomicInteger> counts = new ConcurrentHashMap<String, AtomicInteger>();
+        for (String address : Arrays.asList(A, B, C)) {
+            counts.put(address, new AtomicInteger());
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        List<Future<?>> futures = new ArrayList<Future<?>>();
+        for (int t = 0; t < 4; t++) {
+            futures.add(executor.submit(new Runnable() {
+                public void run() {
+                    for (int i = 0; i < 30; i++) {
+                        counts.get(select(createExchange())).incrementAndGet();
+                    }
+                }
+            }));
+        }
+        try {
+            for (Future<?> f : futures) {
+                f.get(10, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        // every walk hands out each address once
+        for (AtomicInteger count : counts.values()) {
+            assertEquals(40, count.get());
+        }
+    }
+
+    @Test
+    public void testFailoverRetryIsCounted() throws Exception {
+        final LeastOutstandingRequestsStrategy strategy = new LeastOutstandingRequestsStrategy();
+        strategy.setAlternateAddresses(Arrays.asList(A, B));
+        strategy.setFailureThreshold(1);
+        selector.setStrategy(strategy);
+
+        final Exchange exchange = createExchange();
+        final String first = select(exchange);
+        exchange.getOutMessage().put(Exception.class, new IOException("connection refused"));
+        final String[] retried = new String[1];
+        final int[] outstanding = new int[2];
+        exchange.put(Retryable.class, new Retryable() {
+            public Object[] invoke(BindingOperationInfo oi, Object[] params,
+                                   Map<String, Object> context, Exchange ex) throws Exception {
+                Message message = new MessageImpl();
+                message.setExchange(ex);
+                ex.setOutMessage(message);
+                selector.selectConduit(message);
+                retried[0] = selector.getEndpoint().getEndpointInfo().getAddress();
+                outstanding[0] = strategy.getOutstandingRequests(first);
+                outstanding[1] = strategy.getOutstandingRequests(retried[0]);
+                selector.complete(ex);
+                return null;
+            }
+        });
+        selector.complete(exchange);
+
+        assertNotNull("the request was not retried", retried[0]);
+        assertFalse(first.equals(retried[0]));
+        assertEquals(0, outstanding[0]);
+        assertEquals(1, outstanding[1]);
+        assertEquals(0, strategy.getOutstandingRequests(first));
+        assertEquals(0, strategy.getOutstandingRequests(retried[0]));
+        assertTrue(strategy.isCircuitOpen(first));
+        assertFalse(strategy.isCircuitOpen(retried[0]));
+        // the outcome of each attempt is checked once
+        assertEquals(2, selector.failoverChecks.get());
+    }
+
+    private Exchange createExchange() {
+        Exchange exchange = new ExchangeImpl();
+        exchange.put(Endpoint.class, endpoint);
+        Message message = new MessageImpl();
+        message.setExchange(exchange);
+        exchange.setOutMessage(message);
+        message.setContent(List.class, new ArrayList<Object>());
+        message.put(Message.INVOCATION_CONTEXT, new HashMap<String, Object>());
+        return exchange;
+    }
+
+    private String select(Exchange exchange) {
+        Message message = exchange.getOutMessage();
+        selector.prepare(message);
+        selector.selectConduit(message);
+        return (String)message.get(Message.ENDPOINT_ADDRESS);
+    }
+
+    /**
+     * Hands out a new mock conduit for every request rather than looking one up for the
+     * address, and counts how often the outcome of a request is checked.
+     */
+    private static class TestSelector extends LoadDistributorTargetSelector {
+        private final AtomicInteger failoverChecks = new AtomicInteger();
+        private final Logger logger = Logger.getAnonymousLogger();
+
+        TestSelector() {
+            logger.setUseParentHandlers(false);
+            logger.setLevel(Level.ALL);
+            logger.addHandler(new Handler() {
+                public void publish(LogRecord record) {
+                    if ("CHECK_LAST_INVOKE_FAILED".equals(record.getMessage())) {
+                        failoverChecks.incrementAndGet();
+                    }
+                }
+
+                public void flush() {
+                }
+
+                public void close() {
+                }
+            });
+        }
+
+        @Override
+        protected Logger getLogger() {
+            return logger;
+        }
+
+        @Override
+        protected Conduit findCompatibleConduit(Message message) {
+            return message.get(Conduit.class);
+        }
+
+        @Override
+        protected Conduit getSelectedConduit(Message message) {
+            Conduit c = EasyMock.createNiceMock(Conduit.class);
+            EasyMock.replay(c);
+            message.put(Conduit.class, c);
+            return c;
+        }
+    }
+}
@@ -173,6 +173,7 @@ public class JAXRSServerFactoryBean extends AbstractJAXRSFactoryBean {
                 ep.put("org.apache.cxf.jaxrs.comparator", rc);
             }
             checkPrivateEndpoint(ep);
+            buildDispatchIndexes((JAXRSServiceImpl)ep.getService());
             
             getServiceFactory().sendEvent(FactoryBeanListener.Event.SERVER_CREATED,
                                           server, 
@@ -351,6 +352,17 @@ public class JAXRSServerFactoryBean extends AbstractJAXRSFactoryBean {
         this.start = start;
     }
 
+    /**
+     * Builds the template indexes used to select the resources before the first request.
+     */
+    private static void buildDispatchIndexes(JAXRSServiceImpl service) {
+        for (ClassResourceInfo cri : service.getClassResourceIndex().getItems()) {
+            if (cri.getMethodDispatcher() != null) {
+                cri.getMethodDispatcher().getOperationResourceInfoIndex();
+            }
+        }
+    }
+    
     private void injectContexts() {
         Application application = appProvider == null ? null : appProvider.getProvider();
         for (ClassResourceInfo cri : serviceFactory.getClassResourceInfo()) {
@@ -40,6 +40,7 @@ import org.apache.cxf.jaxrs.model.ClassResourceInfo;
 import org.apache.cxf.jaxrs.model.OperationResourceInfo;
 import org.apache.cxf.jaxrs.model.Parameter;
 import org.apache.cxf.jaxrs.model.ParameterType;
+import org.apache.cxf.jaxrs.model.URITemplateIndex;
 import org.apache.cxf.jaxrs.utils.InjectionUtils;
 import org.apache.cxf.jaxrs.utils.JAXRSUtils;
 import org.apache.cxf.service.Service;
@@ -58,6 +59,7 @@ import org.apache.cxf.service.model.ServiceInfo;
 public class JAXRSServiceImpl extends AbstractAttributedInterceptorProvider implements Service, Configurable {
     private static final long serialVersionUID = 6765400202555126993L;
     private List<ClassResourceInfo> classResourceInfos;
+    private volatile URITemplateIndex<ClassResourceInfo> classResourceIndex;
     private DataBinding dataBinding;
     private Executor executor;
     private Invoker invoker;
@@ -109,6 +111,18 @@ public class JAXRSServiceImpl extends AbstractAttributedInterceptorProvider impl
     public List<ClassResourceInfo> getClassResourceInfos() {
         return classResourceInfos;
     }
+
+    /**
+     * @return the index of the templates of the root resources, rebuilt when they change
+     */
+    public URITemplateIndex<ClassResourceInfo> getClassResourceIndex() {
+        URITemplateIndex<ClassResourceInfo> index = classResourceIndex;
+        if (index == null || !index.isIndexOf(classResourceInfos)) {
+            index = URITemplateIndex.createClassIndex(classResourceInfos);
+            classResourceIndex = index;
+        }
+        return index;
+    }
     
     public List<ServiceInfo> getServiceInfos() {
         if (!createServiceModel) {
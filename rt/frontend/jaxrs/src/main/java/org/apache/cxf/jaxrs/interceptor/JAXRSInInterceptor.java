@@ -42,6 +42,7 @@ import org.apache.cxf.jaxrs.model.ClassResourceInfo;
 import org.apache.cxf.jaxrs.model.OperationResourceInfo;
 import org.apache.cxf.jaxrs.model.ProviderInfo;
 import org.apache.cxf.jaxrs.model.URITemplate;
+import org.apache.cxf.jaxrs.model.URITemplateIndex;
 import org.apache.cxf.jaxrs.provider.ProviderFactory;
 import org.apache.cxf.jaxrs.utils.HttpUtils;
 import org.apache.cxf.jaxrs.utils.InjectionUtils;
@@ -126,6 +127,7 @@ public class JAXRSInInterceptor extends AbstractPhaseInterceptor<Message> {
         //1. Matching target resource class
         Service service = message.getExchange().get(Service.class);
         List<ClassResourceInfo> resources = ((JAXRSServiceImpl)service).getClassResourceInfos();
+        URITemplateIndex<ClassResourceInfo> index = ((JAXRSServiceImpl)service).getClassResourceIndex();
 
         String acceptTypes = HttpUtils.getProtocolHeader(message, Message.ACCEPT_CONTENT_TYPE, null);
         if (acceptTypes == null) {
@@ -141,7 +143,7 @@ public class JAXRSInInterceptor extends AbstractPhaseInterceptor<Message> {
         message.getExchange().put(Message.ACCEPT_CONTENT_TYPE, acceptContentTypes);
 
         MultivaluedMap<String, String> values = new MetadataMap<String, String>();
-        ClassResourceInfo resource = JAXRSUtils.selectResourceClass(resources, 
+        ClassResourceInfo resource = JAXRSUtils.selectResourceClass(index, 
                                           rawPath, 
                                           values,
                                           message);
@@ -172,7 +174,7 @@ public class JAXRSInInterceptor extends AbstractPhaseInterceptor<Message> {
                 message.getExchange().put(Message.ACCEPT_CONTENT_TYPE, acceptContentTypes);
                 if (ori != null) {
                     values = new MetadataMap<String, String>();
-                    resource = JAXRSUtils.selectResourceClass(resources, 
+                    resource = JAXRSUtils.selectResourceClass(index, 
                                                               rawPath, 
                                                               values,
                                                               message);
@@ -203,7 +205,7 @@ public class JAXRSInInterceptor extends AbstractPhaseInterceptor<Message> {
             message.getExchange().put(Message.ACCEPT_CONTENT_TYPE, acceptContentTypes);
             if (ori != null) {
                 values = new MetadataMap<String, String>();
-                resource = JAXRSUtils.selectResourceClass(resources, 
+                resource = JAXRSUtils.selectResourceClass(index, 
                                                           rawPath, 
                                                           values,
                                                           message);
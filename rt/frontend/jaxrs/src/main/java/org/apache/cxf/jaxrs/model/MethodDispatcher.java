@@ -29,6 +29,7 @@ public class MethodDispatcher {
         new LinkedHashMap<OperationResourceInfo, Method>();
     private Map<Method, OperationResourceInfo> methodToOri = 
         new LinkedHashMap<Method, OperationResourceInfo>();
+    private volatile URITemplateIndex<OperationResourceInfo> index;
 
     public MethodDispatcher() {
         
@@ -60,6 +61,18 @@ public class MethodDispatcher {
         return oriToMethod.keySet();
     }
 
+    /**
+     * @return the index of the templates of the operations, rebuilt when they change
+     */
+    public URITemplateIndex<OperationResourceInfo> getOperationResourceInfoIndex() {
+        URITemplateIndex<OperationResourceInfo> i = index;
+        if (i == null || !i.isIndexOf(oriToMethod.keySet())) {
+            i = URITemplateIndex.createOperationIndex(oriToMethod.keySet());
+            index = i;
+        }
+        return i;
+    }
+
     public Method getMethod(OperationResourceInfo op) {
         return oriToMethod.get(op);
     }
@@ -41,6 +41,7 @@ public final class URITemplate {
     public static final String FINAL_MATCH_GROUP = "FINAL_MATCH_GROUP";
     private static final String DEFAULT_PATH_VARIABLE_REGEX = "([^/]+?)";
     private static final String CHARACTERS_TO_ESCAPE = ".*+$()";
+    private static final String REGEX_CHARACTERS = "\\^$.|?*+()[]{}";
     private static final String SLASH = "/";
     private static final String SLASH_QUOTE = "/;";
     
@@ -49,12 +50,14 @@ public final class URITemplate {
     private final List<String> customVariables = new ArrayList<String>();
     private final Pattern templateRegexPattern;
     private final String literals;
+    private final String matchPrefix;
     private final List<UriChunk> uriChunks;
 
     public URITemplate(String theTemplate) {
         template = theTemplate;
         StringBuilder literalChars = new StringBuilder();
         StringBuilder patternBuilder = new StringBuilder();
+        String leadingLiteral = null;
         CurlyBraceTokenizer tok = new CurlyBraceTokenizer(template);
         uriChunks = new ArrayList<UriChunk>();
         while (tok.hasNext()) {
@@ -64,6 +67,9 @@ public final class URITemplate {
             if (chunk instanceof Literal) {
                 String encodedValue = HttpUtils.encodePartiallyEncoded(chunk.getValue(), false);
                 String substr = escapeCharacters(encodedValue);
+                if (uriChunks.size() == 1) {
+                    leadingLiteral = encodedValue;
+                }
                 literalChars.append(substr);
                 patternBuilder.append(substr);
             } else if (chunk instanceof Variable) {
@@ -89,12 +95,47 @@ public final class URITemplate {
         patternBuilder.append(LIMITED_REGEX_SUFFIX);
 
         templateRegexPattern = Pattern.compile(patternBuilder.toString());
+        matchPrefix = createMatchPrefix(leadingLiteral, variables.isEmpty());
+    }
+
+    /**
+     * Calculates the encoded literal text any path matching the template regex has 
+     * to start with, so that most of the non-matching paths can be rejected without 
+     * running the regex.
+     */
+    private static String createMatchPrefix(String leadingLiteral, boolean literalOnly) {
+        if (leadingLiteral == null || hasUnescapedRegexCharacters(leadingLiteral)) {
+            // the regex would not match such a literal as plain text
+            return "";
+        }
+        if (literalOnly && leadingLiteral.endsWith(SLASH)) {
+            return leadingLiteral.substring(0, leadingLiteral.length() - 1);
+        }
+        return leadingLiteral;
+    }
+
+    private static boolean hasUnescapedRegexCharacters(String literal) {
+        for (int i = 0; i < literal.length(); i++) {
+            char ch = literal.charAt(i);
+            if (REGEX_CHARACTERS.indexOf(ch) != -1 && !isReservedCharacter(ch)) {
+                return true;
+            }
+        }
+        return false;
     }
 
     public String getLiteralChars() {
         return literals;
     }
 
+    /**
+     * @return the encoded literal text every path matched by this template starts with,
+     *         unless the path contains matrix parameters
+     */
+    public String getMatchPrefix() {
+        return matchPrefix;
+    }
+
     public String getValue() {
         return template;
     }
@@ -145,6 +186,11 @@ public final class URITemplate {
         if (templateRegexPattern == null) {
             return false;
         }
+        
+        if (!uri.startsWith(matchPrefix) && uri.indexOf(';') == -1) {
+            // matrix parameters may still be stripped from the path below 
+            return false;
+        }
 
         Matcher m = templateRegexPattern.matcher(uri);
         if (!m.matches() || template.equals(SLASH) && uri.startsWith(SLASH_QUOTE)) {
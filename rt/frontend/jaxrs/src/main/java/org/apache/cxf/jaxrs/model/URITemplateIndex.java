@@ -0,0 +1,161 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.jaxrs.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * A trie of the literal prefixes of the URITemplates of resource classes or methods.
+ * For a request path it returns the resources whose template can match the path, in
+ * their original order, so that only their regular expressions have to be run and the
+ * JAX-RS selection rules applied to them as before.  A path with matrix parameters can
+ * match templates it does not start with, so all the resources are returned for it.
+ */
+public final class URITemplateIndex<T> {
+    private static final int[] NO_ITEMS = new int[0];
+
+    private final List<T> items;
+    private final Node root = new Node();
+
+    private URITemplateIndex(Collection<T> items, List<URITemplate> templates) {
+        this.items = Collections.unmodifiableList(new ArrayList<T>(items));
+        for (int i = 0; i < templates.size(); i++) {
+            URITemplate t = templates.get(i);
+            String prefix = t == null ? "" : t.getMatchPrefix();
+            Node node = root;
+            for (int j = 0; j < prefix.length(); j++) {
+                node = node.getOrAddChild(prefix.charAt(j));
+            }
+            node.addItem(i);
+        }
+    }
+
+    public static URITemplateIndex<ClassResourceInfo> createClassIndex(
+        Collection<ClassResourceInfo> cris) {
+        List<URITemplate> templates = new ArrayList<URITemplate>(cris.size());
+        for (ClassResourceInfo cri : cris) {
+            templates.add(cri.getURITemplate());
+        }
+        return new URITemplateIndex<ClassResourceInfo>(cris, templates);
+    }
+
+    public static URITemplateIndex<OperationResourceInfo> createOperationIndex(
+        Collection<OperationResourceInfo> oris) {
+        List<URITemplate> templates = new ArrayList<URITemplate>(oris.size());
+        for (OperationResourceInfo ori : oris) {
+            templates.add(ori.getURITemplate());
+        }
+        return new URITemplateIndex<OperationResourceInfo>(oris, templates);
+    }
+
+    /**
+     * @return all the indexed resources, in their original order
+     */
+    public List<T> getItems() {
+        return items;
+    }
+
+    /**
+     * @return true if the index was built from the same resources, in the same order
+     */
+    public boolean isIndexOf(Collection<?> c) {
+        if (c.size() != items.size()) {
+            return false;
+        }
+        Iterator<?> it = c.iterator();
+        for (T item : items) {
+            if (it.next() != item) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return the resources whose template may match the path, in their original order
+     */
+    public List<T> getCandidates(String path) {
+        if (path == null || path.indexOf(';') != -1 || items.size() < 2) {
+            return items;
+        }
+        int[] found = new int[items.size()];
+        int count = 0;
+        Node node = root;
+        int i = 0;
+        while (node != null) {
+            System.arraycopy(node.items, 0, found, count, node.items.length);
+            count += node.items.length;
+            if (i == path.length()) {
+                break;
+            }
+            node = node.getChild(path.charAt(i++));
+        }
+        if (count == items.size()) {
+            return items;
+        }
+        Arrays.sort(found, 0, count);
+        List<T> candidates = new ArrayList<T>(count);
+        for (int j = 0; j < count; j++) {
+            candidates.add(items.get(found[j]));
+        }
+        return candidates;
+    }
+
+    private static final class Node {
+        private char[] keys = new char[0];
+        private Node[] children = new Node[0];
+        private int[] items = NO_ITEMS;
+
+        Node getChild(char ch) {
+            int i = Arrays.binarySearch(keys, ch);
+            return i < 0 ? null : children[i];
+        }
+
+        Node getOrAddChild(char ch) {
+            int i = Arrays.binarySearch(keys, ch);
+            if (i >= 0) {
+                return children[i];
+            }
+            i = -i - 1;
+            char[] newKeys = new char[keys.length + 1];
+            Node[] newChildren = new Node[children.length + 1];
+            System.arraycopy(keys, 0, newKeys, 0, i);
+            System.arraycopy(children, 0, newChildren, 0, i);
+            System.arraycopy(keys, i, newKeys, i + 1, keys.length - i);
+            System.arraycopy(children, i, newChildren, i + 1, children.length - i);
+            newKeys[i] = ch;
+            newChildren[i] = new Node();
+            keys = newKeys;
+            children = newChildren;
+            return newChildren[i];
+        }
+
+        void addItem(int index) {
+            int[] newItems = new int[items.length + 1];
+            System.arraycopy(items, 0, newItems, 0, items.length);
+            newItems[items.length] = index;
+            items = newItems;
+        }
+    }
+}
@@ -31,10 +31,12 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.ResourceBundle;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.Logger;
 
 import javax.ws.rs.WebApplicationException;
@@ -64,6 +66,7 @@ import javax.xml.validation.Schema;
 import org.xml.sax.helpers.DefaultHandler;
 
 import org.apache.cxf.common.i18n.BundleUtils;
+import org.apache.cxf.common.jaxb.JAXBMarshallerPool;
 import org.apache.cxf.common.jaxb.JAXBUtils;
 import org.apache.cxf.common.jaxb.NamespaceMapper;
 import org.apache.cxf.common.logging.LogUtils;
@@ -91,6 +94,8 @@ public abstract class AbstractJAXBProvider<T> extends AbstractConfigurableProvid
     protected static final String NS_MAPPER_PROPERTY_INT = "com.sun.xml.internal.bind.namespacePrefixMapper";
     private static final String JAXB_DEFAULT_NAMESPACE = "##default";
     private static final String JAXB_DEFAULT_NAME = "##default";
+    // the pools the Marshallers and Unmarshallers in use by the current message were taken from
+    private static final String MARSHALLER_LEASES = AbstractJAXBProvider.class.getName() + ".leases";
     
     
     protected Set<Class<?>> collectionContextClasses = new HashSet<Class<?>>();
@@ -109,6 +114,9 @@ public abstract class AbstractJAXBProvider<T> extends AbstractConfigurableProvid
     
     private Map<String, JAXBContext> packageContexts = new HashMap<String, JAXBContext>();
     private Map<Class<?>, JAXBContext> classContexts = new HashMap<Class<?>, JAXBContext>();
+    private Map<JAXBContext, JAXBMarshallerPool> marshallerPools = 
+        new ConcurrentHashMap<JAXBContext, JAXBMarshallerPool>();
+    private int marshallerPoolSize = JAXBMarshallerPool.DEFAULT_MAX_SIZE;
     
     private MessageContext mc;
     private Schema schema;
@@ -166,6 +174,7 @@ public abstract class AbstractJAXBProvider<T> extends AbstractConfigurableProvid
             JAXBContext context = 
                 ResourceUtils.createJaxbContext(allTypes, extraClass, cProperties);
             if (context != null) {
+                addMarshallerPool(context);
                 for (Class<?> cls : allTypes) {
                     classContexts.put(cls, context);
                 }
@@ -429,6 +438,7 @@ public abstract class AbstractJAXBProvider<T> extends AbstractConfigurableProvid
                 }
                 
                 context = JAXBContext.newInstance(classes, cProperties);
+                addMarshallerPool(context);
                 classContexts.put(type, context);
             }
             return context;
@@ -446,6 +456,7 @@ public abstract class AbstractJAXBProvider<T> extends AbstractConfigurableProvid
                 try {
                     if (type.getClassLoader() != null && objectFactoryOrIndexAvailable(type)) { 
                         context = JAXBContext.newInstance(packageName, type.getClassLoader(), cProperties);
+                        addMarshallerPool(context);
                         packageContexts.put(packageName, context);
                     }
                 } catch (JAXBException ex) {
@@ -489,7 +500,15 @@ public abstract class AbstractJAXBProvider<T> extends AbstractConfigurableProvid
         throws JAXBException {
         JAXBContext context = isCollection ? getCollectionContext(cls) 
                                            : getJAXBContext(cls, genericType);
-        Unmarshaller unmarshaller = context.createUnmarshaller();
+        Unmarshaller unmarshaller = null;
+        JAXBMarshallerPool pool = marshallerPools.get(context);
+        Map<Object, JAXBMarshallerPool> leases = pool == null ? null : getLeases(true);
+        if (leases != null) {
+            unmarshaller = pool.acquireUnmarshaller();
+            leases.put(unmarshaller, pool);
+        } else {
+            unmarshaller = context.createUnmarshaller();
+        }
         if (schema != null) {
             unmarshaller.setSchema(schema);
         }
@@ -514,7 +533,15 @@ public abstract class AbstractJAXBProvider<T> extends AbstractConfigurableProvid
                             ? ((JAXBElement<?>)obj).getDeclaredType() : cls;
                             
         JAXBContext context = getJAXBContext(objClazz, genericType);
-        Marshaller marshaller = context.createMarshaller();
+        Marshaller marshaller = null;
+        JAXBMarshallerPool pool = marshallerPools.get(context);
+        Map<Object, JAXBMarshallerPool> leases = pool == null ? null : getLeases(true);
+        if (leases != null) {
+            marshaller = pool.acquireMarshaller();
+            leases.put(marshaller, pool);
+        } else {
+            marshaller = context.createMarshaller();
+        }
         if (enc != null) {
             marshaller.setProperty(Marshaller.JAXB_ENCODING, enc);
         }
@@ -525,6 +552,55 @@ public abstract class AbstractJAXBProvider<T> extends AbstractConfigurableProvid
         return marshaller;
     }
     
+    /**
+     * Lets a Marshaller returned by createMarshaller be reused once the object
+     * has been written. 
+     */
+    protected void releaseMarshaller(Marshaller marshaller) {
+        Map<Object, JAXBMarshallerPool> leases = getLeases(false);
+        JAXBMarshallerPool pool = leases == null ? null : leases.remove(marshaller);
+        if (pool != null) {
+            pool.releaseMarshaller(marshaller);
+        }
+    }
+    
+    /**
+     * Lets an Unmarshaller returned by createUnmarshaller be reused once the object
+     * has been read. 
+     */
+    protected void releaseUnmarshaller(Unmarshaller unmarshaller) {
+        Map<Object, JAXBMarshallerPool> leases = getLeases(false);
+        JAXBMarshallerPool pool = leases == null ? null : leases.remove(unmarshaller);
+        if (pool != null) {
+            pool.releaseUnmarshaller(unmarshaller);
+        }
+    }
+    
+    /**
+     * The leases are kept on the message being processed, which only one thread uses at 
+     * a time.  Outside of an interceptor chain there is no message to keep them on and 
+     * new instances are created instead.
+     */
+    @SuppressWarnings("unchecked")
+    private static Map<Object, JAXBMarshallerPool> getLeases(boolean create) {
+        Message m = PhaseInterceptorChain.getCurrentMessage();
+        if (m == null) {
+            return null;
+        }
+        Map<Object, JAXBMarshallerPool> leases = (Map<Object, JAXBMarshallerPool>)m.get(MARSHALLER_LEASES);
+        if (leases == null && create) {
+            leases = new IdentityHashMap<Object, JAXBMarshallerPool>(4);
+            m.put(MARSHALLER_LEASES, leases);
+        }
+        return leases;
+    }
+    
+    private void addMarshallerPool(JAXBContext context) {
+        if (!marshallerPools.containsKey(context)) {
+            marshallerPools.put(context, new JAXBMarshallerPool(context, marshallerPoolSize));
+        }
+    }
+    
     protected void validateObjectIfNeeded(Marshaller marshaller, Object obj) 
         throws JAXBException {
         if (validateOutput && schema != null) {
@@ -718,6 +794,14 @@ public abstract class AbstractJAXBProvider<T> extends AbstractConfigurableProvid
         this.marshallerListener = marshallerListener;
     }
 
+    /**
+     * Sets the number of idle Marshallers and Unmarshallers that are kept for
+     * reuse per JAXBContext, 0 creates a new one for every read and write.
+     */
+    public void setMarshallerPoolSize(int marshallerPoolSize) {
+        this.marshallerPoolSize = marshallerPoolSize;
+    }
+
     @XmlRootElement
     protected static class CollectionWrapper {
         
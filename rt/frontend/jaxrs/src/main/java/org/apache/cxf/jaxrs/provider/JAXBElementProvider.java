@@ -180,6 +180,7 @@ public class JAXBElementProvider<T> extends AbstractJAXBProvider<T>  {
             } else {
                 response = doUnmarshal(unmarshaller, type, is, mt);
             }
+            releaseUnmarshaller(unmarshaller);
             if (response instanceof JAXBElement && !JAXBElement.class.isAssignableFrom(type)) {
                 response = ((JAXBElement<?>)response).getValue();    
             }
@@ -380,6 +381,7 @@ public class JAXBElementProvider<T> extends AbstractJAXBProvider<T>  {
             setNamespaceMapper(ms, map);
         }
         marshal(obj, cls, genericType, enc, os, mt, ms);
+        releaseMarshaller(ms);
     }
     
     protected void marshal(Object obj, Class<?> cls, Type genericType, 
@@ -403,6 +405,7 @@ public class JAXBElementProvider<T> extends AbstractJAXBProvider<T>  {
         addProcessingInstructions(ms, anns);
         addSchemaLocation(ms, anns);
         marshal(obj, cls, genericType, enc, os, mt, ms);
+        releaseMarshaller(ms);
     }
     
     private void addProcessingInstructions(Marshaller ms, Annotation[] anns) throws Exception {
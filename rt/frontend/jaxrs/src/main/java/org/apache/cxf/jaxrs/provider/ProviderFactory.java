@@ -25,12 +25,15 @@ import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
 import java.lang.reflect.TypeVariable;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Logger;
 
 import javax.ws.rs.Produces;
@@ -73,6 +76,7 @@ public final class ProviderFactory {
     
     private static final String JAXB_PROVIDER_NAME = "org.apache.cxf.jaxrs.provider.JAXBElementProvider";
     private static final String JSON_PROVIDER_NAME = "org.apache.cxf.jaxrs.provider.json.JSONProvider";
+    private static final int MAX_NEGOTIATION_CACHE_SIZE = 1000;
     
     static {
         SHARED_FACTORY.setProviders(new BinaryDataProvider<Object>(),
@@ -112,6 +116,22 @@ public final class ProviderFactory {
     private List<ProviderInfo<MessageBodyWriter<?>>> jaxbWriters = 
         new ArrayList<ProviderInfo<MessageBodyWriter<?>>>();
     
+    // Readers and writers selected earlier for a given type/media type combination;
+    // a selection is not cached if a provider which would have been preferred declined it,
+    // a cached provider is still asked if it can handle the current request and if it 
+    // can not then the combination is never cached again as the selection depends on
+    // the request context. The shared factory does not cache, the types it is asked
+    // about belong to the applications and would be kept after they are undeployed
+    private ConcurrentHashMap<NegotiationKey, ProviderInfo<MessageBodyReader<?>>> readerCache = 
+        new ConcurrentHashMap<NegotiationKey, ProviderInfo<MessageBodyReader<?>>>();
+    private ConcurrentHashMap<NegotiationKey, ProviderInfo<MessageBodyWriter<?>>> writerCache = 
+        new ConcurrentHashMap<NegotiationKey, ProviderInfo<MessageBodyWriter<?>>>();
+    private Set<NegotiationKey> uncacheableNegotiations = 
+        Collections.newSetFromMap(new ConcurrentHashMap<NegotiationKey, Boolean>());
+    // changed before the caches are cleared, so that a selection made with the providers
+    // registered before is not cached after the caches have been cleared
+    private final AtomicInteger negotiationGeneration = new AtomicInteger();
+    
     private Bus bus;
     
     private ProviderFactory(Bus bus) {
@@ -398,26 +418,45 @@ public final class ProviderFactory {
     
     
     
+    @SuppressWarnings("unchecked")
     public <T> MessageBodyReader<T> createMessageBodyReader(Class<T> bodyType,
                                                             Type parameterType,
                                                             Annotation[] parameterAnnotations,
                                                             MediaType mediaType,
                                                             Message m) {
+        NegotiationKey key = new NegotiationKey(bodyType, parameterType, parameterAnnotations, mediaType);
+        int generation = negotiationGeneration.get();
+        ProviderInfo<MessageBodyReader<?>> cached = readerCache.get(key);
+        if (cached != null) {
+            if (isReadable(cached, bodyType, parameterType, parameterAnnotations, mediaType, m)) {
+                return (MessageBodyReader<T>)cached.getProvider();
+            }
+            setUncacheable(readerCache, key, generation);
+        }
+        
         // Try user provided providers
-        MessageBodyReader<T> mr = chooseMessageReader(messageReaders,
+        List<ProviderInfo<MessageBodyReader<?>>> readers = messageReaders;
+        List<MessageBodyReader<?>> declined = new LinkedList<MessageBodyReader<?>>();
+        MessageBodyReader<T> mr = chooseMessageReader(readers,
                                                       bodyType,
                                                       parameterType,
                                                       parameterAnnotations,
                                                       mediaType,
-                                                      m);
+                                                      m,
+                                                      declined);
         
         if (mr == null) {
-            mr = chooseMessageReader(jaxbReaders,
+            readers = jaxbReaders;
+            mr = chooseMessageReader(readers,
                                      bodyType,
                                      parameterType,
                                      parameterAnnotations,
                                      mediaType,
-                                     m);
+                                     m,
+                                     declined);
+        }
+        if (mr != null) {
+            cacheProvider(readerCache, key, generation, readers, mr, declined);
         }
         
         if (mr != null || SHARED_FACTORY == this) {
@@ -463,26 +502,45 @@ public final class ProviderFactory {
         return Collections.unmodifiableList(responseHandlers);
     }
 
+    @SuppressWarnings("unchecked")
     public <T> MessageBodyWriter<T> createMessageBodyWriter(Class<T> bodyType,
                                                             Type parameterType,
                                                             Annotation[] parameterAnnotations,
                                                             MediaType mediaType,
                                                             Message m) {
+        NegotiationKey key = new NegotiationKey(bodyType, parameterType, parameterAnnotations, mediaType);
+        int generation = negotiationGeneration.get();
+        ProviderInfo<MessageBodyWriter<?>> cached = writerCache.get(key);
+        if (cached != null) {
+            if (isWriteable(cached, bodyType, parameterType, parameterAnnotations, mediaType, m)) {
+                return (MessageBodyWriter<T>)cached.getProvider();
+            }
+            setUncacheable(writerCache, key, generation);
+        }
+        
         // Try user provided providers
-        MessageBodyWriter<T> mw = chooseMessageWriter(messageWriters, 
+        List<ProviderInfo<MessageBodyWriter<?>>> writers = messageWriters;
+        List<MessageBodyWriter<?>> declined = new LinkedList<MessageBodyWriter<?>>();
+        MessageBodyWriter<T> mw = chooseMessageWriter(writers, 
                                                       bodyType,
                                                       parameterType,
                                                       parameterAnnotations,
                                                       mediaType,
-                                                      m);
+                                                      m,
+                                                      declined);
         
         if (mw == null) {
-            mw = chooseMessageWriter(jaxbWriters, 
+            writers = jaxbWriters;
+            mw = chooseMessageWriter(writers, 
                                      bodyType,
                                      parameterType,
                                      parameterAnnotations,
                                      mediaType,
-                                     m);
+                                     m,
+                                     declined);
+        }
+        if (mw != null) {
+            cacheProvider(writerCache, key, generation, writers, mw, declined);
         }
         
         if (mw != null || SHARED_FACTORY == this) {
@@ -544,6 +602,7 @@ public final class ProviderFactory {
         sortReaders();
         sortWriters();
         sortContextResolvers();
+        clearNegotiationCaches();
         
         injectContextProxies(messageReaders, messageWriters, contextResolvers, 
         			requestHandlers, responseHandlers,
@@ -551,6 +610,83 @@ public final class ProviderFactory {
     }
 //CHECKSTYLE:ON
     
+    private <P> void cacheProvider(ConcurrentHashMap<NegotiationKey, ProviderInfo<P>> cache,
+                                   NegotiationKey key,
+                                   int generation,
+                                   List<ProviderInfo<P>> providers,
+                                   Object selected,
+                                   List<P> declined) {
+        if (this == SHARED_FACTORY || uncacheableNegotiations.contains(key)) {
+            return;
+        }
+        if (isDeclinedAhead(providers, selected, declined)) {
+            // a provider which would have been preferred may accept the next request
+            setUncacheable(cache, key, generation);
+            return;
+        }
+        for (ProviderInfo<P> pi : providers) {
+            if (pi.getProvider() == selected) {
+                if (cache.size() >= MAX_NEGOTIATION_CACHE_SIZE) {
+                    cache.clear();
+                }
+                cache.put(key, pi);
+                if (negotiationGeneration.get() != generation) {
+                    // the caches were cleared while the provider was selected
+                    cache.remove(key, pi);
+                }
+                return;
+            }
+        }
+    }
+    
+    private <P> boolean isDeclinedAhead(List<ProviderInfo<P>> providers,
+                                        Object selected,
+                                        List<P> declined) {
+        int selectedIndex = indexOfProvider(providers, selected);
+        for (Object provider : declined) {
+            int index = indexOfProvider(providers, provider);
+            if (index == -1) {
+                // declined in the list checked before the one the provider was selected from
+                return true;
+            }
+            int result = compareClasses(provider, selected);
+            if (result < 0 || result == 0 && index < selectedIndex) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    private static <P> int indexOfProvider(List<ProviderInfo<P>> providers, Object provider) {
+        for (int i = 0; i < providers.size(); i++) {
+            if (providers.get(i).getProvider() == provider) {
+                return i;
+            }
+        }
+        return -1;
+    }
+    
+    private <P> void setUncacheable(ConcurrentHashMap<NegotiationKey, ProviderInfo<P>> cache,
+                                    NegotiationKey key,
+                                    int generation) {
+        if (uncacheableNegotiations.size() >= MAX_NEGOTIATION_CACHE_SIZE) {
+            uncacheableNegotiations.clear();
+        }
+        uncacheableNegotiations.add(key);
+        cache.remove(key);
+        if (negotiationGeneration.get() != generation) {
+            // the providers have changed, they may handle the combination differently
+            uncacheableNegotiations.remove(key);
+        }
+    }
+    
+    private void clearNegotiationCaches() {
+        negotiationGeneration.incrementAndGet();
+        readerCache.clear();
+        writerCache.clear();
+        uncacheableNegotiations.clear();
+    }
+    
     static void injectContextValues(ProviderInfo<?> pi, Message m) {
         if (m != null) {
             InjectionUtils.injectContextFields(pi.getProvider(), pi, m);
@@ -607,10 +743,11 @@ public final class ProviderFactory {
                                                          Type genericType,
                                                          Annotation[] annotations,
                                                          MediaType mediaType,
-                                                         Message m) {
+                                                         Message m,
+                                                         List<MessageBodyReader<?>> declined) {
         List<MessageBodyReader<?>> candidates = new LinkedList<MessageBodyReader<?>>();
         for (ProviderInfo<MessageBodyReader<?>> ep : readers) {
-            if (matchesReaderCriterias(ep, type, genericType, annotations, mediaType, m)) {
+            if (matchesReaderCriterias(ep, type, genericType, annotations, mediaType, m, declined)) {
                 if (this == SHARED_FACTORY) {
                     return (MessageBodyReader<T>) ep.getProvider();
                 }
@@ -631,7 +768,8 @@ public final class ProviderFactory {
                                                Type genericType,
                                                Annotation[] annotations,
                                                MediaType mediaType,
-                                               Message m) {
+                                               Message m,
+                                               List<MessageBodyReader<?>> declined) {
         MessageBodyReader<?> ep = pi.getProvider();
         List<MediaType> supportedMediaTypes = JAXRSUtils.getProviderConsumeTypes(ep);
         
@@ -641,6 +779,30 @@ public final class ProviderFactory {
         if (availableMimeTypes.size() == 0) {
             return false;
         }
+        if (isReadable(pi, type, genericType, annotations, mediaType, m)) {
+            return true;
+        }
+        addDeclined(declined, pi, type, m, MessageBodyReader.class);
+        return false;
+    }
+    
+    private <P> void addDeclined(List<P> declined, ProviderInfo<P> pi, Class<?> type, Message m,
+                                 Class<?> providerClass) {
+        if (this == SHARED_FACTORY) {
+            declined.add(pi.getProvider());
+        } else {
+            // only the providers which would have been the candidates are of interest
+            handleMapper(declined, pi, type, m, providerClass, false);
+        }
+    }
+    
+    private <T> boolean isReadable(ProviderInfo<MessageBodyReader<?>> pi,
+                                   Class<T> type,
+                                   Type genericType,
+                                   Annotation[] annotations,
+                                   MediaType mediaType,
+                                   Message m) {
+        MessageBodyReader<?> ep = pi.getProvider();
         boolean injected = false;
         if (this != SHARED_FACTORY || !isJaxbBasedProvider(ep)) {
             injectContextValues(pi, m);
@@ -669,10 +831,11 @@ public final class ProviderFactory {
                                                          Type genericType,
                                                          Annotation[] annotations,
                                                          MediaType mediaType,
-                                                         Message m) {
+                                                         Message m,
+                                                         List<MessageBodyWriter<?>> declined) {
         List<MessageBodyWriter<?>> candidates = new LinkedList<MessageBodyWriter<?>>();
         for (ProviderInfo<MessageBodyWriter<?>> ep : writers) {
-            if (matchesWriterCriterias(ep, type, genericType, annotations, mediaType, m)) {
+            if (matchesWriterCriterias(ep, type, genericType, annotations, mediaType, m, declined)) {
                 if (this == SHARED_FACTORY) {
                     return (MessageBodyWriter<T>) ep.getProvider();
                 }
@@ -691,7 +854,8 @@ public final class ProviderFactory {
                                                Type genericType,
                                                Annotation[] annotations,
                                                MediaType mediaType,
-                                               Message m) {
+                                               Message m,
+                                               List<MessageBodyWriter<?>> declined) {
         MessageBodyWriter<?> ep = pi.getProvider();
         List<MediaType> supportedMediaTypes = JAXRSUtils.getProviderProduceTypes(ep);
         
@@ -702,6 +866,20 @@ public final class ProviderFactory {
         if (availableMimeTypes.size() == 0) {
             return false;
         }
+        if (isWriteable(pi, type, genericType, annotations, mediaType, m)) {
+            return true;
+        }
+        addDeclined(declined, pi, type, m, MessageBodyWriter.class);
+        return false;
+    }
+    
+    private <T> boolean isWriteable(ProviderInfo<MessageBodyWriter<?>> pi,
+                                    Class<T> type,
+                                    Type genericType,
+                                    Annotation[] annotations,
+                                    MediaType mediaType,
+                                    Message m) {
+        MessageBodyWriter<?> ep = pi.getProvider();
         boolean injected = false;
         if ((this != SHARED_FACTORY || !isJaxbBasedProvider(ep))
             && m.get(ACTIVE_JAXRS_PROVIDER_KEY) != ep) {
@@ -838,6 +1016,7 @@ public final class ProviderFactory {
         responseHandlers.clear();
         paramHandlers.clear();
         responseExceptionMappers.clear();
+        clearNegotiationCaches();
     }
     
     public void setBus(Bus bus) {
@@ -956,6 +1135,50 @@ public final class ProviderFactory {
         return getGenericInterfaces(cls.getSuperclass());
     }
     
+    private static class NegotiationKey {
+        private final Class<?> type;
+        private final Type genericType;
+        private final Annotation[] annotations;
+        private final MediaType mediaType;
+        private final int hashCode;
+        
+        NegotiationKey(Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType) {
+            this.type = type;
+            this.genericType = genericType;
+            this.annotations = annotations;
+            this.mediaType = mediaType;
+            int h = type == null ? 0 : type.hashCode();
+            h = 31 * h + (genericType == null ? 0 : genericType.hashCode());
+            h = 31 * h + (mediaType == null ? 0 : mediaType.hashCode());
+            hashCode = 31 * h + Arrays.hashCode(annotations);
+        }
+        
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+        
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof NegotiationKey)) {
+                return false;
+            }
+            NegotiationKey other = (NegotiationKey)o;
+            return hashCode == other.hashCode
+                && type == other.type
+                && equalObjects(genericType, other.genericType)
+                && equalObjects(mediaType, other.mediaType)
+                && Arrays.equals(annotations, other.annotations);
+        }
+        
+        private static boolean equalObjects(Object o1, Object o2) {
+            return o1 == null ? o2 == null : o1.equals(o2);
+        }
+    }
+    
     static class ContextResolverProxy<T> implements ContextResolver<T> {
         private List<ContextResolver<T>> candidates; 
         public ContextResolverProxy(List<ContextResolver<T>> candidates) {
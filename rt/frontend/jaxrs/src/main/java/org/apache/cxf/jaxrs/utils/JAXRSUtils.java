@@ -97,6 +97,7 @@ import org.apache.cxf.jaxrs.model.Parameter;
 import org.apache.cxf.jaxrs.model.ParameterType;
 import org.apache.cxf.jaxrs.model.ProviderInfo;
 import org.apache.cxf.jaxrs.model.URITemplate;
+import org.apache.cxf.jaxrs.model.URITemplateIndex;
 import org.apache.cxf.jaxrs.provider.AbstractConfigurableProvider;
 import org.apache.cxf.jaxrs.provider.ProviderFactory;
 import org.apache.cxf.jaxrs.utils.multipart.AttachmentUtils;
@@ -234,6 +235,19 @@ public final class JAXRSUtils {
         
     }
     
+    /**
+     * Selects the root resource among the ones whose template prefix matches the path.
+     */
+    public static ClassResourceInfo selectResourceClass(URITemplateIndex<ClassResourceInfo> index,
+                                                        String path, 
+                                                        MultivaluedMap<String, String> values,
+                                                        Message message) {
+        // all of them are checked when the mismatches are logged
+        List<ClassResourceInfo> resources = LOG.isLoggable(Level.FINE) 
+            ? index.getItems() : index.getCandidates(path);
+        return selectResourceClass(resources, path, values, message);
+    }
+    
     public static ClassResourceInfo selectResourceClass(List<ClassResourceInfo> resources,
                                                  String path, 
                                                  MultivaluedMap<String, String> values,
@@ -327,9 +341,16 @@ public final class JAXRSUtils {
         int consumeMatched = 0;
         int produceMatched = 0;
         
+        // only the operations whose template prefix matches the path are checked,
+        // unless the mismatches are logged
+        URITemplateIndex<OperationResourceInfo> index = 
+            resource.getMethodDispatcher().getOperationResourceInfoIndex();
+        List<OperationResourceInfo> oris = isFineLevelLoggable 
+            ? index.getItems() : index.getCandidates(path);
+        
         boolean subresourcesOnly = true;
         for (MediaType acceptType : acceptContentTypes) {
-            for (OperationResourceInfo ori : resource.getMethodDispatcher().getOperationResourceInfos()) {
+            for (OperationResourceInfo ori : oris) {
                 URITemplate uriTemplate = ori.getURITemplate();
                 MultivaluedMap<String, String> map = new MetadataMap<String, String>(values);
                 if (uriTemplate != null && uriTemplate.match(path, map)) {
@@ -0,0 +1,95 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.jaxrs.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.cxf.jaxrs.impl.MetadataMap;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class URITemplateIndexTest extends Assert {
+    private static final String[] TEMPLATES = {
+        "/", "/customers", "/customers/{id}", "/customers/{id}/orders", "/cust",
+        "/orders/{id:[0-9]+}", "{entity}", "/books/", "/books/{id}.xml", "/a+b"
+    };
+    private static final String[] PATHS = {
+        "/", "", "/customers", "/customers/", "/customers/1", "/customers/1/orders",
+        "/custom", "/cust", "/orders/12", "/orders/ab", "/books", "/books/", "/books/1.xml",
+        "/a+b", "/ab", "/customers;a=b/1", "/other"
+    };
+
+    private static List<ClassResourceInfo> createResources(String... templates) {
+        List<ClassResourceInfo> cris = new ArrayList<ClassResourceInfo>();
+        for (String t : templates) {
+            ClassResourceInfo cri = new ClassResourceInfo(Object.class);
+            cri.setURITemplate(new URITemplate(t));
+            cris.add(cri);
+        }
+        return cris;
+    }
+
+    @Test
+    public void testCandidates() {
+        List<ClassResourceInfo> cris = createResources("/", "/customers", "/customers/{id}",
+                                                       "/customers/{id}/orders", "/cust",
+                                                       "/orders/{id:[0-9]+}", "{entity}");
+        URITemplateIndex<ClassResourceInfo> index = URITemplateIndex.createClassIndex(cris);
+        assertEquals(Arrays.asList(cris.get(0), cris.get(1), cris.get(2), cris.get(3),
+                                   cris.get(4), cris.get(6)),
+                     index.getCandidates("/customers/1"));
+        assertEquals(Arrays.asList(cris.get(0), cris.get(6)), index.getCandidates("/other"));
+        assertEquals(cris, index.getCandidates("/customers;a=b/1"));
+    }
+
+    @Test
+    public void testCandidatesIncludeAllMatches() {
+        List<ClassResourceInfo> cris = createResources(TEMPLATES);
+        URITemplateIndex<ClassResourceInfo> index = URITemplateIndex.createClassIndex(cris);
+        for (String path : PATHS) {
+            List<ClassResourceInfo> candidates = index.getCandidates(path);
+            int last = -1;
+            for (ClassResourceInfo cri : candidates) {
+                int i = cris.indexOf(cri);
+                assertTrue("the candidates are not in order for " + path, i > last);
+                last = i;
+            }
+            for (ClassResourceInfo cri : cris) {
+                if (cri.getURITemplate().match(path, new MetadataMap<String, String>())) {
+                    assertTrue(cri.getURITemplate().getValue() + " matches " + path,
+                               candidates.contains(cri));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testIsIndexOf() {
+        List<ClassResourceInfo> cris = createResources(TEMPLATES);
+        URITemplateIndex<ClassResourceInfo> index = URITemplateIndex.createClassIndex(cris);
+        assertTrue(index.isIndexOf(cris));
+        cris.remove(1);
+        assertFalse(index.isIndexOf(cris));
+        cris.add(1, createResources("/customers").get(0));
+        assertFalse(index.isIndexOf(cris));
+    }
+}
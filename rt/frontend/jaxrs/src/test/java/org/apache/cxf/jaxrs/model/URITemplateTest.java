@@ -66,6 +66,31 @@ public class URITemplateTest extends Assert {
         assertEquals("123", value);
     }
 
+    @Test
+    public void testMatchLiteralPrefix() throws Exception {
+        URITemplate uriTemplate = new URITemplate("/customers/");
+        assertTrue(uriTemplate.match("/customers", new MetadataMap<String, String>()));
+        assertTrue(uriTemplate.match("/customers/123", new MetadataMap<String, String>()));
+        assertFalse(uriTemplate.match("/customer", new MetadataMap<String, String>()));
+        assertFalse(uriTemplate.match("/orders/123", new MetadataMap<String, String>()));
+        assertTrue(uriTemplate.match("/customers;a=b/123", new MetadataMap<String, String>()));
+        
+        uriTemplate = new URITemplate("/customers/{id}/orders");
+        assertFalse(uriTemplate.match("/customers", new MetadataMap<String, String>()));
+        assertFalse(uriTemplate.match("/orders/123/orders", new MetadataMap<String, String>()));
+        MultivaluedMap<String, String> values = new MetadataMap<String, String>();
+        assertTrue(uriTemplate.match("/customers/123/orders", values));
+        assertEquals("123", values.getFirst("id"));
+    }
+    
+    @Test
+    public void testMatchEncodedLiteralPrefix() throws Exception {
+        URITemplate uriTemplate = new URITemplate("/my customers?/{id}");
+        assertTrue(uriTemplate.match("/my%20customers%3F/123", new MetadataMap<String, String>()));
+        assertFalse(uriTemplate.match("/my%20customer/123", new MetadataMap<String, String>()));
+        assertFalse(uriTemplate.match("/my customers?/123", new MetadataMap<String, String>()));
+    }
+
     @Test
     public void testMatchWithMatrixAndTemplate() throws Exception {
         URITemplate uriTemplate = new URITemplate("/customers/{id}");
@@ -707,4 +732,13 @@ public class URITemplateTest extends Assert {
         //System.out.println(ut.encodeLiteralCharacters());
         assertEquals("a%20{digit:[0-9]}%20b", ut.encodeLiteralCharacters());
     }
+    
+    @Test
+    public void testMatchLiteralWithRegexCharacters() {
+        URITemplate ut = new URITemplate("/a|b[c]/{id}");
+        MultivaluedMap<String, String> values = new MetadataMap<String, String>();
+        assertTrue(ut.match("/a%7Cb%5Bc%5D/1", values));
+        assertEquals("1", values.getFirst("id"));
+        assertFalse(ut.match("/ab/1", values));
+    }
 }
@@ -233,6 +233,65 @@ public class ProviderFactoryTest extends Assert {
         assertSame(customJaxbWriter, provider);
     }
     
+    @Test
+    public void testCustomJaxbProviderAfterDefaultSelected() {
+        ProviderFactory pf = ProviderFactory.getInstance();
+        MessageBodyReader<Book> jaxbReader = pf.createMessageBodyReader(Book.class, null, null, 
+                                                              MediaType.TEXT_XML_TYPE, new MessageImpl());
+        MessageBodyWriter<Book> jaxbWriter = pf.createMessageBodyWriter(Book.class, null, null, 
+                                                              MediaType.TEXT_XML_TYPE, new MessageImpl());
+        assertTrue(jaxbReader instanceof JAXBElementProvider);
+        assertSame(jaxbReader, jaxbWriter);
+        
+        JAXBElementProvider<Book> provider = new JAXBElementProvider<Book>();
+        pf.registerUserProvider(provider);
+        MessageBodyReader<Book> customJaxbReader = pf.createMessageBodyReader(Book.class, null, null, 
+                                                              MediaType.TEXT_XML_TYPE, new MessageImpl());
+        assertSame(customJaxbReader, provider);
+        
+        MessageBodyWriter<Book> customJaxbWriter = pf.createMessageBodyWriter(Book.class, null, null, 
+                                                              MediaType.TEXT_XML_TYPE, new MessageImpl());
+        assertSame(customJaxbWriter, provider);
+    }
+    
+    @Test
+    public void testSelectedReaderNoLongerReadable() {
+        ProviderFactory pf = ProviderFactory.getInstance();
+        SwitchableJaxbProvider provider = new SwitchableJaxbProvider();
+        pf.registerUserProvider(provider);
+        MessageBodyReader<Book> reader = pf.createMessageBodyReader(Book.class, null, null, 
+                                                              MediaType.TEXT_XML_TYPE, new MessageImpl());
+        assertSame(provider, reader);
+        
+        provider.setSupported(false);
+        reader = pf.createMessageBodyReader(Book.class, null, null, 
+                                            MediaType.TEXT_XML_TYPE, new MessageImpl());
+        assertTrue(reader instanceof JAXBElementProvider);
+        assertNotSame(provider, reader);
+        
+        provider.setSupported(true);
+        reader = pf.createMessageBodyReader(Book.class, null, null, 
+                                            MediaType.TEXT_XML_TYPE, new MessageImpl());
+        assertSame(provider, reader);
+    }
+    
+    @Test
+    public void testDeclinedReaderSelectedOnceReadable() {
+        ProviderFactory pf = ProviderFactory.getInstance();
+        SwitchableJaxbProvider provider = new SwitchableJaxbProvider();
+        provider.setSupported(false);
+        pf.registerUserProvider(provider);
+        MessageBodyReader<Book> reader = pf.createMessageBodyReader(Book.class, null, null, 
+                                                              MediaType.TEXT_XML_TYPE, new MessageImpl());
+        assertTrue(reader instanceof JAXBElementProvider);
+        assertNotSame(provider, reader);
+        
+        provider.setSupported(true);
+        reader = pf.createMessageBodyReader(Book.class, null, null, 
+                                            MediaType.TEXT_XML_TYPE, new MessageImpl());
+        assertSame(provider, reader);
+    }
+    
     @Test
     public void testDataSourceReader() {
         ProviderFactory pf = ProviderFactory.getInstance();
@@ -619,6 +678,19 @@ public class ProviderFactoryTest extends Assert {
 
     }
     
+    private static class SwitchableJaxbProvider extends JAXBElementProvider<Book> {
+        private boolean supported = true;
+        
+        public void setSupported(boolean supported) {
+            this.supported = supported;
+        }
+        
+        @Override
+        public boolean isReadable(Class<?> type, Type genericType, Annotation[] anns, MediaType mt) {
+            return supported && super.isReadable(type, genericType, anns, mt);
+        }
+    }
+    
     @Consumes("application/json")
     @Produces("application/json")
     private final class CustomJSONProvider 
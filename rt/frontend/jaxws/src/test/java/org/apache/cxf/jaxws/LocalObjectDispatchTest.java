@@ -0,0 +1,206 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.jaxws;
+
+import java.io.Serializable;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.jws.WebService;
+import javax.xml.ws.BindingProvider;
+import javax.xml.ws.WebServiceException;
+
+import org.apache.cxf.interceptor.Fault;
+import org.apache.cxf.interceptor.security.JAASLoginInterceptor;
+import org.apache.cxf.message.Message;
+import org.apache.cxf.phase.AbstractPhaseInterceptor;
+import org.apache.cxf.phase.Phase;
+import org.apache.cxf.transport.local.LocalConduit;
+import org.apache.hello_world_soap_http.BadRecordLitFault;
+import org.apache.hello_world_soap_http.Greeter;
+import org.apache.hello_world_soap_http.GreeterImpl;
+import org.junit.Test;
+
+public class LocalObjectDispatchTest extends AbstractJaxWsTest {
+
+    @Test
+    public void testGreeter() throws Exception {
+        CountingInterceptor unmarshal = new CountingInterceptor(Phase.UNMARSHAL);
+        CountingInterceptor protocol = new CountingInterceptor(Phase.PRE_PROTOCOL);
+        GreeterImpl impl = new GreeterImpl();
+        JaxWsServerFactoryBean sf = new JaxWsServerFactoryBean();
+        sf.setBus(bus);
+        sf.setServiceBean(impl);
+        sf.setAddress("local://localhost/greeter");
+        sf.getProperties(true).put(LocalConduit.OBJECT_DISPATCH, Boolean.TRUE);
+        sf.getInInterceptors().add(unmarshal);
+        sf.getInInterceptors().add(protocol);
+        sf.create();
+
+        JaxWsProxyFactoryBean cf = new JaxWsProxyFactoryBean();
+        cf.setBus(bus);
+        cf.setServiceClass(Greeter.class);
+        cf.setAddress("local://localhost/greeter");
+        CountingInterceptor marshal = new CountingInterceptor(Phase.MARSHAL);
+        cf.getOutInterceptors().add(marshal);
+        Greeter greeter = (Greeter)cf.create();
+        ((BindingProvider)greeter).getRequestContext().put(LocalConduit.OBJECT_DISPATCH, Boolean.TRUE);
+
+        assertEquals("Hello objects", greeter.greetMe("objects"));
+        assertEquals("Bonjour", greeter.sayHi());
+        assertEquals(2, impl.getInvocationCount());
+        assertEquals(0, marshal.count.get());
+        assertEquals(0, unmarshal.count.get());
+        // the protocol phases are not skipped
+        assertEquals(2, protocol.count.get());
+
+        try {
+            greeter.testDocLitFault("BadRecordLitFault");
+            fail("Expected BadRecordLitFault");
+        } catch (BadRecordLitFault ex) {
+            assertEquals("BadRecordLitFault", ex.getFaultInfo());
+        }
+
+        // nothing is sent back for a one way operation
+        greeter.greetMeOneWay("oneway");
+
+        ((BindingProvider)greeter).getRequestContext().remove(LocalConduit.OBJECT_DISPATCH);
+        assertEquals("Hello stream", greeter.greetMe("stream"));
+        assertEquals(1, marshal.count.get());
+        assertEquals(1, unmarshal.count.get());
+    }
+
+    @Test
+    public void testObjectsHandedOver() throws Exception {
+        Echo echo = createEcho("local://localhost/echo");
+        ((BindingProvider)echo).getRequestContext().put(LocalConduit.OBJECT_DISPATCH, Boolean.TRUE);
+
+        Bean bean = new Bean();
+        bean.setName("bean");
+        assertSame(bean, echo.echo(bean));
+    }
+
+    @Test
+    public void testObjectsCopied() throws Exception {
+        Echo echo = createEcho("local://localhost/echocopy");
+        ((BindingProvider)echo).getRequestContext().put(LocalConduit.OBJECT_DISPATCH, Boolean.TRUE);
+        ((BindingProvider)echo).getRequestContext().put(LocalConduit.OBJECT_DISPATCH_COPY, Boolean.TRUE);
+
+        Bean bean = new Bean();
+        bean.setName("bean");
+        Bean result = echo.echo(bean);
+        assertNotSame(bean, result);
+        assertEquals("bean", result.getName());
+    }
+
+    @Test
+    public void testNotEnabledByEndpoint() throws Exception {
+        CountingInterceptor unmarshal = new CountingInterceptor(Phase.UNMARSHAL);
+        JaxWsServerFactoryBean sf = createEchoServer("local://localhost/echostream");
+        sf.getProperties().remove(LocalConduit.OBJECT_DISPATCH);
+        sf.getInInterceptors().add(unmarshal);
+        sf.create();
+        Echo echo = createEchoClient("local://localhost/echostream");
+        ((BindingProvider)echo).getRequestContext().put(LocalConduit.OBJECT_DISPATCH, Boolean.TRUE);
+
+        // the client can not make the endpoint skip the unmarshalling
+        Bean bean = new Bean();
+        bean.setName("bean");
+        Bean result = echo.echo(bean);
+        assertNotSame(bean, result);
+        assertEquals("bean", result.getName());
+        assertEquals(1, unmarshal.count.get());
+    }
+
+    @Test
+    public void testSecurityInterceptorsRun() throws Exception {
+        JaxWsServerFactoryBean sf = createEchoServer("local://localhost/echosecure");
+        // runs in the UNMARSHAL phase, and fails as no credentials are sent
+        sf.getInInterceptors().add(new JAASLoginInterceptor());
+        sf.create();
+        Echo echo = createEchoClient("local://localhost/echosecure");
+        ((BindingProvider)echo).getRequestContext().put(LocalConduit.OBJECT_DISPATCH, Boolean.TRUE);
+
+        try {
+            echo.echo(new Bean());
+            fail("The request should have been rejected");
+        } catch (WebServiceException ex) {
+            // expected
+        }
+    }
+
+    private Echo createEcho(String address) {
+        createEchoServer(address).create();
+        return createEchoClient(address);
+    }
+
+    private JaxWsServerFactoryBean createEchoServer(String address) {
+        JaxWsServerFactoryBean sf = new JaxWsServerFactoryBean();
+        sf.setBus(bus);
+        sf.setServiceClass(Echo.class);
+        sf.setServiceBean(new EchoImpl());
+        sf.setAddress(address);
+        sf.getProperties(true).put(LocalConduit.OBJECT_DISPATCH, Boolean.TRUE);
+        return sf;
+    }
+
+    private Echo createEchoClient(String address) {
+        JaxWsProxyFactoryBean cf = new JaxWsProxyFactoryBean();
+        cf.setBus(bus);
+        cf.setServiceClass(Echo.class);
+        cf.setAddress(address);
+        return (Echo)cf.create();
+    }
+
+    @WebService
+    public interface Echo {
+        Bean echo(Bean bean);
+    }
+
+    @WebService(endpointInterface = "org.apache.cxf.jaxws.LocalObjectDispatchTest$Echo")
+    public static class EchoImpl implements Echo {
+        public Bean echo(Bean bean) {
+            return bean;
+        }
+    }
+
+    public static class Bean implements Serializable {
+        private static final long serialVersionUID = 1L;
+        private String name;
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+    }
+
+    private static class CountingInterceptor extends AbstractPhaseInterceptor<Message> {
+        private final AtomicInteger count = new AtomicInteger();
+
+        CountingInterceptor(String phase) {
+            super(phase);
+        }
+
+        public void handleMessage(Message message) throws Fault {
+            count.incrementAndGet();
+        }
+    }
+}
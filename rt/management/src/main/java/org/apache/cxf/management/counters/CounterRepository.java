@@ -48,6 +48,7 @@ public class CounterRepository {
     private Map<ObjectName, Counter> counters;
     private Bus bus;
     private Lock counterCreationLock = new ReentrantLock();
+    private long percentileWindow = ResponseTimeCounter.DEFAULT_PERCENTILE_WINDOW;
     
     public CounterRepository() {
         counters = new ConcurrentHashMap<ObjectName, Counter>();
@@ -64,6 +65,18 @@ public class CounterRepository {
         return bus;
     }
         
+    /**
+     * Sets the length in milliseconds of the window the response time percentiles of 
+     * the counters created from now on are reported for.
+     */
+    public void setPercentileWindow(long window) {
+        percentileWindow = window;
+    }
+    
+    public long getPercentileWindow() {
+        return percentileWindow;
+    }
+        
     public Map<ObjectName, Counter> getCounters() {
         return counters;
     }
@@ -111,7 +124,7 @@ public class CounterRepository {
     
     public Counter createCounter(ObjectName on, MessageHandlingTimeRecorder mhtr) {
         Counter counter = null;
-        counter = new ResponseTimeCounter(on);
+        counter = new ResponseTimeCounter(on, percentileWindow);
         InstrumentationManager im = bus.getExtension(InstrumentationManager.class);
         if (null != im) {
             try {
@@ -19,7 +19,9 @@
 package org.apache.cxf.management.counters;
 
 
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import javax.management.ObjectName;
 
@@ -27,18 +29,45 @@ import org.apache.cxf.message.FaultMode;
 
 public class ResponseTimeCounter implements ResponseTimeCounterMBean, Counter {    
     
+    /**
+     * The default length of the window the response time percentiles are reported for.
+     */
+    public static final long DEFAULT_PERCENTILE_WINDOW = 60000L;
+    
     private ObjectName objectName;
     private AtomicInteger invocations = new AtomicInteger();
     private AtomicInteger checkedApplicationFaults = new AtomicInteger();
     private AtomicInteger unCheckedApplicationFaults = new AtomicInteger();
     private AtomicInteger runtimeFaults = new AtomicInteger();
     private AtomicInteger logicalRuntimeFaults = new AtomicInteger();
-    private long totalHandlingTime;    
-    private long maxHandlingTime;
-    private long minHandlingTime = Integer.MAX_VALUE;
+    private AtomicLong totalHandlingTime = new AtomicLong();    
+    private AtomicLong maxHandlingTime = new AtomicLong();
+    private AtomicLong minHandlingTime = new AtomicLong(Integer.MAX_VALUE);
+    
+    private final long percentileWindow;
+    // The current, previous and next windows are reused in turn so that starting a 
+    // new window does not allocate on the thread handling the message
+    private final Window[] windows = new Window[3];
+    private volatile int current;
+    private volatile boolean previousValid;
+    private volatile boolean windowCompleted;
+    private final AtomicBoolean rotating = new AtomicBoolean();
     
     public ResponseTimeCounter(ObjectName on) {
-        objectName = on;     
+        this(on, DEFAULT_PERCENTILE_WINDOW);
+    }
+    
+    /**
+     * @param on the name of the counter
+     * @param window the length in milliseconds of the window the percentiles are reported for
+     */
+    public ResponseTimeCounter(ObjectName on, long window) {
+        objectName = on;
+        percentileWindow = window > 0 ? window : DEFAULT_PERCENTILE_WINDOW;
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < windows.length; i++) {
+            windows[i] = new Window(now);
+        }
     }
     
     public void  increase(MessageHandlingTimeRecorder mhtr) {
@@ -76,13 +105,67 @@ public class ResponseTimeCounter implements ResponseTimeCounterMBean, Counter {
             handlingTime = mhtr.getHandlingTime(); 
         }
             
-        totalHandlingTime = totalHandlingTime + handlingTime;
-        if (maxHandlingTime < handlingTime) {
-            maxHandlingTime = handlingTime;
+        totalHandlingTime.addAndGet(handlingTime);
+        long max = maxHandlingTime.get();
+        while (max < handlingTime && !maxHandlingTime.compareAndSet(max, handlingTime)) {
+            max = maxHandlingTime.get();
         }
-        if (minHandlingTime > handlingTime) {
-            minHandlingTime = handlingTime;
+        long min = minHandlingTime.get();
+        while (min > handlingTime && !minHandlingTime.compareAndSet(min, handlingTime)) {
+            min = minHandlingTime.get();
+        }
+        getWindow(System.currentTimeMillis()).histogram.record(handlingTime);
+    }
+    
+    /**
+     * Returns the window that is current at the given time, starting a new one if 
+     * the current window has ended.  While another thread starts the new window, 
+     * the response time is still recorded in the window that has just ended.
+     */
+    private Window getWindow(long now) {
+        int c = current;
+        Window window = windows[c];
+        if (now - window.start >= percentileWindow && rotating.compareAndSet(false, true)) {
+            try {
+                c = current;
+                window = windows[c];
+                if (now - window.start >= percentileWindow) {
+                    // the next window was the previous one before the current window started,
+                    // it is not read any more
+                    int n = (c + 1) % windows.length;
+                    Window next = windows[n];
+                    next.histogram.reset();
+                    next.start = now;
+                    // a window that ended more than a window ago holds no recent data
+                    previousValid = now - window.start < 2 * percentileWindow;
+                    current = n;
+                    windowCompleted = true;
+                    window = next;
+                }
+            } finally {
+                rotating.set(false);
+            }
         }
+        return window;
+    }
+    
+    /**
+     * Returns a snapshot of the response times recorded in the last complete window, 
+     * or in the current window if none has completed since the counter was created or reset.
+     */
+    public ResponseTimeHistogram.Snapshot getResponseTimeSnapshot() {
+        Window window = getWindow(System.currentTimeMillis());
+        if (!windowCompleted) {
+            return window.histogram.getSnapshot();
+        }
+        if (!previousValid) {
+            return new ResponseTimeHistogram.Snapshot(new long[0], 0);
+        }
+        return windows[(current + windows.length - 1) % windows.length].histogram.getSnapshot();
+    }
+    
+    public long getPercentileWindow() {
+        return percentileWindow;
     }
 
     public void reset() {
@@ -92,9 +175,17 @@ public class ResponseTimeCounter implements ResponseTimeCounterMBean, Counter {
         runtimeFaults.set(0);
         logicalRuntimeFaults.set(0);
         
-        totalHandlingTime = 0;    
-        maxHandlingTime = 0;
-        minHandlingTime = Integer.MAX_VALUE;   
+        totalHandlingTime.set(0);    
+        maxHandlingTime.set(0);
+        minHandlingTime.set(Integer.MAX_VALUE);
+        
+        long now = System.currentTimeMillis();
+        for (Window window : windows) {
+            window.histogram.reset();
+            window.start = now;
+        }
+        windowCompleted = false;
+        previousValid = false;
     }
     
     public ObjectName getObjectName() {
@@ -102,15 +193,39 @@ public class ResponseTimeCounter implements ResponseTimeCounterMBean, Counter {
     }
 
     public Number getAvgResponseTime() {        
-        return (int)(totalHandlingTime / invocations.get());
+        return (int)(totalHandlingTime.get() / invocations.get());
     }
     
     public Number getMaxResponseTime() {        
-        return maxHandlingTime;
+        return maxHandlingTime.get();
     }
 
     public Number getMinResponseTime() {        
-        return minHandlingTime;
+        return minHandlingTime.get();
+    }
+    
+    public Number getP50ResponseTime() {
+        return getPercentileResponseTime(50.0);
+    }
+    
+    public Number getP90ResponseTime() {
+        return getPercentileResponseTime(90.0);
+    }
+    
+    public Number getP99ResponseTime() {
+        return getPercentileResponseTime(99.0);
+    }
+    
+    public Number getP999ResponseTime() {
+        return getPercentileResponseTime(99.9);
+    }
+    
+    public Number getPercentileResponseTime(double percentile) {
+        return getResponseTimeSnapshot().getValueAtPercentile(percentile);
+    }
+    
+    public Number getWindowNumInvocations() {
+        return getResponseTimeSnapshot().getTotalCount();
     }
 
     public Number getNumInvocations() {        
@@ -134,7 +249,16 @@ public class ResponseTimeCounter implements ResponseTimeCounterMBean, Counter {
     }
     
     public Number getTotalHandlingTime() {        
-        return totalHandlingTime;
+        return totalHandlingTime.get();
     }  
+    
+    private static final class Window {
+        volatile long start;
+        final ResponseTimeHistogram histogram = new ResponseTimeHistogram();
+        
+        Window(long start) {
+            this.start = start;
+        }
+    }
 
 }
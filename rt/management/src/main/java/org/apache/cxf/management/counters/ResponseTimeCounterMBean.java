@@ -28,5 +28,18 @@ public interface ResponseTimeCounterMBean {
     Number getMaxResponseTime();
     Number getMinResponseTime();   
     Number getTotalHandlingTime();
+    
+    /**
+     * The response time percentiles in microseconds, for the last complete percentile window.
+     */
+    Number getP50ResponseTime();
+    Number getP90ResponseTime();
+    Number getP99ResponseTime();
+    Number getP999ResponseTime();
+    Number getPercentileResponseTime(double percentile);
+    /**
+     * The number of invocations the percentiles are based on.
+     */
+    Number getWindowNumInvocations();
     void reset();
 }
\ No newline at end of file
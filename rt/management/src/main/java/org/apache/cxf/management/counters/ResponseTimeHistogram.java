@@ -0,0 +1,152 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.management.counters;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * A lock free histogram of response times in microseconds. The buckets are
+ * log-linear: values below 32 are counted exactly, larger values are counted
+ * in 16 buckets per power of two, so the value reported for a percentile is
+ * within about 6% of the recorded one. Values above 2^36 (about 19 hours) are
+ * counted in the last bucket.
+ *
+ * Recording is a single atomic increment. To keep threads on different cores
+ * from contending on the same counters, the counts are striped by thread.
+ * The counts are ints as a histogram only covers one percentile window, which
+ * keeps a histogram at about 8KB with 4 stripes.
+ */
+public final class ResponseTimeHistogram {
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    private static final int LINEAR_LIMIT = SUB_BUCKET_COUNT << 1;
+    private static final int MAX_BITS = 36;
+    private static final int BUCKET_COUNT = index((1L << MAX_BITS) - 1) + 1;
+    private static final int STRIPES;
+
+    static {
+        int cpus = Runtime.getRuntime().availableProcessors();
+        int stripes = 1;
+        while (stripes < cpus && stripes < 4) {
+            stripes <<= 1;
+        }
+        STRIPES = stripes;
+    }
+
+    private final AtomicIntegerArray[] counts = new AtomicIntegerArray[STRIPES];
+
+    public ResponseTimeHistogram() {
+        for (int i = 0; i < STRIPES; i++) {
+            counts[i] = new AtomicIntegerArray(BUCKET_COUNT);
+        }
+    }
+
+    public void record(long value) {
+        int stripe = (int)Thread.currentThread().getId() & (STRIPES - 1);
+        counts[stripe].incrementAndGet(index(value));
+    }
+    
+    /**
+     * Clears the counts so that the histogram can be reused without allocating.
+     */
+    public void reset() {
+        for (AtomicIntegerArray stripe : counts) {
+            for (int i = 0; i < BUCKET_COUNT; i++) {
+                stripe.set(i, 0);
+            }
+        }
+    }
+
+    /**
+     * Merges the stripes into a snapshot of the counts recorded so far.
+     */
+    public Snapshot getSnapshot() {
+        long[] merged = new long[BUCKET_COUNT];
+        long total = 0;
+        for (AtomicIntegerArray stripe : counts) {
+            for (int i = 0; i < BUCKET_COUNT; i++) {
+                long c = stripe.get(i);
+                merged[i] += c;
+                total += c;
+            }
+        }
+        return new Snapshot(merged, total);
+    }
+
+    static int index(long value) {
+        if (value < LINEAR_LIMIT) {
+            return value < 0 ? 0 : (int)value;
+        }
+        int bits = 64 - Long.numberOfLeadingZeros(value);
+        if (bits > MAX_BITS) {
+            return BUCKET_COUNT - 1;
+        }
+        int shift = bits - SUB_BUCKET_BITS - 1;
+        int sub = (int)(value >>> shift) - SUB_BUCKET_COUNT;
+        return LINEAR_LIMIT + (shift - 1) * SUB_BUCKET_COUNT + sub;
+    }
+
+    static long highestValue(int index) {
+        if (index < LINEAR_LIMIT) {
+            return index;
+        }
+        int shift = (index - LINEAR_LIMIT) / SUB_BUCKET_COUNT + 1;
+        long sub = (index - LINEAR_LIMIT) % SUB_BUCKET_COUNT + SUB_BUCKET_COUNT;
+        return ((sub + 1) << shift) - 1;
+    }
+
+    /**
+     * The counts of a ResponseTimeHistogram at a point in time.
+     */
+    public static final class Snapshot {
+        private final long[] counts;
+        private final long totalCount;
+
+        Snapshot(long[] counts, long totalCount) {
+            this.counts = counts;
+            this.totalCount = totalCount;
+        }
+
+        public long getTotalCount() {
+            return totalCount;
+        }
+
+        /**
+         * Returns the highest value that is equivalent to the one at the given percentile,
+         * or 0 if nothing was recorded.
+         * @param percentile the percentile, between 0 and 100
+         */
+        public long getValueAtPercentile(double percentile) {
+            if (totalCount == 0) {
+                return 0;
+            }
+            double p = Math.min(Math.max(percentile, 0.0), 100.0);
+            long target = Math.max(1L, (long)Math.ceil(p / 100.0 * totalCount));
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= target) {
+                    return highestValue(i);
+                }
+            }
+            return highestValue(counts.length - 1);
+        }
+    }
+}
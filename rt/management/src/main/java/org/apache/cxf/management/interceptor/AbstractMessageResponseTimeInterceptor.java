@@ -19,6 +19,8 @@
 package org.apache.cxf.management.interceptor;
 
 
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -37,10 +39,13 @@ import org.apache.cxf.message.FaultMode;
 import org.apache.cxf.message.Message;
 import org.apache.cxf.phase.AbstractPhaseInterceptor;
 import org.apache.cxf.service.Service;
+import org.apache.cxf.service.model.EndpointInfo;
 import org.apache.cxf.service.model.OperationInfo;
 
 public abstract class AbstractMessageResponseTimeInterceptor extends AbstractPhaseInterceptor<Message> {
     private static final Logger LOG = LogUtils.getL7dLogger(AbstractMessageResponseTimeInterceptor.class);
+    private static final String COUNTER_NAMES = 
+        AbstractMessageResponseTimeInterceptor.class.getName() + ".COUNTER_NAMES";
     
     AbstractMessageResponseTimeInterceptor(String phase) {
         super(phase);
@@ -105,9 +110,6 @@ public abstract class AbstractMessageResponseTimeInterceptor extends AbstractPha
             Service service = ex.get(Service.class);            
             Endpoint endpoint = ex.get(Endpoint.class);
             
-            String serviceName = "\"" + service.getName() + "\"";            
-            String portName = "\"" + endpoint.getEndpointInfo().getName().getLocalPart() + "\"";
-            
             OperationInfo opInfo = ex.get(OperationInfo.class);
             String operationName = opInfo == null ? null : "\"" + opInfo.getName().getLocalPart() + "\"";
             
@@ -118,33 +120,71 @@ public abstract class AbstractMessageResponseTimeInterceptor extends AbstractPha
                 }
             }
             
-            StringBuilder buffer = new StringBuilder();
-            buffer.append(ManagementConstants.DEFAULT_DOMAIN_NAME + ":");
-            buffer.append(ManagementConstants.BUS_ID_PROP + "=" + bus.getId() + ",");
-            if (isClient(message)) {
-                buffer.append(ManagementConstants.TYPE_PROP + "=" + Counter.PERFORMANCE_COUNTER + ".Client,");
-            } else {
-                buffer.append(ManagementConstants.TYPE_PROP + "=" + Counter.PERFORMANCE_COUNTER + ".Server,");
-            }
-            buffer.append(ManagementConstants.SERVICE_NAME_PROP + "=" + serviceName + ",");
-           
-            buffer.append(ManagementConstants.PORT_NAME_PROP + "=" + portName);
-            String serviceCounterName = buffer.toString();
+            boolean client = isClient(message);
+            // building the ObjectNames is far more expensive than updating the counters,
+            // so they are cached on the endpoint
+            ConcurrentMap<String, ObjectName[]> counterNames = getCounterNames(endpoint.getEndpointInfo());
+            String busId = bus.getId();
+            String key = (client ? "client:" : "server:") + busId + ":" + operationName;
+            ObjectName[] names = counterNames.get(key);
             
             try {           
-                ObjectName serviceCounter = 
-                    new ObjectName(serviceCounterName);                
-                cr.increaseCounter(serviceCounter, mhtr);
-                if (operationName != null) {
-                    buffer.append("," + ManagementConstants.OPERATION_NAME_PROP + "=" + operationName);
-                    String operationCounterName = buffer.toString();
-                    ObjectName operationCounter = new ObjectName(operationCounterName);
-                    cr.increaseCounter(operationCounter, mhtr);                
+                if (names == null) {
+                    names = createCounterNames(busId, service, endpoint, operationName, client);
+                    counterNames.putIfAbsent(key, names);
+                }
+                cr.increaseCounter(names[0], mhtr);
+                if (names[1] != null) {
+                    cr.increaseCounter(names[1], mhtr);                
                 }
             } catch (Exception exception) {
                 LOG.log(Level.WARNING, "CREATE_COUNTER_OBJECTNAME_FAILED", exception);
             }
         }
     }
+    
+    @SuppressWarnings("unchecked")
+    private static ConcurrentMap<String, ObjectName[]> getCounterNames(EndpointInfo info) {
+        // the properties of the endpoint info are a concurrent map, the lock is only
+        // taken to create the cache the first time
+        ConcurrentMap<String, ObjectName[]> names = 
+            (ConcurrentMap<String, ObjectName[]>)info.getProperty(COUNTER_NAMES);
+        if (names == null) {
+            synchronized (info) {
+                names = (ConcurrentMap<String, ObjectName[]>)info.getProperty(COUNTER_NAMES);
+                if (names == null) {
+                    names = new ConcurrentHashMap<String, ObjectName[]>();
+                    info.setProperty(COUNTER_NAMES, names);
+                }
+            }
+        }
+        return names;
+    }
+    
+    private static ObjectName[] createCounterNames(String busId, Service service, Endpoint endpoint,
+                                                   String operationName, boolean client) 
+        throws Exception {
+        String serviceName = "\"" + service.getName() + "\"";            
+        String portName = "\"" + endpoint.getEndpointInfo().getName().getLocalPart() + "\"";
+        
+        StringBuilder buffer = new StringBuilder();
+        buffer.append(ManagementConstants.DEFAULT_DOMAIN_NAME + ":");
+        buffer.append(ManagementConstants.BUS_ID_PROP + "=" + busId + ",");
+        if (client) {
+            buffer.append(ManagementConstants.TYPE_PROP + "=" + Counter.PERFORMANCE_COUNTER + ".Client,");
+        } else {
+            buffer.append(ManagementConstants.TYPE_PROP + "=" + Counter.PERFORMANCE_COUNTER + ".Server,");
+        }
+        buffer.append(ManagementConstants.SERVICE_NAME_PROP + "=" + serviceName + ",");
+       
+        buffer.append(ManagementConstants.PORT_NAME_PROP + "=" + portName);
+        ObjectName serviceCounter = new ObjectName(buffer.toString());
+        ObjectName operationCounter = null;
+        if (operationName != null) {
+            buffer.append("," + ManagementConstants.OPERATION_NAME_PROP + "=" + operationName);
+            operationCounter = new ObjectName(buffer.toString());
+        }
+        return new ObjectName[] {serviceCounter, operationCounter};
+    }
         
 }
@@ -159,6 +159,46 @@ public class CounterRepositoryTest extends Assert {
         EasyMock.verify(mhtr2);
     }
    
+    @Test
+    public void testResponseTimePercentiles() throws Exception {
+        cr.setPercentileWindow(200);
+        for (int i = 1; i <= 1000; i++) {
+            MessageHandlingTimeRecorder mhtr = EasyMock.createMock(MessageHandlingTimeRecorder.class);
+            EasyMock.expect(mhtr.isOneWay()).andReturn(false).anyTimes();
+            EasyMock.expect(mhtr.getHandlingTime()).andReturn((long)i).anyTimes();
+            EasyMock.expect(mhtr.getFaultMode()).andReturn(null).anyTimes();
+            EasyMock.replay(mhtr);
+            cr.increaseCounter(operationCounter, mhtr);
+        }
+        ResponseTimeCounter opCounter = (ResponseTimeCounter) cr.getCounter(operationCounter);
+        assertEquals(200L, opCounter.getPercentileWindow());
+        assertEquals(1000L, opCounter.getWindowNumInvocations());
+        // the reported values are the upper bound of buckets that are within about 6%
+        assertPercentile(500, opCounter.getP50ResponseTime());
+        assertPercentile(900, opCounter.getP90ResponseTime());
+        assertPercentile(990, opCounter.getP99ResponseTime());
+        assertPercentile(999, opCounter.getP999ResponseTime());
+        assertEquals(1000L, opCounter.getMaxResponseTime());
+        assertEquals(1L, opCounter.getMinResponseTime());
+        
+        // once the window is over, the percentiles are those of the completed window
+        Thread.sleep(250);
+        assertEquals(1000L, opCounter.getWindowNumInvocations());
+        assertPercentile(500, opCounter.getP50ResponseTime());
+        
+        // and nothing is reported when no messages were handled in the last window
+        Thread.sleep(450);
+        assertEquals(0L, opCounter.getWindowNumInvocations());
+        assertEquals(0L, opCounter.getP99ResponseTime());
+        
+        opCounter.reset();
+        assertEquals(0L, opCounter.getWindowNumInvocations());
+    }
+    
+    private static void assertPercentile(long expected, Number actual) {
+        assertTrue("Expected about " + expected + " but was " + actual, 
+                   actual.longValue() >= expected && actual.longValue() <= expected * 1.07);
+    }
     
     private void verifyBus() {
         EasyMock.verify(bus);
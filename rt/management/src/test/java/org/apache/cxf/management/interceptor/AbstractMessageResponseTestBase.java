@@ -115,7 +115,11 @@ public class AbstractMessageResponseTestBase extends Assert {
         Endpoint endpoint = EasyMock.createMock(Endpoint.class);
         EndpointInfo endpointInfo = EasyMock.createMock(EndpointInfo.class);
         EasyMock.expect(endpointInfo.getName()).andReturn(PORT_NAME);
-        EasyMock.expect(endpoint.getEndpointInfo()).andReturn(endpointInfo);
+        // the interceptors cache the counter names on the endpoint info
+        EasyMock.expect(endpointInfo.getProperty(EasyMock.isA(String.class))).andReturn(null).anyTimes();
+        endpointInfo.setProperty(EasyMock.isA(String.class), EasyMock.anyObject());
+        EasyMock.expectLastCall().anyTimes();
+        EasyMock.expect(endpoint.getEndpointInfo()).andReturn(endpointInfo).anyTimes();
         EasyMock.expect(exchange.get(Endpoint.class)).andReturn(endpoint);
         EasyMock.replay(endpointInfo);
         EasyMock.replay(endpoint);
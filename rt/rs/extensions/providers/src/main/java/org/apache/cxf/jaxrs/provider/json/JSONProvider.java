@@ -233,6 +233,7 @@ public class JSONProvider<T> extends AbstractJAXBProvider<T>  {
             } else {
                 response = unmarshaller.unmarshal(xsr);
             }
+            releaseUnmarshaller(unmarshaller);
             if (response instanceof JAXBElement && !JAXBElement.class.isAssignableFrom(type)) {
                 response = ((JAXBElement<?>)response).getValue();    
             }
@@ -462,6 +463,7 @@ public class JSONProvider<T> extends AbstractJAXBProvider<T>  {
         }
         Marshaller ms = createMarshaller(obj, cls, genericType, enc);
         marshal(ms, obj, cls, genericType, enc, os, true);
+        releaseMarshaller(ms);
         
     }
     
@@ -524,6 +526,7 @@ public class JSONProvider<T> extends AbstractJAXBProvider<T>  {
             setNamespaceMapper(ms, namespaceMap);
         }
         marshal(ms, actualObject, actualClass, genericType, enc, os, false);
+        releaseMarshaller(ms);
     }
     
     private QName getQName(Class<?> cls, Type type, Object object) 
@@ -20,10 +20,10 @@ package org.apache.cxf.transport.http;
 
 import java.io.UnsupportedEncodingException;
 import java.net.URLDecoder;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -38,13 +38,32 @@ public class DestinationRegistryImpl implements DestinationRegistry {
         = new ConcurrentHashMap<String, AbstractHTTPDestination>();
     private Map<String, AbstractHTTPDestination> decodedDestinations = 
         new ConcurrentHashMap<String, AbstractHTTPDestination>();
+    // the paths split at the slashes, for checkRestfulRequest
+    private final PathNode root = new PathNode();
+    private volatile AbstractDestination[] sortedDestinations;
 
     public DestinationRegistryImpl() {
     }
 
-    public void addDestination(AbstractHTTPDestination destination) {
+    public synchronized void addDestination(AbstractHTTPDestination destination) {
         String path = getTrimmedPath(destination.getEndpointInfo().getAddress());
-        destinations.putIfAbsent(path, destination);
+        if (destinations.putIfAbsent(path, destination) == null) {
+            PathNode node = root;
+            for (String segment : getSegments(path)) {
+                PathNode child = node.children.get(segment);
+                if (child == null) {
+                    child = new PathNode();
+                    node.children.put(segment, child);
+                }
+                node = child;
+            }
+            if (isSlashTerminated(path)) {
+                node.slashDestination = destination;
+            } else {
+                node.destination = destination;
+            }
+            sortedDestinations = null;
+        }
         try {
             decodedDestinations.put(URLDecoder.decode(path, "ISO-8859-1"), destination);
         } catch (UnsupportedEncodingException e) {
@@ -52,8 +71,26 @@ public class DestinationRegistryImpl implements DestinationRegistry {
         }
     }
 
-    public void removeDestination(String path) {
-        destinations.remove(path);
+    public synchronized void removeDestination(String path) {
+        if (destinations.remove(path) != null) {
+            List<PathNode> nodes = new ArrayList<PathNode>();
+            List<String> segments = getSegments(path);
+            PathNode node = root;
+            for (String segment : segments) {
+                nodes.add(node);
+                node = node.children.get(segment);
+            }
+            if (isSlashTerminated(path)) {
+                node.slashDestination = null;
+            } else {
+                node.destination = null;
+            }
+            for (int i = segments.size() - 1; i >= 0 && node.isEmpty(); i--) {
+                node = nodes.get(i);
+                node.children.remove(segments.get(i));
+            }
+            sortedDestinations = null;
+        }
         try {
             decodedDestinations.remove(URLDecoder.decode(path, "ISO-8859-1"));
         } catch (UnsupportedEncodingException e) {
@@ -75,20 +112,29 @@ public class DestinationRegistryImpl implements DestinationRegistry {
         return s;
     }
     
+    /**
+     * Finds the destination with the longest path that is the address or a parent of it 
+     * in terms of its path segments, a trailing slash of the destination path is ignored.  
+     * The path "/" matches every address. 
+     */
     public AbstractHTTPDestination checkRestfulRequest(String address) {
-        int len = -1;
-        AbstractHTTPDestination ret = null;
-        for (String path : getDestinationsPaths()) {
-            String thePath = path.length() > 1 && path.endsWith(SLASH) 
-                ? path.substring(0, path.length() - 1) : path;
-            if ((address.equals(thePath) 
-                || SLASH.equals(thePath)
-                || (address.length() > thePath.length() 
-                    && address.startsWith(thePath) && address.charAt(thePath.length()) == '/'))
-                && thePath.length() > len) {
-                ret = getDestinationForPath(path);
-                len = path.length();
+        PathNode node = root;
+        AbstractHTTPDestination ret = root.getDestination();
+        int start = 0;
+        while (true) {
+            int end = address.indexOf('/', start);
+            node = node.children.get(end == -1 ? address.substring(start) : address.substring(start, end));
+            if (node == null) {
+                break;
+            }
+            AbstractHTTPDestination d = node.getDestination();
+            if (d != null) {
+                ret = d;
+            }
+            if (end == -1) {
+                break;
             }
+            start = end + 1;
         }
         if (ret != null && ret.getMessageObserver() == null) {
             return null;
@@ -102,7 +148,21 @@ public class DestinationRegistryImpl implements DestinationRegistry {
     
 
     public AbstractDestination[] getSortedDestinations() {
-        List<AbstractHTTPDestination> dest2 = new LinkedList<AbstractHTTPDestination>(
+        AbstractDestination[] sorted = sortedDestinations;
+        if (sorted == null) {
+            synchronized (this) {
+                sorted = sortedDestinations;
+                if (sorted == null) {
+                    sorted = sortDestinations();
+                    sortedDestinations = sorted;
+                }
+            }
+        }
+        return sorted.clone();
+    }
+
+    private AbstractDestination[] sortDestinations() {
+        List<AbstractHTTPDestination> dest2 = new ArrayList<AbstractHTTPDestination>(
                 getDestinations());
         Collections.sort(dest2, new Comparator<AbstractHTTPDestination>() {
             public int compare(AbstractHTTPDestination o1, AbstractHTTPDestination o2) {
@@ -151,4 +211,42 @@ public class DestinationRegistryImpl implements DestinationRegistry {
         return path;
     }
 
+    private static boolean isSlashTerminated(String path) {
+        return path.length() > 1 && path.endsWith(SLASH);
+    }
+
+    /**
+     * @return the segments of the path without a trailing slash, none for "/"
+     */
+    private static List<String> getSegments(String path) {
+        List<String> segments = new ArrayList<String>();
+        String thePath = isSlashTerminated(path) ? path.substring(0, path.length() - 1) : path;
+        if (!SLASH.equals(thePath)) {
+            int start = 0;
+            int end = thePath.indexOf('/');
+            while (end != -1) {
+                segments.add(thePath.substring(start, end));
+                start = end + 1;
+                end = thePath.indexOf('/', start);
+            }
+            segments.add(thePath.substring(start));
+        }
+        return segments;
+    }
+
+    private static final class PathNode {
+        final ConcurrentMap<String, PathNode> children = new ConcurrentHashMap<String, PathNode>();
+        volatile AbstractHTTPDestination destination;
+        // registered with a trailing slash
+        volatile AbstractHTTPDestination slashDestination;
+
+        AbstractHTTPDestination getDestination() {
+            AbstractHTTPDestination d = destination;
+            return d != null ? d : slashDestination;
+        }
+
+        boolean isEmpty() {
+            return destination == null && slashDestination == null && children.isEmpty();
+        }
+    }
 }
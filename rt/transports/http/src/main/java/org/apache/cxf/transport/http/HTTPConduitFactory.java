@@ -0,0 +1,50 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.transport.http;
+
+import java.io.IOException;
+
+import org.apache.cxf.Bus;
+import org.apache.cxf.service.model.EndpointInfo;
+import org.apache.cxf.ws.addressing.EndpointReferenceType;
+
+/**
+ * Factory used by the HTTPTransportFactory to create HTTPConduit instances.  This
+ * allows an alternative client implementation (for example one built on a non-blocking
+ * I/O library) to replace the default URLConnectionHTTPConduit.  A factory can be
+ * registered as a Bus extension or set as a property on the EndpointInfo using
+ * the fully qualified name of this interface as the key; the EndpointInfo property
+ * takes precedence.
+ * <p>
+ * Unless a factory is registered every conduit is a URLConnectionHTTPConduit.  The
+ * {@link org.apache.cxf.transport.http.nio.NioHTTPConduitFactory} provides conduits that
+ * do not hold a thread for each request in progress.
+ */
+public interface HTTPConduitFactory {
+    
+    /**
+     * Create a conduit for the given endpoint.  
+     * @return the new conduit or null if this factory cannot handle the endpoint, 
+     *         in which case the default URLConnectionHTTPConduit is used.
+     */
+    HTTPConduit createConduit(HTTPTransportFactory f,
+                              Bus bus,
+                              EndpointInfo localInfo,
+                              EndpointReferenceType target) throws IOException;
+}
@@ -247,7 +247,14 @@ public class HTTPTransportFactory
             EndpointInfo endpointInfo,
             EndpointReferenceType target
     ) throws IOException {
-        HTTPConduit conduit = new URLConnectionHTTPConduit(bus, endpointInfo, target);
+        HTTPConduit conduit = null;
+        HTTPConduitFactory factory = findFactory(endpointInfo);
+        if (factory != null) {
+            conduit = factory.createConduit(this, bus, endpointInfo, target);
+        }
+        if (conduit == null) {
+            conduit = new URLConnectionHTTPConduit(bus, endpointInfo, target);
+        }
         // Spring configure the conduit.  
         String address = conduit.getAddress();
         if (address != null && address.indexOf('?') != -1) {
@@ -262,6 +269,15 @@ public class HTTPTransportFactory
         return conduit;
     }
     
+    protected HTTPConduitFactory findFactory(EndpointInfo endpointInfo) {
+        HTTPConduitFactory f = endpointInfo.getProperty(HTTPConduitFactory.class.getName(),
+                                                        HTTPConduitFactory.class);
+        if (f == null && bus != null) {
+            f = bus.getExtension(HTTPConduitFactory.class);
+        }
+        return f;
+    }
+    
     public Destination getDestination(EndpointInfo endpointInfo) throws IOException {
         if (endpointInfo == null) {
             throw new IllegalArgumentException("EndpointInfo cannot be null");
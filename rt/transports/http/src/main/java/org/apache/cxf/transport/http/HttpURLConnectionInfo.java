@@ -20,6 +20,7 @@
 package org.apache.cxf.transport.http;
 
 import java.net.HttpURLConnection;
+import java.net.URL;
 
 /**
  * This class contains the information about the HTTP Connection that
@@ -39,6 +40,15 @@ public class HttpURLConnectionInfo extends URLConnectionInfo {
         httpRequestMethod = con.getRequestMethod();
     }
     
+    /**
+     * This constructor is used for a connection that is not made by
+     * an HttpURLConnection.
+     */
+    public HttpURLConnectionInfo(URL url, String method) {
+        super(url);
+        httpRequestMethod = method;
+    }
+    
     /**
      * This method returns the request method on the represented
      * HttpURLConnection.
@@ -42,6 +42,16 @@ public class URLConnectionInfo {
         theURL = connection.getURL();
     }
     
+    /**
+     * This constructor is used to represent a connection to the URL that 
+     * is not made by a URLConnection.
+     * 
+     * @param url The URL the connection is associated with.
+     */
+    public URLConnectionInfo(URL url) {
+        theURL = url;
+    }
+    
     /**
      * This field returns the URL associated with the connection
      * in question.
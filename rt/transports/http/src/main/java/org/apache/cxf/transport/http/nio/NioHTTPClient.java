@@ -0,0 +1,360 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.transport.http.nio;
+
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.apache.cxf.common.logging.LogUtils;
+
+/**
+ * A non-blocking HTTP/1.1 client.  One selector thread connects, writes the requests and
+ * reads the responses of all the connections, so the number of requests in progress is
+ * not bounded by a number of threads.  The connections to a host are kept alive in a
+ * pool and reused, and up to maxPipelinedRequests requests are written on a connection
+ * without waiting for the previous responses.  The requests that find no connection
+ * wait in the pool of their host until one is available.
+ * <p>
+ * The selector thread is started by the first request and stops when the client is
+ * shut down.
+ */
+public class NioHTTPClient {
+    public static final int DEFAULT_MAX_CONNECTIONS_PER_HOST = 32;
+    public static final int DEFAULT_MAX_PIPELINED_REQUESTS = 1;
+    public static final long DEFAULT_IDLE_TIMEOUT = 60000L;
+
+    private static final Logger LOG = LogUtils.getL7dLogger(NioHTTPClient.class);
+    private static final long TIMEOUT_CHECK_INTERVAL = 100L;
+    private static final ThreadLocal<Boolean> SELECTOR_THREAD = new ThreadLocal<Boolean>();
+
+    private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<Runnable>();
+    // used by the selector thread only
+    private final Map<String, HostPool> pools = new HashMap<String, HostPool>();
+
+    private volatile int maxConnectionsPerHost = DEFAULT_MAX_CONNECTIONS_PER_HOST;
+    private volatile int maxPipelinedRequests = DEFAULT_MAX_PIPELINED_REQUESTS;
+    private volatile long idleTimeout = DEFAULT_IDLE_TIMEOUT;
+
+    private Selector selector;
+    private Thread thread;
+    private volatile boolean shutdown;
+
+    public int getMaxConnectionsPerHost() {
+        return maxConnectionsPerHost;
+    }
+
+    /**
+     * Sets the number of connections opened to a host, the requests that find all of
+     * them in use wait for one.
+     */
+    public void setMaxConnectionsPerHost(int max) {
+        maxConnectionsPerHost = max < 1 ? 1 : max;
+    }
+
+    public int getMaxPipelinedRequests() {
+        return maxPipelinedRequests;
+    }
+
+    /**
+     * Sets the number of requests written on a connection before their responses are
+     * read.  The default of 1 disables pipelining: a request that is pipelined behind
+     * another one fails, rather than being sent again, if the connection is lost before
+     * its response is read, so it is only worth enabling for servers known to handle it.
+     */
+    public void setMaxPipelinedRequests(int max) {
+        maxPipelinedRequests = max < 1 ? 1 : max;
+    }
+
+    public long getIdleTimeout() {
+        return idleTimeout;
+    }
+
+    /**
+     * Sets the time an unused connection is kept open, 0 keeps it until the server
+     * closes it.
+     */
+    public void setIdleTimeout(long timeout) {
+        idleTimeout = timeout;
+    }
+
+    /**
+     * @return true if the current thread is the selector thread of a client
+     */
+    static boolean isSelectorThread() {
+        return SELECTOR_THREAD.get() != null;
+    }
+
+    /**
+     * Sends the request of the exchange.  This does not wait: the response is received
+     * by the selector thread, and the exchange notifies its waiters and listener.
+     */
+    public void execute(final NioHTTPExchange ex) throws IOException {
+        start();
+        tasks.add(new Runnable() {
+            public void run() {
+                ex.queuedAt = System.currentTimeMillis();
+                getPool(ex).add(ex);
+            }
+        });
+        selector.wakeup();
+        if (shutdown) {
+            ex.fail(new IOException("The HTTP client is shut down"));
+        }
+    }
+
+    private synchronized void start() throws IOException {
+        if (shutdown) {
+            throw new IOException("The HTTP client is shut down");
+        }
+        if (thread == null) {
+            selector = Selector.open();
+            thread = new Thread(new Runnable() {
+                public void run() {
+                    runSelector();
+                }
+            }, "cxf-nio-http-client");
+            thread.setDaemon(true);
+            thread.start();
+        }
+    }
+
+    /**
+     * Closes the connections and fails the requests in progress.
+     */
+    public void shutdown() {
+        Thread t;
+        synchronized (this) {
+            shutdown = true;
+            t = thread;
+        }
+        if (t != null) {
+            selector.wakeup();
+            if (t != Thread.currentThread()) {
+                try {
+                    t.join(5000);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+    }
+
+    private HostPool getPool(NioHTTPExchange ex) {
+        String name = (ex.isProxied() ? "proxy " : "") + ex.getAddress().getHostString()
+            + ":" + ex.getAddress().getPort();
+        HostPool pool = pools.get(name);
+        if (pool == null) {
+            pool = new HostPool(name);
+            pools.put(name, pool);
+        }
+        return pool;
+    }
+
+    private void runSelector() {
+        SELECTOR_THREAD.set(Boolean.TRUE);
+        long nextCheck = 0;
+        try {
+            while (!shutdown) {
+                selector.select(TIMEOUT_CHECK_INTERVAL);
+                long now = System.currentTimeMillis();
+                for (Iterator<SelectionKey> it = selector.selectedKeys().iterator(); it.hasNext();) {
+                    SelectionKey key = it.next();
+                    it.remove();
+                    if (key.isValid()) {
+                        ((NioHTTPConnection)key.attachment()).handle(now);
+                    }
+                }
+                Runnable r = tasks.poll();
+                while (r != null) {
+                    r.run();
+                    r = tasks.poll();
+                }
+                if (now >= nextCheck) {
+                    checkTimeouts(now);
+                    nextCheck = now + TIMEOUT_CHECK_INTERVAL;
+                }
+            }
+        } catch (Throwable t) {
+            LOG.log(Level.SEVERE, "SELECTOR_FAILED", t);
+        } finally {
+            synchronized (this) {
+                shutdown = true;
+            }
+            close();
+        }
+    }
+
+    private void checkTimeouts(long now) {
+        for (Iterator<HostPool> it = pools.values().iterator(); it.hasNext();) {
+            HostPool pool = it.next();
+            pool.checkTimeouts(now);
+            if (pool.isUnused()) {
+                it.remove();
+            }
+        }
+    }
+
+    private void close() {
+        IOException ex = new IOException("The HTTP client is shut down");
+        for (HostPool pool : pools.values()) {
+            pool.close(ex);
+        }
+        pools.clear();
+        // the requests sent while shutting down fail
+        Runnable r = tasks.poll();
+        while (r != null) {
+            r.run();
+            r = tasks.poll();
+        }
+        try {
+            selector.close();
+        } catch (IOException e) {
+            // ignore
+        }
+    }
+
+    /**
+     * The connections to one host and the requests waiting for one of them.
+     */
+    final class HostPool {
+        private final String name;
+        private final List<NioHTTPConnection> connections = new ArrayList<NioHTTPConnection>();
+        private final Deque<NioHTTPExchange> pending = new ArrayDeque<NioHTTPExchange>();
+
+        HostPool(String name) {
+            this.name = name;
+        }
+
+        String getName() {
+            return name;
+        }
+
+        void add(NioHTTPExchange ex) {
+            if (shutdown) {
+                ex.fail(new IOException("The HTTP client is shut down"));
+                return;
+            }
+            pending.add(ex);
+            dispatch();
+        }
+
+        /**
+         * Assigns the waiting requests to the idle connections first, then to the
+         * connections that can pipeline them, then to new connections.
+         */
+        void dispatch() {
+            while (!pending.isEmpty() && !shutdown) {
+                NioHTTPConnection c = findConnection();
+                if (c == null) {
+                    if (connections.size() >= maxConnectionsPerHost) {
+                        return;
+                    }
+                    NioHTTPExchange ex = pending.peek();
+                    try {
+                        c = new NioHTTPConnection(this, selector, ex);
+                    } catch (IOException e) {
+                        pending.poll();
+                        ex.fail(e);
+                        continue;
+                    }
+                    connections.add(c);
+                }
+                c.assign(pending.poll());
+            }
+        }
+
+        private NioHTTPConnection findConnection() {
+            NioHTTPConnection pipelined = null;
+            for (NioHTTPConnection c : connections) {
+                if (c.canAccept(1)) {
+                    return c;
+                }
+                if (pipelined == null && c.canAccept(maxPipelinedRequests)) {
+                    pipelined = c;
+                }
+            }
+            return pipelined;
+        }
+
+        /**
+         * Called by a connection that was closed.
+         * @param resend the requests to send on another connection
+         */
+        void closed(NioHTTPConnection c, Collection<NioHTTPExchange> resend) {
+            connections.remove(c);
+            if (shutdown) {
+                for (NioHTTPExchange ex : resend) {
+                    ex.fail(new IOException("The HTTP client is shut down"));
+                }
+                return;
+            }
+            // sent ahead of the requests that were waiting for a connection
+            long now = System.currentTimeMillis();
+            List<NioHTTPExchange> l = new ArrayList<NioHTTPExchange>(resend);
+            for (int i = l.size() - 1; i >= 0; i--) {
+                l.get(i).queuedAt = now;
+                pending.addFirst(l.get(i));
+            }
+            dispatch();
+        }
+
+        void checkTimeouts(long now) {
+            for (NioHTTPConnection c : new ArrayList<NioHTTPConnection>(connections)) {
+                c.checkTimeouts(now, idleTimeout);
+            }
+            // the requests waiting for a connection fail once their connect timeout is over
+            for (Iterator<NioHTTPExchange> it = pending.iterator(); it.hasNext();) {
+                NioHTTPExchange ex = it.next();
+                if (ex.getConnectTimeout() > 0 && now - ex.queuedAt > ex.getConnectTimeout()) {
+                    it.remove();
+                    ex.fail(new SocketTimeoutException("Timed out waiting for a connection to " + name));
+                }
+            }
+        }
+
+        boolean isUnused() {
+            return connections.isEmpty() && pending.isEmpty();
+        }
+
+        void close(IOException ex) {
+            for (NioHTTPConnection c : new ArrayList<NioHTTPConnection>(connections)) {
+                c.close(ex);
+            }
+            NioHTTPExchange e = pending.poll();
+            while (e != null) {
+                e.fail(ex);
+                e = pending.poll();
+            }
+        }
+    }
+}
@@ -0,0 +1,366 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.transport.http.nio;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.Proxy;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.UnknownHostException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.apache.cxf.Bus;
+import org.apache.cxf.common.logging.LogUtils;
+import org.apache.cxf.helpers.HttpHeaderHelper;
+import org.apache.cxf.io.CacheAndWriteOutputStream;
+import org.apache.cxf.io.CachedOutputStream;
+import org.apache.cxf.message.Message;
+import org.apache.cxf.message.MessageUtils;
+import org.apache.cxf.phase.PhaseInterceptorChain;
+import org.apache.cxf.service.model.EndpointInfo;
+import org.apache.cxf.transport.http.HTTPConduit;
+import org.apache.cxf.transport.http.Headers;
+import org.apache.cxf.transport.https.HttpsURLConnectionInfo;
+import org.apache.cxf.transports.http.configuration.HTTPClientPolicy;
+import org.apache.cxf.version.Version;
+import org.apache.cxf.ws.addressing.EndpointReferenceType;
+
+/**
+ * An HTTPConduit that sends its requests through a non-blocking NioHTTPClient.  The
+ * content of a request is collected before it is sent, so its length is always known and
+ * the chunking settings of the HTTPClientPolicy do not apply.  The timeouts, proxy,
+ * authorization, redirect and retransmit settings apply as they do for the
+ * URLConnectionHTTPConduit.
+ * <p>
+ * A synchronous call waits for its response, an asynchronous call does not hold a
+ * thread at all until the response is received: the response is then handed to the
+ * work queue of the conduit, like the URLConnectionHTTPConduit does.  If the work queue
+ * rejects it, the call fails, as the response is never handled on the selector thread.
+ * Only http addresses are supported.
+ */
+public class NioHTTPConduit extends HTTPConduit {
+    private static final Logger LOG = LogUtils.getL7dLogger(NioHTTPConduit.class);
+
+    private final NioHTTPClient client;
+
+    public NioHTTPConduit(Bus b, EndpointInfo ei, EndpointReferenceType t,
+                          NioHTTPClient client) throws IOException {
+        super(b, ei, t);
+        this.client = client;
+    }
+
+    public NioHTTPClient getHttpClient() {
+        return client;
+    }
+
+    protected void setupConnection(Message message, URI uri, HTTPClientPolicy csPolicy) throws IOException {
+        if (!"http".equalsIgnoreCase(uri.getScheme())) {
+            throw new IOException(new org.apache.cxf.common.i18n.Message("SCHEME_NOT_SUPPORTED",
+                                                                         LOG, uri).toString());
+        }
+        InetSocketAddress proxyAddress = null;
+        Proxy proxy = proxyFactory.createProxy(csPolicy, uri);
+        if (proxy != null && proxy.type() != Proxy.Type.DIRECT) {
+            if (proxy.type() != Proxy.Type.HTTP) {
+                throw new IOException("Unsupported proxy type " + proxy.type() + " for " + uri);
+            }
+            InetSocketAddress a = (InetSocketAddress)proxy.address();
+            proxyAddress = a.isUnresolved() ? new InetSocketAddress(a.getHostString(), a.getPort()) : a;
+        }
+
+        // If the HTTP_REQUEST_METHOD is not set, the default is "POST".
+        String httpRequestMethod = (String)message.get(Message.HTTP_REQUEST_METHOD);
+        if (httpRequestMethod == null) {
+            httpRequestMethod = "POST";
+            message.put(Message.HTTP_REQUEST_METHOD, "POST");
+        }
+        NioHTTPExchange exchange = new NioHTTPExchange(httpRequestMethod, uri, proxyAddress,
+                                                       determineConnectionTimeout(message, csPolicy),
+                                                       determineReceiveTimeout(message, csPolicy));
+        if (exchange.getAddress().isUnresolved()) {
+            throw new UnknownHostException(exchange.getAddress().getHostString());
+        }
+        // We place the exchange on the message to pick it up
+        // in the WrappedOutputStream.
+        message.put(NioHTTPExchange.class, exchange);
+    }
+
+    protected OutputStream createOutputStream(Message message,
+                                              boolean needToCacheRequest,
+                                              boolean isChunking,
+                                              int chunkThreshold) throws IOException {
+        NioHTTPExchange exchange = message.get(NioHTTPExchange.class);
+        return new NioWrappedOutputStream(message, exchange, needToCacheRequest,
+                                          isChunking, chunkThreshold, getConduitName());
+    }
+
+    class NioWrappedOutputStream extends WrappedOutputStream {
+        NioHTTPExchange exchange;
+        boolean sent;
+        boolean retransmitsPending;
+        // the cached request, kept for the retransmits of an asynchronous call
+        CacheAndWriteOutputStream retransmitCache;
+
+        NioWrappedOutputStream(Message message, NioHTTPExchange exchange,
+                               boolean needToCacheRequest, boolean isChunking,
+                               int chunkThreshold, String conduitName) {
+            super(message, needToCacheRequest, isChunking, chunkThreshold, conduitName,
+                  exchange.getURI().toString());
+            this.exchange = exchange;
+        }
+
+        protected void setupWrappedStream() throws IOException {
+            // If we need to cache for retransmission, store data in a
+            // CacheAndWriteOutputStream. Otherwise write directly to the request content.
+            CachedOutputStream content = exchange.createRequestBody();
+            if (cachingForRetransmission) {
+                cachedStream = new CacheAndWriteOutputStream(content);
+                wrappedStream = cachedStream;
+            } else {
+                wrappedStream = content;
+            }
+        }
+
+        @Override
+        public void thresholdReached() {
+            // the length of the content is known when it is sent
+        }
+
+        protected void setFixedLengthStreamingMode(int i) {
+            // the length of the content is known when it is sent
+        }
+
+        @Override
+        protected void onFirstWrite() throws IOException {
+            super.onFirstWrite();
+            if (LOG.isLoggable(Level.FINE)) {
+                LOG.fine("Sending " + getMethod() + " Message with Headers to " + url
+                         + " Conduit :" + conduitName + "\n");
+            }
+        }
+
+        protected void setProtocolHeaders() throws IOException {
+            Headers h = new Headers(outMessage);
+            Map<String, List<String>> headers = exchange.getRequestHeaders();
+            headers.clear();
+            exchange.addRequestHeader(HttpHeaderHelper.CONTENT_TYPE, h.determineContentType());
+            boolean addHeaders = MessageUtils.isTrue(
+                outMessage.getContextualProperty(Headers.ADD_HEADERS_PROPERTY));
+            for (Map.Entry<String, List<String>> e : h.headerMap().entrySet()) {
+                String header = e.getKey();
+                List<String> values = e.getValue();
+                if (HttpHeaderHelper.CONTENT_TYPE.equalsIgnoreCase(header) || values == null) {
+                    continue;
+                }
+                if (addHeaders || HttpHeaderHelper.COOKIE.equalsIgnoreCase(header)) {
+                    for (String s : values) {
+                        exchange.addRequestHeader(header, s);
+                    }
+                } else {
+                    StringBuilder b = new StringBuilder();
+                    for (int i = 0; i < values.size(); i++) {
+                        b.append(values.get(i));
+                        if (i + 1 < values.size()) {
+                            b.append(',');
+                        }
+                    }
+                    exchange.addRequestHeader(header, b.toString());
+                }
+            }
+            if (!headers.containsKey("User-Agent")) {
+                exchange.addRequestHeader("User-Agent", Version.getCompleteVersionString());
+            }
+        }
+
+        protected HttpsURLConnectionInfo getHttpsURLConnectionInfo() throws IOException {
+            // only http is supported, so there is no TLS information
+            return new HttpsURLConnectionInfo(new URL(url), getMethod(), null, null, null, null, null);
+        }
+
+        /**
+         * Sends the request once it is complete.
+         */
+        private NioHTTPExchange send() throws IOException {
+            if (!sent) {
+                sent = true;
+                client.execute(exchange);
+            }
+            return exchange;
+        }
+
+        @Override
+        protected void handleResponse() throws IOException {
+            send();
+            if (outMessage == null
+                || outMessage.getExchange() == null
+                || outMessage.getExchange().isSynchronous()) {
+                super.handleResponse();
+                return;
+            }
+            // No thread waits for the response, it is handled on the work queue once it is
+            // received, including any retransmission it asks for.  The cached request is
+            // closed by close() when this returns, so it is taken over until then.
+            retransmitsPending = true;
+            retransmitCache = cachedStream;
+            cachedStream = null;
+            exchange.setListener(new Runnable() {
+                public void run() {
+                    try {
+                        handleResponseOnWorkqueue(false);
+                    } catch (Throwable e) {
+                        handleAsyncFailure(e);
+                    }
+                }
+            });
+        }
+
+        @Override
+        protected void handleResponseInternal() throws IOException {
+            if (NioHTTPClient.isSelectorThread()) {
+                // the work queue rejected the response, it must not block the selector thread
+                throw new IOException(new org.apache.cxf.common.i18n.Message("RESPONSE_REJECTED",
+                                                                             LOG, url).toString());
+            }
+            if (!retransmitsPending) {
+                super.handleResponseInternal();
+                return;
+            }
+            retransmitsPending = false;
+            cachedStream = retransmitCache;
+            retransmitCache = null;
+            try {
+                handleRetransmits();
+                super.handleResponseInternal();
+            } finally {
+                if (cachingForRetransmission && cachedStream != null) {
+                    cachedStream.close();
+                }
+            }
+        }
+
+        private void handleAsyncFailure(Throwable e) {
+            if (retransmitCache != null) {
+                try {
+                    retransmitCache.close();
+                } catch (IOException ex) {
+                    // ignore
+                }
+                retransmitCache = null;
+            }
+            ((PhaseInterceptorChain)outMessage.getInterceptorChain()).abort();
+            ((PhaseInterceptorChain)outMessage.getInterceptorChain()).unwind(outMessage);
+            outMessage.setContent(Exception.class, e);
+            outMessage.getInterceptorChain().getFaultObserver().onMessage(outMessage);
+        }
+
+        protected void handleResponseAsync() throws IOException {
+            handleResponseOnWorkqueue(true);
+        }
+
+        private Map<String, List<String>> getResponseHeaders() {
+            try {
+                return send().getResponseHeaders();
+            } catch (IOException e) {
+                return Collections.emptyMap();
+            }
+        }
+
+        protected void updateResponseHeaders(Message inMessage) {
+            Headers h = new Headers(inMessage);
+            Map<String, List<String>> headers = h.headerMap();
+            headers.clear();
+            String contentType = null;
+            for (Map.Entry<String, List<String>> e : getResponseHeaders().entrySet()) {
+                headers.put(HttpHeaderHelper.getHeaderKey(e.getKey()), e.getValue());
+                if (HttpHeaderHelper.CONTENT_TYPE.equalsIgnoreCase(e.getKey()) && !e.getValue().isEmpty()) {
+                    contentType = e.getValue().get(0);
+                }
+            }
+            inMessage.put(Message.CONTENT_TYPE, contentType);
+            cookies.readFromHeaders(h);
+        }
+
+        protected void updateCookiesBeforeRetransmit() {
+            Headers h = new Headers();
+            h.headerMap().putAll(getResponseHeaders());
+            cookies.readFromHeaders(h);
+        }
+
+        protected InputStream getInputStream() throws IOException {
+            return send().getResponseStream();
+        }
+
+        protected void closeInputStream() throws IOException {
+            send().discardResponse();
+        }
+
+        protected int getResponseCode() throws IOException {
+            return send().getResponseCode();
+        }
+
+        protected String getResponseMessage() throws IOException {
+            return send().getResponseMessage();
+        }
+
+        protected InputStream getPartialResponse() throws IOException {
+            int responseCode = getResponseCode();
+            if ((responseCode == HttpURLConnection.HTTP_ACCEPTED
+                || responseCode == HttpURLConnection.HTTP_OK)
+                && exchange.getResponseContentLength() > 0) {
+                return exchange.getResponseStream();
+            }
+            return null;
+        }
+
+        protected boolean usingProxy() {
+            return exchange.isProxied();
+        }
+
+        protected void setupNewConnection(String newURL) throws IOException {
+            HTTPClientPolicy cp = getClient(outMessage);
+            URI nurl;
+            try {
+                nurl = new URI(newURL);
+            } catch (URISyntaxException e) {
+                throw new IOException(e);
+            }
+            exchange.discardResponse();
+            setupConnection(outMessage, nurl, cp);
+            url = newURL;
+            exchange = outMessage.get(NioHTTPExchange.class);
+            sent = false;
+        }
+
+        @Override
+        protected void retransmitStream() throws IOException {
+            OutputStream out = exchange.createRequestBody();
+            cachedStream.writeCacheTo(out);
+            out.close();
+        }
+    }
+}
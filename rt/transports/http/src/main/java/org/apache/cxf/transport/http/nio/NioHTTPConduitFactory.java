@@ -0,0 +1,81 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.transport.http.nio;
+
+import java.io.IOException;
+
+import org.apache.cxf.Bus;
+import org.apache.cxf.buslifecycle.BusLifeCycleListener;
+import org.apache.cxf.buslifecycle.BusLifeCycleManager;
+import org.apache.cxf.service.model.EndpointInfo;
+import org.apache.cxf.transport.http.HTTPConduit;
+import org.apache.cxf.transport.http.HTTPConduitFactory;
+import org.apache.cxf.transport.http.HTTPTransportFactory;
+import org.apache.cxf.ws.addressing.EndpointReferenceType;
+
+/**
+ * Creates NioHTTPConduits for the http addresses, which share one NioHTTPClient.  To use
+ * them, register the factory as the HTTPConduitFactory extension of the bus, or set it
+ * on an EndpointInfo:
+ * <pre>
+ * bus.setExtension(new NioHTTPConduitFactory(bus), HTTPConduitFactory.class);
+ * </pre>
+ * The https addresses keep using the URLConnectionHTTPConduit.  The client is shut down
+ * with the bus.
+ */
+public class NioHTTPConduitFactory implements HTTPConduitFactory {
+    private final NioHTTPClient client = new NioHTTPClient();
+
+    public NioHTTPConduitFactory() {
+    }
+
+    public NioHTTPConduitFactory(Bus bus) {
+        BusLifeCycleManager manager = bus.getExtension(BusLifeCycleManager.class);
+        if (manager != null) {
+            manager.registerLifeCycleListener(new BusLifeCycleListener() {
+                public void initComplete() {
+                }
+                public void preShutdown() {
+                }
+                public void postShutdown() {
+                    client.shutdown();
+                }
+            });
+        }
+    }
+
+    public NioHTTPClient getClient() {
+        return client;
+    }
+
+    public HTTPConduit createConduit(HTTPTransportFactory f, Bus bus,
+                                     EndpointInfo localInfo,
+                                     EndpointReferenceType target) throws IOException {
+        String address = target != null && target.getAddress() != null
+            ? target.getAddress().getValue() : localInfo.getAddress();
+        if (address != null && !address.startsWith("http:")) {
+            return null;
+        }
+        return new NioHTTPConduit(bus, localInfo, target, client);
+    }
+
+    public void shutdown() {
+        client.shutdown();
+    }
+}
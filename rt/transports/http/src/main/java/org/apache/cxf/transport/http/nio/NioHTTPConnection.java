@@ -0,0 +1,350 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.transport.http.nio;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.ConnectException;
+import java.net.SocketTimeoutException;
+import java.net.StandardSocketOptions;
+import java.net.UnknownHostException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.nio.channels.UnresolvedAddressException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * A non-blocking connection to one host.  The requests assigned to it are written in
+ * order, without waiting for the responses when they are pipelined, and the responses
+ * are matched to the requests in the same order.  Only the selector thread of the
+ * client uses a connection.
+ */
+final class NioHTTPConnection {
+    private static final int BUFFER_SIZE = 16 * 1024;
+
+    private final NioHTTPClient.HostPool pool;
+    private final SocketChannel channel;
+    private final SelectionKey key;
+    private boolean connecting;
+    private long connectDeadline;
+
+    // every request assigned to the connection, in order, until its response is read
+    private final Deque<NioHTTPExchange> exchanges = new ArrayDeque<NioHTTPExchange>();
+    // the requests that are not completely written yet
+    private final Deque<NioHTTPExchange> writes = new ArrayDeque<NioHTTPExchange>();
+    private ByteBuffer writeBuffer;
+    private InputStream bodyIn;
+    private byte[] bodyBuffer;
+    private boolean headWritten;
+
+    private final ByteBuffer readBuffer = ByteBuffer.allocate(BUFFER_SIZE);
+    private final NioHTTPResponseParser parser = new NioHTTPResponseParser();
+    private boolean parsing;
+    private long lastActivity;
+    private int completed;
+    private boolean reusable = true;
+    private boolean closed;
+
+    NioHTTPConnection(NioHTTPClient.HostPool pool, Selector selector, NioHTTPExchange first)
+        throws IOException {
+        this.pool = pool;
+        channel = SocketChannel.open();
+        try {
+            channel.configureBlocking(false);
+            channel.setOption(StandardSocketOptions.TCP_NODELAY, Boolean.TRUE);
+            connecting = !channel.connect(first.getAddress());
+            key = channel.register(selector, connecting ? SelectionKey.OP_CONNECT : 0, this);
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        } catch (UnresolvedAddressException e) {
+            channel.close();
+            throw new UnknownHostException(first.getAddress().getHostString());
+        }
+        lastActivity = System.currentTimeMillis();
+        if (connecting && first.getConnectTimeout() > 0) {
+            connectDeadline = lastActivity + first.getConnectTimeout();
+        }
+    }
+
+    /**
+     * @return true if another request can be assigned to the connection
+     */
+    boolean canAccept(int maxPipelined) {
+        return !closed && reusable && exchanges.size() < maxPipelined;
+    }
+
+    boolean isIdle() {
+        return exchanges.isEmpty();
+    }
+
+    boolean isClosed() {
+        return closed;
+    }
+
+    void assign(NioHTTPExchange ex) {
+        if (exchanges.isEmpty()) {
+            startResponse(ex);
+        }
+        exchanges.add(ex);
+        writes.add(ex);
+        if (ex.isConnectionClose()) {
+            reusable = false;
+        }
+        if (!connecting) {
+            key.interestOps(key.interestOps() | SelectionKey.OP_WRITE);
+        }
+    }
+
+    private void startResponse(NioHTTPExchange ex) {
+        parser.reset("HEAD".equals(ex.getMethod()));
+        parsing = true;
+    }
+
+    void handle(long now) {
+        try {
+            if (key.isConnectable()) {
+                finishConnect(now);
+            }
+            if (key.isValid() && key.isWritable()) {
+                write(now);
+            }
+            if (key.isValid() && key.isReadable()) {
+                read(now);
+            }
+        } catch (IOException e) {
+            // a keep-alive connection may have been closed by the server when the
+            // requests were written, they are sent once more on a new connection
+            close(e, completed > 0 && !parser.isStarted());
+        } catch (RuntimeException e) {
+            close(new IOException(e));
+        }
+    }
+
+    private void finishConnect(long now) throws IOException {
+        try {
+            channel.finishConnect();
+        } catch (IOException e) {
+            ConnectException ex = new ConnectException(e.getMessage() + " connecting to "
+                                                       + pool.getName());
+            ex.initCause(e);
+            throw ex;
+        }
+        connecting = false;
+        lastActivity = now;
+        key.interestOps(writes.isEmpty() ? SelectionKey.OP_READ
+                            : SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+    }
+
+    private void write(long now) throws IOException {
+        while (true) {
+            if (writeBuffer == null || !writeBuffer.hasRemaining()) {
+                if (!fillWriteBuffer(now)) {
+                    key.interestOps(SelectionKey.OP_READ);
+                    return;
+                }
+            }
+            channel.write(writeBuffer);
+            if (writeBuffer.hasRemaining()) {
+                // the socket buffer is full, wait until it can be written to again
+                return;
+            }
+        }
+    }
+
+    private boolean fillWriteBuffer(long now) throws IOException {
+        while (true) {
+            NioHTTPExchange ex = writes.peek();
+            if (ex == null) {
+                return false;
+            }
+            if (!headWritten) {
+                headWritten = true;
+                writeBuffer = ex.encodeHead();
+                return true;
+            }
+            if (ex.hasRequestBody()) {
+                if (bodyIn == null) {
+                    bodyIn = ex.openRequestBody();
+                    if (bodyBuffer == null) {
+                        bodyBuffer = new byte[BUFFER_SIZE];
+                    }
+                }
+                int n = bodyIn.read(bodyBuffer);
+                if (n > 0) {
+                    writeBuffer = ByteBuffer.wrap(bodyBuffer, 0, n);
+                    return true;
+                }
+                if (n == 0) {
+                    continue;
+                }
+                bodyIn.close();
+                bodyIn = null;
+            }
+            // the request is written, the receive timeout starts now
+            writes.poll();
+            headWritten = false;
+            ex.writtenAt = now;
+            if (exchanges.peek() == ex) {
+                lastActivity = now;
+            }
+        }
+    }
+
+    private void read(long now) throws IOException {
+        int n = channel.read(readBuffer);
+        if (n == -1) {
+            endOfStream();
+            return;
+        }
+        lastActivity = now;
+        readBuffer.flip();
+        try {
+            while (readBuffer.hasRemaining() && !closed) {
+                NioHTTPExchange ex = exchanges.peek();
+                if (ex == null) {
+                    throw new IOException("Unexpected data received from " + pool.getName());
+                }
+                if (!parser.parse(readBuffer)) {
+                    break;
+                }
+                completeResponse(ex);
+            }
+        } finally {
+            readBuffer.compact();
+        }
+    }
+
+    private void completeResponse(NioHTTPExchange ex) throws IOException {
+        exchanges.poll();
+        parsing = false;
+        completed++;
+        boolean keepAlive = parser.isKeepAlive();
+        ex.complete(parser.getCode(), parser.getMessage(), parser.getHeaders(), parser.takeContent());
+        if (writes.contains(ex)) {
+            // the server answered before the request was completely written
+            close(null);
+            return;
+        }
+        if (!keepAlive) {
+            reusable = false;
+        }
+        NioHTTPExchange next = exchanges.peek();
+        if (next != null) {
+            startResponse(next);
+            lastActivity = System.currentTimeMillis();
+        } else if (!reusable) {
+            close(null);
+            return;
+        }
+        pool.dispatch();
+    }
+
+    private void endOfStream() throws IOException {
+        NioHTTPExchange ex = exchanges.peek();
+        if (ex != null && parsing && parser.parseEnd()) {
+            reusable = false;
+            completeResponse(ex);
+            if (closed) {
+                return;
+            }
+        }
+        if (exchanges.isEmpty()) {
+            close(null);
+        } else if (completed > 0 && !parser.isStarted()) {
+            // the server closed an idle keep-alive connection when the requests were sent
+            close(null, true);
+        } else {
+            close(new IOException("The connection to " + pool.getName()
+                                  + " was closed before the response was received"));
+        }
+    }
+
+    /**
+     * Applies the connect, receive and idle timeouts.
+     */
+    void checkTimeouts(long now, long idleTimeout) {
+        if (connecting) {
+            if (connectDeadline > 0 && now > connectDeadline) {
+                close(new SocketTimeoutException("connect timed out connecting to " + pool.getName()));
+            }
+            return;
+        }
+        NioHTTPExchange ex = exchanges.peek();
+        if (ex == null) {
+            if (idleTimeout > 0 && now - lastActivity > idleTimeout) {
+                close(null);
+            }
+        } else if (ex.writtenAt > 0 && ex.getReceiveTimeout() > 0
+            && now - Math.max(lastActivity, ex.writtenAt) > ex.getReceiveTimeout()) {
+            close(new SocketTimeoutException("Read timed out"));
+        }
+    }
+
+    /**
+     * Closes the connection.  The requests that were not sent at all are sent on another
+     * connection, the others fail with the given exception.  If the connection could not
+     * be established, all of them fail.
+     */
+    void close(IOException ex) {
+        close(ex, false);
+    }
+
+    private void close(IOException ex, boolean retry) {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        key.cancel();
+        try {
+            channel.close();
+        } catch (IOException e) {
+            // ignore
+        }
+        if (bodyIn != null) {
+            try {
+                bodyIn.close();
+            } catch (IOException e) {
+                // ignore
+            }
+            bodyIn = null;
+        }
+        parser.discard();
+        List<NioHTTPExchange> resend = new ArrayList<NioHTTPExchange>();
+        NioHTTPExchange writing = headWritten ? writes.peek() : null;
+        for (NioHTTPExchange e : exchanges) {
+            boolean unsent = !connecting && writes.contains(e) && e != writing;
+            if (unsent || retry && e.attempts++ == 0) {
+                e.writtenAt = 0;
+                resend.add(e);
+            } else {
+                e.fail(ex != null ? ex : new IOException("The connection to " + pool.getName()
+                                                         + " was closed"));
+            }
+        }
+        exchanges.clear();
+        writes.clear();
+        pool.closed(this, resend);
+    }
+}
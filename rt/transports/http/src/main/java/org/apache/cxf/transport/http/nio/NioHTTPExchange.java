@@ -0,0 +1,411 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.transport.http.nio;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.UnsupportedEncodingException;
+import java.net.ConnectException;
+import java.net.InetSocketAddress;
+import java.net.SocketTimeoutException;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.apache.cxf.common.logging.LogUtils;
+import org.apache.cxf.helpers.HttpHeaderHelper;
+import org.apache.cxf.io.CachedOutputStream;
+
+/**
+ * One HTTP request sent by the NioHTTPClient and the response it gets.  The request
+ * is built by the thread that sends it, the response is filled in by the selector
+ * thread of the client, which then wakes up the threads waiting for it and runs the
+ * listener, if one is set.
+ */
+public class NioHTTPExchange {
+    private static final Logger LOG = LogUtils.getL7dLogger(NioHTTPExchange.class);
+    private static final String CRLF = "\r\n";
+
+    private final String method;
+    private final URI uri;
+    private final InetSocketAddress address;
+    private final boolean proxied;
+    private final int connectTimeout;
+    private final int receiveTimeout;
+    private final Map<String, List<String>> headers
+        = new TreeMap<String, List<String>>(String.CASE_INSENSITIVE_ORDER);
+    private CachedOutputStream body;
+
+    // touched by the selector thread only
+    int attempts;
+    long queuedAt;
+    long writtenAt;
+
+    private boolean done;
+    private int responseCode = -1;
+    private String responseMessage;
+    private Map<String, List<String>> responseHeaders = Collections.emptyMap();
+    private CachedOutputStream responseBody;
+    private IOException exception;
+    private Runnable listener;
+
+    /**
+     * @param method the request method
+     * @param uri the http URI of the request
+     * @param proxy the address of the HTTP proxy the request is sent through, or null
+     * @param connectTimeout the time allowed to connect, 0 means no limit
+     * @param receiveTimeout the time allowed between two reads of the response, 0 means
+     * no limit
+     */
+    public NioHTTPExchange(String method, URI uri, InetSocketAddress proxy,
+                           int connectTimeout, int receiveTimeout) {
+        this.method = method;
+        this.uri = uri;
+        this.proxied = proxy != null;
+        this.address = proxied ? proxy : new InetSocketAddress(uri.getHost(), getPort(uri));
+        this.connectTimeout = connectTimeout;
+        this.receiveTimeout = receiveTimeout;
+    }
+
+    private static int getPort(URI uri) {
+        return uri.getPort() == -1 ? 80 : uri.getPort();
+    }
+
+    public String getMethod() {
+        return method;
+    }
+
+    public URI getURI() {
+        return uri;
+    }
+
+    public InetSocketAddress getAddress() {
+        return address;
+    }
+
+    public boolean isProxied() {
+        return proxied;
+    }
+
+    public int getConnectTimeout() {
+        return connectTimeout;
+    }
+
+    public int getReceiveTimeout() {
+        return receiveTimeout;
+    }
+
+    /**
+     * @return the request headers, the framing headers Host, Content-Length and
+     * Transfer-Encoding are set by the client
+     */
+    public Map<String, List<String>> getRequestHeaders() {
+        return headers;
+    }
+
+    public void addRequestHeader(String name, String value) {
+        List<String> values = headers.get(name);
+        if (values == null) {
+            values = new ArrayList<String>();
+            headers.put(name, values);
+        }
+        values.add(value);
+    }
+
+    /**
+     * Creates the stream the content of the request is written to, replacing the
+     * content that was written before.
+     */
+    public CachedOutputStream createRequestBody() {
+        releaseRequestBody();
+        body = new CachedOutputStream();
+        // the content is read again if the request is resent on a new connection
+        body.holdTempFile();
+        return body;
+    }
+
+    boolean hasRequestBody() {
+        return body != null;
+    }
+
+    InputStream openRequestBody() throws IOException {
+        InputStream in = body.getInputStream();
+        return in == null ? new ByteArrayInputStream(new byte[0]) : in;
+    }
+
+    void releaseRequestBody() {
+        CachedOutputStream b = body;
+        body = null;
+        if (b != null) {
+            b.releaseTempFileHold();
+            try {
+                b.close();
+            } catch (IOException e) {
+                // ignore
+            }
+        }
+    }
+
+    /**
+     * @return true if the connection must not be used again after this exchange
+     */
+    boolean isConnectionClose() {
+        return containsToken(headers.get(HttpHeaderHelper.CONNECTION), HttpHeaderHelper.CLOSE);
+    }
+
+    static boolean containsToken(List<String> values, String token) {
+        if (values != null) {
+            for (String value : values) {
+                for (String s : value.split(",")) {
+                    if (token.equalsIgnoreCase(s.trim())) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Encodes the request line and the headers.
+     */
+    ByteBuffer encodeHead() throws IOException {
+        StringBuilder b = new StringBuilder(256);
+        b.append(method).append(' ');
+        if (proxied) {
+            b.append(uri.toASCIIString());
+        } else {
+            String path = uri.getRawPath();
+            b.append(path == null || path.length() == 0 ? "/" : path);
+            if (uri.getRawQuery() != null) {
+                b.append('?').append(uri.getRawQuery());
+            }
+        }
+        b.append(" HTTP/1.1").append(CRLF);
+        if (!headers.containsKey("Host")) {
+            b.append("Host: ").append(uri.getHost());
+            if (uri.getPort() != -1) {
+                b.append(':').append(uri.getPort());
+            }
+            b.append(CRLF);
+        }
+        for (Map.Entry<String, List<String>> e : headers.entrySet()) {
+            String name = e.getKey();
+            if (HttpHeaderHelper.CONTENT_LENGTH.equalsIgnoreCase(name)
+                || HttpHeaderHelper.TRANSFER_ENCODING.equalsIgnoreCase(name)) {
+                continue;
+            }
+            for (String value : e.getValue()) {
+                checkHeader(name);
+                checkHeader(value);
+                b.append(name).append(": ").append(value).append(CRLF);
+            }
+        }
+        if (body != null) {
+            b.append(HttpHeaderHelper.CONTENT_LENGTH).append(": ").append(body.size()).append(CRLF);
+        } else if ("POST".equals(method) || "PUT".equals(method)) {
+            b.append(HttpHeaderHelper.CONTENT_LENGTH).append(": 0").append(CRLF);
+        }
+        b.append(CRLF);
+        try {
+            return ByteBuffer.wrap(b.toString().getBytes("ISO-8859-1"));
+        } catch (UnsupportedEncodingException e) {
+            throw new IOException(e);
+        }
+    }
+
+    private static void checkHeader(String s) throws IOException {
+        if (s.indexOf('\r') != -1 || s.indexOf('\n') != -1) {
+            throw new IOException("Invalid line break in the HTTP header " + s);
+        }
+    }
+
+    /**
+     * Sets the action run once the response is received or the exchange has failed.  The
+     * action is run by the selector thread of the client, so it must hand any blocking
+     * work to another thread.  It is run right away if the exchange is already done.
+     */
+    public void setListener(Runnable r) {
+        synchronized (this) {
+            if (!done) {
+                listener = r;
+                return;
+            }
+        }
+        r.run();
+    }
+
+    public synchronized boolean isDone() {
+        return done;
+    }
+
+    /**
+     * Waits until the response is received or the exchange has failed.  The client
+     * applies the connect and receive timeouts, so this does not time out on its own.
+     */
+    public synchronized void awaitResponse() throws IOException {
+        while (!done) {
+            if (NioHTTPClient.isSelectorThread()) {
+                throw new IOException("The response of " + uri
+                                      + " cannot be waited for on the selector thread");
+            }
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted waiting for the response of " + uri);
+            }
+        }
+        if (exception != null) {
+            // rethrown with the stack of the calling thread, keeping the type of a timeout
+            IOException ex;
+            if (exception instanceof SocketTimeoutException) {
+                ex = new SocketTimeoutException(exception.getMessage());
+            } else if (exception instanceof ConnectException) {
+                ex = new ConnectException(exception.getMessage());
+            } else {
+                ex = new IOException(exception.getMessage());
+            }
+            ex.initCause(exception);
+            throw ex;
+        }
+    }
+
+    public int getResponseCode() throws IOException {
+        awaitResponse();
+        return responseCode;
+    }
+
+    public String getResponseMessage() throws IOException {
+        awaitResponse();
+        return responseMessage;
+    }
+
+    public Map<String, List<String>> getResponseHeaders() throws IOException {
+        awaitResponse();
+        return responseHeaders;
+    }
+
+    public String getResponseHeader(String name) throws IOException {
+        List<String> values = getResponseHeaders().get(name);
+        return values == null || values.isEmpty() ? null : values.get(0);
+    }
+
+    public long getResponseContentLength() throws IOException {
+        awaitResponse();
+        return responseBody == null ? 0 : responseBody.size();
+    }
+
+    /**
+     * @return the content of the response, which can be read once
+     */
+    public InputStream getResponseStream() throws IOException {
+        awaitResponse();
+        CachedOutputStream b;
+        synchronized (this) {
+            b = responseBody;
+            responseBody = null;
+        }
+        if (b == null) {
+            return new ByteArrayInputStream(new byte[0]);
+        }
+        InputStream in = b.getInputStream();
+        // the content stays readable until the stream is closed
+        b.close();
+        return in;
+    }
+
+    /**
+     * Releases the content of the response if it was not read.
+     */
+    public void discardResponse() {
+        CachedOutputStream b;
+        synchronized (this) {
+            b = responseBody;
+            responseBody = null;
+        }
+        if (b != null) {
+            try {
+                b.close();
+            } catch (IOException e) {
+                // ignore
+            }
+        }
+    }
+
+    void complete(int code, String message, Map<String, List<String>> hdrs,
+                  CachedOutputStream content) {
+        Runnable r;
+        synchronized (this) {
+            if (done) {
+                return;
+            }
+            responseCode = code;
+            responseMessage = message;
+            responseHeaders = hdrs;
+            responseBody = content;
+            r = finish();
+        }
+        releaseRequestBody();
+        runListener(r);
+    }
+
+    void fail(IOException ex) {
+        Runnable r;
+        synchronized (this) {
+            if (done) {
+                return;
+            }
+            exception = ex;
+            r = finish();
+        }
+        releaseRequestBody();
+        runListener(r);
+    }
+
+    private Runnable finish() {
+        done = true;
+        notifyAll();
+        Runnable r = listener;
+        listener = null;
+        return r;
+    }
+
+    private void runListener(Runnable r) {
+        if (r != null) {
+            try {
+                r.run();
+            } catch (RuntimeException e) {
+                LOG.log(Level.WARNING, "LISTENER_FAILED", e);
+            }
+        }
+    }
+
+    public String toString() {
+        return method + " " + uri;
+    }
+}
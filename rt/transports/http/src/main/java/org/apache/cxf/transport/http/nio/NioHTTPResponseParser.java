@@ -0,0 +1,331 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.transport.http.nio;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.apache.cxf.helpers.HttpHeaderHelper;
+import org.apache.cxf.io.CachedOutputStream;
+
+/**
+ * Incrementally parses the HTTP/1.1 responses read from a connection.  The content is
+ * collected in a CachedOutputStream, so a large response is spilled to a temp file
+ * rather than held in memory.
+ */
+final class NioHTTPResponseParser {
+    private static final int MAX_LINE_LENGTH = 8192;
+    private static final int MAX_HEADERS_LENGTH = 65536;
+
+    private enum State {
+        STATUS, HEADERS, CONTENT, CHUNK_SIZE, CHUNK, CHUNK_END, TRAILERS, CONTENT_TO_EOF, DONE
+    }
+
+    private State state = State.STATUS;
+    private final StringBuilder line = new StringBuilder(128);
+    private int headersLength;
+    private boolean headRequest;
+    private boolean started;
+
+    private String version;
+    private int code;
+    private String message;
+    private Map<String, List<String>> headers;
+    private String lastHeader;
+    private long remaining;
+    private boolean keepAlive;
+    private CachedOutputStream content;
+
+    /**
+     * Prepares for the response of the next request.
+     * @param head true if the request is a HEAD request, whose response has no content
+     */
+    void reset(boolean head) {
+        state = State.STATUS;
+        headRequest = head;
+        started = false;
+        startResponse();
+    }
+
+    private void startResponse() {
+        line.setLength(0);
+        headersLength = 0;
+        version = null;
+        code = -1;
+        message = null;
+        headers = new TreeMap<String, List<String>>(String.CASE_INSENSITIVE_ORDER);
+        lastHeader = null;
+        remaining = 0;
+        keepAlive = false;
+        content = null;
+    }
+
+    /**
+     * @return true if a byte of the response was read
+     */
+    boolean isStarted() {
+        return started;
+    }
+
+    /**
+     * Consumes the bytes of the buffer that belong to the current response.
+     * @return true if the response is complete, the bytes that follow it are left
+     * in the buffer
+     */
+    boolean parse(ByteBuffer in) throws IOException {
+        if (in.hasRemaining()) {
+            started = true;
+        }
+        while (in.hasRemaining() && state != State.DONE) {
+            switch (state) {
+            case CONTENT:
+            case CHUNK:
+                int n = (int)Math.min(remaining, in.remaining());
+                writeContent(in, n);
+                remaining -= n;
+                if (remaining == 0) {
+                    state = state == State.CONTENT ? State.DONE : State.CHUNK_END;
+                }
+                break;
+            case CONTENT_TO_EOF:
+                writeContent(in, in.remaining());
+                break;
+            default:
+                String l = readLine(in);
+                if (l != null) {
+                    processLine(l);
+                }
+            }
+        }
+        return state == State.DONE;
+    }
+
+    /**
+     * Called once the server has closed the connection.
+     * @return true if that completes the response
+     */
+    boolean parseEnd() {
+        if (state == State.CONTENT_TO_EOF) {
+            state = State.DONE;
+        }
+        return state == State.DONE;
+    }
+
+    private void writeContent(ByteBuffer in, int n) throws IOException {
+        if (content == null) {
+            content = new CachedOutputStream();
+        }
+        if (in.hasArray()) {
+            content.write(in.array(), in.arrayOffset() + in.position(), n);
+            in.position(in.position() + n);
+        } else {
+            byte[] b = new byte[n];
+            in.get(b);
+            content.write(b);
+        }
+    }
+
+    private String readLine(ByteBuffer in) throws IOException {
+        while (in.hasRemaining()) {
+            char c = (char)(in.get() & 0xFF);
+            if (c == '\n') {
+                int len = line.length();
+                if (len > 0 && line.charAt(len - 1) == '\r') {
+                    line.setLength(len - 1);
+                }
+                String l = line.toString();
+                line.setLength(0);
+                return l;
+            }
+            line.append(c);
+            if (state == State.HEADERS || state == State.TRAILERS) {
+                headersLength++;
+            }
+            if (line.length() > MAX_LINE_LENGTH || headersLength > MAX_HEADERS_LENGTH) {
+                throw new IOException("The HTTP response header is too large");
+            }
+        }
+        return null;
+    }
+
+    private void processLine(String l) throws IOException {
+        switch (state) {
+        case STATUS:
+            if (l.length() > 0) {
+                parseStatusLine(l);
+                state = State.HEADERS;
+            }
+            break;
+        case HEADERS:
+            if (l.length() == 0) {
+                endHeaders();
+            } else {
+                parseHeader(l);
+            }
+            break;
+        case CHUNK_SIZE:
+            int idx = l.indexOf(';');
+            try {
+                remaining = Long.parseLong((idx == -1 ? l : l.substring(0, idx)).trim(), 16);
+            } catch (NumberFormatException e) {
+                throw new IOException("Invalid chunk size " + l);
+            }
+            if (remaining < 0) {
+                throw new IOException("Invalid chunk size " + l);
+            }
+            state = remaining == 0 ? State.TRAILERS : State.CHUNK;
+            break;
+        case CHUNK_END:
+            if (l.length() != 0) {
+                throw new IOException("Missing line break after a chunk");
+            }
+            state = State.CHUNK_SIZE;
+            break;
+        case TRAILERS:
+            if (l.length() == 0) {
+                state = State.DONE;
+            }
+            break;
+        default:
+            break;
+        }
+    }
+
+    private void parseStatusLine(String l) throws IOException {
+        int sp1 = l.indexOf(' ');
+        if (!l.startsWith("HTTP/") || sp1 == -1) {
+            throw new IOException("Invalid HTTP status line " + l);
+        }
+        int sp2 = l.indexOf(' ', sp1 + 1);
+        version = l.substring(0, sp1);
+        try {
+            code = Integer.parseInt(sp2 == -1 ? l.substring(sp1 + 1) : l.substring(sp1 + 1, sp2));
+        } catch (NumberFormatException e) {
+            throw new IOException("Invalid HTTP status line " + l);
+        }
+        message = sp2 == -1 ? "" : l.substring(sp2 + 1);
+    }
+
+    private void parseHeader(String l) throws IOException {
+        char c = l.charAt(0);
+        if ((c == ' ' || c == '\t') && lastHeader != null) {
+            // a folded line continues the previous value
+            List<String> values = headers.get(lastHeader);
+            int last = values.size() - 1;
+            values.set(last, values.get(last) + " " + l.trim());
+            return;
+        }
+        int idx = l.indexOf(':');
+        if (idx <= 0) {
+            throw new IOException("Invalid HTTP header " + l);
+        }
+        lastHeader = l.substring(0, idx).trim();
+        List<String> values = headers.get(lastHeader);
+        if (values == null) {
+            values = new ArrayList<String>(1);
+            headers.put(lastHeader, values);
+        }
+        values.add(l.substring(idx + 1).trim());
+    }
+
+    private void endHeaders() throws IOException {
+        if (code >= 100 && code < 200) {
+            // an interim response such as 100 Continue, the final one follows
+            startResponse();
+            state = State.STATUS;
+            return;
+        }
+        List<String> connection = headers.get(HttpHeaderHelper.CONNECTION);
+        if ("HTTP/1.0".equals(version)) {
+            keepAlive = NioHTTPExchange.containsToken(connection, "keep-alive");
+        } else {
+            keepAlive = !NioHTTPExchange.containsToken(connection, HttpHeaderHelper.CLOSE);
+        }
+        if (headRequest || code == 204 || code == 304) {
+            state = State.DONE;
+        } else if (NioHTTPExchange.containsToken(headers.get(HttpHeaderHelper.TRANSFER_ENCODING),
+                                                 HttpHeaderHelper.CHUNKED)) {
+            state = State.CHUNK_SIZE;
+        } else if (headers.containsKey(HttpHeaderHelper.CONTENT_LENGTH)) {
+            String length = headers.get(HttpHeaderHelper.CONTENT_LENGTH).get(0);
+            try {
+                remaining = Long.parseLong(length.trim());
+            } catch (NumberFormatException e) {
+                throw new IOException("Invalid Content-Length " + length);
+            }
+            if (remaining < 0) {
+                throw new IOException("Invalid Content-Length " + remaining);
+            }
+            state = remaining == 0 ? State.DONE : State.CONTENT;
+        } else {
+            // the content ends when the server closes the connection
+            keepAlive = false;
+            state = State.CONTENT_TO_EOF;
+        }
+    }
+
+    int getCode() {
+        return code;
+    }
+
+    String getMessage() {
+        return message;
+    }
+
+    Map<String, List<String>> getHeaders() {
+        return headers;
+    }
+
+    /**
+     * @return true if the connection can be used for another request
+     */
+    boolean isKeepAlive() {
+        return keepAlive;
+    }
+
+    /**
+     * @return the content of the response, or null if it has none, which the caller then owns
+     */
+    CachedOutputStream takeContent() throws IOException {
+        CachedOutputStream c = content;
+        content = null;
+        if (c != null) {
+            c.flush();
+        }
+        return c;
+    }
+
+    /**
+     * Releases the content of an incomplete response.
+     */
+    void discard() {
+        if (content != null) {
+            try {
+                content.close();
+            } catch (IOException e) {
+                // ignore
+            }
+            content = null;
+        }
+    }
+}
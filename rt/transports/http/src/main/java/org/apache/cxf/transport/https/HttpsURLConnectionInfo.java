@@ -22,6 +22,7 @@ package org.apache.cxf.transport.https;
 import java.io.IOException;
 import java.lang.reflect.Method;
 import java.net.HttpURLConnection;
+import java.net.URL;
 import java.security.Principal;
 import java.security.cert.Certificate;
 
@@ -112,6 +113,26 @@ public class HttpsURLConnectionInfo extends HttpURLConnectionInfo {
         }
     }
 
+    /**
+     * This constructor is used for a connection that is not made by
+     * an HttpURLConnection, the TLS information is null for a plain
+     * http connection.
+     */
+    public HttpsURLConnectionInfo(URL url,
+                                  String method,
+                                  String cipherSuite,
+                                  Certificate[] localCerts,
+                                  Principal principal,
+                                  Certificate[] serverCerts,
+                                  Principal peer) {
+        super(url, method);
+        enabledCipherSuite = cipherSuite;
+        localCertificates = localCerts;
+        localPrincipal = principal;
+        serverCertificates = serverCerts;
+        peerPrincipal = peer;
+    }
+
     /**
      * This method returns the cipher suite employed in this
      * HttpsURLConnection.
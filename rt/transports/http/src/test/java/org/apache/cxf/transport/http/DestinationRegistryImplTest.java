@@ -24,6 +24,7 @@ import java.util.Set;
 import javax.xml.namespace.QName;
 
 import org.apache.cxf.service.model.EndpointInfo;
+import org.apache.cxf.transport.AbstractDestination;
 import org.apache.cxf.transport.MessageObserver;
 import org.easymock.EasyMock;
 import org.easymock.IMocksControl;
@@ -121,6 +122,61 @@ public class DestinationRegistryImplTest extends Assert {
         
     }
 
+    @Test
+    public void testCheckRestfulRequestWithRoot() throws Exception {
+        AbstractHTTPDestination root = createDestination("/");
+        AbstractHTTPDestination soap = createDestination("/soap/");
+        AbstractHTTPDestination test = createDestination("/soap/test");
+        control.replay();
+        registry.addDestination(root);
+        registry.addDestination(soap);
+        registry.addDestination(test);
+
+        assertSame(root, registry.checkRestfulRequest("/"));
+        assertSame(root, registry.checkRestfulRequest("/other/soap"));
+        assertSame(soap, registry.checkRestfulRequest("/soap"));
+        assertSame(soap, registry.checkRestfulRequest("/soap/tst"));
+        assertSame(test, registry.checkRestfulRequest("/soap/test/2"));
+        assertSame(root, registry.checkRestfulRequest("/soaptest"));
+
+        registry.removeDestination("/soap/");
+        assertSame(test, registry.checkRestfulRequest("/soap/test"));
+        assertSame(root, registry.checkRestfulRequest("/soap/tst"));
+        registry.removeDestination("/soap/test");
+        assertSame(root, registry.checkRestfulRequest("/soap/test"));
+        registry.removeDestination("/");
+        assertNull(registry.checkRestfulRequest("/soap/test"));
+        assertEquals(0, registry.getSortedDestinations().length);
+    }
+
+    @Test
+    public void testSortedDestinations() throws Exception {
+        AbstractHTTPDestination soap = createDestination("/soap");
+        AbstractHTTPDestination soap2 = createDestination("/soap2");
+        control.replay();
+        registry.addDestination(soap);
+        AbstractDestination[] sorted = registry.getSortedDestinations();
+        assertEquals(1, sorted.length);
+        assertSame(soap, sorted[0]);
+
+        registry.addDestination(soap2);
+        assertEquals(2, registry.getSortedDestinations().length);
+        registry.removeDestination("/soap");
+        sorted = registry.getSortedDestinations();
+        assertEquals(1, sorted.length);
+        assertSame(soap2, sorted[0]);
+    }
+
+    private AbstractHTTPDestination createDestination(String path) {
+        AbstractHTTPDestination destination = control.createMock(AbstractHTTPDestination.class);
+        EndpointInfo endpoint = new EndpointInfo();
+        endpoint.setAddress(path);
+        endpoint.setName(QNAME);
+        EasyMock.expect(destination.getEndpointInfo()).andReturn(endpoint).anyTimes();
+        EasyMock.expect(destination.getMessageObserver()).andReturn(observer).anyTimes();
+        return destination;
+    }
+
     private void setUpDestinations() {
         for (int i = 0; i < REGISTERED_PATHS.length; i++) {
             AbstractHTTPDestination destination = control.createMock(AbstractHTTPDestination.class);
@@ -23,6 +23,8 @@ import java.io.IOException;
 import org.apache.cxf.Bus;
 import org.apache.cxf.BusFactory;
 import org.apache.cxf.service.model.EndpointInfo;
+import org.apache.cxf.transport.Conduit;
+import org.apache.cxf.ws.addressing.EndpointReferenceType;
 
 import org.junit.Assert;
 import org.junit.Test;
@@ -44,5 +46,34 @@ public class HTTPTransportFactoryTest extends Assert {
             }
         }
     }
+    
+    @Test
+    public void testGetConduitFromFactory() throws Exception {
+        Bus bus = BusFactory.getDefaultBus();
+        HTTPTransportFactory factory = new HTTPTransportFactory(bus);
+        
+        EndpointInfo ei = new EndpointInfo();
+        ei.setAddress("http://nowhere.com/bar/foo");
+        Conduit conduit = factory.getConduit(ei);
+        assertTrue(conduit instanceof URLConnectionHTTPConduit);
+        assertFalse(conduit instanceof TestConduit);
+        
+        ei.setProperty(HTTPConduitFactory.class.getName(), new HTTPConduitFactory() {
+            public HTTPConduit createConduit(HTTPTransportFactory f, Bus b, 
+                                             EndpointInfo localInfo,
+                                             EndpointReferenceType target) throws IOException {
+                return new TestConduit(b, localInfo, target);
+            }
+        });
+        conduit = factory.getConduit(ei);
+        assertTrue(conduit instanceof TestConduit);
+        assertEquals("http://nowhere.com/bar/foo", ((HTTPConduit)conduit).getAddress());
+    }
+    
+    private static class TestConduit extends URLConnectionHTTPConduit {
+        TestConduit(Bus b, EndpointInfo ei, EndpointReferenceType t) throws IOException {
+            super(b, ei, t);
+        }
+    }
 
 }
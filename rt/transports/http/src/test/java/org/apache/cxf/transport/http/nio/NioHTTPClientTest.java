@@ -0,0 +1,345 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.transport.http.nio;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.cxf.helpers.IOUtils;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class NioHTTPClientTest extends Assert {
+    private TestServer server;
+    private NioHTTPClient client;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new TestServer();
+        client = new NioHTTPClient();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        client.shutdown();
+        server.close();
+    }
+
+    private NioHTTPExchange exchange(String method, String path, int receiveTimeout) throws Exception {
+        return new NioHTTPExchange(method, new URI("http://localhost:" + server.getPort() + path),
+                                   null, 5000, receiveTimeout);
+    }
+
+    private NioHTTPExchange post(String path, String content) throws Exception {
+        NioHTTPExchange ex = exchange("POST", path, 5000);
+        ex.addRequestHeader("Content-Type", "text/plain");
+        OutputStream out = ex.createRequestBody();
+        out.write(content.getBytes("UTF-8"));
+        out.close();
+        client.execute(ex);
+        return ex;
+    }
+
+    private static String read(NioHTTPExchange ex) throws IOException {
+        InputStream in = ex.getResponseStream();
+        try {
+            return IOUtils.toString(in);
+        } finally {
+            in.close();
+        }
+    }
+
+    @Test
+    public void testPost() throws Exception {
+        NioHTTPExchange ex = post("/echo", "hello");
+        assertEquals(200, ex.getResponseCode());
+        assertEquals("OK", ex.getResponseMessage());
+        assertEquals("text/plain", ex.getResponseHeader("content-type"));
+        assertEquals("POST /echo hello", read(ex));
+    }
+
+    @Test
+    public void testGetChunkedResponse() throws Exception {
+        NioHTTPExchange ex = exchange("GET", "/chunked?a=b", 5000);
+        client.execute(ex);
+        assertEquals(200, ex.getResponseCode());
+        assertEquals("GET /chunked?a=b ", read(ex));
+    }
+
+    @Test
+    public void testLargeContent() throws Exception {
+        StringBuilder b = new StringBuilder();
+        while (b.length() < 300000) {
+            b.append("0123456789");
+        }
+        NioHTTPExchange ex = post("/echo", b.toString());
+        assertEquals("POST /echo " + b, read(ex));
+    }
+
+    @Test
+    public void testConnectionReused() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            assertEquals("POST /echo " + i, read(post("/echo", Integer.toString(i))));
+        }
+        assertEquals(1, server.connections.get());
+    }
+
+    @Test
+    public void testClosedConnectionNotReused() throws Exception {
+        assertEquals("POST /close a", read(post("/close", "a")));
+        assertEquals("POST /close b", read(post("/close", "b")));
+        assertEquals(2, server.connections.get());
+    }
+
+    @Test
+    public void testIdleConnectionClosedByServer() throws Exception {
+        // the server closes the connection without saying so, the next request is sent
+        // again on a new connection
+        assertEquals("POST /drop a", read(post("/drop", "a")));
+        Thread.sleep(200);
+        assertEquals("POST /echo b", read(post("/echo", "b")));
+        assertEquals(2, server.connections.get());
+    }
+
+    @Test
+    public void testRequestResentOnClosedConnection() throws Exception {
+        // the request may be sent before the client sees the connection is closed
+        for (int i = 0; i < 20; i++) {
+            assertEquals("POST /drop " + i, read(post("/drop", Integer.toString(i))));
+        }
+        assertEquals(20, server.connections.get());
+    }
+
+    @Test
+    public void testPipelinedRequests() throws Exception {
+        client.setMaxConnectionsPerHost(1);
+        client.setMaxPipelinedRequests(4);
+        List<NioHTTPExchange> exchanges = new ArrayList<NioHTTPExchange>();
+        for (int i = 0; i < 4; i++) {
+            exchanges.add(post("/echo", Integer.toString(i)));
+        }
+        for (int i = 0; i < 4; i++) {
+            assertEquals("POST /echo " + i, read(exchanges.get(i)));
+        }
+        assertEquals(1, server.connections.get());
+    }
+
+    @Test
+    public void testRequestsWaitForAConnection() throws Exception {
+        client.setMaxConnectionsPerHost(2);
+        List<NioHTTPExchange> exchanges = new ArrayList<NioHTTPExchange>();
+        for (int i = 0; i < 10; i++) {
+            exchanges.add(post("/echo", Integer.toString(i)));
+        }
+        for (int i = 0; i < 10; i++) {
+            assertEquals("POST /echo " + i, read(exchanges.get(i)));
+        }
+        assertTrue(server.connections.get() <= 2);
+    }
+
+    @Test
+    public void testListener() throws Exception {
+        final int count = 50;
+        final CountDownLatch latch = new CountDownLatch(count);
+        final AtomicInteger ok = new AtomicInteger();
+        for (int i = 0; i < count; i++) {
+            final NioHTTPExchange ex = post("/echo", Integer.toString(i));
+            ex.setListener(new Runnable() {
+                public void run() {
+                    try {
+                        if (ex.isDone() && ex.getResponseCode() == 200) {
+                            ok.incrementAndGet();
+                        }
+                    } catch (IOException e) {
+                        // counted as a failure
+                    }
+                    latch.countDown();
+                }
+            });
+        }
+        assertTrue(latch.await(10, TimeUnit.SECONDS));
+        assertEquals(count, ok.get());
+    }
+
+    @Test
+    public void testReceiveTimeout() throws Exception {
+        NioHTTPExchange ex = exchange("GET", "/silent", 300);
+        client.execute(ex);
+        try {
+            ex.getResponseCode();
+            fail("the response should have timed out");
+        } catch (SocketTimeoutException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testConnectionRefused() throws Exception {
+        int port = server.getPort();
+        server.close();
+        NioHTTPExchange ex = new NioHTTPExchange("GET", new URI("http://localhost:" + port + "/"),
+                                                 null, 5000, 5000);
+        client.execute(ex);
+        try {
+            ex.getResponseCode();
+            fail("the connection should have been refused");
+        } catch (IOException e) {
+            // expected
+        }
+    }
+
+    /**
+     * A blocking HTTP/1.1 server that answers with the method, path and content of the
+     * request.
+     */
+    static class TestServer implements Runnable {
+        final ServerSocket socket;
+        final AtomicInteger connections = new AtomicInteger();
+        final List<Socket> sockets = new ArrayList<Socket>();
+
+        TestServer() throws IOException {
+            socket = new ServerSocket(0);
+            Thread t = new Thread(this);
+            t.setDaemon(true);
+            t.start();
+        }
+
+        int getPort() {
+            return socket.getLocalPort();
+        }
+
+        void close() throws IOException {
+            socket.close();
+            synchronized (sockets) {
+                for (Socket s : sockets) {
+                    s.close();
+                }
+            }
+        }
+
+        public void run() {
+            try {
+                while (true) {
+                    final Socket s = socket.accept();
+                    connections.incrementAndGet();
+                    synchronized (sockets) {
+                        sockets.add(s);
+                    }
+                    Thread t = new Thread(new Runnable() {
+                        public void run() {
+                            try {
+                                serve(s);
+                            } catch (IOException e) {
+                                // closed
+                            }
+                        }
+                    });
+                    t.setDaemon(true);
+                    t.start();
+                }
+            } catch (IOException e) {
+                // closed
+            }
+        }
+
+        private static String readLine(InputStream in) throws IOException {
+            StringBuilder b = new StringBuilder();
+            int c = in.read();
+            while (c != -1 && c != '\n') {
+                if (c != '\r') {
+                    b.append((char)c);
+                }
+                c = in.read();
+            }
+            return c == -1 && b.length() == 0 ? null : b.toString();
+        }
+
+        void serve(Socket s) throws IOException {
+            InputStream in = new BufferedInputStream(s.getInputStream());
+            OutputStream out = s.getOutputStream();
+            try {
+                while (true) {
+                    String requestLine = readLine(in);
+                    if (requestLine == null) {
+                        return;
+                    }
+                    String[] parts = requestLine.split(" ");
+                    int length = 0;
+                    String header = readLine(in);
+                    while (header != null && header.length() > 0) {
+                        if (header.toLowerCase().startsWith("content-length:")) {
+                            length = Integer.parseInt(header.substring(15).trim());
+                        }
+                        header = readLine(in);
+                    }
+                    ByteArrayOutputStream content = new ByteArrayOutputStream();
+                    for (int i = 0; i < length; i++) {
+                        content.write(in.read());
+                    }
+                    String path = parts[1];
+                    String body = parts[0] + " " + path + " " + content.toString("UTF-8");
+                    byte[] bytes = body.getBytes("UTF-8");
+                    if (path.startsWith("/silent")) {
+                        continue;
+                    } else if (path.startsWith("/redirect")) {
+                        out.write(("HTTP/1.1 302 Found\r\nLocation: http://localhost:" + getPort()
+                            + "/echo\r\nContent-Length: 0\r\n\r\n").getBytes("ISO-8859-1"));
+                    } else if (path.startsWith("/chunked")) {
+                        int half = bytes.length / 2;
+                        out.write(("HTTP/1.1 200 OK\r\nContent-Type: text/plain\r\n"
+                            + "Transfer-Encoding: chunked\r\n\r\n").getBytes("ISO-8859-1"));
+                        out.write((Integer.toHexString(half) + "\r\n").getBytes("ISO-8859-1"));
+                        out.write(bytes, 0, half);
+                        out.write(("\r\n" + Integer.toHexString(bytes.length - half) + "\r\n")
+                            .getBytes("ISO-8859-1"));
+                        out.write(bytes, half, bytes.length - half);
+                        out.write("\r\n0\r\n\r\n".getBytes("ISO-8859-1"));
+                    } else {
+                        boolean close = path.startsWith("/close");
+                        out.write(("HTTP/1.1 200 OK\r\nContent-Type: text/plain\r\n"
+                            + (close ? "Connection: close\r\n" : "")
+                            + "Content-Length: " + bytes.length + "\r\n\r\n").getBytes("ISO-8859-1"));
+                        out.write(bytes);
+                    }
+                    out.flush();
+                    if (path.startsWith("/close") || path.startsWith("/drop")) {
+                        return;
+                    }
+                }
+            } finally {
+                s.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,158 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.transport.http.nio;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.cxf.Bus;
+import org.apache.cxf.bus.CXFBusImpl;
+import org.apache.cxf.helpers.IOUtils;
+import org.apache.cxf.message.Exchange;
+import org.apache.cxf.message.ExchangeImpl;
+import org.apache.cxf.message.Message;
+import org.apache.cxf.message.MessageImpl;
+import org.apache.cxf.service.model.EndpointInfo;
+import org.apache.cxf.transport.MessageObserver;
+import org.apache.cxf.transport.http.HTTPConduit;
+import org.apache.cxf.transport.http.HTTPTransportFactory;
+import org.apache.cxf.transports.http.configuration.HTTPClientPolicy;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class NioHTTPConduitTest extends Assert {
+    private NioHTTPClientTest.TestServer server;
+    private Bus bus;
+    private NioHTTPConduitFactory factory;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new NioHTTPClientTest.TestServer();
+        bus = new CXFBusImpl();
+        factory = new NioHTTPConduitFactory(bus);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        factory.shutdown();
+        server.close();
+    }
+
+    private HTTPConduit createConduit(String address) throws Exception {
+        EndpointInfo ei = new EndpointInfo();
+        ei.setAddress(address);
+        return factory.createConduit(new HTTPTransportFactory(bus), bus, ei, null);
+    }
+
+    private Message send(HTTPConduit conduit, String content, boolean synchronous) throws Exception {
+        Message m = new MessageImpl();
+        Exchange exchange = new ExchangeImpl();
+        exchange.setOutMessage(m);
+        exchange.setSynchronous(synchronous);
+        exchange.put(Bus.class, bus);
+        exchange.put(Executor.class, new Executor() {
+            public void execute(Runnable r) {
+                new Thread(r).start();
+            }
+        });
+        m.setExchange(exchange);
+        m.put(Message.CONTENT_TYPE, "text/plain");
+        conduit.prepare(m);
+        OutputStream out = m.getContent(OutputStream.class);
+        out.write(content.getBytes("UTF-8"));
+        out.close();
+        return m;
+    }
+
+    @Test
+    public void testCreateConduit() throws Exception {
+        assertTrue(createConduit("http://localhost:" + server.getPort() + "/echo")
+                   instanceof NioHTTPConduit);
+        assertNull(createConduit("https://localhost:" + server.getPort() + "/echo"));
+    }
+
+    @Test
+    public void testSynchronousCall() throws Exception {
+        HTTPConduit conduit = createConduit("http://localhost:" + server.getPort() + "/echo");
+        final Message[] response = new Message[1];
+        conduit.setMessageObserver(new MessageObserver() {
+            public void onMessage(Message message) {
+                response[0] = message;
+            }
+        });
+        send(conduit, "hello", true);
+        assertNotNull(response[0]);
+        assertEquals(200, response[0].get(Message.RESPONSE_CODE));
+        assertEquals("text/plain", response[0].get(Message.CONTENT_TYPE));
+        assertEquals("POST /echo hello", IOUtils.toString(response[0].getContent(InputStream.class)));
+    }
+
+    @Test
+    public void testAsynchronousCall() throws Exception {
+        HTTPConduit conduit = createConduit("http://localhost:" + server.getPort() + "/echo");
+        final CountDownLatch latch = new CountDownLatch(1);
+        final String[] response = new String[1];
+        conduit.setMessageObserver(new MessageObserver() {
+            public void onMessage(Message message) {
+                try {
+                    response[0] = IOUtils.toString(message.getContent(InputStream.class));
+                } catch (Exception e) {
+                    response[0] = e.toString();
+                }
+                latch.countDown();
+            }
+        });
+        send(conduit, "hello", false);
+        assertTrue(latch.await(10, TimeUnit.SECONDS));
+        assertEquals("POST /echo hello", response[0]);
+    }
+
+    @Test
+    public void testAsynchronousRedirect() throws Exception {
+        HTTPConduit conduit = createConduit("http://localhost:" + server.getPort() + "/redirect");
+        HTTPClientPolicy policy = new HTTPClientPolicy();
+        policy.setAutoRedirect(true);
+        conduit.setClient(policy);
+        final CountDownLatch latch = new CountDownLatch(1);
+        final String[] response = new String[1];
+        conduit.setMessageObserver(new MessageObserver() {
+            public void onMessage(Message message) {
+                try {
+                    response[0] = IOUtils.toString(message.getContent(InputStream.class));
+                } catch (Exception e) {
+                    response[0] = e.toString();
+                }
+                latch.countDown();
+            }
+        });
+        // larger than the threshold, so the request cached for the redirect is in a temp file
+        StringBuilder content = new StringBuilder();
+        while (content.length() < 200 * 1024) {
+            content.append("0123456789");
+        }
+        send(conduit, content.toString(), false);
+        assertTrue(latch.await(10, TimeUnit.SECONDS));
+        assertEquals("POST /echo " + content, response[0]);
+    }
+}
@@ -68,6 +68,7 @@ public class JMSConduit extends AbstractConduit implements JMSExchangeSender, Me
     static final Logger LOG = LogUtils.getL7dLogger(JMSConduit.class);
     
     private static final String CORRELATED = JMSConduit.class.getName() + ".correlated";
+    private static final String REPLY_MESSAGE = JMSConduit.class.getName() + ".reply";
     
     private EndpointInfo endpointInfo;
     private JMSConfiguration jmsConfig;
@@ -186,10 +187,11 @@ public class JMSConduit extends AbstractConduit implements JMSExchangeSender, Me
 
         String correlationId = createCorrelationId(exchange, userCID);
         
+        final boolean sharedReplyListener = jmsConfig.isUseSharedReplyListener();
         Destination replyToDestination = null;
         if (!exchange.isOneWay() || !jmsConfig.isEnforceSpec() && isSetReplyTo(outMessage)
             && replyTo != null) {
-            if (exchange.isSynchronous() || exchange.isOneWay()) {
+            if (exchange.isOneWay() || exchange.isSynchronous() && !sharedReplyListener) {
                 replyToDestination = JMSFactory.resolveOrCreateDestination(jmsTemplate, replyTo,
                                                                            jmsConfig.isReplyPubSubDomain());
             } else {
@@ -217,7 +219,7 @@ public class JMSConduit extends AbstractConduit implements JMSExchangeSender, Me
                 jmsMessage = JMSUtils.buildJMSMessageFromCXFMessage(jmsConfig, outMessage, request,
                                                                     messageType, session, destination,
                                                                     cid);
-                if (!exchange.isSynchronous() && !exchange.isOneWay()) {
+                if (!exchange.isOneWay() && (!exchange.isSynchronous() || sharedReplyListener)) {
                     correlationMap.put(cid, exchange);
                 }
                 LOG.log(Level.FINE, "client sending request: ", jmsMessage);
@@ -248,8 +250,15 @@ public class JMSConduit extends AbstractConduit implements JMSExchangeSender, Me
                 }
                 headers.setJMSMessageID(messageCreator.getMessageID());
 
-                final String messageSelector = "JMSCorrelationID = '" + correlationId + "'";
-                if (exchange.isSynchronous()) {
+                if (exchange.isSynchronous() && sharedReplyListener) {
+                    javax.jms.Message replyMessage = waitForReply(exchange, correlationId);
+                    if (replyMessage == null) {
+                        throw new RuntimeException("Timeout receiving message with correlationId "
+                                                   + correlationId);
+                    }
+                    doReplyMessage(exchange, replyMessage);
+                } else if (exchange.isSynchronous()) {
+                    final String messageSelector = "JMSCorrelationID = '" + correlationId + "'";
                     javax.jms.Message replyMessage = jmsTemplate.receiveSelected(replyToDestination,
                                                                                  messageSelector);
                     if (replyMessage == null) {
@@ -277,12 +286,50 @@ public class JMSConduit extends AbstractConduit implements JMSExchangeSender, Me
         }
     }
 
+    /**
+     * Waits for the shared reply listener to hand over the reply. Must be called while
+     * holding the lock of the exchange.
+     */
+    private javax.jms.Message waitForReply(Exchange exchange, String correlationId) {
+        long deadline = System.currentTimeMillis() + getReplyTimeout();
+        javax.jms.Message replyMessage = (javax.jms.Message)exchange.remove(REPLY_MESSAGE);
+        try {
+            while (replyMessage == null) {
+                long remaining = deadline - System.currentTimeMillis();
+                if (remaining <= 0) {
+                    break;
+                }
+                exchange.wait(remaining);
+                replyMessage = (javax.jms.Message)exchange.remove(REPLY_MESSAGE);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (replyMessage == null) {
+            correlationMap.remove(correlationId);
+        }
+        return replyMessage;
+    }
+
+    /**
+     * @return how long to wait for a reply from the shared reply listener, the default
+     * client receive timeout when none is configured, as the wait is never unbounded
+     */
+    long getReplyTimeout() {
+        Long receiveTimeout = jmsConfig.getReceiveTimeout();
+        if (receiveTimeout == null || receiveTimeout.longValue() <= 0) {
+            return JMSConfiguration.DEFAULT_RECEIVE_TIMEOUT;
+        }
+        return receiveTimeout.longValue();
+    }
+
     private String createCorrelationId(final Exchange exchange, String userCID) {
         String correlationId = null;
         if (!exchange.isOneWay()) {
             if (userCID != null) {
                 correlationId = userCID;
             } else if (!jmsConfig.isSetConduitSelectorPrefix()
+                       && !jmsConfig.isUseSharedReplyListener()
                        && (exchange.isSynchronous() || exchange.isOneWay())
                        && (!jmsConfig.isSetUseConduitIdSelector() 
                            || !jmsConfig.isUseConduitIdSelector())) {
@@ -367,6 +414,14 @@ public class JMSConduit extends AbstractConduit implements JMSExchangeSender, Me
             LOG.log(Level.WARNING, "Could not correlate message with correlationId " + correlationId);
             return;
         }
+        if (exchange.isSynchronous()) {
+            // the reply is processed by the thread waiting in sendExchange
+            synchronized (exchange) {
+                exchange.put(REPLY_MESSAGE, jmsMessage);
+                exchange.notifyAll();
+            }
+            return;
+        }
         doReplyMessage(exchange, jmsMessage);
     }
 
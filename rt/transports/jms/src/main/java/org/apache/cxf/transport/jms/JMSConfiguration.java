@@ -27,6 +27,7 @@ import org.apache.cxf.configuration.ConfigurationException;
 import org.springframework.beans.factory.InitializingBean;
 import org.springframework.beans.factory.annotation.Required;
 import org.springframework.core.task.TaskExecutor;
+import org.springframework.jms.connection.CachingConnectionFactory;
 import org.springframework.jms.connection.SingleConnectionFactory;
 import org.springframework.jms.core.JmsTemplate;
 import org.springframework.jms.listener.AbstractMessageListenerContainer;
@@ -43,6 +44,10 @@ public class JMSConfiguration implements InitializingBean {
     public static final int DEFAULT_VALUE = -1;
 
     static final boolean DEFAULT_USEJMS11 = true;
+    /**
+     * The default of clientReceiveTimeout in the jms.xsd.
+     */
+    static final long DEFAULT_RECEIVE_TIMEOUT = 60000L;
 
     private boolean usingEndpointInfo = true;
 
@@ -93,6 +98,8 @@ public class JMSConfiguration implements InitializingBean {
     private boolean pubSubDomain;
     private boolean replyPubSubDomain;
     private Boolean useConduitIdSelector;
+    private boolean useSharedReplyListener;
+    private int sessionCacheSize = DEFAULT_VALUE;
     private String conduitSelectorPrefix;
     private boolean autoResolveDestination;
     private long recoveryInterval = DEFAULT_VALUE;
@@ -411,6 +418,32 @@ public class JMSConfiguration implements InitializingBean {
         return useConduitIdSelector != null;
     }
 
+    /**
+     * If true the conduit receives the replies to synchronous requests with one long lived
+     * listener and hands them to the waiting callers by correlation id, instead of creating
+     * a consumer with a message selector for every request. The sessions and producers
+     * used to send the requests are then cached across calls.
+     */
+    public void setUseSharedReplyListener(boolean useSharedReplyListener) {
+        this.useSharedReplyListener = useSharedReplyListener;
+    }
+
+    public boolean isUseSharedReplyListener() {
+        return useSharedReplyListener;
+    }
+
+    /**
+     * The number of sessions cached when useSharedReplyListener is set,
+     * the default is the one of the Spring CachingConnectionFactory.
+     */
+    public void setSessionCacheSize(int sessionCacheSize) {
+        this.sessionCacheSize = sessionCacheSize;
+    }
+
+    public int getSessionCacheSize() {
+        return sessionCacheSize;
+    }
+
     public void setJndiTemplate(JndiTemplate jndiTemplate) {
         this.jndiTemplate = jndiTemplate;
     }
@@ -459,11 +492,7 @@ public class JMSConfiguration implements InitializingBean {
             if (wrapInSingleConnectionFactory && !(connectionFactory instanceof SingleConnectionFactory)) {
                 SingleConnectionFactory scf;
                 if (useJms11) {
-                    if (connectionFactory instanceof XAConnectionFactory) {
-                        scf = new XASingleConnectionFactory(connectionFactory);
-                    } else {
-                        scf = new SingleConnectionFactory(connectionFactory);
-                    }
+                    scf = createJms11ConnectionFactory();
                     autoWrappedConnectionFactory = true;
                 } else {
                     @SuppressWarnings("deprecation")
@@ -484,6 +513,21 @@ public class JMSConfiguration implements InitializingBean {
         return wrappedConnectionFactory;
     }
 
+    private SingleConnectionFactory createJms11ConnectionFactory() {
+        if (connectionFactory instanceof XAConnectionFactory) {
+            return new XASingleConnectionFactory(connectionFactory);
+        } else if (useSharedReplyListener) {
+            CachingConnectionFactory ccf = new CachingConnectionFactory(connectionFactory);
+            // consumers are only created by the long lived listeners
+            ccf.setCacheConsumers(false);
+            if (sessionCacheSize != DEFAULT_VALUE) {
+                ccf.setSessionCacheSize(sessionCacheSize);
+            }
+            return ccf;
+        }
+        return new SingleConnectionFactory(connectionFactory);
+    }
+
     public ConnectionFactory getWrappedConnectionFactory() {
         return wrappedConnectionFactory;
     }
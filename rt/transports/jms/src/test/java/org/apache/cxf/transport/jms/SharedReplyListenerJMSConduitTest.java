@@ -0,0 +1,168 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.transport.jms;
+
+import java.io.Reader;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import javax.jms.ConnectionFactory;
+import javax.jms.JMSException;
+import javax.jms.Session;
+import javax.jms.TextMessage;
+
+import org.apache.activemq.pool.PooledConnectionFactory;
+import org.apache.cxf.Bus;
+import org.apache.cxf.BusFactory;
+import org.apache.cxf.helpers.IOUtils;
+import org.apache.cxf.message.Exchange;
+import org.apache.cxf.message.ExchangeImpl;
+import org.apache.cxf.message.Message;
+import org.apache.cxf.message.MessageImpl;
+import org.apache.cxf.service.model.EndpointInfo;
+import org.apache.cxf.ws.addressing.EndpointReferenceType;
+import org.junit.Assert;
+import org.junit.Test;
+
+import org.springframework.jms.core.JmsTemplate;
+import org.springframework.jms.core.MessageCreator;
+
+/**
+ * Checks that synchronous requests sent concurrently through one conduit get their own
+ * replies when the replies are received by the shared reply listener
+ */
+public class SharedReplyListenerJMSConduitTest {
+    private static final String BROKER_URI = "vm:localhost?broker.persistent=false";
+    private static final int THREADS = 4;
+    private static final int CALLS = 25;
+    private static final long TIMEOUT = 10000L;
+    
+    @Test
+    public void testConcurrentSynchronousCalls() throws Exception {
+        BusFactory bf = BusFactory.newInstance();
+        Bus bus = bf.createBus();
+        BusFactory.setDefaultBus(bus);
+        final ConnectionFactory connectionFactory = new PooledConnectionFactory(BROKER_URI);
+        
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS + 1);
+        Future<?> echoer = executor.submit(new Runnable() {
+            public void run() {
+                for (int i = 0; i < THREADS * CALLS; i++) {
+                    echo(connectionFactory);
+                }
+            }
+        });
+
+        JMSConfiguration jmsConfig = new JMSConfiguration();
+        jmsConfig.setTargetDestination("queue:test.shared");
+        jmsConfig.setReplyDestination("queue:test.shared.reply");
+        jmsConfig.setConnectionFactory(connectionFactory);
+        jmsConfig.setReceiveTimeout(TIMEOUT);
+        jmsConfig.setUseSharedReplyListener(true);
+        final JMSConduit conduit = new JMSConduit(new EndpointInfo(), new EndpointReferenceType(), 
+                                                  jmsConfig, bus);
+        
+        Future<?>[] callers = new Future<?>[THREADS];
+        for (int t = 0; t < THREADS; t++) {
+            final String prefix = "Request " + t + "-";
+            callers[t] = executor.submit(new Runnable() {
+                public void run() {
+                    for (int i = 0; i < CALLS; i++) {
+                        Exchange exchange = new ExchangeImpl();
+                        exchange.setSynchronous(true);
+                        Message message = new MessageImpl();
+                        exchange.setOutMessage(message);
+                        conduit.sendExchange(exchange, prefix + i);
+                        try {
+                            Assert.assertEquals(prefix + i, IOUtils.toString(exchange.getInMessage()
+                                .getContent(Reader.class)));
+                        } catch (Exception e) {
+                            throw new RuntimeException(e);
+                        }
+                    }
+                }
+            });
+        }
+        try {
+            // a failure in any of the threads fails the test
+            for (Future<?> caller : callers) {
+                caller.get(60, TimeUnit.SECONDS);
+            }
+            echoer.get(60, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+            conduit.close();
+            bus.shutdown(true);
+        }
+    }
+
+    @Test
+    public void testReplyTimeout() throws Exception {
+        BusFactory bf = BusFactory.newInstance();
+        Bus bus = bf.createBus();
+        BusFactory.setDefaultBus(bus);
+        JMSConfiguration jmsConfig = new JMSConfiguration();
+        jmsConfig.setTargetDestination("queue:test.shared.timeout");
+        jmsConfig.setReplyDestination("queue:test.shared.timeout.reply");
+        jmsConfig.setConnectionFactory(new PooledConnectionFactory(BROKER_URI));
+        jmsConfig.setUseSharedReplyListener(true);
+        JMSConduit conduit = new JMSConduit(new EndpointInfo(), new EndpointReferenceType(), 
+                                            jmsConfig, bus);
+        try {
+            // no receive timeout means the default one, the wait is never unbounded
+            Assert.assertEquals(JMSConfiguration.DEFAULT_RECEIVE_TIMEOUT, conduit.getReplyTimeout());
+            jmsConfig.setReceiveTimeout(0L);
+            Assert.assertEquals(JMSConfiguration.DEFAULT_RECEIVE_TIMEOUT, conduit.getReplyTimeout());
+            
+            jmsConfig.setReceiveTimeout(500L);
+            Exchange exchange = new ExchangeImpl();
+            exchange.setSynchronous(true);
+            exchange.setOutMessage(new MessageImpl());
+            try {
+                conduit.sendExchange(exchange, "Request without a reply");
+                Assert.fail("The request should have timed out");
+            } catch (RuntimeException e) {
+                Assert.assertTrue(e.getMessage().startsWith("Timeout receiving message"));
+            }
+        } finally {
+            conduit.close();
+            bus.shutdown(true);
+        }
+    }
+
+    private static void echo(ConnectionFactory connectionFactory) {
+        JmsTemplate template = new JmsTemplate(connectionFactory);
+        template.setReceiveTimeout(TIMEOUT);
+        final TextMessage request = (TextMessage)template.receive("queue:test.shared");
+        Assert.assertNotNull("No request received", request);
+        try {
+            template.send(request.getJMSReplyTo(), new MessageCreator() {
+                public javax.jms.Message createMessage(Session session) throws JMSException {
+                    TextMessage replyMessage = session.createTextMessage(request.getText());
+                    replyMessage.setJMSCorrelationID(request.getJMSCorrelationID());
+                    return replyMessage;
+                }
+            });
+        } catch (JMSException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
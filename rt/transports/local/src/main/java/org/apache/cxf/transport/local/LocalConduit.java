@@ -19,21 +19,62 @@
 
 package org.apache.cxf.transport.local;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.NotSerializableException;
+import java.io.ObjectStreamClass;
 import java.io.OutputStream;
 import java.io.PipedInputStream;
 import java.io.PipedOutputStream;
+import java.io.Serializable;
+import java.lang.reflect.Array;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
 import java.util.concurrent.Executor;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 
+import javax.xml.namespace.QName;
+
 import org.apache.cxf.common.logging.LogUtils;
+import org.apache.cxf.common.util.ReflectionUtil;
+import org.apache.cxf.interceptor.Interceptor;
+import org.apache.cxf.interceptor.InterceptorChain;
+import org.apache.cxf.interceptor.MessageSenderInterceptor;
+import org.apache.cxf.interceptor.SecurityInterceptor;
 import org.apache.cxf.io.AbstractWrappedOutputStream;
 import org.apache.cxf.io.CachedOutputStream;
 import org.apache.cxf.message.Exchange;
 import org.apache.cxf.message.ExchangeImpl;
 import org.apache.cxf.message.Message;
+import org.apache.cxf.message.MessageContentsList;
 import org.apache.cxf.message.MessageImpl;
+import org.apache.cxf.message.MessageUtils;
+import org.apache.cxf.phase.Phase;
+import org.apache.cxf.phase.PhaseInterceptor;
+import org.apache.cxf.service.model.BindingOperationInfo;
 import org.apache.cxf.transport.AbstractConduit;
 import org.apache.cxf.workqueue.SynchronousExecutor;
 
@@ -43,12 +84,47 @@ public class LocalConduit extends AbstractConduit {
     public static final String RESPONSE_CONDUIT = LocalConduit.class.getName() + ".inConduit";
     public static final String IN_EXCHANGE = LocalConduit.class.getName() + ".inExchange";
     public static final String DIRECT_DISPATCH = LocalConduit.class.getName() + ".directDispatch";
+    /**
+     * Hands the MessageContentsList of the request and the response across as it is, instead of
+     * marshalling it to a stream and parsing it again. The interceptors of the stream and
+     * marshalling phases are skipped on both sides, except for the ones marked as
+     * {@link SecurityInterceptor}. The interceptors of the protocol phases still run, but there 
+     * is no SOAP envelope: the SAAJInInterceptor leaves the SOAPMessage empty, so JAX-WS SOAP 
+     * handlers and WS-Security see a message without a body. Endpoints whose handlers need 
+     * the body must not enable object dispatch. This is only done if the endpoint enables it,
+     * by setting this property on the endpoint or its EndpointInfo, as the server then trusts
+     * the client with the objects. It is only done for the frontends that invoke an operation
+     * of the service model, like JAX-WS and the simple frontend, and requires the client and
+     * the server to use the same classes for the parameters. Other messages, like the ones of
+     * JAX-RS, which reads the entities from the stream, are sent with DIRECT_DISPATCH instead.
+     */
+    public static final String OBJECT_DISPATCH = LocalConduit.class.getName() + ".objectDispatch";
+    /**
+     * With OBJECT_DISPATCH, hands over copies of the parameters and the results rather than the
+     * instances of the caller. Serializable values are copied by serializing them, others field
+     * by field, which requires a constructor without arguments.
+     */
+    public static final String OBJECT_DISPATCH_COPY = LocalConduit.class.getName() + ".objectDispatchCopy";
     public static final String MESSAGE_FILTER_PROPERTIES = LocalTransportFactory.MESSAGE_FILTER_PROPERTIES;
 
+    static final String OBJECT_DISPATCHED = LocalConduit.class.getName() + ".objectDispatched";
+
+    /**
+     * The phases of an outgoing chain, up to PREPARE_SEND_ENDING, that marshal the message and
+     * write it to the stream. The interceptors of PREPARE_SEND that run after the 
+     * MessageSenderInterceptor work on the stream as well. The protocol phases are not skipped.
+     */
+    static final Set<String> OUT_STREAM_PHASES = new HashSet<String>(Arrays.asList(
+        Phase.PREPARE_SEND, Phase.PRE_STREAM, Phase.WRITE, Phase.PRE_MARSHAL, Phase.MARSHAL,
+        Phase.POST_MARSHAL, Phase.USER_STREAM, Phase.POST_STREAM, Phase.SEND, Phase.SEND_ENDING,
+        Phase.POST_STREAM_ENDING, Phase.USER_STREAM_ENDING, Phase.MARSHAL_ENDING, Phase.WRITE_ENDING,
+        Phase.PRE_STREAM_ENDING));
+    
     private static final Logger LOG = LogUtils.getL7dLogger(LocalConduit.class);
     
     private LocalDestination destination;
     private LocalTransportFactory transportFactory;
+    private volatile boolean objectDispatchWarned;
 
     public LocalConduit(LocalTransportFactory transportFactory, LocalDestination destination) {
         super(destination.getAddress());
@@ -57,6 +133,20 @@ public class LocalConduit extends AbstractConduit {
     }
     
     public void prepare(final Message message) throws IOException {
+        if (MessageUtils.isTrue(message.getContextualProperty(OBJECT_DISPATCH))) {
+            if (!destination.isObjectDispatchEnabled()) {
+                warnObjectDispatch("OBJECT_DISPATCH_NOT_ENABLED");
+            } else if (message.getExchange() != null 
+                && message.getExchange().get(BindingOperationInfo.class) != null) {
+                // nothing is written, the contents are handed over when the message is closed
+                message.put(OBJECT_DISPATCHED, Boolean.TRUE);
+                removeInterceptors(message.getInterceptorChain(), OUT_STREAM_PHASES);
+                return;
+            } else {
+                warnObjectDispatch("NO_OPERATION_TO_DISPATCH");
+            }
+            message.put(DIRECT_DISPATCH, Boolean.TRUE);
+        }
         if (!Boolean.TRUE.equals(message.get(DIRECT_DISPATCH))) {
             dispatchViaPipe(message);
         } else {
@@ -70,7 +160,10 @@ public class LocalConduit extends AbstractConduit {
 
     @Override
     public void close(Message message) throws IOException {
-        if (Boolean.TRUE.equals(message.get(DIRECT_DISPATCH))
+        if (Boolean.TRUE.equals(message.get(OBJECT_DISPATCHED))
+            && !Boolean.TRUE.equals(message.get(Message.INBOUND_MESSAGE))) {
+            dispatchObjects(message);
+        } else if (Boolean.TRUE.equals(message.get(DIRECT_DISPATCH))
             && !Boolean.TRUE.equals(message.get(Message.INBOUND_MESSAGE))) {
             dispatchDirect(message);
         } 
@@ -78,6 +171,16 @@ public class LocalConduit extends AbstractConduit {
         super.close(message);
     }
 
+    /**
+     * Logs once per conduit why the objects of the messages are not handed over.
+     */
+    private void warnObjectDispatch(String key) {
+        if (!objectDispatchWarned) {
+            objectDispatchWarned = true;
+            LOG.log(Level.WARNING, key, destination.getAddress().getAddress().getValue());
+        }
+    }
+
     private void dispatchDirect(Message message) throws IOException {
         if (destination.getMessageObserver() == null) {
             throw new IllegalStateException("Local destination does not have a MessageObserver on address " 
@@ -109,6 +212,263 @@ public class LocalConduit extends AbstractConduit {
         destination.getMessageObserver().onMessage(copy);
     }
 
+    private void dispatchObjects(Message message) throws IOException {
+        if (destination.getMessageObserver() == null) {
+            throw new IllegalStateException("Local destination does not have a MessageObserver on address " 
+                                            + destination.getAddress().getAddress().getValue());
+        }
+        boolean copyObjects = MessageUtils.isTrue(message.getContextualProperty(OBJECT_DISPATCH_COPY));
+
+        MessageImpl copy = new MessageImpl();
+        copy.put(IN_CONDUIT, this);
+        copy.setDestination(destination);
+        transportFactory.copy(message, copy);
+        copyObjects(message, copy, copyObjects);
+        
+        BindingOperationInfo boi = message.getExchange().get(BindingOperationInfo.class);
+        List<Interceptor<? extends Message>> interceptors = 
+            Collections.<Interceptor<? extends Message>>singletonList(new ObjectDispatchInInterceptor(boi));
+        copy.put(Message.IN_INTERCEPTORS, interceptors);
+
+        ExchangeImpl ex = new ExchangeImpl();
+        ex.setInMessage(copy);
+        ex.put(IN_EXCHANGE, message.getExchange());
+        ex.put(OBJECT_DISPATCHED, Boolean.TRUE);
+        ex.put(OBJECT_DISPATCH_COPY, copyObjects);
+        ex.setDestination(destination);
+        
+        destination.getMessageObserver().onMessage(copy);
+    }
+
+    /**
+     * Removes the interceptors of the given phases from the chain, except for the ones 
+     * doing the dispatch and the security ones. One of the former is running, and the chain
+     * would not continue after it if it was removed. The latter, like the JAASLoginInterceptor
+     * of the UNMARSHAL phase, are marked as SecurityInterceptor and fail the message rather 
+     * than let it through unchecked if they need the stream.
+     */
+    static void removeInterceptors(InterceptorChain chain, Set<String> phases) {
+        if (chain == null) {
+            return;
+        }
+        List<Interceptor<? extends Message>> removed = new ArrayList<Interceptor<? extends Message>>();
+        for (Interceptor<? extends Message> i : chain) {
+            if (i instanceof PhaseInterceptor 
+                && phases.contains(((PhaseInterceptor<?>)i).getPhase())
+                && !(i instanceof MessageSenderInterceptor)
+                && !(i instanceof ObjectDispatchInInterceptor)
+                && !(i instanceof SecurityInterceptor)) {
+                removed.add(i);
+            }
+        }
+        for (Interceptor<? extends Message> i : removed) {
+            chain.remove(i);
+        }
+        if (LOG.isLoggable(Level.FINE)) {
+            LOG.fine("Removed interceptors " + removed + " for dispatching the objects");
+        }
+    }
+
+    /**
+     * Copies the contents list and the exception of a message, copying the values of the list 
+     * too if copyValues is true.
+     */
+    static void copyObjects(Message message, Message copy, boolean copyValues) throws IOException {
+        List<?> contents = message.getContent(List.class);
+        if (contents != null) {
+            copy.setContent(List.class, 
+                            copyValues ? copyValues(contents) : new MessageContentsList(contents));
+        }
+        Exception ex = message.getContent(Exception.class);
+        if (ex != null) {
+            copy.setContent(Exception.class, ex);
+        }
+    }
+
+    private static MessageContentsList copyValues(List<?> contents) throws IOException {
+        Map<Object, Object> copied = new IdentityHashMap<Object, Object>();
+        Object[] copies = new Object[contents.size()];
+        for (int i = 0; i < copies.length; i++) {
+            copies[i] = copyValue(contents.get(i), copied);
+        }
+        return new MessageContentsList(copies);
+    }
+
+    /**
+     * Copies a value. The values already copied are kept in copied, so that a value referenced
+     * twice is copied once and the references between the values, cycles included, are kept.
+     */
+    private static Object copyValue(Object value, Map<Object, Object> copied) throws IOException {
+        if (value == null || value == MessageContentsList.REMOVED_MARKER || isImmutable(value)) {
+            return value;
+        }
+        Object copy = copied.get(value);
+        if (copy != null) {
+            return copy;
+        }
+        // arrays and collections are copied element by element, their elements, like the 
+        // classes generated by JAXB, are often not Serializable
+        if (value.getClass().isArray()) {
+            return copyArray(value, copied);
+        }
+        if (value instanceof Collection) {
+            return copyCollection((Collection<?>)value, copied);
+        }
+        if (value instanceof Map) {
+            return copyMap((Map<?, ?>)value, copied);
+        }
+        if (value instanceof Serializable) {
+            copy = serialize(value);
+            copied.put(value, copy);
+            return copy;
+        }
+        return copyFields(value, copied);
+    }
+
+    private static boolean isImmutable(Object value) {
+        if (value instanceof Number) {
+            // but not the atomic numbers
+            String name = value.getClass().getName();
+            return name.startsWith("java.lang.") || name.startsWith("java.math.");
+        }
+        return value instanceof String || value instanceof Boolean || value instanceof Character
+            || value instanceof Enum || value instanceof Class || value instanceof QName;
+    }
+
+    private static Object copyArray(Object value, Map<Object, Object> copied) throws IOException {
+        int length = Array.getLength(value);
+        Object copy = Array.newInstance(value.getClass().getComponentType(), length);
+        copied.put(value, copy);
+        for (int i = 0; i < length; i++) {
+            Array.set(copy, i, copyValue(Array.get(value, i), copied));
+        }
+        return copy;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Object copyCollection(Collection<?> value, Map<Object, Object> copied) throws IOException {
+        Collection<Object> copy = (Collection<Object>)newContainer(value);
+        if (copy == null) {
+            Comparator<Object> comparator = (Comparator<Object>)getComparator(value);
+            if (value instanceof SortedSet) {
+                copy = new TreeSet<Object>(comparator);
+            } else if (value instanceof PriorityQueue) {
+                copy = new PriorityQueue<Object>(Math.max(1, value.size()), comparator);
+            } else {
+                copy = value instanceof Set ? new LinkedHashSet<Object>() : new ArrayList<Object>();
+            }
+        }
+        copied.put(value, copy);
+        for (Object o : value) {
+            copy.add(copyValue(o, copied));
+        }
+        return copy;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Object copyMap(Map<?, ?> value, Map<Object, Object> copied) throws IOException {
+        Map<Object, Object> copy = (Map<Object, Object>)newContainer(value);
+        if (copy == null) {
+            copy = value instanceof SortedMap 
+                ? new TreeMap<Object, Object>((Comparator<Object>)getComparator(value))
+                : new LinkedHashMap<Object, Object>();
+        }
+        copied.put(value, copy);
+        for (Map.Entry<?, ?> entry : value.entrySet()) {
+            copy.put(copyValue(entry.getKey(), copied), copyValue(entry.getValue(), copied));
+        }
+        return copy;
+    }
+
+    private static Object serialize(Object value) throws IOException {
+        ByteArrayOutputStream bout = new ByteArrayOutputStream();
+        ObjectOutputStream out = new ObjectOutputStream(bout);
+        out.writeObject(value);
+        out.close();
+        ObjectInputStream in = new ContextClassLoaderObjectInputStream(
+            new ByteArrayInputStream(bout.toByteArray()));
+        try {
+            return in.readObject();
+        } catch (ClassNotFoundException e) {
+            throw new IOException(e.getMessage(), e);
+        } finally {
+            in.close();
+        }
+    }
+
+    /**
+     * @return the comparator that orders the sorted collection or map, null for the natural
+     * ordering or if the value is not sorted
+     */
+    private static Comparator<?> getComparator(Object value) {
+        if (value instanceof SortedSet) {
+            return ((SortedSet<?>)value).comparator();
+        }
+        if (value instanceof SortedMap) {
+            return ((SortedMap<?, ?>)value).comparator();
+        }
+        if (value instanceof PriorityQueue) {
+            return ((PriorityQueue<?>)value).comparator();
+        }
+        return null;
+    }
+
+    /**
+     * @return an empty collection or map of the class of the value, ordered by the same
+     * comparator, or null if the class can not be instantiated that way
+     */
+    private static Object newContainer(Object value) throws IOException {
+        Comparator<?> comparator = getComparator(value);
+        if (comparator == null) {
+            return newInstance(value.getClass());
+        }
+        Constructor<?> constructor = ReflectionUtil.getDeclaredConstructor(value.getClass(), 
+                                                                            Comparator.class);
+        return constructor == null ? null : newInstance(constructor, comparator);
+    }
+
+    /**
+     * @return a new instance of the class, or null if it has no constructor without arguments
+     */
+    private static Object newInstance(Class<?> cls) throws IOException {
+        Constructor<?> constructor = ReflectionUtil.getDeclaredConstructor(cls);
+        return constructor == null ? null : newInstance(constructor);
+    }
+
+    private static Object newInstance(Constructor<?> constructor, Object... args) throws IOException {
+        try {
+            return ReflectionUtil.setAccessible(constructor).newInstance(args);
+        } catch (Exception e) {
+            throw new IOException("Could not copy " + constructor.getDeclaringClass().getName(), e);
+        }
+    }
+
+    /**
+     * Copies an object that is not Serializable, like the wrapper classes generated for
+     * JAX-WS operations, field by field.
+     */
+    private static Object copyFields(Object value, Map<Object, Object> copied) throws IOException {
+        Class<?> cls = value.getClass();
+        Object copy = newInstance(cls);
+        if (copy == null) {
+            throw new NotSerializableException(cls.getName());
+        }
+        copied.put(value, copy);
+        try {
+            for (Class<?> c = cls; c != null && c != Object.class; c = c.getSuperclass()) {
+                for (Field f : ReflectionUtil.getDeclaredFields(c)) {
+                    int modifiers = f.getModifiers();
+                    if (!Modifier.isStatic(modifiers) && !Modifier.isTransient(modifiers)) {
+                        ReflectionUtil.setAccessible(f);
+                        f.set(copy, copyValue(f.get(value), copied));
+                    }
+                }
+            }
+            return copy;
+        } catch (IllegalAccessException e) {
+            throw new IOException("Could not copy " + cls.getName(), e);
+        }
+    }
 
     private void dispatchViaPipe(final Message message) throws IOException {
         final LocalConduit conduit = this;
@@ -161,4 +521,23 @@ public class LocalConduit extends AbstractConduit {
     protected Logger getLogger() {
         return LOG;
     }
+    
+    private static class ContextClassLoaderObjectInputStream extends ObjectInputStream {
+        ContextClassLoaderObjectInputStream(InputStream in) throws IOException {
+            super(in);
+        }
+
+        @Override
+        protected Class<?> resolveClass(ObjectStreamClass desc) throws IOException, ClassNotFoundException {
+            ClassLoader loader = Thread.currentThread().getContextClassLoader();
+            if (loader != null) {
+                try {
+                    return Class.forName(desc.getName(), false, loader);
+                } catch (ClassNotFoundException e) {
+                    // fall back to the loader of the calling classes
+                }
+            }
+            return super.resolveClass(desc);
+        }
+    }
 }
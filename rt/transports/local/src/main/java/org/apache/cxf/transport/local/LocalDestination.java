@@ -24,19 +24,28 @@ import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.PipedInputStream;
 import java.io.PipedOutputStream;
+import java.util.Collections;
+import java.util.List;
 import java.util.concurrent.Executor;
 import java.util.logging.Logger;
 
 import org.apache.cxf.common.logging.LogUtils;
+import org.apache.cxf.interceptor.Fault;
+import org.apache.cxf.interceptor.Interceptor;
 import org.apache.cxf.io.AbstractWrappedOutputStream;
 import org.apache.cxf.io.CachedOutputStream;
 import org.apache.cxf.message.Exchange;
 import org.apache.cxf.message.Message;
 import org.apache.cxf.message.MessageImpl;
+import org.apache.cxf.message.MessageUtils;
 import org.apache.cxf.service.model.EndpointInfo;
+import org.apache.cxf.service.model.FaultInfo;
+import org.apache.cxf.service.model.OperationInfo;
 import org.apache.cxf.transport.AbstractConduit;
 import org.apache.cxf.transport.AbstractDestination;
+import org.apache.cxf.transport.ChainInitiationObserver;
 import org.apache.cxf.transport.Conduit;
+import org.apache.cxf.transport.MessageObserver;
 import org.apache.cxf.workqueue.SynchronousExecutor;
 import org.apache.cxf.ws.addressing.EndpointReferenceType;
 
@@ -56,6 +65,20 @@ public class LocalDestination extends AbstractDestination {
         localDestinationFactory.remove(this);
     }
 
+    /**
+     * @return true if the endpoint accepts the messages sent with LocalConduit.OBJECT_DISPATCH,
+     * which it enables by setting that property on the endpoint or on its EndpointInfo
+     */
+    public boolean isObjectDispatchEnabled() {
+        if (MessageUtils.isTrue(endpointInfo.getProperty(LocalConduit.OBJECT_DISPATCH))) {
+            return true;
+        }
+        MessageObserver observer = getMessageObserver();
+        return observer instanceof ChainInitiationObserver
+            && MessageUtils.isTrue(((ChainInitiationObserver)observer).getEndpoint()
+                                       .get(LocalConduit.OBJECT_DISPATCH));
+    }
+
     protected Logger getLogger() {
         return LOG;
     }
@@ -78,7 +101,10 @@ public class LocalDestination extends AbstractDestination {
         }
 
         public void prepare(final Message message) throws IOException {            
-            if (!Boolean.TRUE.equals(message.getExchange().get(LocalConduit.DIRECT_DISPATCH))) {
+            if (Boolean.TRUE.equals(message.getExchange().get(LocalConduit.OBJECT_DISPATCHED))) {
+                LocalConduit.removeInterceptors(message.getInterceptorChain(), 
+                                                LocalConduit.OUT_STREAM_PHASES);
+            } else if (!Boolean.TRUE.equals(message.getExchange().get(LocalConduit.DIRECT_DISPATCH))) {
                 final Exchange exchange = (Exchange)message.getExchange().get(LocalConduit.IN_EXCHANGE);
 
                 AbstractWrappedOutputStream cout 
@@ -126,6 +152,13 @@ public class LocalDestination extends AbstractDestination {
 
         @Override
         public void close(Message message) throws IOException {
+            if (Boolean.TRUE.equals(message.getExchange().get(LocalConduit.OBJECT_DISPATCHED))) {
+                // nothing is sent back for a one way operation, the client is not waiting
+                if (!message.getExchange().isOneWay()) {
+                    dispatchObjects(message);
+                }
+                return;
+            }
             if (Boolean.TRUE.equals(message.getExchange().get(LocalConduit.DIRECT_DISPATCH))) {
                 final Exchange exchange = (Exchange)message.getExchange().get(LocalConduit.IN_EXCHANGE);
                 
@@ -146,6 +179,41 @@ public class LocalDestination extends AbstractDestination {
             super.close(message);
         }
 
+        private void dispatchObjects(Message message) throws IOException {
+            Exchange exchange = (Exchange)message.getExchange().get(LocalConduit.IN_EXCHANGE);
+
+            MessageImpl copy = new MessageImpl();
+            localDestinationFactory.copy(message, copy);
+            LocalConduit.copyObjects(message, copy, 
+                Boolean.TRUE.equals(message.getExchange().get(LocalConduit.OBJECT_DISPATCH_COPY)));
+            Exception ex = copy.getContent(Exception.class);
+            if (ex instanceof Fault && isDeclaredFault(message.getExchange(), ex.getCause())) {
+                // the client gets the exception of the operation, as if it was unmarshalled
+                copy.setContent(Exception.class, ex.getCause());
+            }
+            List<Interceptor<? extends Message>> interceptors = 
+                Collections.<Interceptor<? extends Message>>singletonList(new ObjectDispatchInInterceptor());
+            copy.put(Message.IN_INTERCEPTORS, interceptors);
+            if (exchange != null && exchange.getInMessage() == null) {
+                exchange.setInMessage(copy);
+            }
+            conduit.getMessageObserver().onMessage(copy);
+        }
+
+        private boolean isDeclaredFault(Exchange exchange, Throwable cause) {
+            OperationInfo oi = exchange.get(OperationInfo.class);
+            if (oi == null || cause == null) {
+                return false;
+            }
+            for (FaultInfo fi : oi.getFaults()) {
+                Class<?> cls = (Class<?>)fi.getProperty(Class.class.getName());
+                if (cls != null && cls.isInstance(cause)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
         protected Logger getLogger() {
             return LOG;
         }
@@ -0,0 +1,116 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.transport.local;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.logging.Logger;
+
+import org.apache.cxf.common.logging.LogUtils;
+import org.apache.cxf.endpoint.Endpoint;
+import org.apache.cxf.interceptor.Fault;
+import org.apache.cxf.message.Exchange;
+import org.apache.cxf.message.Message;
+import org.apache.cxf.phase.AbstractPhaseInterceptor;
+import org.apache.cxf.phase.Phase;
+import org.apache.cxf.service.model.BindingInfo;
+import org.apache.cxf.service.model.BindingMessageInfo;
+import org.apache.cxf.service.model.BindingOperationInfo;
+import org.apache.cxf.service.model.EndpointInfo;
+import org.apache.cxf.service.model.MessageInfo;
+import org.apache.cxf.service.model.OperationInfo;
+
+/**
+ * Receives a message dispatched with LocalConduit.OBJECT_DISPATCH. The contents list
+ * is already set, so the interceptors that read it from the stream are removed from the
+ * chain, and on the server the operation invoked by the client is set on the exchange.
+ * The interceptors of the protocol phases and the ones marked as SecurityInterceptor still
+ * run, see LocalConduit.OBJECT_DISPATCH.
+ */
+public class ObjectDispatchInInterceptor extends AbstractPhaseInterceptor<Message> {
+    private static final Logger LOG = LogUtils.getL7dLogger(ObjectDispatchInInterceptor.class);
+
+    private static final Set<String> IN_STREAM_PHASES = new HashSet<String>(Arrays.asList(
+        Phase.PRE_STREAM, Phase.USER_STREAM, Phase.POST_STREAM, Phase.READ, Phase.UNMARSHAL));
+
+    private final BindingOperationInfo operation;
+
+    /**
+     * Creates the interceptor for a response, the operation is the one of the client exchange.
+     */
+    public ObjectDispatchInInterceptor() {
+        this(null);
+    }
+
+    /**
+     * @param operation the operation invoked by the client
+     */
+    public ObjectDispatchInInterceptor(BindingOperationInfo operation) {
+        super(Phase.RECEIVE);
+        this.operation = operation;
+    }
+
+    public void handleMessage(Message message) throws Fault {
+        LocalConduit.removeInterceptors(message.getInterceptorChain(), IN_STREAM_PHASES);
+
+        Exchange ex = message.getExchange();
+        boolean requestor = isRequestor(message);
+        BindingOperationInfo boi = requestor ? ex.get(BindingOperationInfo.class) : getOperation(message);
+        if (boi == null) {
+            return;
+        }
+        OperationInfo oi = boi.getOperationInfo();
+        if (requestor) {
+            message.put(MessageInfo.class, oi.getOutput());
+            message.put(BindingMessageInfo.class, boi.getOutput());
+            return;
+        }
+        message.put(MessageInfo.class, oi.getInput());
+        message.put(BindingMessageInfo.class, boi.getInput());
+        ex.put(BindingOperationInfo.class, boi);
+        ex.put(OperationInfo.class, oi);
+        ex.setOneWay(oi.isOneWay());
+
+        EndpointInfo ei = ex.get(Endpoint.class).getEndpointInfo();
+        message.put(Message.WSDL_OPERATION, boi.getName());
+        message.put(Message.WSDL_SERVICE, ei.getService().getName());
+        message.put(Message.WSDL_INTERFACE, ei.getService().getInterface().getName());
+        message.put(Message.WSDL_PORT, ei.getName());
+    }
+
+    private BindingOperationInfo getOperation(Message message) {
+        if (operation == null) {
+            return null;
+        }
+        Endpoint ep = message.getExchange().get(Endpoint.class);
+        BindingInfo binding = ep.getEndpointInfo().getBinding();
+        BindingOperationInfo boi = binding.getOperation(operation.getName());
+        if (boi == null) {
+            throw new Fault(new org.apache.cxf.common.i18n.Message("NO_OPERATION", LOG,
+                                                                   operation.getName()));
+        }
+        // the contents are in the form the client has put them in, wrapped or not
+        if (operation.isUnwrapped() && boi.getUnwrappedOperation() != null) {
+            boi = boi.getUnwrappedOperation();
+        }
+        return boi;
+    }
+}
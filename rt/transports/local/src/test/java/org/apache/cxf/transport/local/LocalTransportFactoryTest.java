@@ -24,11 +24,28 @@ import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.TreeSet;
 
 import org.apache.cxf.Bus;
 import org.apache.cxf.BusFactory;
+import org.apache.cxf.bus.managers.PhaseManagerImpl;
+import org.apache.cxf.interceptor.Interceptor;
+import org.apache.cxf.interceptor.SecurityInterceptor;
+import org.apache.cxf.message.Exchange;
+import org.apache.cxf.message.ExchangeImpl;
 import org.apache.cxf.message.Message;
+import org.apache.cxf.message.MessageContentsList;
 import org.apache.cxf.message.MessageImpl;
+import org.apache.cxf.phase.AbstractPhaseInterceptor;
+import org.apache.cxf.phase.Phase;
+import org.apache.cxf.phase.PhaseInterceptor;
+import org.apache.cxf.phase.PhaseInterceptorChain;
+import org.apache.cxf.service.model.BindingOperationInfo;
 import org.apache.cxf.service.model.EndpointInfo;
 import org.apache.cxf.transport.Conduit;
 
@@ -47,6 +64,112 @@ public class LocalTransportFactoryTest extends Assert {
         testInvocation(true);
     }
     
+    @Test
+    public void testObjectsCopiedWithoutSerialization() throws Exception {
+        Node parent = new Node();
+        Node child = new Node();
+        parent.children.add(child);
+        child.parent = parent;
+        
+        MessageImpl m = new MessageImpl();
+        m.setContent(List.class, new MessageContentsList(parent, parent));
+        MessageImpl copy = new MessageImpl();
+        LocalConduit.copyObjects(m, copy, true);
+        
+        List<?> contents = copy.getContent(List.class);
+        Node parentCopy = (Node)contents.get(0);
+        assertNotSame(parent, parentCopy);
+        // a value referenced twice is copied once, and the cycle is kept
+        assertSame(parentCopy, contents.get(1));
+        Node childCopy = parentCopy.children.get(0);
+        assertNotSame(child, childCopy);
+        assertSame(parentCopy, childCopy.parent);
+    }
+    
+    @Test
+    public void testSortedCollectionsCopiedWithComparator() throws Exception {
+        TreeSet<String> set = new TreeSet<String>(Collections.reverseOrder());
+        set.addAll(Arrays.asList("a", "b", "c"));
+        TreeMap<String, String> map = new TreeMap<String, String>(String.CASE_INSENSITIVE_ORDER);
+        map.put("B", "b");
+        map.put("a", "a");
+        
+        MessageImpl m = new MessageImpl();
+        m.setContent(List.class, new MessageContentsList(set, map));
+        MessageImpl copy = new MessageImpl();
+        LocalConduit.copyObjects(m, copy, true);
+        
+        List<?> contents = copy.getContent(List.class);
+        TreeSet<?> setCopy = (TreeSet<?>)contents.get(0);
+        assertNotSame(set, setCopy);
+        assertSame(set.comparator(), setCopy.comparator());
+        assertEquals(Arrays.asList("c", "b", "a"), new ArrayList<Object>(setCopy));
+        TreeMap<?, ?> mapCopy = (TreeMap<?, ?>)contents.get(1);
+        assertSame(map.comparator(), mapCopy.comparator());
+        assertEquals("b", mapCopy.get("b"));
+    }
+    
+    @Test
+    public void testObjectDispatchEnabledByEndpoint() throws Exception {
+        Bus bus = BusFactory.getDefaultBus();
+        LocalTransportFactory factory = new LocalTransportFactory(bus);
+        EndpointInfo ei = new EndpointInfo(null, "http://schemas.xmlsoap.org/soap/http");
+        ei.setAddress("local://localhost/objects");
+        LocalDestination d = (LocalDestination)factory.getDestination(ei);
+        d.setMessageObserver(new EchoObserver());
+        Conduit conduit = factory.getConduit(ei);
+        
+        // the client asking for it is not enough
+        Message m = createObjectDispatchMessage();
+        conduit.prepare(m);
+        assertNull(m.get(LocalConduit.OBJECT_DISPATCHED));
+        assertEquals(Boolean.TRUE, m.get(LocalConduit.DIRECT_DISPATCH));
+        
+        ei.setProperty(LocalConduit.OBJECT_DISPATCH, Boolean.TRUE);
+        assertTrue(d.isObjectDispatchEnabled());
+        m = createObjectDispatchMessage();
+        conduit.prepare(m);
+        assertEquals(Boolean.TRUE, m.get(LocalConduit.OBJECT_DISPATCHED));
+    }
+    
+    @Test
+    public void testStreamPhasesRemovedExceptSecurityInterceptors() throws Exception {
+        PhaseInterceptorChain chain = new PhaseInterceptorChain(new PhaseManagerImpl().getOutPhases());
+        chain.add(new TestInterceptor("marshal", Phase.MARSHAL));
+        chain.add(new TestInterceptor("protocol", Phase.PRE_PROTOCOL));
+        chain.add(new TestSecurityInterceptor("check", Phase.PREPARE_SEND));
+        
+        LocalConduit.removeInterceptors(chain, LocalConduit.OUT_STREAM_PHASES);
+        List<String> ids = new ArrayList<String>();
+        for (Interceptor<? extends Message> i : chain) {
+            ids.add(((PhaseInterceptor<?>)i).getId());
+        }
+        assertEquals(Arrays.asList("check", "protocol"), ids);
+    }
+    
+    static class TestInterceptor extends AbstractPhaseInterceptor<Message> {
+        TestInterceptor(String id, String phase) {
+            super(id, phase);
+        }
+        public void handleMessage(Message message) {
+        }
+    }
+    
+    static class TestSecurityInterceptor extends TestInterceptor implements SecurityInterceptor {
+        TestSecurityInterceptor(String id, String phase) {
+            super(id, phase);
+        }
+    }
+    
+    private static Message createObjectDispatchMessage() {
+        Message m = new MessageImpl();
+        Exchange exchange = new ExchangeImpl();
+        exchange.setOutMessage(m);
+        exchange.put(BindingOperationInfo.class, new BindingOperationInfo());
+        m.put(LocalConduit.OBJECT_DISPATCH, Boolean.TRUE);
+        return m;
+    }
+    
     private void testInvocation(boolean isDirectDispatch) throws Exception {
         // Need to create a DefaultBus
         Bus bus = BusFactory.getDefaultBus();
@@ -149,4 +272,10 @@ public class LocalTransportFactoryTest extends Assert {
             }
         }
     }
+    
+    // not Serializable, like the classes generated by JAXB
+    static class Node {
+        private Node parent;
+        private List<Node> children = new ArrayList<Node>();
+    }
 }
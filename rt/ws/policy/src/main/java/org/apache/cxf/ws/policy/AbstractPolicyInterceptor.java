@@ -20,6 +20,7 @@
 package org.apache.cxf.ws.policy;
 
 import org.apache.cxf.interceptor.Fault;
+import org.apache.cxf.interceptor.SecurityInterceptor;
 import org.apache.cxf.message.Exchange;
 import org.apache.cxf.message.Message;
 import org.apache.cxf.phase.AbstractPhaseInterceptor;
@@ -31,7 +32,8 @@ import org.apache.cxf.transport.Destination;
 /**
  * 
  */
-public abstract class AbstractPolicyInterceptor extends AbstractPhaseInterceptor<Message> {
+public abstract class AbstractPolicyInterceptor extends AbstractPhaseInterceptor<Message> 
+    implements SecurityInterceptor {
     
     public AbstractPolicyInterceptor(String phase) {
         super(phase);
@@ -90,6 +92,29 @@ public abstract class AbstractPolicyInterceptor extends AbstractPhaseInterceptor
         return bfi;
     }
     
+    /**
+     * Returns a copy of the AssertionInfoMap the effective policy keeps for its chosen
+     * alternative, or null if the effective policy does not keep one.
+     */
+    protected static AssertionInfoMap createAssertionInfoMap(EffectivePolicy ep) {
+        if (ep instanceof EffectivePolicyImpl) {
+            return ((EffectivePolicyImpl)ep).createAssertionInfoMap();
+        }
+        return null;
+    }
+    
+    /**
+     * Returns a copy of the AssertionInfoMap the endpoint policy keeps for its vocabulary
+     * or fault vocabulary, or null if the endpoint policy does not keep one.
+     */
+    protected static AssertionInfoMap createAssertionInfoMap(EndpointPolicy ep, boolean fault) {
+        if (ep instanceof EndpointPolicyImpl) {
+            EndpointPolicyImpl epi = (EndpointPolicyImpl)ep;
+            return fault ? epi.createFaultAssertionInfoMap() : epi.createAssertionInfoMap();
+        }
+        return null;
+    }
+    
     protected abstract void handle(Message message) throws PolicyException;
 
 }
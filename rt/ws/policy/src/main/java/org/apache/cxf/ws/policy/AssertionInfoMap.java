@@ -26,6 +26,7 @@ import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.ResourceBundle;
 import java.util.Set;
 
@@ -56,6 +57,22 @@ public class AssertionInfoMap extends HashMap<QName, Collection<AssertionInfo>>
         }
     }
 
+    /**
+     * Creates a map of the same assertions as the given map, none of them asserted.
+     * Copying a map is much cheaper than collecting the assertions of a policy again,
+     * so the effective and endpoint policies keep a map that is copied for every message.
+     */
+    public AssertionInfoMap(AssertionInfoMap template) {
+        super(template.size() < 6 ? 6 : template.size());
+        for (Map.Entry<QName, Collection<AssertionInfo>> e : template.entrySet()) {
+            Collection<AssertionInfo> ail = new ArrayList<AssertionInfo>(e.getValue().size());
+            for (AssertionInfo ai : e.getValue()) {
+                ail.add(new AssertionInfo(ai.getAssertion()));
+            }
+            put(e.getKey(), ail);
+        }
+    }
+
     private void putAssertionInfo(Assertion a) {
         if (a instanceof PolicyContainingAssertion) {
             Policy p = ((PolicyContainingAssertion)a).getPolicy();
@@ -78,6 +78,8 @@ public class ClientPolicyInFaultInterceptor extends AbstractPolicyInterceptor {
         List<Interceptor<? extends Message>> faultInterceptors = 
             new ArrayList<Interceptor<? extends Message>>();
         Collection<Assertion> assertions = new ArrayList<Assertion>();
+        // the endpoint policy, which keeps the assertions of its fault vocabulary
+        EndpointPolicy endpointPolicy = null;
         
         // 1. Check overridden policy
         Policy p = (Policy)msg.getContextualProperty(PolicyConstants.POLICY_OVERRIDE);
@@ -100,6 +102,7 @@ public class ClientPolicyInFaultInterceptor extends AbstractPolicyInterceptor {
             if (ep != null) {
                 faultInterceptors.addAll(ep.getFaultInterceptors());
                 assertions.addAll(ep.getFaultVocabulary());
+                endpointPolicy = ep;
             }
         }
         
@@ -112,7 +115,8 @@ public class ClientPolicyInFaultInterceptor extends AbstractPolicyInterceptor {
         
         // insert assertions of endpoint's fault vocabulary into message        
         if (!assertions.isEmpty()) {
-            msg.put(AssertionInfoMap.class, new AssertionInfoMap(assertions));
+            AssertionInfoMap aim = createAssertionInfoMap(endpointPolicy, true);
+            msg.put(AssertionInfoMap.class, aim == null ? new AssertionInfoMap(assertions) : aim);
         }
     }
 }
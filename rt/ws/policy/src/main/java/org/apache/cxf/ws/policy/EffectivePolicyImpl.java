@@ -57,6 +57,9 @@ public class EffectivePolicyImpl implements EffectivePolicy {
     protected Collection<Assertion> chosenAlternative;
     protected List<Interceptor<? extends org.apache.cxf.message.Message>> interceptors;
     
+    private volatile AssertionInfoMap alternativeAssertions;
+    private volatile AssertionInfoMap policyAssertions;
+    
     public Policy getPolicy() {
         return policy;        
     }
@@ -69,6 +72,31 @@ public class EffectivePolicyImpl implements EffectivePolicy {
         return chosenAlternative;
     }
     
+    /**
+     * Creates the AssertionInfoMap of the chosen alternative for a message.  The assertions
+     * are collected once, the maps of the messages are copies in which nothing is asserted.
+     */
+    public AssertionInfoMap createAssertionInfoMap() {
+        AssertionInfoMap aim = alternativeAssertions;
+        if (aim == null) {
+            aim = new AssertionInfoMap(getChosenAlternative());
+            alternativeAssertions = aim;
+        }
+        return new AssertionInfoMap(aim);
+    }
+    
+    /**
+     * Creates the AssertionInfoMap of all the assertions of the policy for a message.
+     */
+    public AssertionInfoMap createPolicyAssertionInfoMap() {
+        AssertionInfoMap aim = policyAssertions;
+        if (aim == null) {
+            aim = new AssertionInfoMap(getPolicy());
+            policyAssertions = aim;
+        }
+        return new AssertionInfoMap(aim);
+    }
+    
     public void initialise(EndpointPolicyImpl epi, PolicyEngineImpl engine, boolean inbound) {
         initialise(epi, engine, inbound, false);
     }
@@ -255,10 +283,12 @@ public class EffectivePolicyImpl implements EffectivePolicy {
     
     void setPolicy(Policy ep) {
         policy = ep;
+        policyAssertions = null;
     }
     
     void setChosenAlternative(Collection<Assertion> c) {
         chosenAlternative = c;
+        alternativeAssertions = null;
     }
     
     void setInterceptors(List<Interceptor<? extends org.apache.cxf.message.Message>> out) {
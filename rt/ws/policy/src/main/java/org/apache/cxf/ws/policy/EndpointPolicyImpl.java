@@ -21,6 +21,7 @@ package org.apache.cxf.ws.policy;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.LinkedHashSet;
 import java.util.List;
@@ -52,6 +53,8 @@ public class EndpointPolicyImpl implements EndpointPolicy {
     
     private Collection<Assertion> vocabulary;
     private Collection<Assertion> faultVocabulary;
+    private AssertionInfoMap vocabularyAssertions;
+    private AssertionInfoMap faultVocabularyAssertions;
     private List<Interceptor<? extends Message>> interceptors;
     private List<Interceptor<? extends Message>> faultInterceptors;
     
@@ -121,6 +124,31 @@ public class EndpointPolicyImpl implements EndpointPolicy {
         return faultVocabulary;
     }    
     
+    /**
+     * Creates the AssertionInfoMap of the vocabulary for a message.  The assertions are
+     * collected once, the maps of the messages are copies in which nothing is asserted.
+     */
+    public synchronized AssertionInfoMap createAssertionInfoMap() {
+        if (vocabularyAssertions == null) {
+            vocabularyAssertions = new AssertionInfoMap(getVocabulary());
+        }
+        return new AssertionInfoMap(vocabularyAssertions);
+    }
+    
+    /**
+     * Creates the AssertionInfoMap of the fault vocabulary for a message.
+     */
+    public synchronized AssertionInfoMap createFaultAssertionInfoMap() {
+        if (faultVocabularyAssertions == null) {
+            Collection<Assertion> v = getFaultVocabulary();
+            if (v == null) {
+                v = Collections.emptyList();
+            }
+            faultVocabularyAssertions = new AssertionInfoMap(v);
+        }
+        return new AssertionInfoMap(faultVocabularyAssertions);
+    }
+    
     public synchronized List<Interceptor<? extends Message>> getInterceptors() {
         if (interceptors == null) {
             initializeInterceptors();
@@ -320,12 +348,14 @@ public class EndpointPolicyImpl implements EndpointPolicy {
         chosenAlternative = c;
     }
     
-    void setVocabulary(Collection<Assertion> v) {
+    synchronized void setVocabulary(Collection<Assertion> v) {
         vocabulary = v;
+        vocabularyAssertions = null;
     }
     
-    void setFaultVocabulary(Collection<Assertion> v) {
+    synchronized void setFaultVocabulary(Collection<Assertion> v) {
         faultVocabulary = v;
+        faultVocabularyAssertions = null;
     }
     
     void setInterceptors(List<Interceptor<? extends Message>> in) {
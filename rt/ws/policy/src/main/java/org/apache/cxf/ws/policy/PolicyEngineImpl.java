@@ -20,6 +20,7 @@
 package org.apache.cxf.ws.policy;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.logging.Logger;
 
@@ -34,6 +35,7 @@ import org.apache.cxf.extension.BusExtension;
 import org.apache.cxf.helpers.CastUtils;
 import org.apache.cxf.service.factory.FactoryBeanListener;
 import org.apache.cxf.service.factory.FactoryBeanListenerManager;
+import org.apache.cxf.service.model.AbstractPropertiesHolder;
 import org.apache.cxf.service.model.BindingFaultInfo;
 import org.apache.cxf.service.model.BindingMessageInfo;
 import org.apache.cxf.service.model.BindingOperationInfo;
@@ -61,6 +63,7 @@ public class PolicyEngineImpl implements PolicyEngine, BusExtension {
     private static final String POLICY_INFO_REQUEST_SERVER = "policy-engine-info-serve-request";
     private static final String POLICY_INFO_FAULT_SERVER = "policy-engine-info-serve-fault";
     private static final String POLICY_INFO_RESPONSE_SERVER = "policy-engine-info-serve-response";
+    private static final String POLICY_INFO_RESPONSES_SERVER = "policy-engine-info-serve-responses";
     private static final String POLICY_INFO_ENDPOINT_SERVER = "policy-engine-info-serve-rendpoint";
     
     private static final String POLICY_INFO_REQUEST_CLIENT = "policy-engine-info-client-request";
@@ -68,6 +71,11 @@ public class PolicyEngineImpl implements PolicyEngine, BusExtension {
     private static final String POLICY_INFO_RESPONSE_CLIENT = "policy-engine-info-client-response";
     private static final String POLICY_INFO_ENDPOINT_CLIENT = "policy-engine-info-client-endpoint";
     
+    /**
+     * The number of response policies kept per operation for the alternatives of the requests.
+     */
+    private static final int MAX_RESPONSE_POLICIES = 16;
+    
     private Bus bus;
     private PolicyRegistry registry;
     private Collection<PolicyProvider> policyProviders;
@@ -223,10 +231,37 @@ public class PolicyEngineImpl implements PolicyEngine, BusExtension {
             } 
             return effectivePolicy;
         }
-        EffectivePolicyImpl epi = createOutPolicyInfo();
-        Assertor assertor = PolicyUtils.createAsserter(d);
-        epi.initialise(ei, boi, this, assertor, false, false, incoming);
-        return epi;
+        // The validated alternatives are alternatives of the request policy of the operation,
+        // which is normalized once, so the requests that used the same alternatives pass the
+        // same assertions and get the same response policy.
+        Map<List<List<Assertion>>, EffectivePolicy> policies = getServerResponsePolicies(boi);
+        EffectivePolicy effectivePolicy = policies.get(incoming);
+        if (null == effectivePolicy) {
+            EffectivePolicyImpl epi = createOutPolicyInfo();
+            Assertor assertor = PolicyUtils.createAsserter(d);
+            epi.initialise(ei, boi, this, assertor, false, false, incoming);
+            if (policies.size() < MAX_RESPONSE_POLICIES) {
+                List<List<Assertion>> key = new ArrayList<List<Assertion>>(incoming.size());
+                for (List<Assertion> alternative : incoming) {
+                    key.add(new ArrayList<Assertion>(alternative));
+                }
+                policies.put(key, epi);
+            }
+            effectivePolicy = epi;
+        }
+        return effectivePolicy;
+    }
+    
+    private Map<List<List<Assertion>>, EffectivePolicy> getServerResponsePolicies(BindingOperationInfo boi) {
+        synchronized (boi) {
+            Map<List<List<Assertion>>, EffectivePolicy> policies 
+                = CastUtils.cast((Map<?, ?>)boi.getProperty(POLICY_INFO_RESPONSES_SERVER));
+            if (policies == null) {
+                policies = new ConcurrentHashMap<List<List<Assertion>>, EffectivePolicy>();
+                boi.setProperty(POLICY_INFO_RESPONSES_SERVER, policies);
+            }
+            return policies;
+        }
     }
 
     public void setEffectiveServerResponsePolicy(EndpointInfo ei, BindingOperationInfo boi, 
@@ -240,10 +275,16 @@ public class PolicyEngineImpl implements PolicyEngine, BusExtension {
                                                          Destination d) {
 
         if (bfi == null) {
-            EffectivePolicyImpl epi = createOutPolicyInfo();
-            Assertor assertor = PolicyUtils.createAsserter(d);
-            epi.initialise(ei, boi, bfi, this, assertor);
-            return epi;
+            // the policy of the faults the operation does not declare
+            EffectivePolicy effectivePolicy = (EffectivePolicy)boi.getProperty(POLICY_INFO_FAULT_SERVER);
+            if (null == effectivePolicy) {
+                EffectivePolicyImpl epi = createOutPolicyInfo();
+                Assertor assertor = PolicyUtils.createAsserter(d);
+                epi.initialise(ei, boi, bfi, this, assertor);
+                boi.setProperty(POLICY_INFO_FAULT_SERVER, epi);
+                effectivePolicy = epi;
+            }
+            return effectivePolicy;
         }
         bfi = mapToWrappedBindingFaultInfo(bfi);
         EffectivePolicy effectivePolicy = (EffectivePolicy)bfi.getProperty(POLICY_INFO_FAULT_SERVER);
@@ -338,16 +379,13 @@ public class PolicyEngineImpl implements PolicyEngine, BusExtension {
 
     public EffectivePolicy getEffectiveClientFaultPolicy(EndpointInfo ei, BindingOperationInfo boi,
                                                          BindingFaultInfo bfi) {
-        EffectivePolicy effectivePolicy = null;
-        if (bfi != null) {
-            effectivePolicy = (EffectivePolicy)bfi.getProperty(POLICY_INFO_FAULT_CLIENT);
-        }
+        // the policy of the faults the operation does not declare is kept by the operation
+        AbstractPropertiesHolder holder = bfi == null ? boi : bfi;
+        EffectivePolicy effectivePolicy = (EffectivePolicy)holder.getProperty(POLICY_INFO_FAULT_CLIENT);
         if (null == effectivePolicy) {
             EffectivePolicyImpl epi = createOutPolicyInfo();
             epi.initialisePolicy(ei, boi, bfi, this);
-            if (bfi != null) {
-                bfi.setProperty(POLICY_INFO_FAULT_CLIENT, epi);
-            }
+            holder.setProperty(POLICY_INFO_FAULT_CLIENT, epi);
             effectivePolicy = epi;
         }
         return effectivePolicy;
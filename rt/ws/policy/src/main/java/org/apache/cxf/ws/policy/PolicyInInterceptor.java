@@ -69,6 +69,8 @@ public class PolicyInInterceptor extends AbstractPolicyInterceptor {
 
         List<Interceptor<? extends Message>> interceptors = new ArrayList<Interceptor<? extends Message>>();
         Collection<Assertion> assertions = new ArrayList<Assertion>();
+        // the endpoint policy, which keeps the assertions of its vocabulary
+        EndpointPolicy endpointPolicy = null;
         
         // 1. Check overridden policy
         Policy p = (Policy)msg.getContextualProperty(PolicyConstants.POLICY_OVERRIDE);
@@ -92,6 +94,7 @@ public class PolicyInInterceptor extends AbstractPolicyInterceptor {
                 if (ep != null) {
                     interceptors.addAll(ep.getInterceptors());
                     assertions.addAll(ep.getVocabulary());
+                    endpointPolicy = ep;
                 }
             } else {
                 // We do not know the underlying message type yet - so we pre-emptively add interceptors 
@@ -102,7 +105,10 @@ public class PolicyInInterceptor extends AbstractPolicyInterceptor {
                     interceptors.addAll(ep.getInterceptors());
                     // insert assertions of endpoint's vocabulary into message
                     if (ep.getPolicy() != null) {
-                        msg.put(AssertionInfoMap.class, new AssertionInfoMap(ep.getPolicy()));
+                        AssertionInfoMap aim = ep instanceof EffectivePolicyImpl
+                            ? ((EffectivePolicyImpl)ep).createPolicyAssertionInfoMap()
+                            : new AssertionInfoMap(ep.getPolicy());
+                        msg.put(AssertionInfoMap.class, aim);
                         msg.getInterceptorChain().add(PolicyVerificationInInterceptor.INSTANCE);
                     }
                 }
@@ -118,6 +124,7 @@ public class PolicyInInterceptor extends AbstractPolicyInterceptor {
             if (ep != null) {
                 interceptors.addAll(ep.getInterceptors());
                 assertions.addAll(ep.getVocabulary());
+                endpointPolicy = ep;
             }
         }
         
@@ -128,7 +135,8 @@ public class PolicyInInterceptor extends AbstractPolicyInterceptor {
         
         // Insert assertions of endpoint's vocabulary into message
         if (!assertions.isEmpty()) {
-            msg.put(AssertionInfoMap.class, new AssertionInfoMap(assertions));
+            AssertionInfoMap aim = createAssertionInfoMap(endpointPolicy, false);
+            msg.put(AssertionInfoMap.class, aim == null ? new AssertionInfoMap(assertions) : aim);
             msg.getInterceptorChain().add(PolicyVerificationInInterceptor.INSTANCE);
         }
         
@@ -78,6 +78,8 @@ public class PolicyOutInterceptor extends AbstractPolicyInterceptor {
 
         List<Interceptor<? extends Message>> interceptors = new ArrayList<Interceptor<? extends Message>>();
         Collection<Assertion> assertions = new ArrayList<Assertion>();
+        // the effective policy of the operation, which keeps the assertions of its alternative
+        EffectivePolicy operationPolicy = null;
 
         // 1. Check overridden policy
         Policy p = (Policy)msg.getContextualProperty(PolicyConstants.POLICY_OVERRIDE);
@@ -102,6 +104,7 @@ public class PolicyOutInterceptor extends AbstractPolicyInterceptor {
             if (effectivePolicy != null) {
                 interceptors.addAll(effectivePolicy.getInterceptors());
                 assertions.addAll(effectivePolicy.getChosenAlternative());
+                operationPolicy = effectivePolicy;
             }
         } else {
             // 3. Process server policy
@@ -115,6 +118,7 @@ public class PolicyOutInterceptor extends AbstractPolicyInterceptor {
             if (effectivePolicy != null) {
                 interceptors.addAll(effectivePolicy.getInterceptors());
                 assertions.addAll(effectivePolicy.getChosenAlternative());
+                operationPolicy = effectivePolicy;
             }
         }
         
@@ -137,7 +141,8 @@ public class PolicyOutInterceptor extends AbstractPolicyInterceptor {
                 }
                 LOG.finest(buf.toString());
             }
-            msg.put(AssertionInfoMap.class, new AssertionInfoMap(assertions));
+            AssertionInfoMap aim = createAssertionInfoMap(operationPolicy);
+            msg.put(AssertionInfoMap.class, aim == null ? new AssertionInfoMap(assertions) : aim);
             msg.getInterceptorChain().add(PolicyVerificationOutInterceptor.INSTANCE);
         }
     }
@@ -87,6 +87,8 @@ public class ServerPolicyOutFaultInterceptor extends AbstractPolicyInterceptor {
         List<Interceptor<? extends Message>> faultInterceptors = 
             new ArrayList<Interceptor<? extends Message>>();
         Collection<Assertion> assertions = new ArrayList<Assertion>();
+        // the effective policy of the fault, which keeps the assertions of its alternative
+        EffectivePolicy faultPolicy = null;
 
         // 1. Check overridden policy
         Policy p = (Policy)msg.getContextualProperty(PolicyConstants.POLICY_OVERRIDE);
@@ -113,6 +115,7 @@ public class ServerPolicyOutFaultInterceptor extends AbstractPolicyInterceptor {
             if (effectivePolicy != null) {
                 faultInterceptors.addAll(effectivePolicy.getInterceptors());
                 assertions.addAll(effectivePolicy.getChosenAlternative());            
+                faultPolicy = effectivePolicy;
             }
         }
         
@@ -124,7 +127,8 @@ public class ServerPolicyOutFaultInterceptor extends AbstractPolicyInterceptor {
         
         // insert assertions of the chosen alternative into the message
         if (null != assertions && !assertions.isEmpty()) {
-            msg.put(AssertionInfoMap.class, new AssertionInfoMap(assertions));
+            AssertionInfoMap aim = createAssertionInfoMap(faultPolicy);
+            msg.put(AssertionInfoMap.class, aim == null ? new AssertionInfoMap(assertions) : aim);
         }
     }
 }
@@ -215,4 +215,38 @@ public class AssertionInfoMapTest extends Assert {
                    ais[0].getAssertion(), c);
         
     }
+    
+    @Test
+    public void testCopy() { 
+        Policy nested = new Policy();
+        Assertion b = new PrimitiveAssertion(new QName("http://x.y.z", "b"));
+        nested.addAssertion(b);
+        Assertion a = new PrimitiveAssertion(new QName("http://x.y.z", "a"));
+        Assertion c = new PolicyContainingPrimitiveAssertion(
+                               new QName("http://x.y.z", "c"), false, false, nested);
+        List<Assertion> assertions = new ArrayList<Assertion>();
+        assertions.add(a);
+        assertions.add(c);
+        AssertionInfoMap template = new AssertionInfoMap(assertions);
+        
+        AssertionInfoMap aim = new AssertionInfoMap(template);
+        assertEquals(template.keySet(), aim.keySet());
+        for (QName name : template.keySet()) {
+            Collection<AssertionInfo> ais = template.getAssertionInfo(name);
+            Collection<AssertionInfo> copies = aim.getAssertionInfo(name);
+            assertEquals(1, copies.size());
+            assertNotSame(ais.iterator().next(), copies.iterator().next());
+            assertSame(ais.iterator().next().getAssertion(), copies.iterator().next().getAssertion());
+        }
+        
+        for (Collection<AssertionInfo> ais : aim.values()) {
+            for (AssertionInfo ai : ais) {
+                ai.setAsserted(true);
+            }
+        }
+        aim.check();
+        assertFalse(template.getAssertionInfo(a.getName()).iterator().next().isAsserted());
+        aim = new AssertionInfoMap(template);
+        assertFalse(aim.getAssertionInfo(b.getName()).iterator().next().isAsserted());
+    }
 }
@@ -161,6 +161,37 @@ public class PolicyEngineTest extends Assert {
         control.verify();
     }
     
+    @Test
+    public void testGetEffectiveServerResponsePolicyForIncoming() throws Exception {
+        Method m = PolicyEngineImpl.class.getDeclaredMethod("createOutPolicyInfo", new Class[] {});
+        engine = EasyMock.createMockBuilder(PolicyEngineImpl.class)
+            .addMockedMethod(m).createMock(control);
+        engine.init();
+        EndpointInfo ei = createMockEndpointInfo();
+        BindingOperationInfo boi = createMockBindingOperationInfo(); 
+        AssertingDestination destination = control.createMock(AssertingDestination.class);
+        Assertion a = new PrimitiveAssertion(new QName("http://x.y.z", "a"));
+        Assertion b = new PrimitiveAssertion(new QName("http://x.y.z", "b"));
+        List<List<Assertion>> incomingA = Collections.singletonList(Collections.singletonList(a));
+        List<List<Assertion>> incomingB = Collections.singletonList(Collections.singletonList(b));
+        EffectivePolicyImpl epiA = control.createMock(EffectivePolicyImpl.class);
+        EffectivePolicyImpl epiB = control.createMock(EffectivePolicyImpl.class);
+        EasyMock.expect(engine.createOutPolicyInfo()).andReturn(epiA);
+        epiA.initialise(ei, boi, engine, destination, false, false, incomingA);
+        EasyMock.expectLastCall();
+        EasyMock.expect(engine.createOutPolicyInfo()).andReturn(epiB);
+        epiB.initialise(ei, boi, engine, destination, false, false, incomingB);
+        EasyMock.expectLastCall();
+        control.replay();
+        assertSame(epiA, engine.getEffectiveServerResponsePolicy(ei, boi, destination, incomingA));
+        assertSame(epiB, engine.getEffectiveServerResponsePolicy(ei, boi, destination, incomingB));
+        // the alternatives of another request with the same assertions
+        List<List<Assertion>> incomingA2 = new ArrayList<List<Assertion>>();
+        incomingA2.add(new ArrayList<Assertion>(Collections.singletonList(a)));
+        assertSame(epiA, engine.getEffectiveServerResponsePolicy(ei, boi, destination, incomingA2));
+        control.verify();
+    }
+    
     @Test
     public void testSetEffectiveServerResponsePolicy() throws Exception {
         engine = new PolicyEngineImpl();
@@ -193,6 +224,25 @@ public class PolicyEngineTest extends Assert {
         control.verify();
     }
     
+    @Test
+    public void testGetEffectiveServerUndeclaredFaultPolicy() throws Exception {
+        Method m = PolicyEngineImpl.class.getDeclaredMethod("createOutPolicyInfo", new Class[] {});
+        engine = EasyMock.createMockBuilder(PolicyEngineImpl.class)
+            .addMockedMethod(m).createMock(control);
+        engine.init();
+        EndpointInfo ei = createMockEndpointInfo();
+        BindingOperationInfo boi = createMockBindingOperationInfo(); 
+        AssertingDestination destination = control.createMock(AssertingDestination.class);
+        EffectivePolicyImpl epi = control.createMock(EffectivePolicyImpl.class);
+        EasyMock.expect(engine.createOutPolicyInfo()).andReturn(epi);
+        epi.initialise(ei, boi, null, engine, destination);
+        EasyMock.expectLastCall();
+        control.replay();
+        assertSame(epi, engine.getEffectiveServerFaultPolicy(ei, boi, null, destination));
+        assertSame(epi, engine.getEffectiveServerFaultPolicy(ei, boi, null, destination));
+        control.verify();
+    }
+    
     @Test
     public void testSetEffectiveServerFaultPolicy() throws Exception {
         engine = new PolicyEngineImpl();
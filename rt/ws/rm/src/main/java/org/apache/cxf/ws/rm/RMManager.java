@@ -471,6 +471,10 @@ public class RMManager {
             }
         }
 
+        if (retransmissionQueue instanceof RetransmissionQueueImpl) {
+            ((RetransmissionQueueImpl)retransmissionQueue).stop();
+        }
+
         // remove references to timer tasks cancelled above to make them
         // eligible for garbage collection
         Timer t = getTimer(false);
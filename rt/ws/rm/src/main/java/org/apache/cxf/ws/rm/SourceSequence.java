@@ -233,7 +233,10 @@ public class SourceSequence extends AbstractSequence {
         return result;
     }
     
-    SequenceAcknowledgement getAcknowledgement() {
+    /**
+     * @return the last acknowledgement received for this sequence, or null
+     */
+    public SequenceAcknowledgement getAcknowledgement() {
         return acknowledgement;
     }
 
@@ -19,9 +19,11 @@
 
 package org.apache.cxf.ws.rm.persistence.jdbc;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.lang.reflect.Method;
 import java.sql.Blob;
 import java.sql.Connection;
 import java.sql.DatabaseMetaData;
@@ -32,10 +34,13 @@ import java.sql.SQLException;
 import java.sql.Statement;
 import java.text.MessageFormat;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -51,6 +56,7 @@ import org.apache.cxf.common.i18n.Message;
 import org.apache.cxf.common.injection.NoJSR250Annotations;
 import org.apache.cxf.common.logging.LogUtils;
 import org.apache.cxf.common.util.SystemPropertyAction;
+import org.apache.cxf.helpers.IOUtils;
 import org.apache.cxf.ws.addressing.EndpointReferenceType;
 import org.apache.cxf.ws.rm.DestinationSequence;
 import org.apache.cxf.ws.rm.ProtocolVariation;
@@ -195,6 +201,14 @@ public class RMTxStore implements RMStore {
     private String tableExistsState = DERBY_TABLE_EXISTS_STATE;
     private int tableExistsCode = ORACLE_TABLE_EXISTS_CODE;
     
+    private long groupCommitWindow;
+    private int maxGroupCommitSize = 100;
+    private final Object groupCommitLock = new Object();
+    private List<PendingWrite> pendingWrites = new ArrayList<PendingWrite>();
+    private boolean groupCommitInProgress;
+    private int groupCommitCallers;
+    private final boolean groupCommitSupported = !overridesWriteMethods(getClass());
+    
     public RMTxStore() {
     }
     
@@ -308,6 +322,40 @@ public class RMTxStore implements RMStore {
         connection = c;
         createdConnection = false;
     }
+
+    public long getGroupCommitWindow() {
+        return groupCommitWindow;
+    }
+
+    /**
+     * Sets the maximum time in milliseconds the messages and acknowledgements persisted by
+     * concurrent calls are collected for, to be written in one JDBC batch and one commit.
+     * The collection ends early once all calls in progress have queued their writes, so a
+     * single caller is not delayed. Each call still only returns once its data is committed.
+     * The default, 0, commits every call separately.
+     * <p>
+     * Group commits write the rows directly and do not call storeMessage, 
+     * updateSourceSequence or updateDestinationSequence, so a subclass that overrides 
+     * any of these always commits every call separately.
+     */
+    public void setGroupCommitWindow(long groupCommitWindow) {
+        this.groupCommitWindow = groupCommitWindow;
+        if (groupCommitWindow > 0 && !groupCommitSupported) {
+            LogUtils.log(LOG, Level.WARNING, "GROUP_COMMIT_DISABLED_MSG", getClass().getName());
+        }
+    }
+
+    public int getMaxGroupCommitSize() {
+        return maxGroupCommitSize;
+    }
+
+    /**
+     * Sets the number of calls after which a group commit is written without waiting
+     * for the rest of the window.
+     */
+    public void setMaxGroupCommitSize(int maxGroupCommitSize) {
+        this.maxGroupCommitSize = maxGroupCommitSize;
+    }
     
     // RMStore interface  
     
@@ -621,6 +669,23 @@ public class RMTxStore implements RMStore {
     }
     
     public void persistIncoming(DestinationSequence seq, RMMessage msg) {        
+        if (isGroupCommitEnabled()) {
+            PendingWrite write = new PendingWrite();
+            synchronized (groupCommitLock) {
+                // the state is captured in the order the writes are queued in
+                try {
+                    write.setDestinationSequence(seq);
+                } catch (IOException ex) {
+                    throw new RMStoreException(ex);
+                }
+                if (msg != null && msg.getCachedOutputStream() != null) {
+                    write.setMessage(seq.getIdentifier(), msg, false);
+                }
+                queueWrite(write);
+            }
+            groupCommit(write);
+            return;
+        }
         Connection con = verifyConnection();
         SQLException conex = null;
         try {
@@ -646,6 +711,18 @@ public class RMTxStore implements RMStore {
         }
     }
     public void persistOutgoing(SourceSequence seq, RMMessage msg) {
+        if (isGroupCommitEnabled()) {
+            PendingWrite write = new PendingWrite();
+            synchronized (groupCommitLock) {
+                write.setSourceSequence(seq);
+                if (msg != null && msg.getCachedOutputStream() != null) {
+                    write.setMessage(seq.getIdentifier(), msg, true);
+                }
+                queueWrite(write);
+            }
+            groupCommit(write);
+            return;
+        }
         Connection con = verifyConnection();
         SQLException conex = null;
         try {
@@ -672,6 +749,15 @@ public class RMTxStore implements RMStore {
     }
     
     public void removeMessages(Identifier sid, Collection<Long> messageNrs, boolean outbound) {
+        if (isGroupCommitEnabled()) {
+            PendingWrite write = new PendingWrite();
+            synchronized (groupCommitLock) {
+                write.setRemovedMessages(sid, messageNrs, outbound);
+                queueWrite(write);
+            }
+            groupCommit(write);
+            return;
+        }
         Connection con = verifyConnection();
         PreparedStatement stmt = null;
         SQLException conex = null;
@@ -699,6 +785,258 @@ public class RMTxStore implements RMStore {
         }
     }
     
+    /**
+     * Queues a write for the next group commit. Must be called holding the groupCommitLock.
+     */
+    private void queueWrite(PendingWrite write) {
+        pendingWrites.add(write);
+        groupCommitCallers++;
+        if (isGroupCommitReady()) {
+            groupCommitLock.notifyAll();
+        }
+    }
+    
+    private boolean isGroupCommitEnabled() {
+        return groupCommitWindow > 0 && groupCommitSupported;
+    }
+    
+    /**
+     * Checks if a subclass customizes how messages and sequence states are written.
+     */
+    private static boolean overridesWriteMethods(Class<?> cls) {
+        for (Class<?> c = cls; c != RMTxStore.class; c = c.getSuperclass()) {
+            for (Method m : c.getDeclaredMethods()) {
+                if (("storeMessage".equals(m.getName()) 
+                    && Arrays.equals(m.getParameterTypes(), new Class<?>[] {
+                        Connection.class, Identifier.class, RMMessage.class, boolean.class}))
+                    || ("updateSourceSequence".equals(m.getName()) 
+                        && Arrays.equals(m.getParameterTypes(), new Class<?>[] {
+                            Connection.class, SourceSequence.class}))
+                    || ("updateDestinationSequence".equals(m.getName()) 
+                        && Arrays.equals(m.getParameterTypes(), new Class<?>[] {
+                            Connection.class, DestinationSequence.class}))) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+    
+    private boolean isGroupCommitReady() {
+        return pendingWrites.size() >= maxGroupCommitSize || pendingWrites.size() >= groupCommitCallers;
+    }
+    
+    /**
+     * Waits until the queued write is committed. The first caller to find no group commit 
+     * in progress collects the writes queued within the window and commits them for all.
+     */
+    private void groupCommit(PendingWrite write) {
+        List<PendingWrite> batch = null;
+        boolean interrupted = false;
+        synchronized (groupCommitLock) {
+            while (!write.done && batch == null) {
+                if (groupCommitInProgress) {
+                    try {
+                        groupCommitLock.wait();
+                    } catch (InterruptedException ex) {
+                        // the write must be committed before returning
+                        interrupted = true;
+                    }
+                    continue;
+                }
+                groupCommitInProgress = true;
+                long deadline = System.currentTimeMillis() + groupCommitWindow;
+                long remaining = groupCommitWindow;
+                while (!isGroupCommitReady() && remaining > 0 && !interrupted) {
+                    try {
+                        groupCommitLock.wait(remaining);
+                    } catch (InterruptedException ex) {
+                        interrupted = true;
+                    }
+                    remaining = deadline - System.currentTimeMillis();
+                }
+                batch = pendingWrites;
+                pendingWrites = new ArrayList<PendingWrite>();
+            }
+            if (batch == null) {
+                groupCommitCallers--;
+                if (groupCommitInProgress && isGroupCommitReady()) {
+                    groupCommitLock.notifyAll();
+                }
+            }
+        }
+        if (batch != null) {
+            try {
+                writeBatch(batch);
+            } finally {
+                synchronized (groupCommitLock) {
+                    for (PendingWrite w : batch) {
+                        w.done = true;
+                    }
+                    groupCommitInProgress = false;
+                    groupCommitCallers--;
+                    groupCommitLock.notifyAll();
+                }
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        if (write.failure != null) {
+            throw new RMStoreException(write.failure);
+        }
+    }
+    
+    /**
+     * Writes and commits the batch. If that fails the writes are retried one by one 
+     * so that only the callers whose writes fail get an exception.
+     */
+    private void writeBatch(List<PendingWrite> batch) {
+        Connection con = verifyConnection();
+        SQLException conex = null;
+        try {
+            beginTransaction();
+            executeBatch(con, batch);
+            commit(con);
+        } catch (Exception ex) {
+            abort(con);
+            if (ex instanceof SQLException) {
+                conex = (SQLException)ex;
+            }
+            if (batch.size() == 1) {
+                PendingWrite write = batch.get(0);
+                write.failure = ex;
+            } else {
+                conex = null;
+                for (PendingWrite write : batch) {
+                    try {
+                        beginTransaction();
+                        executeBatch(con, Collections.singletonList(write));
+                        commit(con);
+                    } catch (Exception ex2) {
+                        abort(con);
+                        if (ex2 instanceof SQLException) {
+                            conex = (SQLException)ex2;
+                        }
+                        write.failure = ex2;
+                    }
+                }
+            }
+        } finally {
+            updateConnectionState(con, conex);
+        }
+    }
+    
+    private void executeBatch(Connection con, List<PendingWrite> batch) throws SQLException, IOException {
+        // only the last state of each sequence needs to be written
+        Map<String, PendingWrite> destSequences = new LinkedHashMap<String, PendingWrite>();
+        Map<String, PendingWrite> srcSequences = new LinkedHashMap<String, PendingWrite>();
+        for (PendingWrite write : batch) {
+            if (write.destSequenceId != null) {
+                destSequences.put(write.destSequenceId, write);
+            } else if (write.srcSequenceId != null) {
+                srcSequences.put(write.srcSequenceId, write);
+            }
+        }
+        List<InputStream> streams = new ArrayList<InputStream>();
+        PreparedStatement stmt = null;
+        try {
+            if (!destSequences.isEmpty()) {
+                stmt = getStatement(con, UPDATE_DEST_SEQUENCE_STMT_STR);
+                for (PendingWrite write : destSequences.values()) {
+                    stmt.setLong(1, write.lastMessageNr);
+                    stmt.setBinaryStream(2, new ByteArrayInputStream(write.acknowledgment), 
+                                         write.acknowledgment.length);
+                    stmt.setString(3, write.destSequenceId);
+                    stmt.addBatch();
+                }
+                stmt.executeBatch();
+                releaseBatch(stmt);
+                stmt = null;
+            }
+            if (!srcSequences.isEmpty()) {
+                stmt = getStatement(con, UPDATE_SRC_SEQUENCE_STMT_STR);
+                for (PendingWrite write : srcSequences.values()) {
+                    stmt.setLong(1, write.currentMessageNr);
+                    stmt.setString(2, write.lastMessage ? "1" : "0");
+                    stmt.setString(3, write.srcSequenceId);
+                    stmt.addBatch();
+                }
+                stmt.executeBatch();
+                releaseBatch(stmt);
+                stmt = null;
+            }
+            for (boolean outbound : new boolean[] {false, true}) {
+                for (PendingWrite write : batch) {
+                    if (write.message == null || write.outbound != outbound) {
+                        continue;
+                    }
+                    if (stmt == null) {
+                        stmt = getStatement(con, outbound 
+                            ? CREATE_OUTBOUND_MESSAGE_STMT_STR : CREATE_INBOUND_MESSAGE_STMT_STR);
+                    }
+                    InputStream msgin = write.message.getInputStream();
+                    streams.add(msgin);
+                    stmt.setString(1, write.messageSequenceId);
+                    stmt.setLong(2, write.messageNr);
+                    stmt.setString(3, write.to);
+                    stmt.setBinaryStream(4, msgin, (int)write.messageSize);
+                    stmt.addBatch();
+                }
+                if (stmt != null) {
+                    stmt.executeBatch();
+                    releaseBatch(stmt);
+                    stmt = null;
+                }
+            }
+            for (boolean outbound : new boolean[] {false, true}) {
+                for (PendingWrite write : batch) {
+                    if (write.removedMessageNrs == null || write.outbound != outbound) {
+                        continue;
+                    }
+                    if (stmt == null) {
+                        stmt = getStatement(con, outbound 
+                            ? DELETE_OUTBOUND_MESSAGE_STMT_STR : DELETE_INBOUND_MESSAGE_STMT_STR);
+                    }
+                    for (Long messageNr : write.removedMessageNrs) {
+                        stmt.setString(1, write.messageSequenceId);
+                        stmt.setLong(2, messageNr);
+                        stmt.addBatch();
+                    }
+                }
+                if (stmt != null) {
+                    stmt.executeBatch();
+                    releaseBatch(stmt);
+                    stmt = null;
+                }
+            }
+        } finally {
+            releaseBatch(stmt);
+            for (InputStream msgin : streams) {
+                try {
+                    msgin.close();
+                } catch (IOException e) {
+                    // ignore
+                }
+            }
+        }
+    }
+    
+    /**
+     * Clears the rows added to the statement, so that they are not executed with the next
+     * batch if this one failed, and releases the statement.
+     */
+    private void releaseBatch(PreparedStatement stmt) {
+        if (stmt != null) {
+            try {
+                stmt.clearBatch();
+            } catch (SQLException ex) {
+                // ignore
+            }
+            releaseResources(stmt, null);
+        }
+    }
+    
     // transaction demarcation
     // 
 
@@ -1239,6 +1577,56 @@ public class RMTxStore implements RMStore {
         }
     }
      
+    /**
+     * The state to be written by one persistIncoming, persistOutgoing or removeMessages 
+     * call in a group commit.
+     */
+    private static final class PendingWrite {
+        String destSequenceId;
+        long lastMessageNr;
+        byte[] acknowledgment;
+        String srcSequenceId;
+        long currentMessageNr;
+        boolean lastMessage;
+        String messageSequenceId;
+        RMMessage message;
+        long messageNr;
+        String to;
+        long messageSize;
+        Collection<Long> removedMessageNrs;
+        boolean outbound;
+        Exception failure;
+        boolean done;
+        
+        void setDestinationSequence(DestinationSequence seq) throws IOException {
+            lastMessageNr = seq.getLastMessageNumber();
+            acknowledgment = IOUtils.readBytesFromStream(PersistenceUtils.getInstance()
+                .serialiseAcknowledgment(seq.getAcknowledgment()));
+            destSequenceId = seq.getIdentifier().getValue();
+        }
+        
+        void setSourceSequence(SourceSequence seq) {
+            currentMessageNr = seq.getCurrentMessageNr();
+            lastMessage = seq.isLastMessage();
+            srcSequenceId = seq.getIdentifier().getValue();
+        }
+        
+        void setMessage(Identifier sid, RMMessage msg, boolean out) {
+            messageSequenceId = sid.getValue();
+            message = msg;
+            messageNr = msg.getMessageNumber();
+            to = msg.getTo();
+            messageSize = msg.getSize();
+            outbound = out;
+        }
+        
+        void setRemovedMessages(Identifier sid, Collection<Long> messageNrs, boolean out) {
+            messageSequenceId = sid.getValue();
+            removedMessageNrs = messageNrs;
+            outbound = out;
+        }
+    }
+    
     private static String buildCreateTableStatement(String name, String[][] cols, String[] keys) {
         StringBuffer buf = new StringBuffer();
         buf.append("CREATE TABLE ").append(name).append(" (");
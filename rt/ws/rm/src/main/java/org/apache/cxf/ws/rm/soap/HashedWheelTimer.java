@@ -0,0 +1,221 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.ws.rm.soap;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Queue;
+import java.util.Timer;
+import java.util.TimerTask;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.apache.cxf.common.logging.LogUtils;
+
+/**
+ * A hashed timer wheel for the resends of the retransmission queue. Scheduling and
+ * cancelling a task take constant time and do not lock, instead of one TimerTask per
+ * resend a single task on the given Timer advances the wheel every tick. Tasks run on
+ * the first tick at or after their deadline, on the thread of the Timer. The task stops
+ * once the wheel is empty and is started again by the next task scheduled.
+ */
+final class HashedWheelTimer {
+
+    private static final Logger LOG = LogUtils.getL7dLogger(HashedWheelTimer.class);
+
+    private final long tickDuration;
+    private final List<List<Timeout>> wheel;
+    private final int mask;
+    private final Queue<Timeout> scheduled = new ConcurrentLinkedQueue<Timeout>();
+    private long startTime = -1;
+    private long tick;
+    private int pending;
+    private volatile boolean running;
+    private TimerTask tickTask;
+
+    /**
+     * @param tickDuration the duration of a tick in milliseconds
+     * @param ticksPerWheel the number of buckets, rounded up to a power of two
+     */
+    HashedWheelTimer(long tickDuration, int ticksPerWheel) {
+        this.tickDuration = tickDuration;
+        int size = 1;
+        while (size < ticksPerWheel) {
+            size <<= 1;
+        }
+        wheel = new ArrayList<List<Timeout>>(size);
+        for (int i = 0; i < size; i++) {
+            wheel.add(new LinkedList<Timeout>());
+        }
+        mask = size - 1;
+    }
+
+    /**
+     * Advances the wheel with a task on the given timer, unless the wheel already runs.
+     * @throws IllegalStateException if the timer was cancelled
+     */
+    synchronized void start(Timer t) {
+        if (running) {
+            return;
+        }
+        if (startTime < 0) {
+            startTime = System.currentTimeMillis();
+        }
+        TimerTask task = new TimerTask() {
+            @Override
+            public void run() {
+                expireTimeouts(System.currentTimeMillis());
+            }
+        };
+        t.scheduleAtFixedRate(task, tickDuration, tickDuration);
+        tickTask = task;
+        running = true;
+    }
+
+    boolean isRunning() {
+        return running;
+    }
+
+    synchronized void stop() {
+        running = false;
+        if (null != tickTask) {
+            tickTask.cancel();
+            tickTask = null;
+        }
+    }
+
+    /**
+     * @param task the task to run
+     * @param deadline the time in milliseconds the task is to be run at
+     * @return the handle to cancel the task with
+     */
+    Timeout schedule(Runnable task, long deadline) {
+        Timeout timeout = new Timeout(task, deadline);
+        scheduled.add(timeout);
+        return timeout;
+    }
+
+    /**
+     * Schedules the task and starts the wheel on the given timer if it is not running. 
+     * Only starting the wheel locks.
+     * @throws IllegalStateException if the timer was cancelled
+     */
+    Timeout schedule(Runnable task, long deadline, Timer t) {
+        Timeout timeout = schedule(task, deadline);
+        if (!running) {
+            try {
+                start(t);
+            } catch (IllegalStateException ex) {
+                timeout.cancel();
+                throw ex;
+            }
+        }
+        return timeout;
+    }
+
+    void expireTimeouts(long now) {
+        List<Timeout> expired = new ArrayList<Timeout>();
+        synchronized (this) {
+            long currentTick = (now - startTime) / tickDuration;
+            if (0 == pending) {
+                // skip the ticks the wheel was idle for
+                tick = Math.max(tick, currentTick);
+            }
+            // the buckets are only touched here, new timeouts are handed over by the queue
+            for (Timeout timeout = scheduled.poll(); null != timeout; timeout = scheduled.poll()) {
+                if (!timeout.isCancelled()) {
+                    long ticks = (timeout.deadline - startTime + tickDuration - 1) / tickDuration;
+                    timeout.deadlineTick = Math.max(ticks, tick);
+                    wheel.get((int)(timeout.deadlineTick & mask)).add(timeout);
+                    pending++;
+                }
+            }
+            for (; tick <= currentTick; tick++) {
+                Iterator<Timeout> it = wheel.get((int)(tick & mask)).iterator();
+                while (it.hasNext()) {
+                    Timeout timeout = it.next();
+                    if (timeout.isCancelled()) {
+                        it.remove();
+                        pending--;
+                    } else if (timeout.deadlineTick <= tick) {
+                        it.remove();
+                        pending--;
+                        expired.add(timeout);
+                    }
+                }
+            }
+            if (running && 0 == pending) {
+                // a task scheduled concurrently either sees the wheel stopped and starts it
+                // again, or is seen in the queue here and keeps the wheel running
+                running = false;
+                if (scheduled.isEmpty()) {
+                    tickTask.cancel();
+                    tickTask = null;
+                } else {
+                    running = true;
+                }
+            }
+        }
+        for (Timeout timeout : expired) {
+            try {
+                timeout.run();
+            } catch (RuntimeException ex) {
+                LOG.log(Level.WARNING, "RESEND_FAILED_MSG", ex);
+            }
+        }
+    }
+
+    /**
+     * A task scheduled on the wheel.
+     */
+    static final class Timeout {
+        private final long deadline;
+        private volatile Runnable task;
+        private long deadlineTick;
+
+        Timeout(Runnable task, long deadline) {
+            this.task = task;
+            this.deadline = deadline;
+        }
+
+        /**
+         * Cancels the task. The task is released right away, the empty timeout is dropped
+         * from the wheel when its bucket is next visited.
+         */
+        void cancel() {
+            task = null;
+        }
+
+        boolean isCancelled() {
+            return null == task;
+        }
+
+        void run() {
+            Runnable r = task;
+            task = null;
+            if (null != r) {
+                r.run();
+            }
+        }
+    }
+}
@@ -27,13 +27,17 @@ import java.net.ConnectException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Comparator;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.TimerTask;
+import java.util.Timer;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.Executor;
 import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -70,24 +74,32 @@ import org.apache.cxf.ws.rm.manager.RetryPolicyType;
 import org.apache.cxf.ws.rm.persistence.RMStore;
 import org.apache.cxf.ws.rm.policy.RM10PolicyUtils;
 import org.apache.cxf.ws.rm.v200702.Identifier;
+import org.apache.cxf.ws.rm.v200702.SequenceAcknowledgement;
 import org.apache.cxf.ws.rm.v200702.SequenceType;
 import org.apache.cxf.ws.rmp.v200502.RMAssertion;
 
 /**
- * 
+ * Keeps the unacknowledged messages of each sequence in a list that is locked on its own,
+ * so that sequences do not contend with each other. The resends are scheduled on a timer
+ * wheel driven by the timer of the RMManager.
  */
 public class RetransmissionQueueImpl implements RetransmissionQueue {
 
     private static final Logger LOG = LogUtils.getL7dLogger(RetransmissionQueueImpl.class);
+    
+    private static final long RESEND_TIMER_TICK = 100L;
+    private static final int RESEND_TIMER_TICKS_PER_WHEEL = 512;
 
-    private Map<String, List<ResendCandidate>> candidates = 
-        new HashMap<String, List<ResendCandidate>>();
-    private Map<String, List<ResendCandidate>> suspendedCandidates = 
-        new HashMap<String, List<ResendCandidate>>();
+    private ConcurrentMap<String, List<ResendCandidate>> candidates = 
+        new ConcurrentHashMap<String, List<ResendCandidate>>();
+    private ConcurrentMap<String, List<ResendCandidate>> suspendedCandidates = 
+        new ConcurrentHashMap<String, List<ResendCandidate>>();
     private Resender resender;
     private RMManager manager;
+    private final HashedWheelTimer resendTimer = 
+        new HashedWheelTimer(RESEND_TIMER_TICK, RESEND_TIMER_TICKS_PER_WHEEL);
 
-    private int unacknowledgedCount;
+    private final AtomicInteger unacknowledgedCount = new AtomicInteger();
     
     public RetransmissionQueueImpl(RMManager m) {
         manager = m;
@@ -109,13 +121,18 @@ public class RetransmissionQueueImpl implements RetransmissionQueue {
      * @param seq the sequence under consideration
      * @return the number of unacknowledged messages for that sequence
      */
-    public synchronized int countUnacknowledged(SourceSequence seq) {
+    public int countUnacknowledged(SourceSequence seq) {
         List<ResendCandidate> sequenceCandidates = getSequenceCandidates(seq);
-        return sequenceCandidates == null ? 0 : sequenceCandidates.size();
+        if (null == sequenceCandidates) {
+            return 0;
+        }
+        synchronized (sequenceCandidates) {
+            return sequenceCandidates.size();
+        }
     }
 
     public int countUnacknowledged() {
-        return unacknowledgedCount;
+        return unacknowledgedCount.get();
     }
 
     /**
@@ -127,31 +144,39 @@ public class RetransmissionQueueImpl implements RetransmissionQueue {
 
     /**
      * Purge all candidates for the given sequence that have been acknowledged.
+     * The acknowledged ranges are sorted once and looked up by binary search, and
+     * the candidates that remain are compacted in a single pass over the list.
      * 
      * @param seq the sequence object.
      */
     public void purgeAcknowledged(SourceSequence seq) {
         Collection<Long> purged = new ArrayList<Long>();
-        synchronized (this) {
-            LOG.fine("Start purging resend candidates.");
-            List<ResendCandidate> sequenceCandidates = getSequenceCandidates(seq);
-            if (null != sequenceCandidates) {
-                for (int i = sequenceCandidates.size() - 1; i >= 0; i--) {
+        LOG.fine("Start purging resend candidates.");
+        List<ResendCandidate> sequenceCandidates = getSequenceCandidates(seq);
+        if (null != sequenceCandidates) {
+            long[][] ranges = getAcknowledgedRanges(seq.getAcknowledgement());
+            synchronized (sequenceCandidates) {
+                int kept = 0;
+                for (int i = 0; i < sequenceCandidates.size(); i++) {
                     ResendCandidate candidate = sequenceCandidates.get(i);
                     long m = candidate.getNumber();
-                    if (seq.isAcknowledged(m)) {
-                        sequenceCandidates.remove(i);
+                    if (null == ranges ? seq.isAcknowledged(m) : isAcknowledged(ranges, m)) {
                         candidate.resolved();
-                        unacknowledgedCount--;
+                        unacknowledgedCount.decrementAndGet();
                         purged.add(m);
+                    } else {
+                        sequenceCandidates.set(kept++, candidate);
                     }
                 }
+                if (kept < sequenceCandidates.size()) {
+                    sequenceCandidates.subList(kept, sequenceCandidates.size()).clear();
+                }
                 if (sequenceCandidates.isEmpty()) {
-                    candidates.remove(seq.getIdentifier().getValue());
+                    candidates.remove(seq.getIdentifier().getValue(), sequenceCandidates);
                 }
             }
-            LOG.fine("Completed purging resend candidates.");
         }
+        LOG.fine("Completed purging resend candidates.");
         if (purged.size() > 0) {
             RMStore store = manager.getStore();
             if (null != store) {
@@ -160,13 +185,67 @@ public class RetransmissionQueueImpl implements RetransmissionQueue {
         }
     }
 
+    /**
+     * @param ack the last acknowledgement received for a sequence
+     * @return the acknowledged ranges as pairs of lower and upper message numbers, sorted 
+     * and with overlapping ranges merged, or null if there is no acknowledgement
+     */
+    static long[][] getAcknowledgedRanges(SequenceAcknowledgement ack) {
+        if (null == ack) {
+            return null;
+        }
+        List<SequenceAcknowledgement.AcknowledgementRange> ackRanges = ack.getAcknowledgementRange();
+        long[][] ranges = new long[ackRanges.size()][];
+        for (int i = 0; i < ranges.length; i++) {
+            SequenceAcknowledgement.AcknowledgementRange r = ackRanges.get(i);
+            ranges[i] = new long[] {r.getLower().longValue(), r.getUpper().longValue()};
+        }
+        Arrays.sort(ranges, new Comparator<long[]>() {
+            public int compare(long[] r1, long[] r2) {
+                return r1[0] < r2[0] ? -1 : (r1[0] == r2[0] ? 0 : 1);
+            }
+        });
+        int merged = 0;
+        for (int i = 1; i < ranges.length; i++) {
+            if (ranges[i][0] <= ranges[merged][1] + 1) {
+                ranges[merged][1] = Math.max(ranges[merged][1], ranges[i][1]);
+            } else {
+                ranges[++merged] = ranges[i];
+            }
+        }
+        return ranges.length == 0 ? ranges : Arrays.copyOf(ranges, merged + 1);
+    }
+
+    /**
+     * @param ranges the sorted and merged acknowledged ranges
+     * @param m the message number
+     * @return true if the message number is in one of the ranges
+     */
+    static boolean isAcknowledged(long[][] ranges, long m) {
+        int low = 0;
+        int high = ranges.length - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (m < ranges[mid][0]) {
+                high = mid - 1;
+            } else if (m > ranges[mid][1]) {
+                low = mid + 1;
+            } else {
+                return true;
+            }
+        }
+        return false;
+    }
+
     public List<Long> getUnacknowledgedMessageNumbers(SourceSequence seq) {
         List<Long> unacknowledged = new ArrayList<Long>();
         List<ResendCandidate> sequenceCandidates = getSequenceCandidates(seq);
         if (null != sequenceCandidates) {
-            for (int i = 0; i < sequenceCandidates.size(); i++) {
-                ResendCandidate candidate = sequenceCandidates.get(i);
-                unacknowledged.add(candidate.getNumber());
+            synchronized (sequenceCandidates) {
+                for (int i = 0; i < sequenceCandidates.size(); i++) {
+                    ResendCandidate candidate = sequenceCandidates.get(i);
+                    unacknowledged.add(candidate.getNumber());
+                }
             }
         }
         return unacknowledged;
@@ -175,10 +254,12 @@ public class RetransmissionQueueImpl implements RetransmissionQueue {
     public RetryStatus getRetransmissionStatus(SourceSequence seq, long num) {
         List<ResendCandidate> sequenceCandidates = getSequenceCandidates(seq);
         if (null != sequenceCandidates) {
-            for (int i = 0; i < sequenceCandidates.size(); i++) {
-                ResendCandidate candidate = sequenceCandidates.get(i);
-                if (num == candidate.getNumber()) {
-                    return candidate;
+            synchronized (sequenceCandidates) {
+                for (int i = 0; i < sequenceCandidates.size(); i++) {
+                    ResendCandidate candidate = sequenceCandidates.get(i);
+                    if (num == candidate.getNumber()) {
+                        return candidate;
+                    }
                 }
             }
         }
@@ -189,9 +270,11 @@ public class RetransmissionQueueImpl implements RetransmissionQueue {
         Map<Long, RetryStatus> cp = new HashMap<Long, RetryStatus>();
         List<ResendCandidate> sequenceCandidates = getSequenceCandidates(seq);
         if (null != sequenceCandidates) {
-            for (int i = 0; i < sequenceCandidates.size(); i++) {
-                ResendCandidate candidate = sequenceCandidates.get(i);
-                cp.put(candidate.getNumber(), candidate);
+            synchronized (sequenceCandidates) {
+                for (int i = 0; i < sequenceCandidates.size(); i++) {
+                    ResendCandidate candidate = sequenceCandidates.get(i);
+                    cp.put(candidate.getNumber(), candidate);
+                }
             }
         }
         return cp;
@@ -215,49 +298,60 @@ public class RetransmissionQueueImpl implements RetransmissionQueue {
      * Stops resending messages for the specified source sequence.
      */
     public void stop(SourceSequence seq) {
-        synchronized (this) {
-            List<ResendCandidate> sequenceCandidates = getSequenceCandidates(seq);
-            if (null != sequenceCandidates) {
+        List<ResendCandidate> sequenceCandidates = getSequenceCandidates(seq);
+        if (null != sequenceCandidates) {
+            synchronized (sequenceCandidates) {
                 for (int i = sequenceCandidates.size() - 1; i >= 0; i--) {
                     ResendCandidate candidate = sequenceCandidates.get(i);
                     candidate.cancel();
                 }
-                LOG.log(Level.FINE, "Cancelled resends for sequence {0}.", seq.getIdentifier().getValue());
-            }           
-        }
+            }
+            LOG.log(Level.FINE, "Cancelled resends for sequence {0}.", seq.getIdentifier().getValue());
+        }           
     }
     
-    void stop() {
-        
+    /**
+     * Stops advancing the resend timer. Called when the RMManager shuts down.
+     */
+    public void stop() {
+        resendTimer.stop();
     }
     
     public void suspend(SourceSequence seq) {
-        synchronized (this) {
-            String key = seq.getIdentifier().getValue();
-            List<ResendCandidate> sequenceCandidates = candidates.remove(key);
-            if (null != sequenceCandidates) {
+        String key = seq.getIdentifier().getValue();
+        List<ResendCandidate> sequenceCandidates = candidates.get(key);
+        if (null != sequenceCandidates) {
+            synchronized (sequenceCandidates) {
+                if (candidates.get(key) != sequenceCandidates) {
+                    return;
+                }
                 for (int i = sequenceCandidates.size() - 1; i >= 0; i--) {
                     ResendCandidate candidate = sequenceCandidates.get(i);
                     candidate.suspend();
                 }
                 suspendedCandidates.put(key, sequenceCandidates);
-                LOG.log(Level.FINE, "Suspended resends for sequence {0}.", key);
+                candidates.remove(key, sequenceCandidates);
             }
+            LOG.log(Level.FINE, "Suspended resends for sequence {0}.", key);
         }
     }
     
     public void resume(SourceSequence seq) {
-        synchronized (this) {
-            String key = seq.getIdentifier().getValue();
-            List<ResendCandidate> sequenceCandidates = suspendedCandidates.remove(key);
-            if (null != sequenceCandidates) {
+        String key = seq.getIdentifier().getValue();
+        List<ResendCandidate> sequenceCandidates = suspendedCandidates.get(key);
+        if (null != sequenceCandidates) {
+            synchronized (sequenceCandidates) {
+                if (suspendedCandidates.get(key) != sequenceCandidates) {
+                    return;
+                }
                 for (int i = 0; i < sequenceCandidates.size(); i++) {
                     ResendCandidate candidate = sequenceCandidates.get(i);
                     candidate.resume();
                 }
                 candidates.put(key, sequenceCandidates);
-                LOG.log(Level.FINE, "Resumed resends for sequence {0}.", key);
-            }           
+                suspendedCandidates.remove(key, sequenceCandidates);
+            }
+            LOG.log(Level.FINE, "Resumed resends for sequence {0}.", key);
         }
     }
 
@@ -290,18 +384,27 @@ public class RetransmissionQueueImpl implements RetransmissionQueue {
         
         ResendCandidate candidate = null;
         
-        synchronized (this) {
+        while (null == candidate) {
             List<ResendCandidate> sequenceCandidates = getSequenceCandidates(key);
             if (null == sequenceCandidates) {
-                sequenceCandidates = new ArrayList<ResendCandidate>();
-                candidates.put(key, sequenceCandidates);
+                List<ResendCandidate> newCandidates = new ArrayList<ResendCandidate>();
+                sequenceCandidates = candidates.putIfAbsent(key, newCandidates);
+                if (null == sequenceCandidates) {
+                    sequenceCandidates = newCandidates;
+                }
             }
-            candidate = new ResendCandidate(message);
-            if (isSequenceSuspended(key)) {
-                candidate.suspend();
+            synchronized (sequenceCandidates) {
+                // retry if a purge removed the list from the queue in the meantime
+                boolean suspended = suspendedCandidates.get(key) == sequenceCandidates;
+                if (suspended || candidates.get(key) == sequenceCandidates) {
+                    candidate = new ResendCandidate(message);
+                    if (suspended) {
+                        candidate.suspend();
+                    }
+                    sequenceCandidates.add(candidate);
+                    unacknowledgedCount.incrementAndGet();
+                }
             }
-            sequenceCandidates.add(candidate);
-            unacknowledgedCount++;
         }
         LOG.fine("Cached unacknowledged message.");
         return candidate;
@@ -317,8 +420,7 @@ public class RetransmissionQueueImpl implements RetransmissionQueue {
 
     /**
      * @param seq the sequence under consideration
-     * @return the list of resend candidates for that sequence
-     * @pre called with mutex held
+     * @return the list of resend candidates for that sequence, to be accessed holding its lock
      */
     protected List<ResendCandidate> getSequenceCandidates(SourceSequence seq) {
         return getSequenceCandidates(seq.getIdentifier().getValue());
@@ -326,8 +428,7 @@ public class RetransmissionQueueImpl implements RetransmissionQueue {
 
     /**
      * @param key the sequence identifier under consideration
-     * @return the list of resend candidates for that sequence
-     * @pre called with mutex held
+     * @return the list of resend candidates for that sequence, to be accessed holding its lock
      */
     protected List<ResendCandidate> getSequenceCandidates(String key) {
         List<ResendCandidate> sc = candidates.get(key);
@@ -340,7 +441,6 @@ public class RetransmissionQueueImpl implements RetransmissionQueue {
     /**
      * @param key the sequence identifier under consideration
      * @return true if the sequence is currently suspended; false otherwise
-     * @pre called with mutex held
      */
     protected boolean isSequenceSuspended(String key) {
         return suspendedCandidates.containsKey(key);
@@ -473,7 +573,7 @@ public class RetransmissionQueueImpl implements RetransmissionQueue {
         private long number;
         private OutputStream out;
         private Date next;
-        private TimerTask nextTask;
+        private HashedWheelTimer.Timeout nextTask;
         private int retries;
         private int maxRetries;
         private long nextInterval;
@@ -689,26 +789,18 @@ public class RetransmissionQueueImpl implements RetransmissionQueue {
         }
 
         protected final synchronized void schedule() {
-            if (null == manager.getTimer()) {
+            Timer timer = manager.getTimer();
+            if (null == timer) {
                 return;
             }
-            class ResendTask extends TimerTask {
-                ResendCandidate candidate;
-
-                ResendTask(ResendCandidate c) {
-                    candidate = c;
-                }
-
-                @Override
-                public void run() {
-                    if (!candidate.isPending()) {
-                        candidate.initiate(includeAckRequested);
-                    }
-                }
-            }
-            nextTask = new ResendTask(this);
             try {
-                manager.getTimer().schedule(nextTask, next);
+                nextTask = resendTimer.schedule(new Runnable() {
+                    public void run() {
+                        if (!isPending()) {
+                            initiate(includeAckRequested);
+                        }
+                    }
+                }, next.getTime(), timer);
             } catch (IllegalStateException ex) {
                 LOG.log(Level.WARNING, "SCHEDULE_RESEND_FAILED_MSG", ex);
             }
@@ -0,0 +1,244 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.ws.rm.persistence.jdbc;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.cxf.ws.rm.ProtocolVariation;
+import org.apache.cxf.ws.rm.SourceSequence;
+import org.apache.cxf.ws.rm.persistence.RMMessage;
+import org.apache.cxf.ws.rm.persistence.RMStoreException;
+import org.apache.cxf.ws.rm.v200702.Identifier;
+import org.easymock.EasyMock;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Runs the store tests with group commit enabled.
+ */
+public class RMTxStoreGroupCommitTest extends RMTxStoreTestBase {
+    private static final int THREAD_COUNT = 8;
+    private static final int MESSAGE_COUNT = 10;
+    
+    @BeforeClass 
+    public static void setUpOnce() {
+        RMTxStoreTestBase.setUpOnce();
+        
+        RMTxStore.deleteDatabaseFiles("rmdbgc", true);
+
+        store = new RMTxStore();
+        store.setDriverClassName("org.apache.derby.jdbc.EmbeddedDriver");
+        store.setUrl("jdbc:derby:rmdbgc;create=true");
+        store.setGroupCommitWindow(5);
+        store.init();
+    }
+    
+    @AfterClass
+    public static void tearDownOnce() {
+        RMTxStore.deleteDatabaseFiles("rmdbgc", false);
+    }
+    
+    @Test
+    public void testConcurrentPersistOutgoing() throws Exception {
+        final List<Identifier> sids = createSourceSequences("gcsequence", THREAD_COUNT);
+        
+        try {
+            final List<Throwable> errors = Collections.synchronizedList(new ArrayList<Throwable>());
+            runConcurrently(sids, errors, true);
+            assertTrue(errors.toString(), errors.isEmpty());
+            
+            for (Identifier sid : sids) {
+                Collection<RMMessage> msgs = store.getMessages(sid, true);
+                assertEquals(MESSAGE_COUNT, msgs.size());
+                SourceSequence seq = store.getSourceSequence(sid);
+                assertEquals(MESSAGE_COUNT, seq.getCurrentMessageNr());
+            }
+            
+            runConcurrently(sids, errors, false);
+            assertTrue(errors.toString(), errors.isEmpty());
+            for (Identifier sid : sids) {
+                assertEquals(0, store.getMessages(sid, true).size());
+            }
+        } finally {
+            for (Identifier sid : sids) {
+                store.removeSourceSequence(sid);
+            }
+        }
+    }
+    
+    @Test
+    public void testFailedWriteRetried() throws Exception {
+        List<Identifier> sids = createSourceSequences("gcfailedsequence", THREAD_COUNT);
+        
+        try {
+            // the first message of the first sequence is already stored, so storing it again fails
+            Identifier failing = sids.get(0);
+            persistOutgoing(failing, 1);
+            
+            List<Throwable> errors = Collections.synchronizedList(new ArrayList<Throwable>());
+            runConcurrently(sids, errors, 1, 1);
+            assertEquals(errors.toString(), 1, errors.size());
+            assertTrue(errors.get(0) instanceof RMStoreException);
+            for (Identifier sid : sids) {
+                assertEquals(1, store.getMessages(sid, true).size());
+            }
+            
+            // nothing of the failed batch is written with the next one
+            errors.clear();
+            runConcurrently(sids, errors, 2, 2);
+            assertTrue(errors.toString(), errors.isEmpty());
+            for (Identifier sid : sids) {
+                assertEquals(2, store.getMessages(sid, true).size());
+                assertEquals(2, store.getSourceSequence(sid).getCurrentMessageNr());
+            }
+        } finally {
+            for (Identifier sid : sids) {
+                store.removeSourceSequence(sid);
+            }
+        }
+    }
+    
+    @Test
+    public void testGroupCommitNotUsedWithCustomStoreMessage() throws Exception {
+        final List<Identifier> stored = new ArrayList<Identifier>();
+        RMTxStore customStore = new RMTxStore() {
+            @Override
+            protected void storeMessage(Connection con, Identifier sid, RMMessage msg, boolean outbound)
+                throws IOException, SQLException {
+                stored.add(sid);
+                super.storeMessage(con, sid, msg, outbound);
+            }
+        };
+        customStore.setConnection(store.verifyConnection());
+        customStore.setGroupCommitWindow(5);
+        customStore.init();
+        
+        Identifier sid = createSourceSequences("gccustomsequence", 1).get(0);
+        try {
+            SourceSequence seq = new SourceSequence(sid, null, null, 1, false, 
+                                                    ProtocolVariation.RM10WSA200408);
+            RMMessage msg = new RMMessage();
+            msg.setMessageNumber(1);
+            msg.setContent("Message 1".getBytes());
+            customStore.persistOutgoing(seq, msg);
+            assertEquals(Collections.singletonList(sid), stored);
+            assertEquals(1, store.getMessages(sid, true).size());
+        } finally {
+            store.removeSourceSequence(sid);
+        }
+    }
+    
+    private List<Identifier> createSourceSequences(String prefix, int count) {
+        List<Identifier> sids = new ArrayList<Identifier>();
+        for (int i = 0; i < count; i++) {
+            Identifier sid = new Identifier();
+            sid.setValue(prefix + i);
+            SourceSequence seq = control.createMock(SourceSequence.class);
+            EasyMock.expect(seq.getIdentifier()).andReturn(sid);
+            EasyMock.expect(seq.getExpires()).andReturn(null);
+            EasyMock.expect(seq.getOfferingSequenceIdentifier()).andReturn(null);
+            EasyMock.expect(seq.getEndpointIdentifier()).andReturn(CLIENT_ENDPOINT_ID);
+            EasyMock.expect(seq.getProtocol()).andReturn(ProtocolVariation.RM10WSA200408);
+            control.replay();
+            store.createSourceSequence(seq);
+            control.reset();
+            sids.add(sid);
+        }
+        return sids;
+    }
+    
+    private static void persistOutgoing(Identifier sid, int messageNr) {
+        SourceSequence seq = new SourceSequence(sid, null, null, messageNr, false,
+                                                ProtocolVariation.RM10WSA200408);
+        RMMessage msg = new RMMessage();
+        msg.setMessageNumber(messageNr);
+        msg.setContent(("Message " + messageNr).getBytes());
+        store.persistOutgoing(seq, msg);
+    }
+    
+    private void runConcurrently(List<Identifier> sids, final List<Throwable> errors, 
+                                 final boolean persist) throws InterruptedException {
+        if (persist) {
+            runConcurrently(sids, errors, 1, MESSAGE_COUNT);
+            return;
+        }
+        List<Thread> threads = new ArrayList<Thread>();
+        for (final Identifier sid : sids) {
+            threads.add(new Thread() {
+                public void run() {
+                    try {
+                        for (int i = 1; i <= MESSAGE_COUNT; i++) {
+                            store.removeMessages(sid, Collections.singletonList(Long.valueOf(i)), true);
+                        }
+                    } catch (Throwable t) {
+                        errors.add(t);
+                    }
+                }
+            });
+        }
+        startAndJoin(threads);
+    }
+    
+    private void runConcurrently(List<Identifier> sids, final List<Throwable> errors, 
+                                 final int first, final int last) throws InterruptedException {
+        List<Thread> threads = new ArrayList<Thread>();
+        for (final Identifier sid : sids) {
+            threads.add(new Thread() {
+                public void run() {
+                    for (int i = first; i <= last; i++) {
+                        try {
+                            persistOutgoing(sid, i);
+                        } catch (Throwable t) {
+                            errors.add(t);
+                        }
+                    }
+                }
+            });
+        }
+        startAndJoin(threads);
+    }
+    
+    private static void startAndJoin(List<Thread> threads) throws InterruptedException {
+        for (Thread t : threads) {
+            t.start();
+        }
+        for (Thread t : threads) {
+            t.join(30000);
+        }
+    }
+
+    @Override
+    protected Connection getConnection() {
+        return store.verifyConnection();
+    }
+
+    @Override
+    protected void releaseConnection(Connection con) {
+        // the connection is held in the store, so not close it until the store is disposed.
+    }
+}
@@ -0,0 +1,161 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.ws.rm.soap;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Timer;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class HashedWheelTimerTest extends Assert {
+    
+    private Timer timer;
+    private HashedWheelTimer wheel;
+    private List<String> fired;
+    
+    @Before
+    public void setUp() {
+        timer = new Timer(true);
+        wheel = new HashedWheelTimer(10, 8);
+        fired = new ArrayList<String>();
+    }
+    
+    @After
+    public void tearDown() {
+        wheel.stop();
+        timer.cancel();
+    }
+    
+    @Test
+    public void testExpireInDeadlineOrder() {
+        wheel.start(timer);
+        wheel.stop();
+        long start = System.currentTimeMillis();
+        wheel.schedule(new Record("late"), start + 1000);
+        wheel.schedule(new Record("early"), start + 20);
+        
+        wheel.expireTimeouts(start + 10);
+        assertTrue(fired.isEmpty());
+        wheel.expireTimeouts(start + 500);
+        assertEquals(1, fired.size());
+        assertEquals("early", fired.get(0));
+        // more than one rotation of the wheel
+        wheel.expireTimeouts(start + 990);
+        assertEquals(1, fired.size());
+        wheel.expireTimeouts(start + 1020);
+        assertEquals(2, fired.size());
+        assertEquals("late", fired.get(1));
+    }
+    
+    @Test
+    public void testCancel() {
+        wheel.start(timer);
+        wheel.stop();
+        long start = System.currentTimeMillis();
+        HashedWheelTimer.Timeout timeout = wheel.schedule(new Record("cancelled"), start + 20);
+        wheel.schedule(new Record("kept"), start + 20);
+        wheel.expireTimeouts(start);
+        timeout.cancel();
+        assertTrue(timeout.isCancelled());
+        wheel.expireTimeouts(start + 100);
+        assertEquals(1, fired.size());
+        assertEquals("kept", fired.get(0));
+    }
+    
+    @Test
+    public void testPastDeadline() {
+        wheel.start(timer);
+        wheel.stop();
+        long start = System.currentTimeMillis();
+        wheel.schedule(new Record("past"), start - 1000);
+        wheel.expireTimeouts(start + 10);
+        assertEquals(1, fired.size());
+    }
+    
+    @Test
+    public void testTimerDrivesWheel() throws Exception {
+        wheel.start(timer);
+        wheel.schedule(new Record("timed"), System.currentTimeMillis() + 30);
+        for (int i = 0; i < 100; i++) {
+            synchronized (fired) {
+                if (!fired.isEmpty()) {
+                    break;
+                }
+            }
+            Thread.sleep(20);
+        }
+        synchronized (fired) {
+            assertEquals(1, fired.size());
+        }
+    }
+    
+    @Test
+    public void testWheelStopsWhenEmpty() throws Exception {
+        wheel.schedule(new Record("first"), System.currentTimeMillis() + 30, timer);
+        assertTrue(wheel.isRunning());
+        awaitFired(1);
+        for (int i = 0; i < 100 && wheel.isRunning(); i++) {
+            Thread.sleep(20);
+        }
+        assertFalse(wheel.isRunning());
+        
+        wheel.schedule(new Record("second"), System.currentTimeMillis() + 30, timer);
+        assertTrue(wheel.isRunning());
+        awaitFired(2);
+    }
+    
+    @Test(expected = IllegalStateException.class)
+    public void testScheduleOnCancelledTimer() {
+        timer.cancel();
+        wheel.schedule(new Record("never"), System.currentTimeMillis() + 30, timer);
+    }
+    
+    private void awaitFired(int count) throws InterruptedException {
+        for (int i = 0; i < 100; i++) {
+            synchronized (fired) {
+                if (fired.size() >= count) {
+                    break;
+                }
+            }
+            Thread.sleep(20);
+        }
+        synchronized (fired) {
+            assertEquals(count, fired.size());
+        }
+    }
+    
+    private class Record implements Runnable {
+        private String name;
+        
+        Record(String n) {
+            name = n;
+        }
+        
+        public void run() {
+            synchronized (fired) {
+                fired.add(name);
+            }
+        }
+    }
+}
@@ -35,6 +35,7 @@ import org.apache.cxf.ws.rm.manager.RetryPolicyType;
 import org.apache.cxf.ws.rm.manager.SourcePolicyType;
 import org.apache.cxf.ws.rm.persistence.RMStore;
 import org.apache.cxf.ws.rm.v200702.Identifier;
+import org.apache.cxf.ws.rm.v200702.SequenceAcknowledgement;
 import org.apache.cxf.ws.rm.v200702.SequenceType;
 import org.apache.cxf.ws.rmp.v200502.RMAssertion;
 import org.easymock.EasyMock;
@@ -293,6 +294,32 @@ public class RetransmissionQueueImplTest extends Assert {
                      sequenceList.size());
     }
     
+    @Test
+    public void testAcknowledgedRanges() {
+        ready(false);
+        assertNull(RetransmissionQueueImpl.getAcknowledgedRanges(null));
+        
+        SequenceAcknowledgement ack = new SequenceAcknowledgement();
+        addRange(ack, 20, 30);
+        addRange(ack, 1, 5);
+        addRange(ack, 4, 8);
+        addRange(ack, 9, 10);
+        long[][] ranges = RetransmissionQueueImpl.getAcknowledgedRanges(ack);
+        assertEquals(2, ranges.length);
+        assertEquals(1, ranges[0][0]);
+        assertEquals(10, ranges[0][1]);
+        assertEquals(20, ranges[1][0]);
+        assertEquals(30, ranges[1][1]);
+        
+        for (long m = 1; m <= 35; m++) {
+            assertEquals("message " + m, 
+                         m <= 10 || (m >= 20 && m <= 30), 
+                         RetransmissionQueueImpl.isAcknowledged(ranges, m));
+        }
+        assertFalse(RetransmissionQueueImpl.isAcknowledged(
+            RetransmissionQueueImpl.getAcknowledgedRanges(new SequenceAcknowledgement()), 1));
+    }
+    
     @Test
     public void testIsEmpty() {
         ready(false);
@@ -345,6 +372,14 @@ public class RetransmissionQueueImplTest extends Assert {
         queue.start();
     }
     
+    private void addRange(SequenceAcknowledgement ack, long lower, long upper) {
+        SequenceAcknowledgement.AcknowledgementRange range = 
+            new SequenceAcknowledgement.AcknowledgementRange();
+        range.setLower(lower);
+        range.setUpper(upper);
+        ack.getAcknowledgementRange().add(range);
+    }
+    
     private Message setUpMessage(String sid) {
         return setUpMessage(sid, null);
     }
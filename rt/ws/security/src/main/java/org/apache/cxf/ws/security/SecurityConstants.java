@@ -245,6 +245,13 @@ public final class SecurityConstants {
      */
     public static final String TOKEN_STORE_CACHE_INSTANCE = 
         "org.apache.cxf.ws.security.tokenstore.TokenStore";
+    
+    /**
+     * The maximum number of tokens held by the MemoryTokenStore. When the limit is reached, 
+     * the least recently used of the tokens closest to expiry are evicted. The default is no limit.
+     */
+    public static final String TOKEN_STORE_MAX_SIZE = 
+        "ws-security.tokenstore.max.size";
 
     /**
      * A comma separated String of regular expressions which will be applied to the subject DN of 
@@ -408,7 +415,7 @@ public final class SecurityConstants {
             TIMESTAMP_TTL, TIMESTAMP_FUTURE_TTL, SAML_ROLE_ATTRIBUTENAME,
             KERBEROS_CLIENT, SPNEGO_CLIENT_ACTION, KERBEROS_JAAS_CONTEXT_NAME, KERBEROS_SPN, 
             NONCE_CACHE_INSTANCE, TIMESTAMP_CACHE_INSTANCE, CACHE_CONFIG_FILE, 
-            TOKEN_STORE_CACHE_INSTANCE, SUBJECT_CERT_CONSTRAINTS,
+            TOKEN_STORE_CACHE_INSTANCE, TOKEN_STORE_MAX_SIZE, SUBJECT_CERT_CONSTRAINTS,
             USERNAME_TOKEN_VALIDATOR, SAML1_TOKEN_VALIDATOR, SAML2_TOKEN_VALIDATOR, 
             TIMESTAMP_TOKEN_VALIDATOR, SIGNATURE_TOKEN_VALIDATOR, BST_TOKEN_VALIDATOR, 
             SCT_TOKEN_VALIDATOR, STS_CLIENT, STS_APPLIES_TO, STS_TOKEN_USE_CERT_FOR_KEYINFO,
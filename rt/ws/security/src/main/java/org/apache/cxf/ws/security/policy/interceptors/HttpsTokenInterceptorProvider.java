@@ -32,6 +32,7 @@ import javax.net.ssl.HttpsURLConnection;
 
 import org.apache.cxf.helpers.CastUtils;
 import org.apache.cxf.interceptor.Fault;
+import org.apache.cxf.interceptor.SecurityInterceptor;
 import org.apache.cxf.message.Message;
 import org.apache.cxf.phase.AbstractPhaseInterceptor;
 import org.apache.cxf.phase.Phase;
@@ -74,7 +75,8 @@ public class HttpsTokenInterceptorProvider extends AbstractPolicyInterceptorProv
         return headers;
     }
 
-    static class HttpsTokenOutInterceptor extends AbstractPhaseInterceptor<Message> {
+    static class HttpsTokenOutInterceptor extends AbstractPhaseInterceptor<Message> 
+        implements SecurityInterceptor {
         public HttpsTokenOutInterceptor() {
             super(Phase.PRE_STREAM);
         }
@@ -154,7 +156,8 @@ public class HttpsTokenInterceptorProvider extends AbstractPolicyInterceptorProv
 
     }
     
-    static class HttpsTokenInInterceptor extends AbstractPhaseInterceptor<Message> {
+    static class HttpsTokenInInterceptor extends AbstractPhaseInterceptor<Message> 
+        implements SecurityInterceptor {
         public HttpsTokenInInterceptor() {
             super(Phase.PRE_STREAM);
         }
@@ -32,6 +32,7 @@ import org.w3c.dom.Element;
 import org.apache.cxf.endpoint.Endpoint;
 import org.apache.cxf.helpers.CastUtils;
 import org.apache.cxf.interceptor.Fault;
+import org.apache.cxf.interceptor.SecurityInterceptor;
 import org.apache.cxf.message.Message;
 import org.apache.cxf.message.MessageUtils;
 import org.apache.cxf.phase.AbstractPhaseInterceptor;
@@ -118,7 +119,8 @@ public class IssuedTokenInterceptorProvider extends AbstractPolicyInterceptorPro
         return tokenStore;
     }
 
-    static class IssuedTokenOutInterceptor extends AbstractPhaseInterceptor<Message> {
+    static class IssuedTokenOutInterceptor extends AbstractPhaseInterceptor<Message> 
+        implements SecurityInterceptor {
         public IssuedTokenOutInterceptor() {
             super(Phase.PREPARE_SEND);
         }    
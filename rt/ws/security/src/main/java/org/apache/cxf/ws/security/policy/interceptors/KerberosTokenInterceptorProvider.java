@@ -27,6 +27,7 @@ import java.util.List;
 import org.apache.cxf.endpoint.Endpoint;
 import org.apache.cxf.helpers.CastUtils;
 import org.apache.cxf.interceptor.Fault;
+import org.apache.cxf.interceptor.SecurityInterceptor;
 import org.apache.cxf.message.Message;
 import org.apache.cxf.phase.AbstractPhaseInterceptor;
 import org.apache.cxf.phase.Phase;
@@ -96,7 +97,8 @@ public class KerberosTokenInterceptorProvider extends AbstractPolicyInterceptorP
         }
     }
 
-    static class KerberosTokenOutInterceptor extends AbstractPhaseInterceptor<Message> {
+    static class KerberosTokenOutInterceptor extends AbstractPhaseInterceptor<Message> 
+        implements SecurityInterceptor {
         public KerberosTokenOutInterceptor() {
             super(Phase.PREPARE_SEND);
         }
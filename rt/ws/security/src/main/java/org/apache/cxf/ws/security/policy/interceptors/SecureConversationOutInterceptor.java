@@ -25,6 +25,7 @@ import java.util.Map;
 import org.apache.cxf.binding.soap.SoapMessage;
 import org.apache.cxf.endpoint.Endpoint;
 import org.apache.cxf.interceptor.Fault;
+import org.apache.cxf.interceptor.SecurityInterceptor;
 import org.apache.cxf.message.Message;
 import org.apache.cxf.phase.AbstractPhaseInterceptor;
 import org.apache.cxf.phase.Phase;
@@ -41,7 +42,8 @@ import org.apache.cxf.ws.security.trust.STSClient;
 import org.apache.cxf.ws.security.trust.STSUtils;
 import org.apache.ws.security.WSConstants;
 
-class SecureConversationOutInterceptor extends AbstractPhaseInterceptor<SoapMessage> {
+class SecureConversationOutInterceptor extends AbstractPhaseInterceptor<SoapMessage> 
+    implements SecurityInterceptor {
     public SecureConversationOutInterceptor() {
         super(Phase.PREPARE_SEND);
     }
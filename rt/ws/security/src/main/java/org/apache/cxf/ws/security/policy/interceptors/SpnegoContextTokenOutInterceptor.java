@@ -26,6 +26,7 @@ import javax.security.auth.callback.CallbackHandler;
 import org.apache.cxf.binding.soap.SoapMessage;
 import org.apache.cxf.endpoint.Endpoint;
 import org.apache.cxf.interceptor.Fault;
+import org.apache.cxf.interceptor.SecurityInterceptor;
 import org.apache.cxf.phase.AbstractPhaseInterceptor;
 import org.apache.cxf.phase.Phase;
 import org.apache.cxf.ws.addressing.AddressingProperties;
@@ -43,7 +44,8 @@ import org.apache.ws.security.spnego.SpnegoClientAction;
 import org.apache.ws.security.spnego.SpnegoTokenContext;
 import org.apache.ws.security.util.Base64;
 
-class SpnegoContextTokenOutInterceptor extends AbstractPhaseInterceptor<SoapMessage> {
+class SpnegoContextTokenOutInterceptor extends AbstractPhaseInterceptor<SoapMessage> 
+    implements SecurityInterceptor {
     public SpnegoContextTokenOutInterceptor() {
         super(Phase.PREPARE_SEND);
     }
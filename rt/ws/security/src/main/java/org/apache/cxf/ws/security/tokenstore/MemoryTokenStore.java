@@ -16,99 +16,239 @@
  * specific language governing permissions and limitations
  * under the License.
  */
-
 package org.apache.cxf.ws.security.tokenstore;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Date;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
 
 import org.apache.cxf.common.util.StringUtils;
 
 /**
  * A simple HashMap-based TokenStore. The default TTL is 5 minutes and the max TTL is 1 hour.
+ *
+ * Lookups do not lock. The entries are also indexed in buckets of one second by their expiry 
+ * time, so expired tokens are evicted a bucket at a time as the store is used rather than by 
+ * walking all the tokens. The number of tokens can optionally be bounded, in which case the 
+ * least recently used of the tokens closest to expiry are evicted first.
  */
 public class MemoryTokenStore implements TokenStore {
     public static final long DEFAULT_TTL = 60L * 5L;
     public static final long MAX_TTL = DEFAULT_TTL * 12L;
-    
-    private Map<String, CacheEntry> tokens = new ConcurrentHashMap<String, CacheEntry>();
-    
+
+    /**
+     * The number of entries, taken from the buckets closest to expiry, that are looked at
+     * when choosing the least recently used entry to evict.
+     */
+    private static final int EVICTION_SAMPLE_SIZE = 16;
+
+    private final ConcurrentMap<String, CacheEntry> tokens = new ConcurrentHashMap<String, CacheEntry>();
+    private final ConcurrentNavigableMap<Long, Set<CacheEntry>> expiryBuckets = 
+        new ConcurrentSkipListMap<Long, Set<CacheEntry>>();
+    private volatile int maxSize;
+
+    public MemoryTokenStore() {
+        this(0);
+    }
+
+    /**
+     * @param maxSize the maximum number of tokens to hold, or 0 for no limit
+     */
+    public MemoryTokenStore(int maxSize) {
+        this.maxSize = maxSize;
+    }
+
     public void add(SecurityToken token) {
         if (token != null && !StringUtils.isEmpty(token.getId())) {
-            CacheEntry cacheEntry = createCacheEntry(token);
-            if (cacheEntry != null) {
-                tokens.put(token.getId(), cacheEntry);
-            }
+            addCacheEntry(token.getId(), token);
         }
     }
-    
+
     public void add(String identifier, SecurityToken token) {
         if (token != null && !StringUtils.isEmpty(identifier)) {
-            CacheEntry cacheEntry = createCacheEntry(token);
-            if (cacheEntry != null) {
-                tokens.put(identifier, cacheEntry);
-            }
+            addCacheEntry(identifier, token);
         }
     }
-    
+
     public void remove(String identifier) {
-        if (!StringUtils.isEmpty(identifier) && tokens.containsKey(identifier)) {
-            tokens.remove(identifier);
+        if (!StringUtils.isEmpty(identifier)) {
+            CacheEntry cacheEntry = tokens.remove(identifier);
+            if (cacheEntry != null) {
+                removeFromBucket(cacheEntry);
+            }
         }
     }
 
     public Collection<String> getTokenIdentifiers() {
         processTokenExpiry();
-        return tokens.keySet();
+        // leave out the tokens that expired within the current bucket, as getToken does
+        List<String> identifiers = new ArrayList<String>(tokens.size());
+        long current = System.currentTimeMillis();
+        for (Map.Entry<String, CacheEntry> entry : tokens.entrySet()) {
+            if (entry.getValue().getExpiryTime() >= current) {
+                identifiers.add(entry.getKey());
+            }
+        }
+        return identifiers;
     }
-    
+
     public Collection<SecurityToken> getExpiredTokens() {
         List<SecurityToken> expiredTokens = new ArrayList<SecurityToken>();
-        Date current = new Date();
-        synchronized (tokens) {
-            for (String id : tokens.keySet()) {
-                CacheEntry cacheEntry = tokens.get(id);
-                if (cacheEntry.getExpiry().before(current)) {
+        long current = System.currentTimeMillis();
+        for (Set<CacheEntry> bucket : expiryBuckets.headMap(getBucket(current), true).values()) {
+            for (CacheEntry cacheEntry : bucket) {
+                if (cacheEntry.getExpiryTime() < current) {
                     expiredTokens.add(cacheEntry.getSecurityToken());
                 }
             }
         }
         return expiredTokens;
     }
-    
+
     public SecurityToken getToken(String id) {
         processTokenExpiry();
-        
+
         CacheEntry cacheEntry = tokens.get(id);
         if (cacheEntry != null) {
+            if (cacheEntry.getExpiryTime() < System.currentTimeMillis()) {
+                // expired within the current bucket
+                evict(cacheEntry);
+                return null;
+            }
+            if (maxSize > 0) {
+                cacheEntry.touch();
+            }
             return cacheEntry.getSecurityToken();
         }
         return null;
     }
-    
+
+    /**
+     * Get the maximum number of tokens held by this store, 0 if there is no limit
+     */
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * Set the maximum number of tokens held by this store, 0 (the default) means no limit
+     */
+    public void setMaxSize(int maxSize) {
+        this.maxSize = maxSize;
+        evictOverflow();
+    }
+
+    /**
+     * Removes the tokens of the buckets that have completely expired. Only the head of
+     * the expiry index is looked at, so this is cheap when nothing has expired.
+     */
     protected void processTokenExpiry() {
-        Date current = new Date();
-        synchronized (tokens) {
-            for (String id : tokens.keySet()) {
-                CacheEntry cacheEntry = tokens.get(id);
-                if (cacheEntry.getExpiry().before(current)) {
-                    tokens.remove(id);
+        long currentBucket = getBucket(System.currentTimeMillis());
+        Map.Entry<Long, Set<CacheEntry>> first = expiryBuckets.firstEntry();
+        while (first != null && first.getKey() < currentBucket) {
+            // only the thread that removes the bucket evicts its entries
+            if (expiryBuckets.remove(first.getKey(), first.getValue())) {
+                for (CacheEntry cacheEntry : first.getValue()) {
+                    tokens.remove(cacheEntry.getIdentifier(), cacheEntry);
+                }
+            }
+            first = expiryBuckets.firstEntry();
+        }
+    }
+
+    private void addCacheEntry(String identifier, SecurityToken token) {
+        CacheEntry cacheEntry = createCacheEntry(identifier, token);
+        if (cacheEntry != null) {
+            addToBucket(cacheEntry);
+            CacheEntry old = tokens.put(identifier, cacheEntry);
+            if (old != null) {
+                removeFromBucket(old);
+            }
+            processTokenExpiry();
+            evictOverflow();
+        }
+    }
+
+    private void addToBucket(CacheEntry cacheEntry) {
+        Long key = getBucket(cacheEntry.getExpiryTime());
+        while (true) {
+            Set<CacheEntry> bucket = expiryBuckets.get(key);
+            if (bucket == null) {
+                Set<CacheEntry> newBucket = 
+                    Collections.newSetFromMap(new ConcurrentHashMap<CacheEntry, Boolean>());
+                bucket = expiryBuckets.putIfAbsent(key, newBucket);
+                if (bucket == null) {
+                    bucket = newBucket;
+                }
+            }
+            bucket.add(cacheEntry);
+            // retry if the bucket was expired while the entry was being added
+            if (expiryBuckets.get(key) == bucket) {
+                return;
+            }
+        }
+    }
+
+    private void removeFromBucket(CacheEntry cacheEntry) {
+        Set<CacheEntry> bucket = expiryBuckets.get(getBucket(cacheEntry.getExpiryTime()));
+        if (bucket != null) {
+            bucket.remove(cacheEntry);
+        }
+    }
+
+    private void evictOverflow() {
+        int max = maxSize;
+        if (max <= 0) {
+            return;
+        }
+        while (tokens.size() > max) {
+            CacheEntry lru = null;
+            int sampled = 0;
+            for (Set<CacheEntry> bucket : expiryBuckets.values()) {
+                for (CacheEntry cacheEntry : bucket) {
+                    if (lru == null || cacheEntry.getLastAccess() - lru.getLastAccess() < 0) {
+                        lru = cacheEntry;
+                    }
+                    if (++sampled == EVICTION_SAMPLE_SIZE) {
+                        break;
+                    }
                 }
+                if (sampled == EVICTION_SAMPLE_SIZE) {
+                    break;
+                }
+            }
+            if (lru == null) {
+                return;
             }
+            evict(lru);
         }
     }
-    
-    private CacheEntry createCacheEntry(SecurityToken token) {
+
+    private void evict(CacheEntry cacheEntry) {
+        removeFromBucket(cacheEntry);
+        // only remove the mapping if the token was not replaced in the meantime
+        tokens.remove(cacheEntry.getIdentifier(), cacheEntry);
+    }
+
+    private static Long getBucket(long time) {
+        return Long.valueOf(time / 1000L);
+    }
+
+    private CacheEntry createCacheEntry(String identifier, SecurityToken token) {
         CacheEntry cacheEntry = null;
         if (token.getExpires() == null) {
             Date expires = new Date();
             long currentTime = expires.getTime();
             expires.setTime(currentTime + (DEFAULT_TTL * 1000L));
-            cacheEntry = new CacheEntry(token, expires);
+            cacheEntry = new CacheEntry(identifier, token, expires);
         } else {
             Date expires = token.getExpires();
             Date current = new Date();
@@ -119,21 +259,33 @@ public class MemoryTokenStore implements TokenStore {
             if (expiryTime > (MAX_TTL * 1000L)) {
                 expires.setTime(current.getTime() + (DEFAULT_TTL * 1000L));
             }
-            cacheEntry = new CacheEntry(token, expires);
+            cacheEntry = new CacheEntry(identifier, token, expires);
         }
         return cacheEntry;
     }
-    
+
     private static class CacheEntry {
-        
+
+        private final String identifier;
         private final SecurityToken securityToken;
-        private final Date expires;
-        
-        public CacheEntry(SecurityToken securityToken, Date expires) {
+        private final long expiryTime;
+        private volatile long lastAccess;
+
+        public CacheEntry(String identifier, SecurityToken securityToken, Date expires) {
+            this.identifier = identifier;
             this.securityToken = securityToken;
-            this.expires = expires;
+            this.expiryTime = expires.getTime();
+            this.lastAccess = System.nanoTime();
+        }
+
+        /**
+         * Get the identifier this CacheEntry is stored under
+         * @return the identifier this CacheEntry is stored under
+         */
+        public String getIdentifier() {
+            return identifier;
         }
-        
+
         /**
          * Get the SecurityToken
          * @return the SecurityToken
@@ -141,15 +293,23 @@ public class MemoryTokenStore implements TokenStore {
         public SecurityToken getSecurityToken() {
             return securityToken;
         }
-        
+
         /**
          * Get when this CacheEntry is to be removed from the cache
-         * @return when this CacheEntry is to be removed from the cache
+         * @return when this CacheEntry is to be removed from the cache, in milliseconds
          */
-        public Date getExpiry() {
-            return expires;
+        public long getExpiryTime() {
+            return expiryTime;
+        }
+
+        public long getLastAccess() {
+            return lastAccess;
         }
-        
+
+        public void touch() {
+            lastAccess = System.nanoTime();
+        }
+
     }
- 
+
 }
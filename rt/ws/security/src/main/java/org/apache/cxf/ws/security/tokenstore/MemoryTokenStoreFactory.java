@@ -19,7 +19,12 @@
 
 package org.apache.cxf.ws.security.tokenstore;
 
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.apache.cxf.common.logging.LogUtils;
 import org.apache.cxf.message.Message;
+import org.apache.cxf.ws.security.SecurityConstants;
 
 
 /**
@@ -27,8 +32,22 @@ import org.apache.cxf.message.Message;
  */
 public class MemoryTokenStoreFactory extends TokenStoreFactory {
     
+    private static final Logger LOG = LogUtils.getL7dLogger(MemoryTokenStoreFactory.class);
+    
     public TokenStore newTokenStore(String key, Message message) {
-        return new MemoryTokenStore();
+        Object o = message.getContextualProperty(SecurityConstants.TOKEN_STORE_MAX_SIZE);
+        int maxSize = 0;
+        if (o instanceof Number) {
+            maxSize = ((Number)o).intValue();
+        } else if (o instanceof String) {
+            try {
+                maxSize = Integer.parseInt(((String)o).trim());
+            } catch (NumberFormatException ex) {
+                LOG.log(Level.WARNING, "Invalid " + SecurityConstants.TOKEN_STORE_MAX_SIZE 
+                        + " value " + o + ", the token store is not bounded");
+            }
+        }
+        return new MemoryTokenStore(maxSize);
     }
     
 }
@@ -41,6 +41,7 @@ import javax.xml.stream.XMLStreamException;
 import javax.xml.stream.XMLStreamReader;
 import javax.xml.transform.dom.DOMSource;
 
+import org.w3c.dom.Document;
 import org.w3c.dom.Element;
 import org.w3c.dom.Node;
 
@@ -54,6 +55,7 @@ import org.apache.cxf.common.i18n.Message;
 import org.apache.cxf.common.logging.LogUtils;
 import org.apache.cxf.endpoint.Endpoint;
 import org.apache.cxf.helpers.CastUtils;
+import org.apache.cxf.helpers.DOMUtils;
 import org.apache.cxf.interceptor.Fault;
 import org.apache.cxf.message.MessageUtils;
 import org.apache.cxf.phase.Phase;
@@ -106,6 +108,17 @@ public class WSS4JInInterceptor extends AbstractWSS4JInterceptor {
 
     public static final String SECURITY_PROCESSED = WSS4JInInterceptor.class.getName() + ".DONE";
     
+    /**
+     * If set to true, and the configured actions are limited to UsernameToken and Timestamp,
+     * a Security header that only contains those tokens is processed straight from the
+     * headers read off the stream.  The SOAP body is then not copied into SAAJ and continues
+     * to stream to the data binding.  Any other message falls back to full SAAJ processing.
+     * doResults is then given the SOAP Header element read off the stream and the Body
+     * element which is still empty at that point.
+     * Not used in the WS-SecurityPolicy case.  The default is false.
+     */
+    public static final String STREAMING = "ws-security.in.streaming";
+    
     private static final Logger LOG = LogUtils.getL7dLogger(WSS4JInInterceptor.class);
     private static final Logger TIME_LOG = LogUtils.getL7dLogger(WSS4JInInterceptor.class,
                                                                  null,
@@ -209,9 +222,6 @@ public class WSS4JInInterceptor extends AbstractWSS4JInterceptor {
         }
         reqData.setWssConfig(config);
         
-                
-        SOAPMessage doc = getSOAPMessage(msg);
-        
         boolean doDebug = LOG.isLoggable(Level.FINE);
         boolean doTimeLog = TIME_LOG.isLoggable(Level.FINE);
 
@@ -279,7 +289,11 @@ public class WSS4JInInterceptor extends AbstractWSS4JInterceptor {
             if (doTimeLog) {
                 t1 = System.currentTimeMillis();
             }
-            Element elem = WSSecurityUtil.getSecurityHeader(doc.getSOAPPart(), actor);
+            Element elem = getStreamingSecurityHeader(msg, actor, actions);
+            SOAPMessage doc = elem == null ? getSOAPMessage(msg) : null;
+            if (doc != null) {
+                elem = WSSecurityUtil.getSecurityHeader(doc.getSOAPPart(), actor);
+            }
 
             List<WSSecurityEngineResult> wsResult = engine.processSecurityHeader(
                 elem, reqData
@@ -299,14 +313,15 @@ public class WSS4JInInterceptor extends AbstractWSS4JInterceptor {
                 checkActions(msg, reqData, wsResult, actions);
                 doResults(
                     msg, actor, 
-                    SAAJUtils.getHeader(doc),
-                    SAAJUtils.getBody(doc),
+                    doc == null ? (Element)elem.getParentNode() : SAAJUtils.getHeader(doc),
+                    doc == null ? getStreamedBody(elem) : SAAJUtils.getBody(doc),
                     wsResult, utWithCallbacks
                 );
             } else { // no security header found
                 // Create an empty result list to pass into the required validation
                 // methods.
                 wsResult = new ArrayList<WSSecurityEngineResult>();
+                doc = getSOAPMessage(msg);
                 if (doc.getSOAPPart().getEnvelope().getBody().hasFault()) {
                     LOG.warning("Request does not contain Security header, " 
                                 + "but it's a fault.");
@@ -320,20 +335,15 @@ public class WSS4JInInterceptor extends AbstractWSS4JInterceptor {
                     // the unasserted assertions will provide confirmation that
                     // security was not sufficient.
                     // checkActions(msg, reqData, wsResult, actions);
-                    doResults(msg, actor, 
-                              SAAJUtils.getHeader(doc),
-                              SAAJUtils.getBody(doc),
-                              wsResult);
                 } else {
                     checkActions(msg, reqData, wsResult, actions);
-                    doResults(msg, actor,
-                              SAAJUtils.getHeader(doc),
-                              SAAJUtils.getBody(doc),
-                              wsResult);
                 }
+                doResults(msg, actor,
+                          SAAJUtils.getHeader(doc),
+                          SAAJUtils.getBody(doc),
+                          wsResult);
             }
-            advanceBody(msg, SAAJUtils.getBody(doc));
-            SAAJInInterceptor.replaceHeaders(doc, msg);
+            replaceContent(msg, doc);
 
             if (doTimeLog) {
                 t3 = System.currentTimeMillis();
@@ -361,6 +371,77 @@ public class WSS4JInInterceptor extends AbstractWSS4JInterceptor {
         }
     }
 
+    private void replaceContent(
+        SoapMessage msg, SOAPMessage doc
+    ) throws SOAPException, XMLStreamException, WSSecurityException {
+        // nothing to replace if the body is still streaming
+        if (doc != null) {
+            advanceBody(msg, SAAJUtils.getBody(doc));
+            SAAJInInterceptor.replaceHeaders(doc, msg);
+        }
+    }
+    
+    /**
+     * Returns the Security header to process without converting the body to SAAJ, or null
+     * if the streaming mode is off or the message needs the full SAAJ model.
+     */
+    private Element getStreamingSecurityHeader(
+        SoapMessage msg, String actor, List<Integer> actions
+    ) throws WSSecurityException {
+        if (!isStreaming(msg, actions)) {
+            return null;
+        }
+        // The SAAJPreInInterceptor has the headers read into the SOAPPart, the body is
+        // only filled in by the SAAJInInterceptor
+        Node part = msg.getContent(Node.class);
+        if (!(part instanceof Document)) {
+            return null;
+        }
+        Element elem = WSSecurityUtil.getSecurityHeader((Document)part, actor);
+        if (elem == null || getStreamedBody(elem) == null || !hasStreamableTokensOnly(elem)) {
+            return null;
+        }
+        return elem;
+    }
+    
+    private boolean isStreaming(SoapMessage msg, List<Integer> actions) {
+        if (ignoreActions || !MessageUtils.isTrue(getProperty(msg, STREAMING))) {
+            return false;
+        }
+        for (Integer a : actions) {
+            if (a.intValue() != WSConstants.UT && a.intValue() != WSConstants.UT_NOPASSWORD
+                && a.intValue() != WSConstants.TS) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    private static boolean hasStreamableTokensOnly(Element securityHeader) {
+        Element child = DOMUtils.getFirstElement(securityHeader);
+        if (child == null) {
+            return false;
+        }
+        while (child != null) {
+            String ns = child.getNamespaceURI();
+            String ln = child.getLocalName();
+            if (!(WSConstants.WSSE_NS.equals(ns) && WSConstants.USERNAME_TOKEN_LN.equals(ln))
+                && !(WSConstants.WSU_NS.equals(ns) && WSConstants.TIMESTAMP_TOKEN_LN.equals(ln))) {
+                return false;
+            }
+            child = DOMUtils.getNextElement(child);
+        }
+        return true;
+    }
+    
+    /**
+     * Returns the Body element which follows the SOAP Header read off the stream, it has 
+     * no content as the body has not been read yet.
+     */
+    private static Element getStreamedBody(Element securityHeader) {
+        return DOMUtils.getNextElement((Element)securityHeader.getParentNode());
+    }
+
     private void checkActions(
         SoapMessage msg, 
         RequestData reqData, 
@@ -77,6 +77,28 @@ public class MemoryTokenStoreTest extends org.junit.Assert {
         assertTrue(store.getTokenIdentifiers().isEmpty());
     }
     
+    // tests that a token which expired within the current second is not listed
+    @org.junit.Test
+    public void testTokenJustExpired() throws Exception {
+        MemoryTokenStore memoryStore = new MemoryTokenStore();
+        SecurityToken token = new SecurityToken("justExpired");
+        Date expiry = new Date();
+        expiry.setTime(expiry.getTime() - 1L);
+        token.setExpires(expiry);
+        memoryStore.add(token);
+        assertTrue(memoryStore.getTokenIdentifiers().isEmpty());
+        assertNull(memoryStore.getToken("justExpired"));
+    }
+    
+    // tests that an invalid maximum size is ignored
+    @org.junit.Test
+    public void testInvalidMaxSize() {
+        Message message = new MessageImpl();
+        message.put(SecurityConstants.TOKEN_STORE_MAX_SIZE, "ten");
+        TokenStore memoryStore = new MemoryTokenStoreFactory().newTokenStore("invalid", message);
+        assertEquals(0, ((MemoryTokenStore)memoryStore).getMaxSize());
+    }
+    
     // tests TokenStore apis for removing from the cache.
     @org.junit.Test
     public void testTokenRemove() {
@@ -93,4 +115,42 @@ public class MemoryTokenStoreTest extends org.junit.Assert {
         store.remove(token2.getId());
         assertTrue(store.getTokenIdentifiers().size() == 0);
     }
+    
+    // tests that the least recently used tokens are evicted when the store is full
+    @org.junit.Test
+    public void testTokenMaxSize() {
+        MemoryTokenStore boundedStore = new MemoryTokenStore(2);
+        SecurityToken token1 = new SecurityToken("token1");
+        SecurityToken token2 = new SecurityToken("token2");
+        SecurityToken token3 = new SecurityToken("token3");
+        boundedStore.add(token1);
+        boundedStore.add(token2);
+        assertEquals(token1, boundedStore.getToken("token1"));
+        boundedStore.add(token3);
+        assertEquals(2, boundedStore.getTokenIdentifiers().size());
+        assertEquals(token1, boundedStore.getToken("token1"));
+        assertNull(boundedStore.getToken("token2"));
+        assertEquals(token3, boundedStore.getToken("token3"));
+        
+        boundedStore.setMaxSize(1);
+        assertEquals(1, boundedStore.getTokenIdentifiers().size());
+    }
+    
+    // tests that replacing a token keeps a single entry for the identifier
+    @org.junit.Test
+    public void testTokenReplace() {
+        MemoryTokenStore memoryStore = new MemoryTokenStore();
+        SecurityToken token = new SecurityToken("token");
+        SecurityToken newToken = new SecurityToken("token");
+        Date expiry = new Date();
+        expiry.setTime(expiry.getTime() + 60000L);
+        newToken.setExpires(expiry);
+        memoryStore.add(token);
+        memoryStore.add(newToken);
+        assertEquals(1, memoryStore.getTokenIdentifiers().size());
+        assertSame(newToken, memoryStore.getToken("token"));
+        memoryStore.remove("token");
+        assertTrue(memoryStore.getTokenIdentifiers().isEmpty());
+        assertTrue(memoryStore.getExpiredTokens().isEmpty());
+    }
 }
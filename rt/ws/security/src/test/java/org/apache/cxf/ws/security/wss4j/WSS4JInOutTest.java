@@ -33,16 +33,20 @@ import javax.xml.namespace.QName;
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.soap.MessageFactory;
+import javax.xml.soap.SOAPException;
 import javax.xml.soap.SOAPMessage;
 import javax.xml.soap.SOAPPart;
+import javax.xml.stream.XMLStreamException;
 import javax.xml.stream.XMLStreamReader;
 import javax.xml.stream.XMLStreamWriter;
 import javax.xml.transform.dom.DOMSource;
 
 import org.w3c.dom.Document;
+import org.w3c.dom.Element;
 
 import org.apache.cxf.binding.soap.SoapMessage;
 import org.apache.cxf.binding.soap.interceptor.MustUnderstandInterceptor;
+import org.apache.cxf.binding.soap.interceptor.ReadHeadersInterceptor;
 import org.apache.cxf.binding.soap.saaj.SAAJInInterceptor;
 import org.apache.cxf.helpers.CastUtils;
 import org.apache.cxf.helpers.DOMUtils.NullResolver;
@@ -59,6 +63,7 @@ import org.apache.cxf.staxutils.StaxUtils;
 import org.apache.ws.security.WSConstants;
 import org.apache.ws.security.WSDataRef;
 import org.apache.ws.security.WSSecurityEngineResult;
+import org.apache.ws.security.WSSecurityException;
 import org.apache.ws.security.WSUsernameTokenPrincipal;
 import org.apache.ws.security.handler.WSHandlerConstants;
 import org.apache.ws.security.handler.WSHandlerResult;
@@ -290,6 +295,62 @@ public class WSS4JInOutTest extends AbstractSecurityTest {
         }
     }
     
+    @Test
+    public void testUsernameTokenStreaming() throws Exception {
+        Map<String, String> outProperties = new HashMap<String, String>();
+        outProperties.put(
+            WSHandlerConstants.ACTION, 
+            WSHandlerConstants.USERNAME_TOKEN + " " + WSHandlerConstants.TIMESTAMP
+        );
+        outProperties.put(WSHandlerConstants.PASSWORD_TYPE, WSConstants.PW_TEXT);
+        outProperties.put(WSHandlerConstants.USER, "alice");
+        outProperties.put("password", "alicePassword");
+        
+        Map<String, String> inProperties = new HashMap<String, String>();
+        inProperties.put(
+            WSHandlerConstants.ACTION, 
+            WSHandlerConstants.USERNAME_TOKEN + " " + WSHandlerConstants.TIMESTAMP
+        );
+        inProperties.put(WSHandlerConstants.PASSWORD_TYPE, WSConstants.PW_TEXT);
+        inProperties.put(
+            WSHandlerConstants.PW_CALLBACK_CLASS, 
+            "org.apache.cxf.ws.security.wss4j.TestPwdCallback"
+        );
+        inProperties.put(WSS4JInInterceptor.STREAMING, "true");
+        
+        byte[] docbytes = makeOutMessage(outProperties);
+        
+        //
+        // The body is left on the stream for the data binding
+        //
+        SoapMessage inmsg = readHeaders(docbytes);
+        XMLStreamReader reader = inmsg.getContent(XMLStreamReader.class);
+        ResultsRecordingInInterceptor inHandler = new ResultsRecordingInInterceptor();
+        for (String key : inProperties.keySet()) {
+            inHandler.setProperty(key, inProperties.get(key));
+        }
+        inHandler.handleMessage(inmsg);
+        assertSame(reader, inmsg.getContent(XMLStreamReader.class));
+        assertEquals("Body", reader.getLocalName());
+        // doResults still gets the header and body elements
+        assertEquals("Header", inHandler.soapHeader.getLocalName());
+        assertEquals("Body", inHandler.soapBody.getLocalName());
+        assertNotNull(inmsg.get(WSS4JInInterceptor.PRINCIPAL_RESULT));
+        assertNotNull(inmsg.get(WSS4JInInterceptor.TIMESTAMP_RESULT));
+        List<WSHandlerResult> handlerResults = getResults(inmsg);
+        assertEquals(2, handlerResults.get(0).getResults().size());
+        
+        //
+        // Without the option the body goes through SAAJ as before
+        //
+        inProperties.remove(WSS4JInInterceptor.STREAMING);
+        inmsg = readHeaders(docbytes);
+        reader = inmsg.getContent(XMLStreamReader.class);
+        createInInterceptor(inProperties).handleMessage(inmsg);
+        assertNotSame(reader, inmsg.getContent(XMLStreamReader.class));
+        assertNotNull(inmsg.get(WSS4JInInterceptor.PRINCIPAL_RESULT));
+    }
+    
     @Test
     public void testCustomProcessor() throws Exception {
         Document doc = readDocument("wsse-request-clean.xml");
@@ -531,6 +592,50 @@ public class WSS4JInOutTest extends AbstractSecurityTest {
         return handlerResults;
     }
     
+    private byte[] makeOutMessage(Map<String, String> outProperties) throws Exception {
+        Document doc = readDocument("wsse-request-clean.xml");
+
+        WSS4JOutInterceptor ohandler = new WSS4JOutInterceptor();
+        PhaseInterceptor<SoapMessage> handler = ohandler.createEndingInterceptor();
+
+        SoapMessage msg = new SoapMessage(new MessageImpl());
+        Exchange ex = new ExchangeImpl();
+        ex.setOutMessage(msg);
+
+        SOAPMessage saajMsg = MessageFactory.newInstance().createMessage();
+        SOAPPart part = saajMsg.getSOAPPart();
+        part.setContent(new DOMSource(doc));
+        saajMsg.saveChanges();
+
+        msg.setContent(SOAPMessage.class, saajMsg);
+        for (String key : outProperties.keySet()) {
+            msg.put(key, outProperties.get(key));
+        }
+        handler.handleMessage(msg);
+        
+        return getMessageBytes(part);
+    }
+    
+    private SoapMessage readHeaders(byte[] docbytes) throws Exception {
+        SoapMessage inmsg = new SoapMessage(new MessageImpl());
+        Exchange ex = new ExchangeImpl();
+        ex.setInMessage(inmsg);
+        inmsg.setContent(
+            XMLStreamReader.class, StaxUtils.createXMLStreamReader(new ByteArrayInputStream(docbytes))
+        );
+        SAAJInInterceptor.SAAJPreInInterceptor.INSTANCE.handleMessage(inmsg);
+        new ReadHeadersInterceptor(null).handleMessage(inmsg);
+        return inmsg;
+    }
+    
+    private WSS4JInInterceptor createInInterceptor(Map<String, String> inProperties) {
+        WSS4JInInterceptor inHandler = new WSS4JInInterceptor();
+        for (String key : inProperties.keySet()) {
+            inHandler.setProperty(key, inProperties.get(key));
+        }
+        return inHandler;
+    }
+    
     private SoapMessage makeInvocation(
         Map<String, String> outProperties,
         List<String> xpaths,
@@ -597,4 +702,23 @@ public class WSS4JInOutTest extends AbstractSecurityTest {
     /*private*/ static String serialize(Document doc) {
         return XMLUtils.toString(doc);
     }
+    
+    private static class ResultsRecordingInInterceptor extends WSS4JInInterceptor {
+        private Element soapHeader;
+        private Element soapBody;
+        
+        @Override
+        protected void doResults(
+            SoapMessage msg, 
+            String actor,
+            Element header,
+            Element body,
+            List<WSSecurityEngineResult> wsResult, 
+            boolean utWithCallbacks
+        ) throws SOAPException, XMLStreamException, WSSecurityException {
+            soapHeader = header;
+            soapBody = body;
+            super.doResults(msg, actor, header, body, wsResult, utWithCallbacks);
+        }
+    }
 }